@@ -15,18 +15,32 @@ package org.asynchttpclient;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.util.Timer;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.cache.HttpCache;
+import org.asynchttpclient.cache.RequestCoalescer;
+import org.asynchttpclient.channel.breaker.CircuitBreaker;
+import org.asynchttpclient.channel.endpoint.EndpointProvider;
+import org.asynchttpclient.channel.endpoint.EndpointSelector;
+import org.asynchttpclient.channel.pool.ConnectionLimiter;
 import org.asynchttpclient.channel.pool.ConnectionStrategy;
 import org.asynchttpclient.netty.EagerNettyResponseBodyPart;
 import org.asynchttpclient.netty.LazyNettyResponseBodyPart;
+import org.asynchttpclient.request.body.RequestBodyCompression;
+import org.asynchttpclient.retry.RetryPolicy;
 import org.asynchttpclient.netty.NettyResponseBodyPart;
+import org.asynchttpclient.netty.RetainedNettyResponseBodyPart;
 import org.asynchttpclient.netty.channel.pool.ChannelPool;
 import org.asynchttpclient.netty.handler.DefaultConnectionStrategy;
 import org.asynchttpclient.netty.ws.NettyWebSocket;
@@ -43,6 +57,22 @@ public class AdvancedConfig {
     private Timer nettyTimer;
     private NettyWebSocketFactory nettyWebSocketFactory = new DefaultNettyWebSocketFactory();
     private ConnectionStrategy connectionStrategy = new DefaultConnectionStrategy();
+    private boolean eventLoopAffinity;
+    private long connectAttemptDelay;
+    private int maxPipelinedRequests;
+    private boolean eventLoopTimeouts;
+    private int maxPendingAcquires;
+    private long acquireTimeout;
+    private ConnectionLimiter connectionLimiter;
+    private EndpointSelector endpointSelector;
+    private EndpointProvider endpointProvider;
+    private CircuitBreaker circuitBreaker;
+    private RetryPolicy retryPolicy;
+    private HttpCache httpCache;
+    private RequestCoalescer requestCoalescer;
+    private final Map<String, ContentDecoderFactory> contentDecoderFactories = new HashMap<>();
+    private List<String> acceptEncodings;
+    private RequestBodyCompression requestBodyCompression;
 
     /**
      * @param name the name of the ChannelOption
@@ -132,11 +162,219 @@ public class AdvancedConfig {
         this.connectionStrategy = connectionStrategy;
     }
     
+    public boolean isEventLoopAffinity() {
+        return eventLoopAffinity;
+    }
+
+    /**
+     * @param eventLoopAffinity if idle channels should be sharded per event loop, and requests sent from an event loop should
+     *            preferably use channels registered on that same event loop
+     */
+    public void setEventLoopAffinity(boolean eventLoopAffinity) {
+        this.eventLoopAffinity = eventLoopAffinity;
+    }
+
+    public long getConnectAttemptDelay() {
+        return connectAttemptDelay;
+    }
+
+    /**
+     * @param connectAttemptDelay when a name resolves to several addresses, the delay in ms before racing a connect attempt to the next
+     *            address while the previous ones are still pending (RFC 8305). Racing is opt-in: the default, 0, tries the addresses one
+     *            after the other. RFC 8305 recommends 250.
+     */
+    public void setConnectAttemptDelay(long connectAttemptDelay) {
+        this.connectAttemptDelay = connectAttemptDelay;
+    }
+
+    public int getMaxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    /**
+     * @param maxPipelinedRequests the maximum number of idempotent requests in flight on a single keep-alive connection when the pool
+     *            has no idle connection to offer. 0 or 1 disables HTTP pipelining.
+     */
+    public void setMaxPipelinedRequests(int maxPipelinedRequests) {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    public boolean isEventLoopTimeouts() {
+        return eventLoopTimeouts;
+    }
+
+    /**
+     * @param eventLoopTimeouts if the request and read timeouts should be scanned in batches on the channels' event loops instead of
+     *            scheduling timer tasks on the HashedWheelTimer for every request
+     */
+    public void setEventLoopTimeouts(boolean eventLoopTimeouts) {
+        this.eventLoopTimeouts = eventLoopTimeouts;
+    }
+
+    public int getMaxPendingAcquires() {
+        return maxPendingAcquires;
+    }
+
+    /**
+     * @param maxPendingAcquires the maximum number of requests per partition that can wait for a connection when the connection
+     *            limits are reached, instead of failing right away. 0 disables waiting.
+     */
+    public void setMaxPendingAcquires(int maxPendingAcquires) {
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    /**
+     * @param acquireTimeout how long a request can wait for a connection, in ms. 0 means the request timeout. The time spent waiting
+     *            doesn't count in the request timeout.
+     */
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public ConnectionLimiter getConnectionLimiter() {
+        return connectionLimiter;
+    }
+
+    /**
+     * @param connectionLimiter the limiter of the connections per partition, overriding
+     *            {@link AsyncHttpClientConfig#getMaxConnectionsPerHost()}. Keep a reference to it in order to monitor or change the
+     *            limits at runtime.
+     */
+    public void setConnectionLimiter(ConnectionLimiter connectionLimiter) {
+        this.connectionLimiter = connectionLimiter;
+    }
+
+    public EndpointSelector getEndpointSelector() {
+        return endpointSelector;
+    }
+
+    /**
+     * @param endpointSelector if set, balance the requests that don't go through a proxy across the endpoints of their
+     *            host, with connections pooled per endpoint, instead of using the other endpoints only as a failover
+     */
+    public void setEndpointSelector(EndpointSelector endpointSelector) {
+        this.endpointSelector = endpointSelector;
+    }
+
+    public EndpointProvider getEndpointProvider() {
+        return endpointProvider;
+    }
+
+    /**
+     * @param endpointProvider the provider of the endpoints to balance the requests across, taking precedence over the
+     *            name resolution of the requests. Only used along with an {@link EndpointSelector}.
+     */
+    public void setEndpointProvider(EndpointProvider endpointProvider) {
+        this.endpointProvider = endpointProvider;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @param circuitBreaker if set, requests to a partition whose circuit is open fail fast. Keep a reference to it in order
+     *            to monitor the state of the partitions.
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param retryPolicy if set, decides whether and when requests are retried, unless the request has its own
+     *            policy. If not set, failed requests that can be replayed are retried right away.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    /**
+     * @param httpCache if set, GET responses are stored and fresh ones are served without a request
+     */
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * @param requestCoalescer if set, concurrent identical GET and HEAD requests share a single request, including
+     *            the ones the {@link HttpCache} can't answer
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * @param contentDecoderFactory a factory of decoders for a content coding that isn't supported out of the box
+     * @return this instance of AdvancedConfig
+     */
+    public AdvancedConfig addContentDecoderFactory(ContentDecoderFactory contentDecoderFactory) {
+        contentDecoderFactories.put(contentDecoderFactory.getEncoding().toLowerCase(Locale.ENGLISH), contentDecoderFactory);
+        return this;
+    }
+
+    public Map<String, ContentDecoderFactory> getContentDecoderFactories() {
+        return contentDecoderFactories;
+    }
+
+    public List<String> getAcceptEncodings() {
+        return acceptEncodings;
+    }
+
+    /**
+     * @param acceptEncodings the content codings sent in the Accept-Encoding header when compression is enforced, by
+     *            order of preference. Each of them must be gzip, deflate, identity or have a registered
+     *            {@link ContentDecoderFactory}. Defaults to gzip and deflate.
+     */
+    public void setAcceptEncodings(String... acceptEncodings) {
+        this.acceptEncodings = Arrays.asList(acceptEncodings);
+    }
+
+    public RequestBodyCompression getRequestBodyCompression() {
+        return requestBodyCompression;
+    }
+
+    /**
+     * @param requestBodyCompression if set, request bodies are compressed
+     */
+    public void setRequestBodyCompression(RequestBodyCompression requestBodyCompression) {
+        this.requestBodyCompression = requestBodyCompression;
+    }
+
     public static interface AdditionalPipelineInitializer {
 
         void initPipeline(ChannelPipeline pipeline) throws Exception;
     }
 
+    public static interface ContentDecoderFactory {
+
+        /**
+         * @return the content coding, as found in the Content-Encoding header, such as br or zstd
+         */
+        String getEncoding();
+
+        /**
+         * @return a new handler, for a single response body, that decodes the ByteBufs it reads into ByteBufs
+         *         allocated from the allocator of its context
+         */
+        ChannelHandler newDecoder();
+    }
+
     public static interface ResponseBodyPartFactory {
 
         NettyResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last);
@@ -150,6 +388,10 @@ public class AdvancedConfig {
         }
     }
 
+    /**
+     * Parts are only readable during {@link org.asynchttpclient.AsyncHandler#onBodyPartReceived(org.asynchttpclient.HttpResponseBodyPart)},
+     * see {@link RetainedResponseBodyPartFactory} for parts that can be processed later on.
+     */
     public static class LazyResponseBodyPartFactory implements ResponseBodyPartFactory {
 
         @Override
@@ -158,6 +400,29 @@ public class AdvancedConfig {
         }
     }
 
+    /**
+     * Retain the received ByteBufs instead of copying them, so the parts can be
+     * processed after the callback returns and the {@link org.asynchttpclient.Response}
+     * is backed by a CompositeByteBuf. Parts, or the Responses built from them, then
+     * have to be released.
+     */
+    public static class RetainedResponseBodyPartFactory implements ResponseBodyPartFactory {
+
+        private final AtomicInteger unreleased = new AtomicInteger();
+
+        @Override
+        public NettyResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last) {
+            return new RetainedNettyResponseBodyPart(buf, last, unreleased);
+        }
+
+        /**
+         * @return the number of parts produced by this factory that weren't released yet
+         */
+        public int getUnreleasedCount() {
+            return unreleased.get();
+        }
+    }
+
     public static interface NettyWebSocketFactory {
         NettyWebSocket newNettyWebSocket(Channel channel, AsyncHttpClientConfig config);
     }
@@ -17,6 +17,7 @@
 package org.asynchttpclient;
 
 import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 /**
@@ -240,4 +241,27 @@ public interface AsyncHttpClient extends Closeable {
      * @return a {@link Future} of type Response
      */
     ListenableFuture<Response> executeRequest(Request request);
+
+    /**
+     * Open connections to the target of a request ahead of time and offer them to the connection pool.
+     *
+     * @param request     the {@link Request} whose target (and pool partition) the connections are opened to
+     * @param connections the number of connections to open
+     * @return a {@link CompletableFuture} of the number of connections that were actually pooled
+     */
+    default CompletableFuture<Integer> prewarm(Request request, int connections) {
+        CompletableFuture<Integer> whenPrewarmed = new CompletableFuture<>();
+        whenPrewarmed.completeExceptionally(new UnsupportedOperationException("prewarm"));
+        return whenPrewarmed;
+    }
+
+    /**
+     * Maintain a minimum number of idle connections to the target of a request, refilled in the background.
+     *
+     * @param request            the {@link Request} whose target (and pool partition) the connections are opened to
+     * @param minIdleConnections the number of idle connections to maintain, 0 to stop maintaining them
+     */
+    default void setMinIdleConnections(Request request, int minIdleConnections) {
+        throw new UnsupportedOperationException("setMinIdleConnections");
+    }
 }
@@ -16,11 +16,15 @@
  */
 package org.asynchttpclient;
 
+import static org.asynchttpclient.util.ProxyUtils.getProxyServer;
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timer;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.asynchttpclient.cache.HttpCache;
+import org.asynchttpclient.cache.RequestCoalescer;
 import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.FilterException;
 import org.asynchttpclient.filter.RequestFilter;
@@ -40,6 +44,8 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
     private final NettyRequestSender requestSender;
     private final boolean allowStopNettyTimer;
     private final Timer nettyTimer;
+    private final HttpCache httpCache;
+    private final HttpCache.Transport transport;
 
     /**
      * Default signature calculator to use for all requests constructed by this client instance.
@@ -75,8 +81,23 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         nettyTimer = allowStopNettyTimer ? newNettyTimer() : advancedConfig.getNettyTimer();
 
         channelManager = new ChannelManager(config, advancedConfig, nettyTimer);
-        requestSender = new NettyRequestSender(config, channelManager, nettyTimer, closed);
+        requestSender = new NettyRequestSender(config, advancedConfig, channelManager, nettyTimer, closed);
         channelManager.configureBootstraps(requestSender);
+
+        httpCache = advancedConfig.getHttpCache();
+        final HttpCache.Transport networkTransport = new HttpCache.Transport() {
+            @Override
+            public <T> ListenableFuture<T> send(Request request, AsyncHandler<T> asyncHandler) {
+                return requestSender.sendRequest(request, asyncHandler, null, false);
+            }
+        };
+        final RequestCoalescer requestCoalescer = advancedConfig.getRequestCoalescer();
+        transport = requestCoalescer == null ? networkTransport : new HttpCache.Transport() {
+            @Override
+            public <T> ListenableFuture<T> send(Request request, AsyncHandler<T> asyncHandler) {
+                return requestCoalescer.execute(request, asyncHandler, networkTransport);
+            }
+        };
     }
 
     private Timer newNettyTimer() {
@@ -199,7 +220,7 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
 
     private <T> ListenableFuture<T> execute(Request request, final AsyncHandler<T> asyncHandler) {
         try {
-            return requestSender.sendRequest(request, asyncHandler, null, false);
+            return httpCache != null ? httpCache.execute(request, asyncHandler, config, transport) : transport.send(request, asyncHandler);
         } catch (Exception e) {
             asyncHandler.onThrowable(e);
             return new ListenableFuture.CompletedFailure<>(e);
@@ -234,6 +255,16 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         return fc;
     }
 
+    @Override
+    public CompletableFuture<Integer> prewarm(Request request, int connections) {
+        return channelManager.prewarm(request, getProxyServer(config, request), connections);
+    }
+
+    @Override
+    public void setMinIdleConnections(Request request, int minIdleConnections) {
+        channelManager.setMinIdleConnections(request, getProxyServer(config, request), minIdleConnections);
+    }
+
     public ChannelPool getChannelPool() {
         return channelManager.getChannelPool();
     }
@@ -71,4 +71,14 @@ public abstract class HttpResponseBodyPart {
      * @return true of the underlying connection will be closed once the response has been fully processed.
      */
     public abstract boolean isUnderlyingConnectionToBeClosed();
+
+    /**
+     * Release the resources held by this part. Parts are only readable during
+     * {@link AsyncHandler#onBodyPartReceived(HttpResponseBodyPart)}, unless they
+     * are produced by a retaining factory, in which case they stay readable until
+     * released and the receiver is responsible for releasing them.
+     * Releasing an already released part has no effect.
+     */
+    public void release() {
+    }
 }
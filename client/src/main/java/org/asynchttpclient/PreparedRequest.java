@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.ACCEPT;
+import static io.netty.handler.codec.http.HttpHeaders.Names.COOKIE;
+import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
+import static org.asynchttpclient.util.HttpUtils.hostHeader;
+import static org.asynchttpclient.util.MiscUtils.isNonEmpty;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.asynchttpclient.channel.NameResolver;
+import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning;
+import org.asynchttpclient.cookie.Cookie;
+import org.asynchttpclient.cookie.CookieEncoder;
+import org.asynchttpclient.hedging.HedgingPolicy;
+import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.request.body.generator.BodyGenerator;
+import org.asynchttpclient.request.body.multipart.Part;
+import org.asynchttpclient.retry.RetryPolicy;
+import org.asynchttpclient.uri.Uri;
+import org.asynchttpclient.util.Utf8UrlEncoder;
+
+/**
+ * An immutable request template for sending many near-identical requests.
+ *
+ * The template is built once with a {@link RequestBuilder}: its uri is already
+ * encoded, its signature already computed and its headers (including cookies
+ * and the default Host and Accept) are stored as pre-encoded header entities
+ * that the Netty encoder copies as-is. Each call then only binds its own values:
+ *
+ * <pre>
+ * PreparedRequest getItem = new PreparedRequest(new RequestBuilder().setUrl("http://host/users/{user}/items/{item}").build());
+ * client.executeRequest(getItem.bind().setPathParam("user", "bob").setPathParam("item", "42").build(), handler);
+ * </pre>
+ *
+ * Path parameters are <code>{name}</code> placeholders in the template path,
+ * their values are percent-encoded as a path segment. The signature calculator
+ * of the template isn't applied to the bound values.
+ */
+public class PreparedRequest {
+
+    private final Request template;
+    // encoded path chunks around the placeholders, one more than the names
+    private final String[] pathChunks;
+    private final String[] pathParamNames;
+    private final HttpHeaders headers;
+
+    public PreparedRequest(Request template) {
+        this.template = template;
+
+        List<String> chunks = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        parsePath(template.getUri().getPath(), chunks, names);
+        pathChunks = chunks.toArray(new String[chunks.size()]);
+        pathParamNames = names.toArray(new String[names.size()]);
+
+        headers = new DefaultHttpHeaders(false);
+        for (Map.Entry<String, String> header : template.getHeaders())
+            headers.add(HttpHeaders.newNameEntity(header.getKey()), HttpHeaders.newValueEntity(header.getValue()));
+        if (isNonEmpty(template.getCookies()))
+            headers.set(HttpHeaders.newNameEntity(COOKIE), HttpHeaders.newValueEntity(CookieEncoder.encode(template.getCookies())));
+        if (!headers.contains(HOST))
+            headers.set(HttpHeaders.newNameEntity(HOST), HttpHeaders.newValueEntity(hostHeader(template, template.getUri())));
+        if (!headers.contains(ACCEPT))
+            headers.set(HttpHeaders.newNameEntity(ACCEPT), HttpHeaders.newValueEntity("*/*"));
+    }
+
+    private static void parsePath(String path, List<String> chunks, List<String> names) {
+        if (path == null) {
+            chunks.add("");
+            return;
+        }
+
+        int chunkStart = 0;
+        int i = 0;
+        while (i < path.length()) {
+            int open = openingLength(path, i);
+            if (open > 0) {
+                // the builder may have percent-encoded the braces
+                boolean encoded = open == 3;
+                int close = encoded ? indexOfIgnoreCase(path, "%7D", i + open) : path.indexOf('}', i + open);
+                if (close > i + open) {
+                    chunks.add(path.substring(chunkStart, i));
+                    names.add(path.substring(i + open, close));
+                    i = chunkStart = close + (encoded ? 3 : 1);
+                    continue;
+                }
+            }
+            i++;
+        }
+        chunks.add(path.substring(chunkStart));
+    }
+
+    private static int openingLength(String path, int i) {
+        if (path.charAt(i) == '{')
+            return 1;
+        return path.regionMatches(true, i, "%7B", 0, 3) ? 3 : 0;
+    }
+
+    private static int indexOfIgnoreCase(String s, String target, int from) {
+        for (int i = from; i <= s.length() - target.length(); i++)
+            if (s.regionMatches(true, i, target, 0, target.length()))
+                return i;
+        return -1;
+    }
+
+    public Request getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return a new binding of the per-call values of this template, not thread-safe
+     */
+    public Binding bind() {
+        return new Binding();
+    }
+
+    public final class Binding {
+
+        private final String[] pathParams = new String[pathParamNames.length];
+        private StringBuilder query;
+        private HttpHeaders boundHeaders;
+        private byte[] byteData;
+        private String stringData;
+        private BodyGenerator bodyGenerator;
+
+        private Binding() {
+        }
+
+        public Binding setPathParam(String name, String value) {
+            boolean found = false;
+            for (int i = 0; i < pathParamNames.length; i++)
+                if (pathParamNames[i].equals(name)) {
+                    pathParams[i] = value;
+                    found = true;
+                }
+            if (!found)
+                throw new IllegalArgumentException("Unknown path parameter " + name);
+            return this;
+        }
+
+        public Binding addQueryParam(String name, String value) {
+            if (query == null) {
+                String templateQuery = template.getUri().getQuery();
+                query = isNonEmpty(templateQuery) ? new StringBuilder(templateQuery).append('&') : new StringBuilder();
+            } else
+                query.append('&');
+            Utf8UrlEncoder.encodeAndAppendQueryElement(query, name);
+            if (value != null)
+                Utf8UrlEncoder.encodeAndAppendQueryElement(query.append('='), value);
+            return this;
+        }
+
+        public Binding setHeader(CharSequence name, String value) {
+            if (boundHeaders == null)
+                // validating, contrary to the template headers that were validated by the builder
+                boundHeaders = new DefaultHttpHeaders().add(headers);
+            boundHeaders.set(name, value);
+            return this;
+        }
+
+        public Binding setBody(byte[] data) {
+            resetBody();
+            byteData = data;
+            return this;
+        }
+
+        public Binding setBody(String data) {
+            resetBody();
+            stringData = data;
+            return this;
+        }
+
+        public Binding setBody(BodyGenerator bodyGenerator) {
+            resetBody();
+            this.bodyGenerator = bodyGenerator;
+            return this;
+        }
+
+        private void resetBody() {
+            byteData = null;
+            stringData = null;
+            bodyGenerator = null;
+        }
+
+        public Request build() {
+            Uri templateUri = template.getUri();
+            Uri uri = templateUri;
+            if (pathParamNames.length > 0 || query != null) {
+                String path = templateUri.getPath();
+                if (pathParamNames.length > 0) {
+                    StringBuilder sb = new StringBuilder(path.length() + 16).append(pathChunks[0]);
+                    for (int i = 0; i < pathParamNames.length; i++) {
+                        if (pathParams[i] == null)
+                            throw new IllegalStateException("Missing path parameter " + pathParamNames[i]);
+                        Utf8UrlEncoder.encodeAndAppendQueryElement(sb, pathParams[i]).append(pathChunks[i + 1]);
+                    }
+                    path = sb.toString();
+                }
+                uri = new Uri(templateUri.getScheme(),//
+                        templateUri.getUserInfo(),//
+                        templateUri.getHost(),//
+                        templateUri.getPort(),//
+                        path,//
+                        query != null ? query.toString() : templateUri.getQuery());
+            }
+
+            boolean hasBody = byteData != null || stringData != null || bodyGenerator != null;
+            return new BoundRequest(uri, boundHeaders != null ? boundHeaders : headers, hasBody, byteData, stringData, bodyGenerator);
+        }
+    }
+
+    /**
+     * A request bound from a {@link PreparedRequest}. Its headers are shared
+     * with the template when no header was overridden, so they must not be
+     * modified.
+     */
+    public final class BoundRequest implements Request {
+
+        private final Uri uri;
+        private final HttpHeaders headers;
+        private final boolean hasBody;
+        private final byte[] byteData;
+        private final String stringData;
+        private final BodyGenerator bodyGenerator;
+
+        private BoundRequest(Uri uri, HttpHeaders headers, boolean hasBody, byte[] byteData, String stringData, BodyGenerator bodyGenerator) {
+            this.uri = uri;
+            this.headers = headers;
+            this.hasBody = hasBody;
+            this.byteData = byteData;
+            this.stringData = stringData;
+            this.bodyGenerator = bodyGenerator;
+        }
+
+        @Override
+        public String getMethod() {
+            return template.getMethod();
+        }
+
+        @Override
+        public Uri getUri() {
+            return uri;
+        }
+
+        @Override
+        public String getUrl() {
+            return uri.toUrl();
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return template.getInetAddress();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return template.getLocalAddress();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Collection<Cookie> getCookies() {
+            // already encoded in the headers
+            return Collections.emptyList();
+        }
+
+        @Override
+        public byte[] getByteData() {
+            return hasBody ? byteData : template.getByteData();
+        }
+
+        @Override
+        public List<byte[]> getCompositeByteData() {
+            return hasBody ? null : template.getCompositeByteData();
+        }
+
+        @Override
+        public String getStringData() {
+            return hasBody ? stringData : template.getStringData();
+        }
+
+        @Override
+        public ByteBuffer getByteBufferData() {
+            return hasBody ? null : template.getByteBufferData();
+        }
+
+        @Override
+        public InputStream getStreamData() {
+            return hasBody ? null : template.getStreamData();
+        }
+
+        @Override
+        public BodyGenerator getBodyGenerator() {
+            return hasBody ? bodyGenerator : template.getBodyGenerator();
+        }
+
+        @Override
+        public long getContentLength() {
+            return hasBody ? -1L : template.getContentLength();
+        }
+
+        @Override
+        public List<Param> getFormParams() {
+            return hasBody ? Collections.<Param> emptyList() : template.getFormParams();
+        }
+
+        @Override
+        public List<Part> getParts() {
+            return hasBody ? Collections.<Part> emptyList() : template.getParts();
+        }
+
+        @Override
+        public String getVirtualHost() {
+            return template.getVirtualHost();
+        }
+
+        @Override
+        public List<Param> getQueryParams() {
+            if (uri == template.getUri())
+                return template.getQueryParams();
+            // rare, only used by the signature calculators and the filters
+            return new RequestBuilder().setUri(uri).build().getQueryParams();
+        }
+
+        @Override
+        public ProxyServer getProxyServer() {
+            return template.getProxyServer();
+        }
+
+        @Override
+        public Realm getRealm() {
+            return template.getRealm();
+        }
+
+        @Override
+        public File getFile() {
+            return hasBody ? null : template.getFile();
+        }
+
+        @Override
+        public Boolean getFollowRedirect() {
+            return template.getFollowRedirect();
+        }
+
+        @Override
+        public int getRequestTimeout() {
+            return template.getRequestTimeout();
+        }
+
+        @Override
+        public long getRangeOffset() {
+            return template.getRangeOffset();
+        }
+
+        @Override
+        public Charset getBodyCharset() {
+            return template.getBodyCharset();
+        }
+
+        @Override
+        public ConnectionPoolPartitioning getConnectionPoolPartitioning() {
+            return template.getConnectionPoolPartitioning();
+        }
+
+        @Override
+        public NameResolver getNameResolver() {
+            return template.getNameResolver();
+        }
+
+        @Override
+        public HedgingPolicy getHedgingPolicy() {
+            return template.getHedgingPolicy();
+        }
+
+        @Override
+        public RetryPolicy getRetryPolicy() {
+            return template.getRetryPolicy();
+        }
+
+        @Override
+        public String toString() {
+            return getMethod() + "\t" + getUrl() + "\t(prepared)";
+        }
+    }
+}
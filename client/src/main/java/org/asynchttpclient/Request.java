@@ -29,9 +29,11 @@ import java.util.List;
 import org.asynchttpclient.channel.NameResolver;
 import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning;
 import org.asynchttpclient.cookie.Cookie;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.request.body.generator.BodyGenerator;
 import org.asynchttpclient.request.body.multipart.Part;
+import org.asynchttpclient.retry.RetryPolicy;
 import org.asynchttpclient.uri.Uri;
 
 /**
@@ -206,4 +208,22 @@ public interface Request {
     ConnectionPoolPartitioning getConnectionPoolPartitioning();
 
     NameResolver getNameResolver();
+
+    /**
+     * Return the policy for sending duplicates of this request when it's slow.
+     *
+     * @return the {@link HedgingPolicy}, null if the request isn't hedged
+     */
+    default HedgingPolicy getHedgingPolicy() {
+        return null;
+    }
+
+    /**
+     * Return the policy deciding whether and when this request is retried.
+     *
+     * @return the {@link RetryPolicy}, null to use the one of the client
+     */
+    default RetryPolicy getRetryPolicy() {
+        return null;
+    }
 }
@@ -34,10 +34,12 @@ import java.util.Map;
 import org.asynchttpclient.channel.NameResolver;
 import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning;
 import org.asynchttpclient.cookie.Cookie;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.request.body.generator.BodyGenerator;
 import org.asynchttpclient.request.body.generator.ReactiveStreamsBodyGenerator;
 import org.asynchttpclient.request.body.multipart.Part;
+import org.asynchttpclient.retry.RetryPolicy;
 import org.asynchttpclient.uri.Uri;
 import org.asynchttpclient.util.UriEncoder;
 import org.reactivestreams.Publisher;
@@ -80,6 +82,8 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
         public Charset charset;
         private ConnectionPoolPartitioning connectionPoolPartitioning = ConnectionPoolPartitioning.PerHostConnectionPoolPartitioning.INSTANCE;
         private NameResolver nameResolver = NameResolver.JdkNameResolver.INSTANCE;
+        private HedgingPolicy hedgingPolicy;
+        private RetryPolicy retryPolicy;
         private List<Param> queryParams;
 
         public RequestImpl() {
@@ -112,6 +116,8 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
                 this.charset = prototype.getBodyCharset();
                 this.connectionPoolPartitioning = prototype.getConnectionPoolPartitioning();
                 this.nameResolver = prototype.getNameResolver();
+                this.hedgingPolicy = prototype.getHedgingPolicy();
+                this.retryPolicy = prototype.getRetryPolicy();
             }
         }
 
@@ -245,6 +251,16 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
             return nameResolver;
         }
 
+        @Override
+        public HedgingPolicy getHedgingPolicy() {
+            return hedgingPolicy;
+        }
+
+        @Override
+        public RetryPolicy getRetryPolicy() {
+            return retryPolicy;
+        }
+
         @Override
         public List<Param> getQueryParams() {
             if (queryParams == null)
@@ -606,6 +622,16 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
         return derived.cast(this);
     }
 
+    public T setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        request.hedgingPolicy = hedgingPolicy;
+        return derived.cast(this);
+    }
+
+    public T setRetryPolicy(RetryPolicy retryPolicy) {
+        request.retryPolicy = retryPolicy;
+        return derived.cast(this);
+    }
+
     public T setSignatureCalculator(SignatureCalculator signatureCalculator) {
         this.signatureCalculator = signatureCalculator;
         return derived.cast(this);
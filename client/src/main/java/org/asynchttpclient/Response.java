@@ -170,11 +170,21 @@ public interface Response {
      *         if asynchronous provider is unable to provide the local address
      */
     SocketAddress getLocalAddress();
+
+    /**
+     * Release the pooled buffers backing this response's body, if any.
+     * The body can't be read anymore once released. This is a no-op unless the
+     * response was built from retained body parts.
+     */
+    default void release() {
+    }
     
     class ResponseBuilder {
         private final List<HttpResponseBodyPart> bodyParts = new ArrayList<>();
         private HttpResponseStatus status;
         private HttpResponseHeaders headers;
+        // once built, the parts are owned by the response
+        private boolean built;
 
         public ResponseBuilder accumulate(HttpResponseStatus status) {
             this.status = status;
@@ -194,6 +204,8 @@ public interface Response {
         public ResponseBuilder accumulate(HttpResponseBodyPart bodyPart) {
             if (bodyPart.length() > 0)
                 bodyParts.add(bodyPart);
+            else
+                bodyPart.release();
             return this;
         }
 
@@ -203,13 +215,21 @@ public interface Response {
          * @return a {@link Response} instance
          */
         public Response build() {
-            return status == null ? null : status.prepareResponse(headers, bodyParts);
+            if (status == null)
+                return null;
+            built = true;
+            return status.prepareResponse(headers, bodyParts);
         }
 
         /**
          * Reset the internal state of this builder.
          */
         public void reset() {
+            if (!built)
+                // e.g. the parts of an interrupted response before a retry
+                for (HttpResponseBodyPart bodyPart : bodyParts)
+                    bodyPart.release();
+            built = false;
             bodyParts.clear();
             status = null;
             headers = null;
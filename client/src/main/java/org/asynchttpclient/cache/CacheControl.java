@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * The Cache-Control directives of a request or a response.
+ * Delta-seconds directives are -1 when absent.
+ */
+final class CacheControl {
+
+    boolean noCache;
+    boolean noStore;
+    boolean mustRevalidate;
+    boolean onlyIfCached;
+    long maxAge = -1;
+    long maxStale = -1;
+    long minFresh = -1;
+    long staleWhileRevalidate = -1;
+
+    static CacheControl parse(HttpHeaders headers) {
+        CacheControl cacheControl = new CacheControl();
+        List<String> values = headers.getAll(HttpHeaders.Names.CACHE_CONTROL);
+        for (String value : values)
+            cacheControl.parseDirectives(value);
+
+        // HTTP/1.0 caches
+        if (values.isEmpty() && HttpHeaders.Values.NO_CACHE.equalsIgnoreCase(headers.get(HttpHeaders.Names.PRAGMA)))
+            cacheControl.noCache = true;
+
+        return cacheControl;
+    }
+
+    private void parseDirectives(String value) {
+        for (String directive : value.split(",")) {
+            int equals = directive.indexOf('=');
+            String name = (equals < 0 ? directive : directive.substring(0, equals)).trim().toLowerCase();
+            String argument = equals < 0 ? null : unquote(directive.substring(equals + 1).trim());
+
+            switch (name) {
+            case "no-cache":
+                noCache = true;
+                break;
+            case "no-store":
+                noStore = true;
+                break;
+            case "must-revalidate":
+            case "proxy-revalidate":
+                mustRevalidate = true;
+                break;
+            case "only-if-cached":
+                onlyIfCached = true;
+                break;
+            case "max-age":
+                maxAge = seconds(argument, maxAge);
+                break;
+            case "max-stale":
+                // max-stale without a value accepts any staleness
+                maxStale = argument == null ? Long.MAX_VALUE : seconds(argument, maxStale);
+                break;
+            case "min-fresh":
+                minFresh = seconds(argument, minFresh);
+                break;
+            case "stale-while-revalidate":
+                staleWhileRevalidate = seconds(argument, staleWhileRevalidate);
+                break;
+            default:
+            }
+        }
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"' ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private static long seconds(String argument, long defaultValue) {
+        if (argument == null)
+            return defaultValue;
+        try {
+            long seconds = Long.parseLong(argument);
+            return seconds >= 0 ? seconds : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
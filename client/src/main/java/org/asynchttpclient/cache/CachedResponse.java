@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.asynchttpclient.Param;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.cookie.RFC2616DateParser;
+
+/**
+ * A stored response, along with what's needed to compute its age and to
+ * select it for a request. Times are wall clock times, in ms, so that they
+ * survive restarts with persistent stores.
+ */
+public final class CachedResponse {
+
+    // response freshness is capped when computed from Last-Modified
+    private static final long MAX_HEURISTIC_FRESHNESS = 24 * 3600 * 1000L;
+
+    private final int statusCode;
+    private final String statusText;
+    private final String protocolText;
+    private final HttpHeaders headers;
+    private final List<Param> varyHeaders;
+    private final byte[] body;
+    private final long requestTime;
+    private final long responseTime;
+    private final CacheControl cacheControl;
+
+    /**
+     * @param statusCode the status code of the response
+     * @param statusText the reason phrase of the response
+     * @param protocolText the protocol of the response, e.g. HTTP/1.1
+     * @param headers the headers of the response
+     * @param varyHeaders the values the request had for the headers listed in the Vary header of the response
+     * @param body the body of the response
+     * @param requestTime when the request was sent
+     * @param responseTime when the response was received
+     */
+    public CachedResponse(int statusCode, String statusText, String protocolText, HttpHeaders headers, List<Param> varyHeaders, byte[] body, long requestTime, long responseTime) {
+        this.statusCode = statusCode;
+        this.statusText = statusText;
+        this.protocolText = protocolText;
+        this.headers = headers;
+        this.varyHeaders = varyHeaders;
+        this.body = body;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+        cacheControl = CacheControl.parse(headers);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getStatusText() {
+        return statusText;
+    }
+
+    public String getProtocolText() {
+        return protocolText;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public List<Param> getVaryHeaders() {
+        return varyHeaders;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public long getRequestTime() {
+        return requestTime;
+    }
+
+    public long getResponseTime() {
+        return responseTime;
+    }
+
+    CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    static List<Param> varyHeaders(HttpHeaders responseHeaders, HttpHeaders requestHeaders) {
+        List<String> varies = responseHeaders.getAll(HttpHeaders.Names.VARY);
+        if (varies.isEmpty())
+            return Collections.emptyList();
+
+        List<Param> varyHeaders = new ArrayList<>(2);
+        for (String vary : varies)
+            for (String name : vary.split(",")) {
+                name = name.trim();
+                if (!name.isEmpty())
+                    varyHeaders.add(new Param(name, requestHeaders.get(name)));
+            }
+        return varyHeaders;
+    }
+
+    /**
+     * @param request a request for the URL of this response
+     * @return true if this response can be used for the request, as far as the Vary header is concerned
+     */
+    boolean matchesVary(Request request) {
+        for (Param varyHeader : varyHeaders) {
+            String value = request.getHeaders().get(varyHeader.getName());
+            if (value == null ? varyHeader.getValue() != null : !value.equals(varyHeader.getValue()))
+                return false;
+        }
+        return true;
+    }
+
+    private static long parseDate(String date) {
+        if (date == null)
+            return -1;
+        Date parsed = RFC2616DateParser.get().parse(date, new ParsePosition(0));
+        return parsed != null ? parsed.getTime() : -1;
+    }
+
+    /**
+     * See RFC 7234 section 4.2.1.
+     * 
+     * @return how long this response is fresh for, in ms
+     */
+    long getFreshnessLifetime() {
+        if (cacheControl.maxAge >= 0)
+            return cacheControl.maxAge * 1000;
+
+        long date = parseDate(headers.get(HttpHeaders.Names.DATE));
+        if (date < 0)
+            date = responseTime;
+
+        String expires = headers.get(HttpHeaders.Names.EXPIRES);
+        if (expires != null)
+            // invalid dates, such as "0", mean already expired
+            return Math.max(0, parseDate(expires) - date);
+
+        long lastModified = parseDate(headers.get(HttpHeaders.Names.LAST_MODIFIED));
+        if (lastModified >= 0 && lastModified < date)
+            return Math.min(MAX_HEURISTIC_FRESHNESS, (date - lastModified) / 10);
+
+        return 0;
+    }
+
+    /**
+     * See RFC 7234 section 4.2.3.
+     * 
+     * @param now the current time
+     * @return the age of this response, in ms
+     */
+    long getCurrentAge(long now) {
+        long date = parseDate(headers.get(HttpHeaders.Names.DATE));
+        long apparentAge = date >= 0 ? Math.max(0, responseTime - date) : 0;
+
+        long ageValue = 0;
+        String age = headers.get(HttpHeaders.Names.AGE);
+        if (age != null)
+            try {
+                ageValue = Math.max(0, Long.parseLong(age.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                // ignored
+            }
+
+        long correctedAgeValue = ageValue + responseTime - requestTime;
+        return Math.max(apparentAge, correctedAgeValue) + now - responseTime;
+    }
+
+    boolean hasValidators() {
+        return headers.contains(HttpHeaders.Names.ETAG) || headers.contains(HttpHeaders.Names.LAST_MODIFIED);
+    }
+
+    /**
+     * See RFC 7234 section 4.3.4.
+     * 
+     * @param notModifiedHeaders the headers of the 304 response
+     * @param requestTime when the conditional request was sent
+     * @param responseTime when the 304 response was received
+     * @return this response freshened by a 304 response
+     */
+    CachedResponse revalidated(HttpHeaders notModifiedHeaders, long requestTime, long responseTime) {
+        HttpHeaders updated = new DefaultHttpHeaders().add(headers);
+        for (String name : notModifiedHeaders.names()) {
+            // the 304 response doesn't describe the stored body
+            if (name.equalsIgnoreCase(HttpHeaders.Names.CONTENT_LENGTH) || name.equalsIgnoreCase(HttpHeaders.Names.TRANSFER_ENCODING)
+                    || name.equalsIgnoreCase(HttpHeaders.Names.CONTENT_ENCODING))
+                continue;
+            updated.set(name, notModifiedHeaders.getAll(name));
+        }
+        return new CachedResponse(statusCode, statusText, protocolText, updated, varyHeaders, body, requestTime, responseTime);
+    }
+
+    /**
+     * @return the serialized form of this response, for stores that don't keep objects
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(statusCode);
+            writeString(out, statusText);
+            writeString(out, protocolText);
+            out.writeLong(requestTime);
+            out.writeLong(responseTime);
+            List<Map.Entry<String, String>> entries = headers.entries();
+            out.writeInt(entries.size());
+            for (Map.Entry<String, String> entry : entries) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+            out.writeInt(varyHeaders.size());
+            for (Param varyHeader : varyHeaders) {
+                writeString(out, varyHeader.getName());
+                writeString(out, varyHeader.getValue());
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // can't happen with a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param buffer a buffer positioned at the beginning of a response serialized with {@link #toBytes()}
+     * @return the deserialized response
+     */
+    public static CachedResponse fromBytes(ByteBuffer buffer) {
+        int statusCode = buffer.getInt();
+        String statusText = readString(buffer);
+        String protocolText = readString(buffer);
+        long requestTime = buffer.getLong();
+        long responseTime = buffer.getLong();
+        HttpHeaders headers = new DefaultHttpHeaders();
+        for (int i = buffer.getInt(); i > 0; i--)
+            headers.add(readString(buffer), readString(buffer));
+        int varyCount = buffer.getInt();
+        List<Param> varyHeaders = varyCount == 0 ? Collections.<Param> emptyList() : new ArrayList<Param>(varyCount);
+        for (int i = 0; i < varyCount; i++)
+            varyHeaders.add(new Param(readString(buffer), readString(buffer)));
+        byte[] body = new byte[buffer.getInt()];
+        buffer.get(body);
+        return new CachedResponse(statusCode, statusText, protocolText, headers, varyHeaders, body, requestTime, responseTime);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.asynchttpclient.HttpResponseBodyPart;
+
+/**
+ * A body part backed by a byte array, that can be read after the callback it
+ * was delivered to returns.
+ */
+final class CachedResponseBodyPart extends HttpResponseBodyPart {
+
+    private final byte[] bytes;
+    private final boolean last;
+
+    CachedResponseBodyPart(byte[] bytes, boolean last) {
+        this.bytes = bytes;
+        this.last = last;
+    }
+
+    @Override
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public byte[] getBodyPartBytes() {
+        return bytes;
+    }
+
+    @Override
+    public InputStream readBodyPartBytes() {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public int writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes);
+        return bytes.length;
+    }
+
+    @Override
+    public ByteBuffer getBodyByteBuffer() {
+        return ByteBuffer.wrap(bytes);
+    }
+
+    @Override
+    public boolean isLast() {
+        return last;
+    }
+
+    @Override
+    public void markUnderlyingConnectionAsToBeClosed() {
+    }
+
+    @Override
+    public boolean isUnderlyingConnectionToBeClosed() {
+        return false;
+    }
+}
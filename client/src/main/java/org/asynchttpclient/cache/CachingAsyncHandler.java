@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.io.ByteArrayOutputStream;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.handler.DelegatingAsyncHandler;
+
+/**
+ * Stores the response of a request sent on behalf of a {@link HttpCache} while
+ * forwarding it to the handler of the request.
+ * 
+ * A 304 response to a conditional request sent by the cache is swallowed, and
+ * the freshened stored response is delivered instead.
+ */
+final class CachingAsyncHandler<T> extends DelegatingAsyncHandler<T> {
+
+    private final HttpCache cache;
+    private final String key;
+    private final Request request;
+    private final CachedResponse validated;
+    private final AsyncHttpClientConfig config;
+    private final long requestTime = System.currentTimeMillis();
+
+    private org.asynchttpclient.HttpResponseStatus status;
+    private boolean notModified;
+    private HttpHeaders headers;
+    private ByteArrayOutputStream body;
+
+    /**
+     * @param cache the cache
+     * @param key the key of the response in the store
+     * @param request the original request, without the conditional headers added by the cache
+     * @param validated the stored response being revalidated, if any
+     * @param asyncHandler the handler of the request
+     * @param config the config of the client
+     */
+    CachingAsyncHandler(HttpCache cache, String key, Request request, CachedResponse validated, AsyncHandler<T> asyncHandler, AsyncHttpClientConfig config) {
+        super(asyncHandler);
+        this.cache = cache;
+        this.key = key;
+        this.request = request;
+        this.validated = validated;
+        this.config = config;
+    }
+
+    @Override
+    public State onStatusReceived(org.asynchttpclient.HttpResponseStatus responseStatus) throws Exception {
+        if (validated != null && responseStatus.getStatusCode() == HttpResponseStatus.NOT_MODIFIED.code()) {
+            notModified = true;
+            return State.CONTINUE;
+        }
+
+        if (responseStatus.getUri().equals(request.getUri()))
+            // not following a redirect
+            status = responseStatus;
+        return asyncHandler.onStatusReceived(responseStatus);
+    }
+
+    @Override
+    public State onHeadersReceived(HttpResponseHeaders responseHeaders) throws Exception {
+        if (notModified) {
+            headers = responseHeaders.getHeaders();
+            return State.CONTINUE;
+        }
+
+        if (status != null && cache.isStorable(status.getStatusCode(), responseHeaders.getHeaders())) {
+            headers = new DefaultHttpHeaders().add(responseHeaders.getHeaders());
+            body = new ByteArrayOutputStream();
+        }
+
+        State state = asyncHandler.onHeadersReceived(responseHeaders);
+        if (state != State.CONTINUE)
+            body = null;
+        return state;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+        if (notModified)
+            return State.CONTINUE;
+
+        if (body != null) {
+            // parts are only readable until this method returns
+            if (body.size() + bodyPart.length() > cache.getMaxEntrySize())
+                body = null;
+            else
+                bodyPart.writeTo(body);
+        }
+
+        State state = asyncHandler.onBodyPartReceived(bodyPart);
+        if (state != State.CONTINUE)
+            body = null;
+        return state;
+    }
+
+    @Override
+    public T onCompleted() throws Exception {
+        long responseTime = System.currentTimeMillis();
+
+        if (notModified) {
+            CachedResponse revalidated = validated.revalidated(headers, requestTime, responseTime);
+            cache.store(key, revalidated);
+            return HttpCache.deliver(revalidated, revalidated.getCurrentAge(responseTime), request, asyncHandler, config);
+        }
+
+        if (body != null)
+            cache.store(key, new CachedResponse(status.getStatusCode(), status.getStatusText(), status.getProtocolText(), headers,//
+                    CachedResponse.varyHeaders(headers, request.getHeaders()), body.toByteArray(), requestTime, responseTime));
+
+        return asyncHandler.onCompleted();
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.netty.NettyResponseHeaders;
+import org.asynchttpclient.netty.NettyResponseStatus;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A private HTTP cache, as described by RFC 7234, for GET requests.
+ * 
+ * <ul>
+ * <li>fresh responses are served without touching the network</li>
+ * <li>stale responses with an ETag or a Last-Modified header are revalidated
+ * with a conditional request, and served again on a 304 response</li>
+ * <li>stale responses within their stale-while-revalidate window are served
+ * while a single conditional request refreshes them in the background</li>
+ * <li>a response is only used for requests with the same values for the
+ * headers listed in its Vary header, and only one variant is kept per URL</li>
+ * <li>requests with unsafe methods invalidate the response of their URL</li>
+ * </ul>
+ * 
+ * Requests with their own conditional or Range headers bypass the cache.
+ */
+public class HttpCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpCache.class);
+
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    private static final Set<Integer> CACHEABLE_STATUSES;
+
+    static {
+        // cacheable by default, see RFC 7231 section 6.1
+        Set<Integer> cacheableStatuses = new HashSet<>();
+        for (int status : new int[] { 200, 203, 204, 300, 301, 404, 405, 410, 414, 501 })
+            cacheableStatuses.add(status);
+        CACHEABLE_STATUSES = Collections.unmodifiableSet(cacheableStatuses);
+    }
+
+    private final HttpCacheStore store;
+    private final int maxEntrySize;
+    private final Set<String> revalidating = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public HttpCache(HttpCacheStore store) {
+        this(store, DEFAULT_MAX_ENTRY_SIZE);
+    }
+
+    /**
+     * @param store where the responses are kept
+     * @param maxEntrySize the maximum size of a response body that gets stored, in bytes
+     */
+    public HttpCache(HttpCacheStore store, int maxEntrySize) {
+        this.store = store;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Sends the requests the cache can't answer.
+     */
+    public interface Transport {
+
+        <T> ListenableFuture<T> send(Request request, AsyncHandler<T> asyncHandler);
+    }
+
+    public HttpCacheStore getStore() {
+        return store;
+    }
+
+    int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    private static String key(Request request) {
+        return request.getUri().toUrl();
+    }
+
+    /**
+     * @return false if the handler relies on being seen by the request sender
+     */
+    static boolean canIntercept(AsyncHandler<?> asyncHandler) {
+        return !(asyncHandler instanceof TransferCompletionHandler) && !(asyncHandler instanceof StreamedAsyncHandler) && !(asyncHandler instanceof WebSocketUpgradeHandler);
+    }
+
+    private static boolean isSafe(String method) {
+        return method.equals(HttpMethod.GET.name()) || method.equals(HttpMethod.HEAD.name()) || method.equals(HttpMethod.OPTIONS.name())
+                || method.equals(HttpMethod.TRACE.name());
+    }
+
+    private static boolean isConditional(HttpHeaders headers) {
+        return headers.contains(HttpHeaders.Names.IF_NONE_MATCH) || headers.contains(HttpHeaders.Names.IF_MODIFIED_SINCE)
+                || headers.contains(HttpHeaders.Names.IF_MATCH) || headers.contains(HttpHeaders.Names.IF_UNMODIFIED_SINCE)
+                || headers.contains(HttpHeaders.Names.IF_RANGE) || headers.contains(HttpHeaders.Names.RANGE);
+    }
+
+    private static boolean isFresh(long age, long freshnessLifetime, CacheControl requestCacheControl) {
+        return age < freshnessLifetime//
+                && (requestCacheControl.maxAge < 0 || age <= TimeUnit.SECONDS.toMillis(requestCacheControl.maxAge))//
+                && (requestCacheControl.minFresh < 0 || freshnessLifetime - age >= TimeUnit.SECONDS.toMillis(requestCacheControl.minFresh));
+    }
+
+    /**
+     * @param request the request
+     * @param asyncHandler the handler of the request
+     * @param config the config of the client
+     * @param transport how requests the cache can't answer are sent
+     * @param <T> the type of the value of the future
+     * @return the future of the request, already completed when the response is served from the cache
+     */
+    public <T> ListenableFuture<T> execute(Request request, AsyncHandler<T> asyncHandler, AsyncHttpClientConfig config, Transport transport) {
+
+        if (!canIntercept(asyncHandler))
+            return transport.send(request, asyncHandler);
+
+        String method = request.getMethod();
+        if (!method.equals(HttpMethod.GET.name())) {
+            if (!isSafe(method))
+                store.remove(key(request));
+            return transport.send(request, asyncHandler);
+        }
+
+        CacheControl requestCacheControl = CacheControl.parse(request.getHeaders());
+        if (requestCacheControl.noStore || isConditional(request.getHeaders()) || request.getRangeOffset() > 0)
+            return transport.send(request, asyncHandler);
+
+        String key = key(request);
+        CachedResponse cached = store.get(key);
+        if (cached != null && !cached.matchesVary(request))
+            cached = null;
+
+        if (cached != null && !requestCacheControl.noCache && !cached.getCacheControl().noCache) {
+            long age = cached.getCurrentAge(System.currentTimeMillis());
+            long freshnessLifetime = cached.getFreshnessLifetime();
+            if (isFresh(age, freshnessLifetime, requestCacheControl))
+                return replay(cached, age, request, asyncHandler, config);
+
+            if (!cached.getCacheControl().mustRevalidate) {
+                long staleness = age - freshnessLifetime;
+                if (requestCacheControl.maxStale >= 0 && staleness <= TimeUnit.SECONDS.toMillis(requestCacheControl.maxStale))
+                    return replay(cached, age, request, asyncHandler, config);
+
+                long staleWhileRevalidate = cached.getCacheControl().staleWhileRevalidate;
+                if (staleWhileRevalidate >= 0 && staleness <= TimeUnit.SECONDS.toMillis(staleWhileRevalidate)) {
+                    revalidateInBackground(key, cached, request, config, transport);
+                    return replay(cached, age, request, asyncHandler, config);
+                }
+            }
+        }
+
+        if (cached == null && requestCacheControl.onlyIfCached) {
+            CachedResponse gatewayTimeout = new CachedResponse(HttpResponseStatus.GATEWAY_TIMEOUT.code(), HttpResponseStatus.GATEWAY_TIMEOUT.reasonPhrase(),
+                    HttpVersion.HTTP_1_1.text(), new DefaultHttpHeaders(), Collections.emptyList(), new byte[0], 0, 0);
+            return replay(gatewayTimeout, 0, request, asyncHandler, config);
+        }
+
+        if (cached != null && !cached.hasValidators())
+            cached = null;
+
+        return transport.send(cached != null ? conditionalRequest(request, cached) : request, new CachingAsyncHandler<>(this, key, request, cached, asyncHandler, config));
+    }
+
+    private static Request conditionalRequest(Request request, CachedResponse cached) {
+        RequestBuilder requestBuilder = new RequestBuilder(request);
+        String etag = cached.getHeaders().get(HttpHeaders.Names.ETAG);
+        if (etag != null)
+            requestBuilder.setHeader(HttpHeaders.Names.IF_NONE_MATCH, etag);
+        String lastModified = cached.getHeaders().get(HttpHeaders.Names.LAST_MODIFIED);
+        if (lastModified != null)
+            requestBuilder.setHeader(HttpHeaders.Names.IF_MODIFIED_SINCE, lastModified);
+        return requestBuilder.build();
+    }
+
+    private void revalidateInBackground(final String key, CachedResponse cached, Request request, AsyncHttpClientConfig config, Transport transport) {
+        if (!revalidating.add(key))
+            // already being revalidated
+            return;
+
+        LOGGER.debug("Revalidating {} in the background", key);
+        Request revalidationRequest = cached.hasValidators() ? conditionalRequest(request, cached) : request;
+        CachedResponse validated = cached.hasValidators() ? cached : null;
+        try {
+            transport.send(revalidationRequest, new CachingAsyncHandler<>(this, key, request, validated, new DiscardingAsyncHandler(), config))//
+                    .addListener(() -> revalidating.remove(key), Runnable::run);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Failed to revalidate {}", key, e);
+            revalidating.remove(key);
+        }
+    }
+
+    /**
+     * @param status the status code of a response
+     * @param headers the headers of the response
+     * @return true if the response can be stored
+     */
+    boolean isStorable(int status, HttpHeaders headers) {
+        if (!CACHEABLE_STATUSES.contains(status))
+            return false;
+        for (String vary : headers.getAll(HttpHeaders.Names.VARY))
+            if (vary.trim().equals("*"))
+                return false;
+        return !CacheControl.parse(headers).noStore;
+    }
+
+    void store(String key, CachedResponse response) {
+        if (response.getFreshnessLifetime() > 0 || response.hasValidators() || response.getCacheControl().staleWhileRevalidate > 0)
+            store.put(key, response);
+    }
+
+    private static <T> ListenableFuture<T> replay(CachedResponse cached, long age, Request request, AsyncHandler<T> asyncHandler, AsyncHttpClientConfig config) {
+        try {
+            return new ListenableFuture.CompletedSuccess<>(deliver(cached, age, request, asyncHandler, config));
+        } catch (Throwable t) {
+            asyncHandler.onThrowable(t);
+            return new ListenableFuture.CompletedFailure<>(t);
+        }
+    }
+
+    /**
+     * Feed a cached response to a handler.
+     */
+    static <T> T deliver(CachedResponse cached, long age, Request request, AsyncHandler<T> asyncHandler, AsyncHttpClientConfig config) throws Exception {
+        HttpVersion version = HttpVersion.valueOf(cached.getProtocolText());
+        HttpResponseStatus status = cached.getStatusText() != null ? new HttpResponseStatus(cached.getStatusCode(), cached.getStatusText()) : HttpResponseStatus.valueOf(cached.getStatusCode());
+        DefaultHttpResponse response = new DefaultHttpResponse(version, status);
+        response.headers().set(cached.getHeaders());
+        response.headers().set(HttpHeaders.Names.AGE, TimeUnit.MILLISECONDS.toSeconds(age));
+
+        if (asyncHandler.onStatusReceived(new NettyResponseStatus(request.getUri(), config, response, null)) == AsyncHandler.State.CONTINUE//
+                && asyncHandler.onHeadersReceived(new NettyResponseHeaders(response.headers())) == AsyncHandler.State.CONTINUE//
+                && cached.getBody().length > 0)
+            asyncHandler.onBodyPartReceived(new CachedResponseBodyPart(cached.getBody(), true));
+
+        return asyncHandler.onCompleted();
+    }
+
+    private static final class DiscardingAsyncHandler implements AsyncHandler<Void> {
+
+        @Override
+        public void onThrowable(Throwable t) {
+            LOGGER.debug("Background revalidation failed", t);
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onStatusReceived(org.asynchttpclient.HttpResponseStatus responseStatus) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpResponseHeaders headers) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public Void onCompleted() {
+            return null;
+        }
+    }
+}
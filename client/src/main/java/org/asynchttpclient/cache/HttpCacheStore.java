@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+/**
+ * Where the {@link HttpCache} keeps responses. Implementations must be
+ * thread-safe and must not throw: a storage failure is a cache miss.
+ */
+public interface HttpCacheStore {
+
+    /**
+     * @param key the cache key
+     * @return the stored response, null if there's none
+     */
+    CachedResponse get(String key);
+
+    /**
+     * Store a response, replacing the previous one for the same key.
+     * 
+     * @param key the cache key
+     * @param response the response
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * @param key the cache key
+     */
+    void remove(String key);
+
+    /**
+     * Remove all the responses.
+     */
+    void clear();
+}
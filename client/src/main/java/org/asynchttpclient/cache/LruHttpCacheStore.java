@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An on-heap {@link HttpCacheStore} that evicts the least recently used
+ * responses beyond a maximum number of entries.
+ */
+public class LruHttpCacheStore implements HttpCacheStore {
+
+    private final Map<String, CachedResponse> responses;
+
+    public LruHttpCacheStore(final int maxEntries) {
+        responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CachedResponse get(String key) {
+        return responses.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, CachedResponse response) {
+        responses.put(key, response);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        responses.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        responses.clear();
+    }
+}
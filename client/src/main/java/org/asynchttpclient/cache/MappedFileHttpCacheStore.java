@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent {@link HttpCacheStore} that keeps each response in its own
+ * file and reads and writes them through memory mappings.
+ * 
+ * Responses found in the directory on startup are reused. When the total size
+ * of the files exceeds the maximum size, the least recently used ones are
+ * deleted.
+ * 
+ * Responses are written on an executor, as {@link #put(String, CachedResponse)}
+ * is called from the event loops, and served from memory until then. Files
+ * are read and written without holding the lock of the store, which only
+ * guards the bookkeeping of the files, so reads don't wait for writes. Files
+ * aren't synced to the disk: one that is truncated by a crash is discarded
+ * when read.
+ */
+public class MappedFileHttpCacheStore implements HttpCacheStore, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileHttpCacheStore.class);
+
+    private static final String SUFFIX = ".response";
+
+    private final File directory;
+    private final long maxSize;
+    private final Executor writer;
+    // only set when the executor was created by this store
+    private final ExecutorService ownedWriter;
+    // serializes the writes, in case the executor has several threads
+    private final Object writeLock = new Object();
+    // responses not written yet
+    private final ConcurrentHashMap<String, CachedResponse> pending = new ConcurrentHashMap<>();
+    private long size;
+    // file name to file size, in access order
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param directory where the responses are stored, created if needed
+     * @param maxSize the maximum total size of the stored responses, in bytes
+     * @throws IOException if the directory can't be created
+     */
+    public MappedFileHttpCacheStore(File directory, long maxSize) throws IOException {
+        this(directory, maxSize, Executors.newSingleThreadExecutor(new DefaultThreadFactory("MappedFileHttpCacheStore", true)), true);
+    }
+
+    /**
+     * @param directory where the responses are stored, created if needed
+     * @param maxSize the maximum total size of the stored responses, in bytes
+     * @param writer the executor the responses are written on
+     * @throws IOException if the directory can't be created
+     */
+    public MappedFileHttpCacheStore(File directory, long maxSize, Executor writer) throws IOException {
+        this(directory, maxSize, writer, false);
+    }
+
+    private MappedFileHttpCacheStore(File directory, long maxSize, Executor writer, boolean ownsWriter) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.writer = writer;
+        ownedWriter = ownsWriter ? ExecutorService.class.cast(writer) : null;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            if (ownedWriter != null)
+                ownedWriter.shutdown();
+            throw new IOException("Can't create directory " + directory);
+        }
+
+        File[] existing = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (existing != null) {
+            Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+            for (File file : existing) {
+                files.put(file.getName(), file.length());
+                size += file.length();
+            }
+            deleteFiles(evict());
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2 + SUFFIX.length());
+            for (byte b : digest)
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        CachedResponse response = pending.get(key);
+        return response != null ? response : read(key);
+    }
+
+    private CachedResponse read(String key) {
+        String fileName = fileName(key);
+        synchronized (this) {
+            // also marks the file as the most recently used
+            if (files.get(fileName) == null)
+                return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(new File(directory, fileName).toPath())) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] storedKey = new byte[buffer.getInt()];
+            buffer.get(storedKey);
+            // hash collision
+            return Arrays.equals(storedKey, key.getBytes(UTF_8)) ? CachedResponse.fromBytes(buffer) : null;
+
+        } catch (NoSuchFileException e) {
+            // removed in-between, or deleted from outside
+            forget(fileName);
+            return null;
+
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Can't read cached response for {}", key, e);
+            forget(fileName);
+            deleteFile(fileName);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(final String key, final CachedResponse response) {
+        pending.put(key, response);
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(key, response);
+            }
+        });
+    }
+
+    private void write(String key, CachedResponse response) {
+        synchronized (writeLock) {
+            try {
+                if (pending.get(key) == response)
+                    doWrite(key, response);
+                // else replaced or removed in-between
+            } finally {
+                pending.remove(key, response);
+            }
+        }
+    }
+
+    private void doWrite(String key, CachedResponse response) {
+        String fileName = fileName(key);
+        byte[] keyBytes = key.getBytes(UTF_8);
+        byte[] responseBytes = response.toBytes();
+        long length = 4 + keyBytes.length + responseBytes.length;
+        if (length > maxSize) {
+            // don't serve the previous response anymore
+            forget(fileName);
+            deleteFile(fileName);
+            return;
+        }
+
+        File tmp = null;
+        try {
+            tmp = File.createTempFile("response", ".tmp", directory);
+            try (RandomAccessFile file = new RandomAccessFile(tmp, "rw")) {
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.putInt(keyBytes.length).put(keyBytes).put(responseBytes);
+            }
+            Files.move(tmp.toPath(), new File(directory, fileName).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+
+        } catch (IOException e) {
+            LOGGER.debug("Can't store response for {}", key, e);
+            // don't serve the previous response anymore
+            forget(fileName);
+            deleteFile(fileName);
+            return;
+        } finally {
+            if (tmp != null && !tmp.delete())
+                LOGGER.debug("Can't delete {}", tmp);
+        }
+
+        List<String> evicted;
+        synchronized (this) {
+            if (pending.get(key) != response) {
+                // removed while being written
+                evicted = new ArrayList<>(1);
+                evicted.add(fileName);
+            } else {
+                Long previousLength = files.put(fileName, length);
+                if (previousLength != null)
+                    size -= previousLength;
+                size += length;
+                evicted = evict();
+            }
+        }
+        deleteFiles(evicted);
+    }
+
+    // must hold the lock
+    private List<String> evict() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> eldest = files.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            size -= entry.getValue();
+            evicted.add(entry.getKey());
+        }
+        return evicted;
+    }
+
+    private synchronized void forget(String fileName) {
+        Long length = files.remove(fileName);
+        if (length != null)
+            size -= length;
+    }
+
+    private void deleteFiles(List<String> fileNames) {
+        for (String fileName : fileNames)
+            deleteFile(fileName);
+    }
+
+    private void deleteFile(String fileName) {
+        File file = new File(directory, fileName);
+        if (file.exists() && !file.delete())
+            LOGGER.debug("Can't delete {}", file);
+    }
+
+    @Override
+    public void remove(String key) {
+        String fileName = fileName(key);
+        synchronized (this) {
+            pending.remove(key);
+            forget(fileName);
+        }
+        deleteFile(fileName);
+    }
+
+    @Override
+    public void clear() {
+        List<String> fileNames;
+        synchronized (this) {
+            pending.clear();
+            fileNames = new ArrayList<>(files.keySet());
+            files.clear();
+            size = 0;
+        }
+        deleteFiles(fileNames);
+    }
+
+    /**
+     * Stop the executor the responses are written on if it was created by this store, once the pending writes are done.
+     * The stored responses are kept.
+     */
+    @Override
+    public void close() {
+        if (ownedWriter != null)
+            ownedWriter.shutdown();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An {@link HttpCacheStore} that keeps serialized responses in a single
+ * direct buffer, out of the reach of the garbage collector.
+ * 
+ * The buffer is split into fixed size slabs and a response occupies as many
+ * slabs as its serialized form needs. When there aren't enough free slabs,
+ * the least recently used responses are evicted.
+ */
+public class OffHeapHttpCacheStore implements HttpCacheStore {
+
+    public static final int DEFAULT_SLAB_SIZE = 4096;
+
+    private final ByteBuffer memory;
+    private final int slabSize;
+    private final int slabCount;
+    // stack of the free slab indexes
+    private final int[] freeSlabs;
+    private int freeCount;
+    private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    public OffHeapHttpCacheStore(int capacity) {
+        this(capacity, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param capacity the size of the direct buffer, in bytes
+     * @param slabSize the allocation unit, in bytes
+     */
+    public OffHeapHttpCacheStore(int capacity, int slabSize) {
+        if (slabSize <= 0 || capacity < slabSize)
+            throw new IllegalArgumentException("Slab size must be positive and capacity can't be lower");
+        this.slabSize = slabSize;
+        slabCount = capacity / slabSize;
+        memory = ByteBuffer.allocateDirect(slabCount * slabSize);
+        freeSlabs = new int[slabCount];
+        for (int i = 0; i < slabCount; i++)
+            freeSlabs[i] = slabCount - 1 - i;
+        freeCount = slabCount;
+    }
+
+    private static final class Slot {
+        final int[] slabs;
+        final int length;
+
+        Slot(int[] slabs, int length) {
+            this.slabs = slabs;
+            this.length = length;
+        }
+    }
+
+    private ByteBuffer slab(int index) {
+        ByteBuffer slab = memory.duplicate();
+        slab.position(index * slabSize);
+        return slab;
+    }
+
+    @Override
+    public synchronized CachedResponse get(String key) {
+        Slot slot = slots.get(key);
+        if (slot == null)
+            return null;
+
+        byte[] bytes = new byte[slot.length];
+        int offset = 0;
+        for (int index : slot.slabs) {
+            int length = Math.min(slabSize, slot.length - offset);
+            slab(index).get(bytes, offset, length);
+            offset += length;
+        }
+        return CachedResponse.fromBytes(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public synchronized void put(String key, CachedResponse response) {
+        release(slots.remove(key));
+
+        byte[] bytes = response.toBytes();
+        int needed = (bytes.length + slabSize - 1) / slabSize;
+        if (needed > slabCount)
+            return;
+
+        Iterator<Slot> eldest = slots.values().iterator();
+        while (freeCount < needed) {
+            release(eldest.next());
+            eldest.remove();
+        }
+
+        int[] slabs = new int[needed];
+        int offset = 0;
+        for (int i = 0; i < needed; i++) {
+            slabs[i] = freeSlabs[--freeCount];
+            int length = Math.min(slabSize, bytes.length - offset);
+            slab(slabs[i]).put(bytes, offset, length);
+            offset += length;
+        }
+        slots.put(key, new Slot(slabs, bytes.length));
+    }
+
+    private void release(Slot slot) {
+        if (slot != null)
+            for (int index : slot.slabs)
+                freeSlabs[freeCount++] = index;
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        release(slots.remove(key));
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Map.Entry<String, Slot> entry : slots.entrySet())
+            release(entry.getValue());
+        slots.clear();
+    }
+}
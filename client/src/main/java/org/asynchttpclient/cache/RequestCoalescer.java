@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import static org.asynchttpclient.util.StringUtils.stringBuilder;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.future.AbstractListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces concurrent identical GET and HEAD requests into a single request,
+ * whose status, headers and body parts are delivered to the handlers of all
+ * the callers.
+ * 
+ * Requests are identical when they have the same method, URL and values for
+ * the key headers. Only the settings of the first request, such as its
+ * timeouts, apply to the shared request. A request can join a shared request
+ * until its response status has been received, later ones start a new shared
+ * request. Cancelling the future of a caller only cancels the shared request
+ * once no other caller is waiting for it.
+ * 
+ * Requests with cookies or a realm aren't coalesced, and neither are the
+ * requests with an Authorization or a Proxy-Authorization header, unless it's
+ * one of the key headers. Connection events aren't notified to the handlers.
+ */
+public class RequestCoalescer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final List<String> keyHeaders;
+    private final boolean authorizationKeyed;
+    private final boolean proxyAuthorizationKeyed;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyHeaders the names of the request headers that tell identical requests apart, such as Accept or Authorization
+     */
+    public RequestCoalescer(String... keyHeaders) {
+        this.keyHeaders = Arrays.asList(keyHeaders);
+        authorizationKeyed = isKeyHeader(HttpHeaders.Names.AUTHORIZATION);
+        proxyAuthorizationKeyed = isKeyHeader(HttpHeaders.Names.PROXY_AUTHORIZATION);
+    }
+
+    private boolean isKeyHeader(String name) {
+        for (String keyHeader : keyHeaders)
+            if (keyHeader.equalsIgnoreCase(name))
+                return true;
+        return false;
+    }
+
+    private boolean isCoalescable(Request request, AsyncHandler<?> asyncHandler) {
+        String method = request.getMethod();
+        return (method.equals(HttpMethod.GET.name()) || method.equals(HttpMethod.HEAD.name()))//
+                && request.getCookies().isEmpty()//
+                && request.getRealm() == null//
+                // credentials must not be shared with the callers that don't have them
+                && (authorizationKeyed || !request.getHeaders().contains(HttpHeaders.Names.AUTHORIZATION))//
+                && (proxyAuthorizationKeyed || !request.getHeaders().contains(HttpHeaders.Names.PROXY_AUTHORIZATION))//
+                && HttpCache.canIntercept(asyncHandler);
+    }
+
+    private String key(Request request) {
+        StringBuilder sb = stringBuilder().append(request.getMethod()).append(' ').append(request.getUri().toUrl());
+        for (String keyHeader : keyHeaders)
+            sb.append('\n').append(keyHeader).append(':').append(request.getHeaders().getAll(keyHeader));
+        return sb.toString();
+    }
+
+    /**
+     * @param request the request
+     * @param asyncHandler the handler of the request
+     * @param transport how the shared requests are sent
+     * @param <T> the type of the value of the future
+     * @return the future of the caller
+     */
+    public <T> ListenableFuture<T> execute(Request request, AsyncHandler<T> asyncHandler, HttpCache.Transport transport) {
+        if (!isCoalescable(request, asyncHandler))
+            return transport.send(request, asyncHandler);
+
+        String key = key(request);
+        Waiter<T> waiter = new Waiter<>(asyncHandler);
+        for (;;) {
+            Flight flight = flights.get(key);
+            if (flight != null) {
+                if (flight.join(waiter)) {
+                    LOGGER.debug("Coalescing request to {}", request.getUri());
+                    return waiter;
+                }
+                // the response status was received but the flight wasn't removed yet
+                flights.remove(key, flight);
+                continue;
+            }
+
+            Flight newFlight = new Flight(key);
+            newFlight.join(waiter);
+            if (flights.putIfAbsent(key, newFlight) == null) {
+                newFlight.send(request, transport);
+                return waiter;
+            }
+        }
+    }
+
+    /**
+     * @return the number of shared requests that can still be joined
+     */
+    public int getFlightCount() {
+        return flights.size();
+    }
+
+    private interface Callback {
+        AsyncHandler.State call(AsyncHandler<?> asyncHandler) throws Exception;
+    }
+
+    /**
+     * A shared request, and the handler fanning its response out.
+     */
+    private final class Flight implements AsyncHandler<Void> {
+
+        private final String key;
+        private volatile ListenableFuture<Void> future;
+
+        // guarded by this
+        private final List<Waiter<?>> waiters = new ArrayList<>();
+        private boolean closed;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean join(Waiter<?> waiter) {
+            if (closed)
+                return false;
+            waiters.add(waiter);
+            waiter.flight = this;
+            return true;
+        }
+
+        private synchronized List<Waiter<?>> waiters() {
+            return new ArrayList<>(waiters);
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            flights.remove(key, this);
+        }
+
+        /**
+         * @return true if the caller was the last one waiting
+         */
+        private boolean detach(Waiter<?> waiter) {
+            synchronized (this) {
+                if (!waiters.remove(waiter) || !waiters.isEmpty())
+                    return false;
+                closed = true;
+            }
+            flights.remove(key, this);
+            return true;
+        }
+
+        void leave(Waiter<?> waiter) {
+            if (detach(waiter)) {
+                ListenableFuture<Void> f = future;
+                if (f != null)
+                    f.cancel(true);
+            }
+        }
+
+        void send(Request request, HttpCache.Transport transport) {
+            try {
+                future = transport.send(request, this);
+            } catch (RuntimeException e) {
+                onThrowable(e);
+                return;
+            }
+
+            // all the callers might have left before the future was known
+            synchronized (this) {
+                if (!waiters.isEmpty())
+                    return;
+            }
+            future.cancel(true);
+        }
+
+        private State fanOut(Callback callback) {
+            boolean continued = false;
+            for (Waiter<?> waiter : waiters()) {
+                if (waiter.isTerminated())
+                    continue;
+                try {
+                    if (callback.call(waiter.asyncHandler) == State.CONTINUE) {
+                        continued = true;
+                        continue;
+                    }
+                    waiter.complete();
+                } catch (Throwable t) {
+                    waiter.fail(t);
+                }
+                detach(waiter);
+            }
+            return continued ? State.CONTINUE : State.ABORT;
+        }
+
+        @Override
+        public State onStatusReceived(final HttpResponseStatus responseStatus) {
+            close();
+            return fanOut(asyncHandler -> asyncHandler.onStatusReceived(responseStatus));
+        }
+
+        @Override
+        public State onHeadersReceived(final HttpResponseHeaders headers) {
+            return fanOut(asyncHandler -> asyncHandler.onHeadersReceived(headers));
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+            // parts are only readable until this method returns, and retained ones have to be released
+            final HttpResponseBodyPart sharedBodyPart;
+            try {
+                sharedBodyPart = new CachedResponseBodyPart(bodyPart.getBodyPartBytes(), bodyPart.isLast());
+            } finally {
+                bodyPart.release();
+            }
+            return fanOut(asyncHandler -> asyncHandler.onBodyPartReceived(sharedBodyPart));
+        }
+
+        @Override
+        public Void onCompleted() {
+            for (Waiter<?> waiter : waiters())
+                waiter.complete();
+            return null;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            close();
+            for (Waiter<?> waiter : waiters())
+                waiter.fail(t);
+        }
+    }
+
+    /**
+     * The future of a caller.
+     */
+    private static final class Waiter<T> extends AbstractListenableFuture<T> {
+
+        private final AsyncHandler<T> asyncHandler;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private volatile Flight flight;
+
+        Waiter(AsyncHandler<T> asyncHandler) {
+            this.asyncHandler = asyncHandler;
+            result.whenComplete((value, cause) -> runListeners());
+        }
+
+        boolean isTerminated() {
+            return terminated.get();
+        }
+
+        void complete() {
+            if (!terminated.compareAndSet(false, true))
+                return;
+            try {
+                result.complete(asyncHandler.onCompleted());
+            } catch (Throwable t) {
+                notifyThrowable(t);
+                result.completeExceptionally(t);
+            }
+        }
+
+        void fail(Throwable t) {
+            if (!terminated.compareAndSet(false, true))
+                return;
+            notifyThrowable(t);
+            result.completeExceptionally(t);
+        }
+
+        private void notifyThrowable(Throwable t) {
+            try {
+                asyncHandler.onThrowable(t);
+            } catch (Throwable ex) {
+                LOGGER.debug("asyncHandler.onThrowable", ex);
+            }
+        }
+
+        // org.asynchttpclient.ListenableFuture
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (!terminated.compareAndSet(false, true))
+                return false;
+            notifyThrowable(new CancellationException());
+            result.cancel(mayInterruptIfRunning);
+            flight.leave(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return result.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            return result.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return result.get(timeout, unit);
+        }
+
+        @Override
+        public void done() {
+        }
+
+        @Override
+        public void abort(Throwable t) {
+            fail(t);
+            flight.leave(this);
+        }
+
+        @Override
+        public void touch() {
+            ListenableFuture<Void> future = flight.future;
+            if (future != null)
+                future.touch();
+        }
+
+        @Override
+        public CompletableFuture<T> toCompletableFuture() {
+            CompletableFuture<T> completable = new CompletableFuture<>();
+            result.whenComplete((value, cause) -> {
+                if (cause != null)
+                    completable.completeExceptionally(cause);
+                else
+                    completable.complete(value);
+            });
+            return completable;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A {@link NameResolver} that performs the lookups of a blocking delegate on a
+ * dedicated {@link Executor} and caches the results.
+ *
+ * <ul>
+ * <li>positive results are cached until the earliest expiration of the
+ * resolutions, or for the default TTL when the delegate doesn't know it</li>
+ * <li>failures are cached for the negative TTL</li>
+ * <li>concurrent lookups of the same name share a single delegate lookup</li>
+ * </ul>
+ */
+public class CachingNameResolver implements NameResolver {
+
+    public static final long DEFAULT_TTL = 30000;
+    public static final long DEFAULT_NEGATIVE_TTL = 10000;
+
+    private final NameResolver delegate;
+    private final Executor executor;
+    private final long ttl;
+    private final long negativeTtl;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    public CachingNameResolver(NameResolver delegate, Executor executor) {
+        this(delegate, executor, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * @param delegate the resolver performing the actual lookups
+     * @param executor the executor the delegate lookups run on
+     * @param ttl how long positive results are cached, in ms, when the delegate doesn't provide an expiration
+     * @param negativeTtl how long failures are cached, in ms
+     */
+    public CachingNameResolver(NameResolver delegate, Executor executor, long ttl, long negativeTtl) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+    }
+
+    private static final class Entry {
+        final Promise<NameResolution[]> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        // only meaningful once the promise is done
+        volatile long expiration;
+
+        boolean isExpired(long now) {
+            return promise.isDone() && now >= expiration;
+        }
+    }
+
+    @Override
+    public NameResolution[] resolve(String name) throws UnknownHostException {
+        Future<NameResolution[]> future = resolveAsync(name);
+
+        if (!future.isDone()) {
+            // can't use Future.await as the promises' executor would detect a deadlock
+            final CountDownLatch latch = new CountDownLatch(1);
+            future.addListener(new GenericFutureListener<Future<NameResolution[]>>() {
+                @Override
+                public void operationComplete(Future<NameResolution[]> f) {
+                    latch.countDown();
+                }
+            });
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw unknownHost(name, e);
+            }
+        }
+
+        if (future.isSuccess())
+            return future.getNow();
+        Throwable cause = future.cause();
+        throw cause instanceof UnknownHostException ? (UnknownHostException) cause : unknownHost(name, cause);
+    }
+
+    @Override
+    public Future<NameResolution[]> resolveAsync(final String name) {
+        long now = millisTime();
+        for (;;) {
+            Entry entry = cache.get(name);
+            if (entry != null && !entry.isExpired(now))
+                return entry.promise;
+
+            final Entry newEntry = new Entry();
+            boolean won = entry == null ? cache.putIfAbsent(name, newEntry) == null : cache.replace(name, entry, newEntry);
+            if (won) {
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            lookup(name, newEntry);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    fail(name, newEntry, e);
+                }
+                return newEntry.promise;
+            }
+            // lost the race against a concurrent lookup, join it
+        }
+    }
+
+    private void lookup(String name, Entry entry) {
+        NameResolution[] resolutions;
+        try {
+            resolutions = delegate.resolve(name);
+        } catch (Throwable t) {
+            fail(name, entry, t);
+            return;
+        }
+
+        entry.expiration = expiration(resolutions);
+        entry.promise.setSuccess(resolutions);
+    }
+
+    private void fail(String name, Entry entry, Throwable cause) {
+        entry.expiration = millisTime() + negativeTtl;
+        entry.promise.setFailure(cause instanceof UnknownHostException ? cause : unknownHost(name, cause));
+    }
+
+    private long expiration(NameResolution[] resolutions) {
+        long expiration = Long.MAX_VALUE;
+        for (NameResolution resolution : resolutions)
+            if (resolution.expiration != NameResolution.UNKNOWN_EXPIRATION)
+                expiration = Math.min(expiration, resolution.expiration);
+        return expiration != Long.MAX_VALUE ? expiration : millisTime() + ttl;
+    }
+
+    private static UnknownHostException unknownHost(String name, Throwable cause) {
+        UnknownHostException e = new UnknownHostException(name);
+        e.initCause(cause);
+        return e;
+    }
+
+    /**
+     * Drop all the cached entries.
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -16,6 +16,10 @@ import java.net.InetAddress;
 
 public class NameResolution {
 
+    /**
+     * Expiration value for resolutions whose TTL isn't known.
+     * Otherwise, expiration is a deadline in {@link org.asynchttpclient.util.DateUtils#millisTime()} time.
+     */
     public static final long UNKNOWN_EXPIRATION = 0;
     
     public final InetAddress address;
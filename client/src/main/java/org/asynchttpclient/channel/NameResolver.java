@@ -12,6 +12,9 @@
  */
 package org.asynchttpclient.channel;
 
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
@@ -19,6 +22,27 @@ public interface NameResolver {
 
     NameResolution[] resolve(String name) throws UnknownHostException;
 
+    /**
+     * Resolve a name without blocking the caller.
+     * The default implementation delegates to {@link #resolve(String)} on the calling thread.
+     * 
+     * @param name the name to resolve
+     * @return a future of the resolutions, failed with an {@link UnknownHostException} if the name couldn't be resolved.
+     *         An empty result is treated as a resolution failure.
+     */
+    default Future<NameResolution[]> resolveAsync(String name) {
+        try {
+            return ImmediateEventExecutor.INSTANCE.newSucceededFuture(resolve(name));
+        } catch (UnknownHostException e) {
+            return ImmediateEventExecutor.INSTANCE.newFailedFuture(e);
+        }
+    }
+
+    /**
+     * Resolves with {@link InetAddress#getAllByName(String)}. It doesn't override {@link #resolveAsync(String)}, so the lookup
+     * still blocks the calling thread, which is an event loop thread when a request is sent from a handler callback.
+     * Wrap it into a {@link CachingNameResolver} to run lookups on a dedicated executor.
+     */
     enum JdkNameResolver implements NameResolver {
 
         INSTANCE;
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.breaker;
+
+/**
+ * Stops sending requests to a partition, see
+ * {@link org.asynchttpclient.channel.pool.ConnectionPoolPartitioning}, that
+ * keeps on failing, so that they fail fast instead of waiting for a connect or
+ * request timeout.
+ * 
+ * When requests are balanced across the endpoints of a host, see
+ * {@link org.asynchttpclient.channel.endpoint.EndpointSelector}, partitions are
+ * per endpoint and the endpoints whose circuit is open are ejected from the
+ * selection, as long as another one is available.
+ * 
+ * Implementations must be thread-safe.
+ */
+public interface CircuitBreaker {
+
+    enum State {
+        /**
+         * Requests flow, failures are counted.
+         */
+        CLOSED,
+        /**
+         * Requests fail fast.
+         */
+        OPEN,
+        /**
+         * A limited number of probe requests flow, to decide whether to close or to open the circuit again.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The permission granted to one request, that tells apart the probes from the requests sent before the circuit went
+     * half-open.
+     */
+    interface Permission {
+
+        /**
+         * @return the partition the permission was granted for
+         */
+        Object getPartitionKey();
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the permission of the request if it can be sent, in which case exactly one of {@link #onSuccess(Permission)},
+     *         {@link #onFailure(Permission, Throwable)} or {@link #release(Permission)} will be called with it once it
+     *         completes, null if the request should fail fast
+     */
+    Permission tryAcquirePermission(Object partitionKey);
+
+    /**
+     * @param permission the permission of a request that got a response
+     */
+    void onSuccess(Permission permission);
+
+    /**
+     * @param permission the permission of a request that failed
+     * @param cause the cause of the failure, implementations decide whether it's the partition's fault
+     */
+    void onFailure(Permission permission, Throwable cause);
+
+    /**
+     * @param permission the permission of a request whose outcome says nothing about the partition, for example because it
+     *            was cancelled
+     */
+    void release(Permission permission);
+
+    /**
+     * @param partitionKey the partition
+     * @return the current state of the partition
+     */
+    State getState(Object partitionKey);
+
+    /**
+     * Unlike {@link #tryAcquirePermission(Object)}, doesn't change the state of the partition.
+     * 
+     * @param partitionKey the partition
+     * @return true if a request would currently be permitted
+     */
+    boolean isAvailable(Object partitionKey);
+
+    interface StateListener {
+
+        /**
+         * @param partitionKey the partition
+         * @param oldState the previous state
+         * @param newState the new state
+         */
+        void onStateChanged(Object partitionKey, State oldState, State newState);
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.breaker;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import io.netty.channel.ConnectTimeoutException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link CircuitBreaker} that opens the circuit of a partition when either:
+ * <ul>
+ * <li>a number of requests fail in a row</li>
+ * <li>the failure rate over a sliding time window exceeds a threshold, once the window holds enough requests</li>
+ * <li>the number of timeouts over the sliding time window reaches a threshold</li>
+ * </ul>
+ * 
+ * Once the open duration elapses, the circuit is half-open and lets a limited
+ * number of concurrent probes through. The circuit closes after enough
+ * successful probes, and opens again on the first failed one.
+ * 
+ * Only I/O errors and timeouts count as failures.
+ */
+public class DefaultCircuitBreaker implements CircuitBreaker {
+
+    private static final class Window {
+
+        private final long bucketDuration;
+        private final long[] slots;
+        private final int[] requests;
+        private final int[] failures;
+        private final int[] timeouts;
+
+        Window(long duration, int buckets) {
+            bucketDuration = Math.max(1L, duration / buckets);
+            slots = new long[buckets];
+            requests = new int[buckets];
+            failures = new int[buckets];
+            timeouts = new int[buckets];
+            reset();
+        }
+
+        void reset() {
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = -1L;
+                requests[i] = failures[i] = timeouts[i] = 0;
+            }
+        }
+
+        void record(long now, boolean failure, boolean timeout) {
+            long slot = now / bucketDuration;
+            int i = (int) (slot % slots.length);
+            if (slots[i] != slot) {
+                slots[i] = slot;
+                requests[i] = failures[i] = timeouts[i] = 0;
+            }
+            requests[i]++;
+            if (failure)
+                failures[i]++;
+            if (timeout)
+                timeouts[i]++;
+        }
+
+        int sum(int[] counts, long now) {
+            long slot = now / bucketDuration;
+            int sum = 0;
+            for (int i = 0; i < slots.length; i++)
+                if (slot - slots[i] < slots.length)
+                    sum += counts[i];
+            return sum;
+        }
+    }
+
+    private final class Partition {
+        private volatile State state = State.CLOSED;
+        private final Window window = new Window(windowDuration, windowBuckets);
+        private int consecutiveFailures;
+        private long openedAt;
+        // incremented every time the circuit goes half-open, so that probes of a previous half-open period are told apart
+        private int halfOpenPeriod;
+        private int probesInFlight;
+        private int probeSuccesses;
+    }
+
+    private static final class DefaultPermission implements Permission {
+        private final Object partitionKey;
+        // the half-open period this permission is a probe of, -1 if it's not a probe
+        private final int probeOf;
+
+        DefaultPermission(Object partitionKey, int probeOf) {
+            this.partitionKey = partitionKey;
+            this.probeOf = probeOf;
+        }
+
+        @Override
+        public Object getPartitionKey() {
+            return partitionKey;
+        }
+    }
+
+    private final int consecutiveFailureThreshold;
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final int timeoutThreshold;
+    private final long windowDuration;
+    private final int windowBuckets;
+    private final long openDuration;
+    private final int halfOpenProbes;
+    private final int halfOpenSuccesses;
+    private final ConcurrentHashMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+    private final List<StateListener> listeners = new CopyOnWriteArrayList<>();
+
+    public DefaultCircuitBreaker() {
+        this(new Builder());
+    }
+
+    private DefaultCircuitBreaker(Builder builder) {
+        consecutiveFailureThreshold = builder.consecutiveFailureThreshold;
+        failureRateThreshold = builder.failureRateThreshold;
+        minimumRequests = builder.minimumRequests;
+        timeoutThreshold = builder.timeoutThreshold;
+        windowDuration = builder.windowDuration;
+        windowBuckets = builder.windowBuckets;
+        openDuration = builder.openDuration;
+        halfOpenProbes = builder.halfOpenProbes;
+        halfOpenSuccesses = builder.halfOpenSuccesses;
+    }
+
+    public void addStateListener(StateListener listener) {
+        listeners.add(listener);
+    }
+
+    private Partition partition(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        if (partition == null) {
+            partition = new Partition();
+            Partition previous = partitions.putIfAbsent(partitionKey, partition);
+            if (previous != null)
+                partition = previous;
+        }
+        return partition;
+    }
+
+    /**
+     * @param cause the cause of a failed request
+     * @return true if the failure should count against the partition
+     */
+    protected boolean isFailure(Throwable cause) {
+        return cause instanceof IOException || isTimeout(cause);
+    }
+
+    protected boolean isTimeout(Throwable cause) {
+        return cause instanceof TimeoutException || cause instanceof SocketTimeoutException || cause instanceof ConnectTimeoutException;
+    }
+
+    @Override
+    public Permission tryAcquirePermission(Object partitionKey) {
+        Partition partition = partition(partitionKey);
+        if (partition.state == State.CLOSED)
+            return new DefaultPermission(partitionKey, -1);
+
+        synchronized (partition) {
+            switch (partition.state) {
+            case CLOSED:
+                return new DefaultPermission(partitionKey, -1);
+            case OPEN:
+                if (millisTime() - partition.openedAt < openDuration)
+                    return null;
+                transition(partitionKey, partition, State.HALF_OPEN);
+                // fall through
+            default:
+                if (partition.probesInFlight >= halfOpenProbes)
+                    return null;
+                partition.probesInFlight++;
+                return new DefaultPermission(partitionKey, partition.halfOpenPeriod);
+            }
+        }
+    }
+
+    @Override
+    public void onSuccess(Permission permission) {
+        Object partitionKey = permission.getPartitionKey();
+        Partition partition = partitions.get(partitionKey);
+        if (partition != null)
+            synchronized (partition) {
+                switch (partition.state) {
+                case CLOSED:
+                    partition.consecutiveFailures = 0;
+                    partition.window.record(millisTime(), false, false);
+                    break;
+                case HALF_OPEN:
+                    // only the probes decide, other requests were sent before the circuit went half-open
+                    if (releaseProbe(partition, permission) && ++partition.probeSuccesses >= halfOpenSuccesses)
+                        transition(partitionKey, partition, State.CLOSED);
+                    break;
+                default:
+                    // answer to a request sent before the circuit opened
+                }
+            }
+    }
+
+    @Override
+    public void onFailure(Permission permission, Throwable cause) {
+        if (!isFailure(cause)) {
+            release(permission);
+            return;
+        }
+
+        Object partitionKey = permission.getPartitionKey();
+        Partition partition = partitions.get(partitionKey);
+        if (partition != null)
+            synchronized (partition) {
+                switch (partition.state) {
+                case CLOSED:
+                    long now = millisTime();
+                    partition.consecutiveFailures++;
+                    partition.window.record(now, true, isTimeout(cause));
+                    if (shouldOpen(partition, now))
+                        transition(partitionKey, partition, State.OPEN);
+                    break;
+                case HALF_OPEN:
+                    if (releaseProbe(partition, permission))
+                        transition(partitionKey, partition, State.OPEN);
+                    break;
+                default:
+                }
+            }
+    }
+
+    @Override
+    public void release(Permission permission) {
+        Partition partition = partitions.get(permission.getPartitionKey());
+        if (partition != null)
+            synchronized (partition) {
+                if (partition.state == State.HALF_OPEN)
+                    releaseProbe(partition, permission);
+            }
+    }
+
+    /**
+     * @return true if the permission is a probe of the current half-open period, whose slot is now free
+     */
+    private boolean releaseProbe(Partition partition, Permission permission) {
+        if (!(permission instanceof DefaultPermission) || DefaultPermission.class.cast(permission).probeOf != partition.halfOpenPeriod)
+            return false;
+        partition.probesInFlight--;
+        return true;
+    }
+
+    private boolean shouldOpen(Partition partition, long now) {
+        if (consecutiveFailureThreshold > 0 && partition.consecutiveFailures >= consecutiveFailureThreshold)
+            return true;
+
+        Window window = partition.window;
+        if (timeoutThreshold > 0 && window.sum(window.timeouts, now) >= timeoutThreshold)
+            return true;
+
+        if (failureRateThreshold > 0) {
+            int requests = window.sum(window.requests, now);
+            return requests >= minimumRequests && window.sum(window.failures, now) >= failureRateThreshold * requests;
+        }
+        return false;
+    }
+
+    private void transition(Object partitionKey, Partition partition, State newState) {
+        State oldState = partition.state;
+        switch (newState) {
+        case OPEN:
+            partition.openedAt = millisTime();
+            break;
+        case HALF_OPEN:
+            partition.halfOpenPeriod++;
+            partition.probesInFlight = 0;
+            partition.probeSuccesses = 0;
+            break;
+        default:
+            partition.consecutiveFailures = 0;
+            partition.window.reset();
+        }
+        partition.state = newState;
+
+        for (StateListener listener : listeners)
+            listener.onStateChanged(partitionKey, oldState, newState);
+    }
+
+    @Override
+    public State getState(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.state : State.CLOSED;
+    }
+
+    @Override
+    public boolean isAvailable(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        if (partition == null || partition.state == State.CLOSED)
+            return true;
+
+        synchronized (partition) {
+            switch (partition.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return millisTime() - partition.openedAt >= openDuration;
+            default:
+                return partition.probesInFlight < halfOpenProbes;
+            }
+        }
+    }
+
+    public static class Builder {
+        private int consecutiveFailureThreshold = 5;
+        private double failureRateThreshold = 0.5;
+        private int minimumRequests = 20;
+        private int timeoutThreshold = 10;
+        private long windowDuration = 10000;
+        private int windowBuckets = 10;
+        private long openDuration = 5000;
+        private int halfOpenProbes = 1;
+        private int halfOpenSuccesses = 1;
+
+        /**
+         * @param consecutiveFailureThreshold the number of failures in a row that open the circuit, 0 to disable
+         * @return this builder
+         */
+        public Builder setConsecutiveFailureThreshold(int consecutiveFailureThreshold) {
+            this.consecutiveFailureThreshold = consecutiveFailureThreshold;
+            return this;
+        }
+
+        /**
+         * @param failureRateThreshold the failure rate over the window, between 0 and 1, that opens the circuit, 0 to disable
+         * @return this builder
+         */
+        public Builder setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param minimumRequests the number of requests the window must hold before the failure rate is considered
+         * @return this builder
+         */
+        public Builder setMinimumRequests(int minimumRequests) {
+            this.minimumRequests = minimumRequests;
+            return this;
+        }
+
+        /**
+         * @param timeoutThreshold the number of timeouts over the window that open the circuit, 0 to disable
+         * @return this builder
+         */
+        public Builder setTimeoutThreshold(int timeoutThreshold) {
+            this.timeoutThreshold = timeoutThreshold;
+            return this;
+        }
+
+        /**
+         * @param windowDuration the duration of the sliding window, in ms
+         * @param windowBuckets the number of buckets the window slides by
+         * @return this builder
+         */
+        public Builder setWindow(long windowDuration, int windowBuckets) {
+            this.windowDuration = windowDuration;
+            this.windowBuckets = windowBuckets;
+            return this;
+        }
+
+        /**
+         * @param openDuration how long the circuit stays open before letting probes through, in ms
+         * @return this builder
+         */
+        public Builder setOpenDuration(long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * @param halfOpenProbes the maximum number of concurrent probes while half-open
+         * @param halfOpenSuccesses the number of successful probes that close the circuit
+         * @return this builder
+         */
+        public Builder setHalfOpenProbes(int halfOpenProbes, int halfOpenSuccesses) {
+            this.halfOpenProbes = halfOpenProbes;
+            this.halfOpenSuccesses = halfOpenSuccesses;
+            return this;
+        }
+
+        public DefaultCircuitBreaker build() {
+            if (windowDuration <= 0 || windowBuckets <= 0)
+                throw new IllegalArgumentException("Window duration and buckets must be positive");
+            if (halfOpenProbes <= 0 || halfOpenSuccesses <= 0)
+                throw new IllegalArgumentException("Half-open probes and successes must be positive");
+            return new DefaultCircuitBreaker(this);
+        }
+    }
+}
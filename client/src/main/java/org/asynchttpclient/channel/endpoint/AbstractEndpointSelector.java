@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per endpoint accounting of the outstanding requests, that implementations
+ * extend with the state they pick endpoints from.
+ * 
+ * @param <E> the type of the endpoint state
+ */
+public abstract class AbstractEndpointSelector<E extends AbstractEndpointSelector.Endpoint> implements EndpointSelector {
+
+    public static class Endpoint {
+        final AtomicInteger outstanding = new AtomicInteger();
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+    }
+
+    private final ConcurrentHashMap<InetSocketAddress, E> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @return the state of an endpoint that was just discovered
+     */
+    protected abstract E newEndpoint();
+
+    /**
+     * Called with the endpoint's monitor held, so implementations don't have to synchronize their state.
+     * 
+     * @param endpoint the endpoint state
+     * @param latencyNanos the latency, -1 if unknown
+     * @param failed if the request failed
+     */
+    protected void onSample(E endpoint, long latencyNanos, boolean failed) {
+    }
+
+    protected final E endpoint(InetSocketAddress address) {
+        E endpoint = endpoints.get(address);
+        if (endpoint == null) {
+            endpoint = newEndpoint();
+            E previous = endpoints.putIfAbsent(address, endpoint);
+            if (previous != null)
+                endpoint = previous;
+        }
+        return endpoint;
+    }
+
+    @Override
+    public void onRequestStart(InetSocketAddress address) {
+        endpoint(address).outstanding.incrementAndGet();
+    }
+
+    @Override
+    public void onRequestEnd(InetSocketAddress address, long latencyNanos, boolean failed) {
+        E endpoint = endpoint(address);
+        endpoint.outstanding.decrementAndGet();
+        synchronized (endpoint) {
+            onSample(endpoint, latencyNanos, failed);
+        }
+    }
+
+    /**
+     * @param address the endpoint
+     * @return the number of requests currently assigned to the endpoint
+     */
+    public int getOutstanding(InetSocketAddress address) {
+        E endpoint = endpoints.get(address);
+        return endpoint != null ? endpoint.getOutstanding() : 0;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.asynchttpclient.uri.Uri;
+
+/**
+ * Provides the endpoints serving a logical host, as an alternative to the name
+ * resolution of the requests.
+ * 
+ * Implementations must be thread-safe and not block, as they might be called
+ * from an event loop.
+ */
+public interface EndpointProvider {
+
+    /**
+     * @param uri the target of a request
+     * @return the endpoints serving the host and port of the uri, null to fall back to the name resolution of the request
+     */
+    List<InetSocketAddress> getEndpoints(Uri uri);
+}
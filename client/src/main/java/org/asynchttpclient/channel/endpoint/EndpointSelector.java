@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Picks the endpoint a request is sent to amongst the endpoints of its host.
+ * Connections are pooled per endpoint.
+ * 
+ * Every call to {@link #onRequestStart(InetSocketAddress)} is matched by a
+ * call to {@link #onRequestEnd(InetSocketAddress, long, boolean)}.
+ * Implementations must be thread-safe.
+ */
+public interface EndpointSelector {
+
+    /**
+     * @param endpoints the endpoints of the host, never empty
+     * @return the endpoint the request should be sent to
+     */
+    InetSocketAddress select(List<InetSocketAddress> endpoints);
+
+    /**
+     * @param endpoint the endpoint a request was just assigned to
+     */
+    void onRequestStart(InetSocketAddress endpoint);
+
+    /**
+     * @param endpoint the endpoint a request was assigned to
+     * @param latencyNanos the time between the request being written and the response being received, -1 if the request was never written
+     * @param failed true if the request failed after being written, for example because of a timeout or a connection reset
+     */
+    void onRequestEnd(InetSocketAddress endpoint, long latencyNanos, boolean failed);
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.uri.Uri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EndpointProvider} reading the endpoints from a file that is
+ * reloaded when it changes.
+ * 
+ * Each line maps a host and port to a comma separated list of endpoints, for example:
+ * 
+ * <pre>
+ * # comment
+ * api.example.com:443 = 10.0.0.1:8443, 10.0.0.2:8443, [fd00::3]:8443
+ * </pre>
+ * 
+ * Endpoints must be IP literals, so that loading the file never resolves names.
+ * The modification time of the file is checked every check period on a
+ * dedicated daemon thread, so lookups never touch the file system. If the file
+ * can't be read or parsed, the previous endpoints are kept.
+ */
+public class FileEndpointProvider implements EndpointProvider, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileEndpointProvider.class);
+
+    public static final long DEFAULT_CHECK_PERIOD = 5000;
+
+    private final File file;
+    private final ScheduledExecutorService reloader;
+    private volatile StaticEndpointProvider delegate;
+    private long lastModified;
+
+    public FileEndpointProvider(File file) throws IOException {
+        this(file, DEFAULT_CHECK_PERIOD);
+    }
+
+    /**
+     * @param file the file listing the endpoints
+     * @param checkPeriod the time between two checks of the modification time of the file, in ms
+     * @throws IOException if the file can't be read or parsed
+     */
+    public FileEndpointProvider(File file, long checkPeriod) throws IOException {
+        if (checkPeriod <= 0)
+            throw new IllegalArgumentException("checkPeriod must be positive: " + checkPeriod);
+        this.file = file;
+        lastModified = file.lastModified();
+        delegate = load();
+        reloader = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("FileEndpointProvider", true));
+        reloader.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                reloadIfModified();
+            }
+        }, checkPeriod, checkPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<InetSocketAddress> getEndpoints(Uri uri) {
+        return delegate.getEndpoints(uri);
+    }
+
+    /**
+     * Stop watching the file, the current endpoints are kept.
+     */
+    @Override
+    public void close() {
+        reloader.shutdownNow();
+    }
+
+    // only called from the reloader thread
+    private void reloadIfModified() {
+        long modified = file.lastModified();
+        if (modified == lastModified)
+            return;
+
+        try {
+            delegate = load();
+            lastModified = modified;
+            LOGGER.debug("Reloaded endpoints from {}", file);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Couldn't reload endpoints from {}, keeping the previous ones", file, e);
+        }
+    }
+
+    private StaticEndpointProvider load() throws IOException {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), UTF_8)) {
+            return new StaticEndpointProvider(parse(reader));
+        }
+    }
+
+    static Map<String, List<InetSocketAddress>> parse(Reader reader) throws IOException {
+        Map<String, List<InetSocketAddress>> endpoints = new HashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            int equals = line.indexOf('=');
+            if (equals == -1)
+                throw new IllegalArgumentException("Missing '=' at line " + lineNumber + ": " + line);
+
+            InetSocketAddress host = parseAddress(line.substring(0, equals).trim(), lineNumber, false);
+            List<InetSocketAddress> hostEndpoints = new ArrayList<>();
+            for (String endpoint : line.substring(equals + 1).split(","))
+                if (!endpoint.trim().isEmpty())
+                    hostEndpoints.add(parseAddress(endpoint.trim(), lineNumber, true));
+
+            if (!hostEndpoints.isEmpty())
+                endpoints.put(StaticEndpointProvider.key(host.getHostString(), host.getPort()), hostEndpoints);
+        }
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    private static InetSocketAddress parseAddress(String hostAndPort, int lineNumber, boolean resolve) throws IOException {
+        int colon = hostAndPort.lastIndexOf(':');
+        if (colon <= 0 || colon == hostAndPort.length() - 1 || (hostAndPort.startsWith("[") && hostAndPort.charAt(colon - 1) != ']'))
+            throw new IllegalArgumentException("Expected host:port at line " + lineNumber + ": " + hostAndPort);
+
+        String host = hostAndPort.substring(0, colon);
+        if (host.startsWith("["))
+            host = host.substring(1, host.length() - 1);
+
+        int port;
+        try {
+            port = Integer.parseInt(hostAndPort.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port at line " + lineNumber + ": " + hostAndPort);
+        }
+
+        if (!resolve)
+            return InetSocketAddress.createUnresolved(host, port);
+
+        byte[] address = NetUtil.createByteArrayFromIpAddressString(host);
+        if (address == null)
+            throw new IllegalArgumentException("Expected an IP literal at line " + lineNumber + ": " + hostAndPort);
+        return new InetSocketAddress(InetAddress.getByAddress(address), port);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the endpoint with the fewest outstanding requests. Ties are broken
+ * by starting the scan at a random endpoint.
+ */
+public class LeastOutstandingEndpointSelector extends AbstractEndpointSelector<AbstractEndpointSelector.Endpoint> {
+
+    @Override
+    protected Endpoint newEndpoint() {
+        return new Endpoint();
+    }
+
+    @Override
+    public InetSocketAddress select(List<InetSocketAddress> endpoints) {
+        int size = endpoints.size();
+        int start = size > 1 ? ThreadLocalRandom.current().nextInt(size) : 0;
+
+        InetSocketAddress best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            InetSocketAddress address = endpoints.get((start + i) % size);
+            int outstanding = endpoint(address).getOutstanding();
+            if (outstanding < bestOutstanding) {
+                best = address;
+                bestOutstanding = outstanding;
+            }
+        }
+        return best;
+    }
+}
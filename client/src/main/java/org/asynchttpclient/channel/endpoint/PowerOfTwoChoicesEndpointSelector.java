@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Power of two choices: picks two endpoints at random and keeps the one with
+ * the lowest cost, where the cost is the exponentially weighted moving average
+ * of the latency multiplied by the number of outstanding requests plus one.
+ * 
+ * The average decays with time rather than with the number of samples, and
+ * jumps to any sample above it, so that an endpoint that slows down is
+ * avoided right away and only gradually trusted again. Idle endpoints without
+ * samples have no cost, so new endpoints get probed.
+ */
+public class PowerOfTwoChoicesEndpointSelector extends AbstractEndpointSelector<PowerOfTwoChoicesEndpointSelector.EwmaEndpoint> {
+
+    public static final long DEFAULT_DECAY_TIME = 10000;
+    public static final long DEFAULT_FAILURE_PENALTY = 1000;
+
+    public static class EwmaEndpoint extends AbstractEndpointSelector.Endpoint {
+        private volatile double ewmaNanos;
+        private long lastSampleNanoTime;
+
+        /**
+         * @return the average latency, in ns
+         */
+        public double getEwmaNanos() {
+            return ewmaNanos;
+        }
+    }
+
+    private final double decayTimeNanos;
+    private final long failurePenaltyNanos;
+
+    public PowerOfTwoChoicesEndpointSelector() {
+        this(DEFAULT_DECAY_TIME, DEFAULT_FAILURE_PENALTY);
+    }
+
+    /**
+     * @param decayTime the time constant of the moving average, in ms
+     * @param failurePenalty the latency, in ms, failed requests count as, at least
+     */
+    public PowerOfTwoChoicesEndpointSelector(long decayTime, long failurePenalty) {
+        if (decayTime <= 0)
+            throw new IllegalArgumentException("decayTime must be positive");
+        this.decayTimeNanos = TimeUnit.MILLISECONDS.toNanos(decayTime);
+        this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenalty);
+    }
+
+    @Override
+    protected EwmaEndpoint newEndpoint() {
+        return new EwmaEndpoint();
+    }
+
+    @Override
+    protected void onSample(EwmaEndpoint endpoint, long latencyNanos, boolean failed) {
+        if (failed)
+            latencyNanos = Math.max(latencyNanos, failurePenaltyNanos);
+        else if (latencyNanos < 0)
+            return;
+
+        long now = System.nanoTime();
+        double ewma = endpoint.ewmaNanos;
+        if (ewma == 0.0 || latencyNanos > ewma) {
+            endpoint.ewmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-Math.max(now - endpoint.lastSampleNanoTime, 0L) / decayTimeNanos);
+            endpoint.ewmaNanos = ewma * weight + latencyNanos * (1.0 - weight);
+        }
+        endpoint.lastSampleNanoTime = now;
+    }
+
+    private double cost(EwmaEndpoint endpoint) {
+        double ewma = endpoint.getEwmaNanos();
+        int outstanding = endpoint.getOutstanding();
+        if (ewma == 0.0)
+            // not sampled yet: free to probe, but not to flood
+            return outstanding == 0 ? 0.0 : (double) failurePenaltyNanos * outstanding;
+        return ewma * (outstanding + 1);
+    }
+
+    @Override
+    public InetSocketAddress select(List<InetSocketAddress> endpoints) {
+        int size = endpoints.size();
+        if (size == 1)
+            return endpoints.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i)
+            j++;
+
+        InetSocketAddress first = endpoints.get(i);
+        InetSocketAddress second = endpoints.get(j);
+        return cost(endpoint(first)) <= cost(endpoint(second)) ? first : second;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cycles through the endpoints, regardless of their load.
+ */
+public class RoundRobinEndpointSelector implements EndpointSelector {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public InetSocketAddress select(List<InetSocketAddress> endpoints) {
+        return endpoints.get((counter.getAndIncrement() & Integer.MAX_VALUE) % endpoints.size());
+    }
+
+    @Override
+    public void onRequestStart(InetSocketAddress endpoint) {
+    }
+
+    @Override
+    public void onRequestEnd(InetSocketAddress endpoint, long latencyNanos, boolean failed) {
+    }
+}
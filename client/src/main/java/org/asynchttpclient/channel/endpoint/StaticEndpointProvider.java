@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.asynchttpclient.uri.Uri;
+
+/**
+ * An {@link EndpointProvider} backed by a fixed list of endpoints per host and port.
+ */
+public class StaticEndpointProvider implements EndpointProvider {
+
+    private final Map<String, List<InetSocketAddress>> endpoints;
+
+    /**
+     * @param endpoints the endpoints, keyed by "host:port"
+     */
+    public StaticEndpointProvider(Map<String, List<InetSocketAddress>> endpoints) {
+        Map<String, List<InetSocketAddress>> copy = new HashMap<>();
+        for (Map.Entry<String, List<InetSocketAddress>> entry : endpoints.entrySet())
+            copy.put(entry.getKey().toLowerCase(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        this.endpoints = copy;
+    }
+
+    static String key(String host, int port) {
+        return host.toLowerCase() + ":" + port;
+    }
+
+    @Override
+    public List<InetSocketAddress> getEndpoints(Uri uri) {
+        return endpoints.get(key(uri.getHost(), uri.getExplicitPort()));
+    }
+}
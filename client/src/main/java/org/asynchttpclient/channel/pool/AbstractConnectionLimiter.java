@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.pool;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per partition accounting of the connections against a limit that
+ * implementations resize from the samples.
+ * 
+ * @param <P> the type of the partition state
+ */
+public abstract class AbstractConnectionLimiter<P extends AbstractConnectionLimiter.Partition> implements ConnectionLimiter {
+
+    public static class Partition {
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile int limit;
+
+        public Partition(int limit) {
+            this.limit = limit;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+    }
+
+    private final ConcurrentHashMap<Object, P> partitions = new ConcurrentHashMap<>();
+    private final List<LimitListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return the state of a partition that was just discovered
+     */
+    protected abstract P newPartition();
+
+    /**
+     * Called with the partition's monitor held, so implementations don't have to synchronize their state.
+     * 
+     * @param partitionKey the partition
+     * @param partition the partition state
+     * @param rttNanos the round-trip time, -1 if unknown
+     * @param dropped if the request failed
+     */
+    protected abstract void onSample(Object partitionKey, P partition, long rttNanos, boolean dropped);
+
+    public void addLimitListener(LimitListener listener) {
+        listeners.add(listener);
+    }
+
+    protected final P partition(Object partitionKey) {
+        P partition = partitions.get(partitionKey);
+        if (partition == null) {
+            partition = newPartition();
+            P previous = partitions.putIfAbsent(partitionKey, partition);
+            if (previous != null)
+                partition = previous;
+        }
+        return partition;
+    }
+
+    @Override
+    public boolean tryAcquire(Object partitionKey) {
+        P partition = partition(partitionKey);
+        for (;;) {
+            int inFlight = partition.inFlight.get();
+            if (inFlight >= partition.limit)
+                return false;
+            if (partition.inFlight.compareAndSet(inFlight, inFlight + 1))
+                return true;
+        }
+    }
+
+    @Override
+    public void release(Object partitionKey) {
+        P partition = partitions.get(partitionKey);
+        if (partition != null)
+            partition.inFlight.decrementAndGet();
+    }
+
+    @Override
+    public void onSample(Object partitionKey, long rttNanos, boolean dropped) {
+        P partition = partitions.get(partitionKey);
+        if (partition != null)
+            synchronized (partition) {
+                onSample(partitionKey, partition, rttNanos, dropped);
+            }
+    }
+
+    @Override
+    public int getLimit(Object partitionKey) {
+        return partition(partitionKey).limit;
+    }
+
+    @Override
+    public void setLimit(Object partitionKey, int limit) {
+        P partition = partition(partitionKey);
+        synchronized (partition) {
+            updateLimit(partitionKey, partition, limit);
+        }
+    }
+
+    @Override
+    public int getInFlight(Object partitionKey) {
+        P partition = partitions.get(partitionKey);
+        return partition != null ? partition.inFlight.get() : 0;
+    }
+
+    protected final void updateLimit(Object partitionKey, P partition, int newLimit) {
+        int oldLimit = partition.limit;
+        if (newLimit != oldLimit) {
+            partition.limit = newLimit;
+            for (LimitListener listener : listeners)
+                listener.onLimitChanged(partitionKey, oldLimit, newLimit);
+        }
+    }
+}
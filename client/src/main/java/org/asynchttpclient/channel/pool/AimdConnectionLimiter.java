@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.pool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive increase, multiplicative decrease: the limit grows by one for every
+ * successful request while it's being used, and shrinks by the backoff ratio
+ * on every failed request or request slower than the latency threshold.
+ */
+public class AimdConnectionLimiter extends AbstractConnectionLimiter<AbstractConnectionLimiter.Partition> {
+
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    /**
+     * @param initialLimit the limit of a new partition
+     * @param minLimit the minimum limit
+     * @param maxLimit the maximum limit
+     * @param latencyThreshold the round-trip time, in ms, above which a request is considered dropped
+     */
+    public AimdConnectionLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThreshold) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AimdConnectionLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThreshold, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("Expected 0 < backoffRatio < 1");
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+    }
+
+    @Override
+    protected Partition newPartition() {
+        return new Partition(initialLimit);
+    }
+
+    @Override
+    protected void onSample(Object partitionKey, Partition partition, long rttNanos, boolean dropped) {
+        int limit = partition.getLimit();
+        if (dropped || rttNanos > latencyThresholdNanos)
+            updateLimit(partitionKey, partition, Math.max(minLimit, (int) (limit * backoffRatio)));
+        else if (partition.getInFlight() * 2 >= limit)
+            // don't grow a limit that isn't used
+            updateLimit(partitionKey, partition, Math.min(maxLimit, limit + 1));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.pool;
+
+/**
+ * Limits the number of connections that can be open concurrently per
+ * partition, see {@link ConnectionPoolPartitioning}.
+ * 
+ * Implementations can resize the limits from the outcome of the requests, and
+ * must be thread-safe.
+ */
+public interface ConnectionLimiter {
+
+    /**
+     * @param partitionKey the partition
+     * @return true if a new connection can be opened, in which case {@link #release(Object)} will be called once it's closed
+     */
+    boolean tryAcquire(Object partitionKey);
+
+    /**
+     * @param partitionKey the partition of a connection that got closed or couldn't be opened
+     */
+    void release(Object partitionKey);
+
+    /**
+     * Report the outcome of a request.
+     * 
+     * @param partitionKey the partition
+     * @param rttNanos the time between the request being written and the response being received, -1 if the request wasn't written
+     * @param dropped true if the request failed, for example because of a timeout or a connection error
+     */
+    void onSample(Object partitionKey, long rttNanos, boolean dropped);
+
+    /**
+     * @param partitionKey the partition
+     * @return the current limit of the partition
+     */
+    int getLimit(Object partitionKey);
+
+    /**
+     * Force the limit of a partition. Adaptive implementations keep on resizing it from there.
+     * 
+     * @param partitionKey the partition
+     * @param limit the new limit
+     */
+    void setLimit(Object partitionKey, int limit);
+
+    /**
+     * @param partitionKey the partition
+     * @return the number of connections currently open, or being opened
+     */
+    int getInFlight(Object partitionKey);
+
+    interface LimitListener {
+
+        /**
+         * @param partitionKey the partition
+         * @param oldLimit the previous limit
+         * @param newLimit the new limit
+         */
+        void onLimitChanged(Object partitionKey, int oldLimit, int newLimit);
+    }
+}
@@ -12,6 +12,8 @@
  */
 package org.asynchttpclient.channel.pool;
 
+import java.net.InetSocketAddress;
+
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.uri.Uri;
 import org.asynchttpclient.util.HttpUtils;
@@ -31,6 +33,25 @@ public interface ConnectionPoolPartitioning {
             this.targetHostBaseUrl = targetHostBaseUrl;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ProxyPartitionKey))
+                return false;
+            ProxyPartitionKey other = (ProxyPartitionKey) o;
+            return proxyPort == other.proxyPort && secured == other.secured && proxyHost.equals(other.proxyHost)
+                    && targetHostBaseUrl.equals(other.targetHostBaseUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = proxyHost.hashCode();
+            result = 31 * result + proxyPort;
+            result = 31 * result + (secured ? 1 : 0);
+            return 31 * result + targetHostBaseUrl.hashCode();
+        }
+
         @Override
         public String toString() {
             return new StringBuilder()//
@@ -42,6 +63,51 @@ public interface ConnectionPoolPartitioning {
         }
     }
 
+    /**
+     * The partition of the connections to one of the endpoints of a host, when
+     * an {@link org.asynchttpclient.channel.endpoint.EndpointSelector} balances the requests.
+     */
+    class EndpointPartitionKey {
+        private final Object hostPartitionKey;
+        private final InetSocketAddress endpoint;
+
+        public EndpointPartitionKey(Object hostPartitionKey, InetSocketAddress endpoint) {
+            this.hostPartitionKey = hostPartitionKey;
+            this.endpoint = endpoint;
+        }
+
+        public Object getHostPartitionKey() {
+            return hostPartitionKey;
+        }
+
+        public InetSocketAddress getEndpoint() {
+            return endpoint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof EndpointPartitionKey))
+                return false;
+            EndpointPartitionKey other = (EndpointPartitionKey) o;
+            return hostPartitionKey.equals(other.hostPartitionKey) && endpoint.equals(other.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hostPartitionKey.hashCode() + endpoint.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder()//
+                    .append("EndpointPartitionKey(hostPartitionKey=").append(hostPartitionKey)//
+                    .append(", endpoint=").append(endpoint)//
+                    .toString();
+        }
+    }
+
     Object getPartitionKey(Uri uri, String virtualHost, ProxyServer proxyServer);
 
     enum PerHostConnectionPoolPartitioning implements ConnectionPoolPartitioning {
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.pool;
+
+/**
+ * A {@link ConnectionLimiter} whose limits only change through {@link #setLimit(Object, int)}.
+ */
+public class FixedConnectionLimiter extends AbstractConnectionLimiter<AbstractConnectionLimiter.Partition> {
+
+    private final int limit;
+
+    public FixedConnectionLimiter(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    protected Partition newPartition() {
+        return new Partition(limit);
+    }
+
+    /**
+     * Samples don't move a fixed limit, so don't even take the partition lock.
+     */
+    @Override
+    public void onSample(Object partitionKey, long rttNanos, boolean dropped) {
+    }
+
+    @Override
+    protected void onSample(Object partitionKey, Partition partition, long rttNanos, boolean dropped) {
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.pool;
+
+/**
+ * A delay based limiter, in the spirit of TCP Vegas: the limit is scaled by
+ * the ratio between the no-load round-trip time and the current one, so it
+ * shrinks as soon as requests start queueing on the server, before they fail.
+ * 
+ * The no-load round-trip time is the minimum observed one, and is reset
+ * periodically so the limiter adapts when the backend gets faster or slower
+ * for good.
+ */
+public class GradientConnectionLimiter extends AbstractConnectionLimiter<GradientConnectionLimiter.GradientPartition> {
+
+    public static final double DEFAULT_RTT_TOLERANCE = 2.0;
+    public static final double DEFAULT_SMOOTHING = 0.2;
+    public static final int DEFAULT_MIN_RTT_RESET_SAMPLES = 1000;
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+
+    static final class GradientPartition extends AbstractConnectionLimiter.Partition {
+        double estimatedLimit;
+        long minRttNanos = Long.MAX_VALUE;
+        int samples;
+
+        GradientPartition(int limit) {
+            super(limit);
+            estimatedLimit = limit;
+        }
+    }
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final int minRttResetSamples;
+
+    public GradientConnectionLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_RTT_TOLERANCE, DEFAULT_SMOOTHING, DEFAULT_MIN_RTT_RESET_SAMPLES);
+    }
+
+    /**
+     * @param initialLimit the limit of a new partition
+     * @param minLimit the minimum limit
+     * @param maxLimit the maximum limit
+     * @param rttTolerance how much slower than the no-load one the round-trip time can get before the limit shrinks
+     * @param smoothing the weight of a new sample in the estimated limit, between 0 and 1
+     * @param minRttResetSamples the number of samples after which the no-load round-trip time is measured again
+     */
+    public GradientConnectionLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing, int minRttResetSamples) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        if (rttTolerance < 1)
+            throw new IllegalArgumentException("Expected rttTolerance >= 1");
+        if (smoothing <= 0 || smoothing > 1)
+            throw new IllegalArgumentException("Expected 0 < smoothing <= 1");
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.minRttResetSamples = minRttResetSamples;
+    }
+
+    @Override
+    protected GradientPartition newPartition() {
+        return new GradientPartition(initialLimit);
+    }
+
+    @Override
+    public void setLimit(Object partitionKey, int limit) {
+        GradientPartition partition = partition(partitionKey);
+        synchronized (partition) {
+            partition.estimatedLimit = limit;
+            updateLimit(partitionKey, partition, limit);
+        }
+    }
+
+    @Override
+    protected void onSample(Object partitionKey, GradientPartition partition, long rttNanos, boolean dropped) {
+
+        double estimatedLimit = partition.estimatedLimit;
+
+        if (dropped) {
+            estimatedLimit = estimatedLimit * BACKOFF_RATIO;
+
+        } else if (rttNanos > 0) {
+            if (++partition.samples >= minRttResetSamples) {
+                partition.samples = 0;
+                partition.minRttNanos = rttNanos;
+            } else if (rttNanos < partition.minRttNanos) {
+                partition.minRttNanos = rttNanos;
+            }
+
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * partition.minRttNanos / rttNanos));
+            // leave some headroom so the limit can grow
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+            if (newLimit > estimatedLimit && partition.getInFlight() * 2 < estimatedLimit)
+                // don't grow a limit that isn't used
+                return;
+
+            estimatedLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+
+        } else {
+            return;
+        }
+
+        partition.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        updateLimit(partitionKey, partition, (int) partition.estimatedLimit);
+    }
+}
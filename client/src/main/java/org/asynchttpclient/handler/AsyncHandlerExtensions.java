@@ -57,6 +57,22 @@ public interface AsyncHandlerExtensions {
      */
     void onConnectionFailure(InetAddress address);
 
+    /**
+     * Notify the callback when the connection limits are reached and the
+     * request has to wait for a connection.
+     */
+    default void onConnectionQueued() {
+    }
+
+    /**
+     * Notify the callback when a request stops waiting for a connection,
+     * either because one might be available or because it timed out.
+     * 
+     * @param queueTime the time spent waiting, in ms, that isn't part of the request timeout
+     */
+    default void onConnectionDequeued(long queueTime) {
+    }
+
     /**
      * Notify the callback when trying to fetch a connection from the pool.
      */
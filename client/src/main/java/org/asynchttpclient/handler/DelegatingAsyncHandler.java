@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.handler;
+
+import io.netty.channel.Channel;
+
+import java.net.InetAddress;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.channel.NameResolution;
+import org.asynchttpclient.netty.request.NettyRequest;
+
+/**
+ * An {@link AsyncHandler} that forwards every callback, including the
+ * {@link ProgressAsyncHandler} and {@link AsyncHandlerExtensions} ones, to
+ * another handler. Subclasses override the callbacks they intercept.
+ * 
+ * @param <T> the type of the response
+ */
+public abstract class DelegatingAsyncHandler<T> implements ProgressAsyncHandler<T>, AsyncHandlerExtensions {
+
+    protected final AsyncHandler<T> asyncHandler;
+
+    protected DelegatingAsyncHandler(AsyncHandler<T> asyncHandler) {
+        this.asyncHandler = asyncHandler;
+    }
+
+    /**
+     * @return the handler progress events are forwarded to, null to drop them
+     */
+    protected ProgressAsyncHandler<?> progressAsyncHandler() {
+        return asyncHandler instanceof ProgressAsyncHandler ? ProgressAsyncHandler.class.cast(asyncHandler) : null;
+    }
+
+    /**
+     * @return the handler connection events are forwarded to, null to drop them
+     */
+    protected AsyncHandlerExtensions extensions() {
+        return asyncHandler instanceof AsyncHandlerExtensions ? AsyncHandlerExtensions.class.cast(asyncHandler) : null;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        asyncHandler.onThrowable(t);
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+        return asyncHandler.onStatusReceived(responseStatus);
+    }
+
+    @Override
+    public State onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+        return asyncHandler.onHeadersReceived(headers);
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+        return asyncHandler.onBodyPartReceived(bodyPart);
+    }
+
+    @Override
+    public T onCompleted() throws Exception {
+        return asyncHandler.onCompleted();
+    }
+
+    @Override
+    public State onHeadersWritten() {
+        ProgressAsyncHandler<?> progressAsyncHandler = progressAsyncHandler();
+        return progressAsyncHandler != null ? progressAsyncHandler.onHeadersWritten() : State.CONTINUE;
+    }
+
+    @Override
+    public State onContentWritten() {
+        ProgressAsyncHandler<?> progressAsyncHandler = progressAsyncHandler();
+        return progressAsyncHandler != null ? progressAsyncHandler.onContentWritten() : State.CONTINUE;
+    }
+
+    @Override
+    public State onContentWriteProgress(long amount, long current, long total) {
+        ProgressAsyncHandler<?> progressAsyncHandler = progressAsyncHandler();
+        return progressAsyncHandler != null ? progressAsyncHandler.onContentWriteProgress(amount, current, total) : State.CONTINUE;
+    }
+
+    @Override
+    public void onConnectionOpen() {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionOpen();
+    }
+
+    @Override
+    public void onDnsResolved(NameResolution[] addresses) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onDnsResolved(addresses);
+    }
+
+    @Override
+    public void onConnectionSuccess(Channel connection, InetAddress address) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionSuccess(connection, address);
+    }
+
+    @Override
+    public void onConnectionFailure(InetAddress address) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionFailure(address);
+    }
+
+    @Override
+    public void onConnectionQueued() {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionQueued();
+    }
+
+    @Override
+    public void onConnectionDequeued(long queueTime) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionDequeued(queueTime);
+    }
+
+    @Override
+    public void onConnectionPool() {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionPool();
+    }
+
+    @Override
+    public void onConnectionPooled(Channel connection) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionPooled(connection);
+    }
+
+    @Override
+    public void onConnectionOffer(Channel connection) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onConnectionOffer(connection);
+    }
+
+    @Override
+    public void onRequestSend(NettyRequest request) {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onRequestSend(request);
+    }
+
+    @Override
+    public void onRetry() {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onRetry();
+    }
+
+    @Override
+    public void onSslHandshakeCompleted() {
+        AsyncHandlerExtensions extensions = extensions();
+        if (extensions != null)
+            extensions.onSslHandshakeCompleted();
+    }
+}
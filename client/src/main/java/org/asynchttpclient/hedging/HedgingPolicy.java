@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a duplicate of a slow request is sent, and how many of them can
+ * be sent overall.
+ * 
+ * A hedge is sent once no response status has been received after the hedge
+ * delay. The delay is either fixed, or the observed percentile of the time to
+ * the response status in the partition of the request, falling back to the
+ * initial delay until enough responses have been observed.
+ * 
+ * Hedges are paid from a budget: every request deposits the budget ratio and
+ * every hedge withdraws 1, so hedges can't exceed that ratio of the requests
+ * beyond the initial burst, even when all the responses are slow.
+ * 
+ * The same policy can be shared by many requests and must be for the
+ * percentile and the budget to be meaningful.
+ */
+public class HedgingPolicy {
+
+    private static final long TOKEN = 1000;
+
+    private final long delay;
+    private final double percentile;
+    private final int sampleSize;
+    private final int maxHedges;
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+    private final ConcurrentHashMap<Object, LatencySamples> samples = new ConcurrentHashMap<>();
+
+    private HedgingPolicy(Builder builder) {
+        delay = builder.delay;
+        percentile = builder.percentile;
+        sampleSize = builder.sampleSize;
+        maxHedges = builder.maxHedges;
+        depositPerRequest = (long) (builder.budgetRatio * TOKEN);
+        maxTokens = builder.maxBudget * TOKEN;
+        tokens = new AtomicLong(maxTokens);
+    }
+
+    private static final class LatencySamples {
+        private final long[] samples;
+        private int count;
+        private int next;
+        private volatile long percentileMillis = -1;
+
+        LatencySamples(int sampleSize) {
+            samples = new long[sampleSize];
+        }
+
+        synchronized void record(long latencyMillis, double percentile) {
+            samples[next] = latencyMillis;
+            next = (next + 1) % samples.length;
+            if (count < samples.length)
+                count++;
+
+            // sorting on every response would be wasteful, the estimate only needs to follow trends
+            if (count == samples.length && next % Math.max(1, samples.length / 4) == 0) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                percentileMillis = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            }
+        }
+    }
+
+    /**
+     * @return the maximum number of hedges per request
+     */
+    public int getMaxHedges() {
+        return maxHedges;
+    }
+
+    /**
+     * @param partitionKey the partition of the request
+     * @return how long to wait for a response status before sending a hedge, in ms
+     */
+    public long getHedgeDelay(Object partitionKey) {
+        if (percentile <= 0)
+            return delay;
+        LatencySamples partitionSamples = samples.get(partitionKey);
+        long percentileMillis = partitionSamples != null ? partitionSamples.percentileMillis : -1;
+        return percentileMillis >= 0 ? percentileMillis : delay;
+    }
+
+    /**
+     * Notify the policy that a request that can be hedged is sent.
+     */
+    public void onRequest() {
+        for (;;) {
+            long current = tokens.get();
+            long updated = Math.min(maxTokens, current + depositPerRequest);
+            if (updated == current || tokens.compareAndSet(current, updated))
+                return;
+        }
+    }
+
+    /**
+     * @return true if the budget allows one more hedge, that is then withdrawn from the budget
+     */
+    public boolean tryAcquireHedge() {
+        for (;;) {
+            long current = tokens.get();
+            if (current < TOKEN)
+                return false;
+            if (tokens.compareAndSet(current, current - TOKEN))
+                return true;
+        }
+    }
+
+    /**
+     * Give back a hedge acquired with {@link #tryAcquireHedge()} that wasn't sent after all.
+     */
+    public void releaseHedge() {
+        for (;;) {
+            long current = tokens.get();
+            long updated = Math.min(maxTokens, current + TOKEN);
+            if (updated == current || tokens.compareAndSet(current, updated))
+                return;
+        }
+    }
+
+    /**
+     * @param partitionKey the partition of the request
+     * @param latencyMillis the time it took the winning attempt to receive the response status, in ms
+     */
+    public void onResponseStatus(Object partitionKey, long latencyMillis) {
+        if (percentile <= 0)
+            return;
+        LatencySamples partitionSamples = samples.get(partitionKey);
+        if (partitionSamples == null)
+            partitionSamples = samples.computeIfAbsent(partitionKey, pk -> new LatencySamples(sampleSize));
+        partitionSamples.record(latencyMillis, percentile);
+    }
+
+    public static class Builder {
+        private long delay = 100;
+        private double percentile;
+        private int sampleSize = 100;
+        private int maxHedges = 1;
+        private double budgetRatio = 0.1;
+        private int maxBudget = 10;
+
+        /**
+         * @param delay the fixed hedge delay, in ms, also the initial delay when the delay follows a percentile
+         * @return this builder
+         */
+        public Builder setDelay(long delay) {
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 1, of the observed time to the response status used as the hedge delay, 0 for a fixed delay
+         * @param sampleSize the number of the most recent responses of a partition the percentile is computed over
+         * @return this builder
+         */
+        public Builder setPercentileDelay(double percentile, int sampleSize) {
+            this.percentile = percentile;
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        /**
+         * @param maxHedges the maximum number of hedges per request, each one sent a hedge delay after the previous attempt
+         * @return this builder
+         */
+        public Builder setMaxHedges(int maxHedges) {
+            this.maxHedges = maxHedges;
+            return this;
+        }
+
+        /**
+         * @param budgetRatio the number of hedges each request adds to the budget, between 0 and 1
+         * @param maxBudget the maximum number of hedges the budget can hold, also its initial content
+         * @return this builder
+         */
+        public Builder setBudget(double budgetRatio, int maxBudget) {
+            this.budgetRatio = budgetRatio;
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            if (delay < 0)
+                throw new IllegalArgumentException("Delay can't be negative");
+            if (percentile < 0 || percentile > 1)
+                throw new IllegalArgumentException("Percentile must be between 0 and 1");
+            if (sampleSize <= 0)
+                throw new IllegalArgumentException("Sample size must be positive");
+            if (maxHedges <= 0)
+                throw new IllegalArgumentException("Max hedges must be positive");
+            if (budgetRatio < 0 || budgetRatio > 1 || maxBudget < 0)
+                throw new IllegalArgumentException("Budget ratio must be between 0 and 1 and max budget can't be negative");
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -14,6 +14,9 @@
 package org.asynchttpclient.netty;
 
 import static org.asynchttpclient.util.MiscUtils.isNonEmpty;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpHeaders;
 
 import java.io.ByteArrayInputStream;
@@ -33,13 +36,41 @@ import org.asynchttpclient.cookie.CookieDecoder;
 
 /**
  * Wrapper around the {@link org.asynchttpclient.Response} API.
+ * 
+ * When the body parts are {@link RetainedNettyResponseBodyPart}s, the body is
+ * a CompositeByteBuf over their ByteBufs and is read without intermediate
+ * copies. Such responses must then be {@link #release()}d.
  */
 public class NettyResponse extends ResponseBase {
 
+    private final boolean retained;
+    private CompositeByteBuf composite;
+
     public NettyResponse(HttpResponseStatus status,//
             HttpResponseHeaders headers,//
             List<HttpResponseBodyPart> bodyParts) {
         super(status, headers, bodyParts);
+        retained = isRetained(bodyParts);
+    }
+
+    private static boolean isRetained(List<HttpResponseBodyPart> bodyParts) {
+        if (!isNonEmpty(bodyParts))
+            return false;
+        for (HttpResponseBodyPart part : bodyParts)
+            if (!(part instanceof RetainedNettyResponseBodyPart))
+                return false;
+        return true;
+    }
+
+    private synchronized CompositeByteBuf composite() {
+        if (composite == null) {
+            CompositeByteBuf buf = Unpooled.compositeBuffer(bodyParts.size());
+            for (HttpResponseBodyPart part : bodyParts)
+                // the composite owns its own reference on each ByteBuf
+                buf.addComponent(RetainedNettyResponseBodyPart.class.cast(part).getBuf().retain());
+            composite = buf.writerIndex(buf.capacity());
+        }
+        return composite;
     }
 
     protected List<Cookie> buildCookies() {
@@ -65,12 +96,23 @@ public class NettyResponse extends ResponseBase {
 
     @Override
     public byte[] getResponseBodyAsBytes() {
+        if (retained) {
+            // never expose the backing array of a pooled ByteBuf
+            CompositeByteBuf buf = composite();
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.getBytes(buf.readerIndex(), bytes);
+            return bytes;
+        }
         return getResponseBodyAsByteBuffer().array();
     }
 
     @Override
     public ByteBuffer getResponseBodyAsByteBuffer() {
 
+        if (retained)
+            // only merges the components when there's more than one
+            return composite().nioBuffer().asReadOnlyBuffer();
+
         int length = 0;
         for (HttpResponseBodyPart part : bodyParts)
             length += part.length();
@@ -89,11 +131,23 @@ public class NettyResponse extends ResponseBase {
 
     @Override
     public String getResponseBody(Charset charset) {
-        return new String(getResponseBodyAsBytes(), calculateCharset(charset));
+        Charset actualCharset = calculateCharset(charset);
+        return retained ? composite().toString(actualCharset) : new String(getResponseBodyAsBytes(), actualCharset);
     }
 
     @Override
     public InputStream getResponseBodyAsStream() {
-        return new ByteArrayInputStream(getResponseBodyAsBytes());
+        return retained ? new ByteBufInputStream(composite().duplicate()) : new ByteArrayInputStream(getResponseBodyAsBytes());
+    }
+
+    @Override
+    public synchronized void release() {
+        if (!retained)
+            return;
+
+        if (composite != null && composite.refCnt() > 0)
+            composite.release();
+        for (HttpResponseBodyPart part : bodyParts)
+            part.release();
     }
 }
@@ -17,6 +17,7 @@ import static org.asynchttpclient.util.DateUtils.millisTime;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpHeaders;
 
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
@@ -34,6 +35,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.Realm;
 import org.asynchttpclient.Request;
+import org.asynchttpclient.channel.breaker.CircuitBreaker;
 import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning;
 import org.asynchttpclient.future.AbstractListenableFuture;
 import org.asynchttpclient.netty.channel.Channels;
@@ -53,6 +55,8 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyResponseFuture.class);
 
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
     public enum STATE {
         NEW, POOLED, RECONNECTED, CLOSED,
     }
@@ -75,10 +79,24 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
     private final AtomicReference<STATE> state = new AtomicReference<>(STATE.NEW);
     private final AtomicBoolean contentProcessed = new AtomicBoolean(false);
     private final AtomicInteger currentRetry = new AtomicInteger(0);
+    // retries granted by the RetryPolicy
+    private final AtomicInteger retryCount = new AtomicInteger();
     private final AtomicBoolean onThrowableCalled = new AtomicBoolean(false);
     private final AtomicReference<V> content = new AtomicReference<>();
     private final AtomicReference<ExecutionException> exEx = new AtomicReference<>();
     private volatile TimeoutsHolder timeoutsHolder;
+    private final AtomicLong queueTime = new AtomicLong();
+    private volatile long sendNanoTime;
+    // endpoint picked by the EndpointSelector, tracked until the request completes
+    private volatile InetSocketAddress endpoint;
+    private final AtomicBoolean endpointTracked = new AtomicBoolean(false);
+    // permission granted by the CircuitBreaker, held until the request completes
+    private final AtomicReference<CircuitBreaker.Permission> circuitPermit = new AtomicReference<>();
+    // deadlines scanned by a DeadlineTracker, as an alternative to the TimeoutsHolder
+    private final AtomicBoolean deadlinesTracked = new AtomicBoolean(false);
+    private volatile long requestDeadline = NO_DEADLINE;
+    private volatile int requestTimeout = -1;
+    private volatile int readTimeout = -1;
 
     // state mutated only inside the event loop
     private Channel channel;
@@ -294,6 +312,48 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
             timeoutsHolder.cancel();
             timeoutsHolder = null;
         }
+        requestDeadline = NO_DEADLINE;
+        readTimeout = -1;
+    }
+
+    /**
+     * Arm the deadlines of the request that was just written.
+     * 
+     * @param requestTimeout the request timeout in ms, -1 if none
+     * @param readTimeout the read timeout in ms, -1 if none
+     * @return true if the caller has to hand this future over to a DeadlineTracker
+     */
+    public boolean armDeadlines(int requestTimeout, int readTimeout) {
+        this.requestTimeout = requestTimeout;
+        this.readTimeout = readTimeout;
+        requestDeadline = requestTimeout != -1 ? millisTime() + requestTimeout : NO_DEADLINE;
+        return deadlinesTracked.compareAndSet(false, true);
+    }
+
+    public boolean hasDeadlines() {
+        return requestDeadline != NO_DEADLINE || readTimeout != -1;
+    }
+
+    /**
+     * Called by the DeadlineTracker when dropping this future.
+     * 
+     * @return true if the deadlines got re-armed concurrently and the tracker has to keep this future
+     */
+    public boolean untrackDeadlines() {
+        deadlinesTracked.set(false);
+        return !isDone() && hasDeadlines() && deadlinesTracked.compareAndSet(false, true);
+    }
+
+    public long getRequestDeadline() {
+        return requestDeadline;
+    }
+
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
     }
 
     public final Request getTargetRequest() {
@@ -423,6 +483,23 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
         return maxRetry > 0 && currentRetry.incrementAndGet() <= maxRetry;
     }
 
+    /**
+     * Unlike {@link #canRetry()}, doesn't use up a retry.
+     * 
+     * @return true if the maximum number of retries isn't reached yet
+     */
+    public boolean hasRetriesLeft() {
+        return maxRetry > 0 && currentRetry.get() < maxRetry;
+    }
+
+    public int getRetryCount() {
+        return retryCount.get();
+    }
+
+    public void incrementRetryCount() {
+        retryCount.incrementAndGet();
+    }
+
     public SocketAddress getChannelRemoteAddress() {
         return channel != null ? channel.remoteAddress() : null;
     }
@@ -450,8 +527,66 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
         return start;
     }
 
+    /**
+     * @return the total time this request spent waiting for a connection because the connection limits were reached, in ms
+     */
+    public long getQueueTime() {
+        return queueTime.get();
+    }
+
+    public void addQueueTime(long queueTime) {
+        this.queueTime.addAndGet(queueTime);
+    }
+
+    /**
+     * @return the System.nanoTime when the current request was written, 0 if it wasn't yet
+     */
+    public long getSendNanoTime() {
+        return sendNanoTime;
+    }
+
+    public void setSendNanoTime(long sendNanoTime) {
+        this.sendNanoTime = sendNanoTime;
+    }
+
+    /**
+     * @return the endpoint picked by the EndpointSelector, null if the request isn't balanced
+     */
+    public InetSocketAddress getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(InetSocketAddress endpoint) {
+        this.endpoint = endpoint;
+        endpointTracked.set(endpoint != null);
+    }
+
+    /**
+     * @return the endpoint if it was still tracked, so that only one caller reports the end of the request to the EndpointSelector
+     */
+    public InetSocketAddress untrackEndpoint() {
+        return endpointTracked.compareAndSet(true, false) ? endpoint : null;
+    }
+
+    public CircuitBreaker.Permission getCircuitPermit() {
+        return circuitPermit.get();
+    }
+
+    public void setCircuitPermit(CircuitBreaker.Permission permission) {
+        circuitPermit.set(permission);
+    }
+
+    /**
+     * @return the permission if it was still held, so that only one caller reports the outcome to the CircuitBreaker
+     */
+    public CircuitBreaker.Permission releaseCircuitPermit() {
+        return circuitPermit.getAndSet(null);
+    }
+
     public Object getPartitionKey() {
-        return connectionPoolPartitioning.getPartitionKey(targetRequest.getUri(), targetRequest.getVirtualHost(), proxyServer);
+        Object partitionKey = connectionPoolPartitioning.getPartitionKey(targetRequest.getUri(), targetRequest.getVirtualHost(), proxyServer);
+        InetSocketAddress endpoint = this.endpoint;
+        return endpoint != null ? new ConnectionPoolPartitioning.EndpointPartitionKey(partitionKey, endpoint) : partitionKey;
     }
 
     public Realm getRealm() {
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.util.ResourceLeak;
+import io.netty.util.ResourceLeakDetector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A callback class used when an HTTP response body is received.
+ * The underlying ByteBuf is retained instead of being copied, so it stays
+ * readable after the callback returns, until {@link #release()} is called.
+ * 
+ * Whoever ends up holding the part must release it exactly once, typically
+ * through {@link org.asynchttpclient.Response#release()}. Parts that get
+ * garbage collected without being released are reported by Netty's
+ * {@link ResourceLeakDetector}, according to its configured level.
+ */
+public class RetainedNettyResponseBodyPart extends NettyResponseBodyPart {
+
+    private static final ResourceLeakDetector<RetainedNettyResponseBodyPart> LEAK_DETECTOR = new ResourceLeakDetector<>(RetainedNettyResponseBodyPart.class);
+
+    private final ByteBuf buf;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private final ResourceLeak leak;
+    private final AtomicInteger unreleased;
+
+    public RetainedNettyResponseBodyPart(ByteBuf buf, boolean last) {
+        this(buf, last, null);
+    }
+
+    /**
+     * @param buf the received content, retained by this part
+     * @param last if this is the last part
+     * @param unreleased an optional counter of the parts that weren't released yet
+     */
+    public RetainedNettyResponseBodyPart(ByteBuf buf, boolean last, AtomicInteger unreleased) {
+        super(last);
+        this.buf = buf.slice().retain();
+        this.unreleased = unreleased;
+        leak = LEAK_DETECTOR.open(this);
+        if (unreleased != null)
+            unreleased.incrementAndGet();
+    }
+
+    /**
+     * @return the retained content, only readable until this part is released
+     */
+    public ByteBuf getBuf() {
+        if (leak != null)
+            leak.record();
+        return buf;
+    }
+
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    @Override
+    public int length() {
+        return buf.readableBytes();
+    }
+
+    /**
+     * Return a copy of the response body's part bytes received.
+     * 
+     * @return the response body's part bytes received.
+     */
+    @Override
+    public byte[] getBodyPartBytes() {
+        // never expose the backing array of a pooled ByteBuf
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), bytes);
+        return bytes;
+    }
+
+    @Override
+    public InputStream readBodyPartBytes() {
+        return new ByteBufInputStream(buf.duplicate());
+    }
+
+    @Override
+    public int writeTo(OutputStream outputStream) throws IOException {
+        int length = length();
+        buf.getBytes(buf.readerIndex(), outputStream, length);
+        return length;
+    }
+
+    @Override
+    public ByteBuffer getBodyByteBuffer() {
+        return buf.nioBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Release the underlying ByteBuf. Only the first call has an effect.
+     */
+    @Override
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            buf.release();
+            if (leak != null)
+                leak.close();
+            if (unreleased != null)
+                unreleased.decrementAndGet();
+        }
+    }
+}
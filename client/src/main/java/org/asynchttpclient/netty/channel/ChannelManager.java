@@ -20,6 +20,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -32,31 +33,54 @@ import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
 import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.Timeout;
 import io.netty.util.Timer;
+import io.netty.util.TimerTask;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLEngine;
 
 import org.asynchttpclient.AdvancedConfig;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.channel.NameResolution;
 import org.asynchttpclient.channel.SSLEngineFactory;
+import org.asynchttpclient.channel.breaker.CircuitBreaker;
+import org.asynchttpclient.channel.endpoint.EndpointProvider;
+import org.asynchttpclient.channel.endpoint.EndpointSelector;
+import org.asynchttpclient.channel.pool.ConnectionLimiter;
 import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning;
+import org.asynchttpclient.channel.pool.FixedConnectionLimiter;
 import org.asynchttpclient.handler.AsyncHandlerExtensions;
 import org.asynchttpclient.netty.Callback;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.channel.pool.ChannelPool;
 import org.asynchttpclient.netty.channel.pool.DefaultChannelPool;
+import org.asynchttpclient.netty.channel.pool.EventLoopAffineChannelPool;
 import org.asynchttpclient.netty.channel.pool.NoopChannelPool;
+import org.asynchttpclient.netty.handler.ExtensibleHttpContentDecompressor;
 import org.asynchttpclient.netty.handler.HttpProtocol;
 import org.asynchttpclient.netty.handler.Processor;
 import org.asynchttpclient.netty.handler.WebSocketProtocol;
@@ -88,19 +112,31 @@ public class ChannelManager {
     private final Class<? extends Channel> socketChannelClass;
     private final Bootstrap httpBootstrap;
     private final Bootstrap wsBootstrap;
+    private final EventLoop[] eventLoops;
+    private final Bootstrap[] eventLoopHttpBootstraps;
     private final long handshakeTimeout;
     private final IOException tooManyConnections;
     private final IOException tooManyConnectionsPerHost;
     private final IOException poolAlreadyClosed;
+    private final IOException circuitOpen;
 
     private final ChannelPool channelPool;
+    private final ConnectionPrewarmer prewarmer;
+    private final boolean pipeliningEnabled;
+    private final int maxQueuedPipelinedRequests;
+    private final ConcurrentHashMapV8<Object, Set<Channel>> pipeliningChannels;
+    private final Timer nettyTimer;
+    private final int maxPendingAcquires;
+    private final ConcurrentHashMapV8<Object, PendingAcquires> pendingAcquires;
     private final boolean maxTotalConnectionsEnabled;
     private final Semaphore freeChannels;
     private final ChannelGroup openChannels;
     private final boolean maxConnectionsPerHostEnabled;
-    private final ConcurrentHashMapV8<Object, Semaphore> freeChannelsPerHost;
+    private final ConnectionLimiter connectionLimiter;
     private final ConcurrentHashMapV8<Channel, Object> channelId2PartitionKey;
-    private final ConcurrentHashMapV8.Fun<Object, Semaphore> semaphoreComputer;
+    private final EndpointSelector endpointSelector;
+    private final EndpointProvider endpointProvider;
+    private final CircuitBreaker circuitBreaker;
 
     private Processor wsProcessor;
 
@@ -108,21 +144,25 @@ public class ChannelManager {
 
         this.config = config;
         this.advancedConfig = advancedConfig;
+        this.nettyTimer = nettyTimer;
         this.sslEngineFactory = config.getSslEngineFactory() != null ? config.getSslEngineFactory() : new SSLEngineFactory.DefaultSSLEngineFactory(config);
 
-        ChannelPool channelPool = advancedConfig.getChannelPool();
-        if (channelPool == null && config.isAllowPoolingConnections()) {
-            channelPool = new DefaultChannelPool(config, nettyTimer);
-        } else if (channelPool == null) {
-            channelPool = new NoopChannelPool();
-        }
-        this.channelPool = channelPool;
-
         tooManyConnections = buildStaticIOException(String.format("Too many connections %s", config.getMaxConnections()));
-        tooManyConnectionsPerHost = buildStaticIOException(String.format("Too many connections per host %s", config.getMaxConnectionsPerHost()));
+        tooManyConnectionsPerHost = buildStaticIOException(advancedConfig.getConnectionLimiter() != null ? "Too many connections per host"
+                : String.format("Too many connections per host %s", config.getMaxConnectionsPerHost()));
         poolAlreadyClosed = buildStaticIOException("Pool is already closed");
+        circuitOpen = buildStaticIOException("Circuit breaker is open");
         maxTotalConnectionsEnabled = config.getMaxConnections() > 0;
-        maxConnectionsPerHostEnabled = config.getMaxConnectionsPerHost() > 0;
+        if (advancedConfig.getConnectionLimiter() != null)
+            connectionLimiter = advancedConfig.getConnectionLimiter();
+        else if (config.getMaxConnectionsPerHost() > 0)
+            connectionLimiter = new FixedConnectionLimiter(config.getMaxConnectionsPerHost());
+        else
+            connectionLimiter = null;
+        maxConnectionsPerHostEnabled = connectionLimiter != null;
+        endpointSelector = advancedConfig.getEndpointSelector();
+        endpointProvider = advancedConfig.getEndpointProvider();
+        circuitBreaker = advancedConfig.getCircuitBreaker();
 
         if (maxTotalConnectionsEnabled || maxConnectionsPerHostEnabled) {
             openChannels = new CleanupChannelGroup("asyncHttpClient") {
@@ -132,14 +172,13 @@ public class ChannelManager {
                     if (removed) {
                         if (maxTotalConnectionsEnabled)
                             freeChannels.release();
+                        Object partitionKey = null;
                         if (maxConnectionsPerHostEnabled) {
-                            Object partitionKey = channelId2PartitionKey.remove(Channel.class.cast(o));
-                            if (partitionKey != null) {
-                                Semaphore freeChannelsForHost = freeChannelsPerHost.get(partitionKey);
-                                if (freeChannelsForHost != null)
-                                    freeChannelsForHost.release();
-                            }
+                            partitionKey = channelId2PartitionKey.remove(Channel.class.cast(o));
+                            if (partitionKey != null)
+                                connectionLimiter.release(partitionKey);
                         }
+                        onPermitReleased(partitionKey);
                     }
                     return removed;
                 }
@@ -150,20 +189,7 @@ public class ChannelManager {
             freeChannels = null;
         }
 
-        if (maxConnectionsPerHostEnabled) {
-            freeChannelsPerHost = new ConcurrentHashMapV8<>();
-            channelId2PartitionKey = new ConcurrentHashMapV8<>();
-            semaphoreComputer = new ConcurrentHashMapV8.Fun<Object, Semaphore>() {
-                @Override
-                public Semaphore apply(Object partitionKey) {
-                    return new Semaphore(config.getMaxConnectionsPerHost());
-                }
-            };
-        } else {
-            freeChannelsPerHost = null;
-            channelId2PartitionKey = null;
-            semaphoreComputer = null;
-        }
+        channelId2PartitionKey = maxConnectionsPerHostEnabled ? new ConcurrentHashMapV8<Channel, Object>() : null;
 
         handshakeTimeout = config.getHandshakeTimeout();
 
@@ -192,21 +218,51 @@ public class ChannelManager {
             }
         }
 
-        httpBootstrap = new Bootstrap().channel(socketChannelClass).group(eventLoopGroup);
-        wsBootstrap = new Bootstrap().channel(socketChannelClass).group(eventLoopGroup);
-
-        // default to PooledByteBufAllocator
-        httpBootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
-        wsBootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        ChannelPool channelPool = advancedConfig.getChannelPool();
+        if (channelPool == null && config.isAllowPoolingConnections()) {
+            channelPool = new DefaultChannelPool(config, nettyTimer);
+        } else if (channelPool == null) {
+            channelPool = new NoopChannelPool();
+        }
 
         if (config.getConnectTimeout() > 0)
             advancedConfig.addChannelOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeout());
-        for (Entry<ChannelOption<Object>, Object> entry : advancedConfig.getChannelOptions().entrySet()) {
-            ChannelOption<Object> key = entry.getKey();
-            Object value = entry.getValue();
-            httpBootstrap.option(key, value);
-            wsBootstrap.option(key, value);
+
+        httpBootstrap = newBootstrap(eventLoopGroup);
+        wsBootstrap = newBootstrap(eventLoopGroup);
+
+        if (advancedConfig.isEventLoopAffinity()) {
+            eventLoops = EventLoops.eventLoops(eventLoopGroup);
+            eventLoopHttpBootstraps = new Bootstrap[eventLoops.length];
+            for (int i = 0; i < eventLoops.length; i++)
+                eventLoopHttpBootstraps[i] = newBootstrap(eventLoops[i]);
+            channelPool = new EventLoopAffineChannelPool(channelPool, eventLoopGroup);
+        } else {
+            eventLoops = null;
+            eventLoopHttpBootstraps = null;
         }
+
+        this.channelPool = channelPool;
+        prewarmer = new ConnectionPrewarmer(config, this, nettyTimer, advancedConfig.getConnectAttemptDelay());
+
+        pipeliningEnabled = advancedConfig.getMaxPipelinedRequests() > 1;
+        maxQueuedPipelinedRequests = advancedConfig.getMaxPipelinedRequests() - 1;
+        pipeliningChannels = pipeliningEnabled ? new ConcurrentHashMapV8<Object, Set<Channel>>() : null;
+
+        maxPendingAcquires = advancedConfig.getMaxPendingAcquires();
+        pendingAcquires = maxPendingAcquires > 0 && (maxTotalConnectionsEnabled || maxConnectionsPerHostEnabled) ? new ConcurrentHashMapV8<Object, PendingAcquires>() : null;
+    }
+
+    private Bootstrap newBootstrap(EventLoopGroup group) {
+        Bootstrap bootstrap = new Bootstrap().channel(socketChannelClass).group(group);
+
+        // default to PooledByteBufAllocator
+        bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+
+        for (Entry<ChannelOption<Object>, Object> entry : advancedConfig.getChannelOptions().entrySet())
+            bootstrap.option(entry.getKey(), entry.getValue());
+
+        return bootstrap;
     }
 
     private EventLoopGroup newEpollEventLoopGroup(ThreadFactory threadFactory) {
@@ -235,7 +291,7 @@ public class ChannelManager {
         WebSocketProtocol wsProtocol = new WebSocketProtocol(this, config, advancedConfig, requestSender);
         wsProcessor = new Processor(config, advancedConfig, this, requestSender, wsProtocol);
 
-        httpBootstrap.handler(new ChannelInitializer<Channel>() {
+        ChannelInitializer<Channel> httpChannelInitializer = new ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel ch) throws Exception {
                 ch.pipeline()//
@@ -249,7 +305,12 @@ public class ChannelManager {
                 if (advancedConfig.getHttpAdditionalPipelineInitializer() != null)
                     advancedConfig.getHttpAdditionalPipelineInitializer().initPipeline(ch.pipeline());
             }
-        });
+        };
+
+        httpBootstrap.handler(httpChannelInitializer);
+        if (eventLoopHttpBootstraps != null)
+            for (Bootstrap eventLoopHttpBootstrap : eventLoopHttpBootstraps)
+                eventLoopHttpBootstrap.handler(httpChannelInitializer);
 
         wsBootstrap.handler(new ChannelInitializer<Channel>() {
             @Override
@@ -265,35 +326,131 @@ public class ChannelManager {
     }
 
     private HttpContentDecompressor newHttpContentDecompressor() {
-        if (config.isKeepEncodingHeader())
-            return new HttpContentDecompressor() {
-                @Override
-                protected String getTargetContentEncoding(String contentEncoding) throws Exception {
-                    return contentEncoding;
-                }
-            };
-        else
-            return new HttpContentDecompressor();
+        return new ExtensibleHttpContentDecompressor(advancedConfig.getContentDecoderFactories(), config.isKeepEncodingHeader());
     }
 
-    public final void tryToOfferChannelToPool(Channel channel, AsyncHandler<?> handler, boolean keepAlive, Object partitionKey) {
+    /**
+     * @return true if the pool accepted the channel
+     */
+    public final boolean tryToOfferChannelToPool(Channel channel, AsyncHandler<?> handler, boolean keepAlive, Object partitionKey) {
+        if (pipeliningEnabled && pollPipelinedFuture(channel, keepAlive))
+            // the channel stays in use for the next pipelined response
+            return false;
+
         if (channel.isActive() && keepAlive) {
             LOGGER.debug("Adding key: {} for channel {}", partitionKey, channel);
             Channels.setDiscard(channel);
             if (handler instanceof AsyncHandlerExtensions) {
                 AsyncHandlerExtensions.class.cast(handler).onConnectionOffer(channel);
             }
-            channelPool.offer(channel, partitionKey);
+            boolean pooled = channelPool.offer(channel, partitionKey);
             if (maxConnectionsPerHostEnabled)
                 channelId2PartitionKey.putIfAbsent(channel, partitionKey);
+            dispatchPendingAcquire(partitionKey);
+            return pooled;
         } else {
             // not offered
             closeChannel(channel);
+            return false;
         }
     }
 
-    public Channel poll(Uri uri, String virtualHost, ProxyServer proxy, ConnectionPoolPartitioning connectionPoolPartitioning) {
+    public boolean isPipeliningEnabled() {
+        return pipeliningEnabled;
+    }
+
+    /**
+     * Let other requests be pipelined on a channel, behind the request that was just written on it.
+     * 
+     * @param channel the channel
+     * @param partitionKey the partition of the channel
+     */
+    public void registerPipeliningChannel(Channel channel, Object partitionKey) {
+        if (channel.attr(PipelinedFutures.PIPELINED_FUTURES_ATTRIBUTE).setIfAbsent(new PipelinedFutures(partitionKey)) == null)
+            pipeliningChannels.computeIfAbsent(partitionKey, pipeliningChannelsComputer).add(channel);
+    }
+
+    private static final ConcurrentHashMapV8.Fun<Object, Set<Channel>> pipeliningChannelsComputer = new ConcurrentHashMapV8.Fun<Object, Set<Channel>>() {
+        @Override
+        public Set<Channel> apply(Object partitionKey) {
+            return Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+        }
+    };
+
+    /**
+     * @param partitionKey the partition
+     * @return a busy channel that still accepts pipelined requests, or null
+     */
+    public Channel pollPipeliningChannel(Object partitionKey) {
+        Set<Channel> channels = pipeliningChannels.get(partitionKey);
+        if (channels != null)
+            for (Channel channel : channels) {
+                PipelinedFutures pipelinedFutures = channel.attr(PipelinedFutures.PIPELINED_FUTURES_ATTRIBUTE).get();
+                if (pipelinedFutures != null && channel.isActive() && pipelinedFutures.size() < maxQueuedPipelinedRequests)
+                    return channel;
+            }
+        return null;
+    }
+
+    /**
+     * Must be called from the channel's event loop, so that the futures are queued in the order their requests are written.
+     * 
+     * @param channel the channel
+     * @param future the future whose request is about to be written
+     * @return true if the future was queued and its request can be written
+     */
+    public boolean offerPipelinedFuture(Channel channel, NettyResponseFuture<?> future) {
+        PipelinedFutures pipelinedFutures = channel.attr(PipelinedFutures.PIPELINED_FUTURES_ATTRIBUTE).get();
+        return pipelinedFutures != null && channel.isActive() && pipelinedFutures.offer(future, maxQueuedPipelinedRequests);
+    }
+
+    private boolean pollPipelinedFuture(Channel channel, boolean keepAlive) {
+        PipelinedFutures pipelinedFutures = channel.attr(PipelinedFutures.PIPELINED_FUTURES_ATTRIBUTE).get();
+        if (pipelinedFutures == null)
+            return false;
+
+        if (keepAlive && channel.isActive()) {
+            NettyResponseFuture<?> next = pipelinedFutures.poll();
+            if (next != null) {
+                Channels.setAttribute(channel, next);
+                return true;
+            }
+            // nothing pipelined, the channel goes back to the pool
+            pipelinedFutures.close();
+            unregisterPipeliningChannel(channel, pipelinedFutures);
+        }
+        // otherwise, the channel is closed and the queued futures get replayed on channelInactive
+        return false;
+    }
+
+    private void unregisterPipeliningChannel(Channel channel, PipelinedFutures pipelinedFutures) {
+        channel.attr(PipelinedFutures.PIPELINED_FUTURES_ATTRIBUTE).compareAndSet(pipelinedFutures, null);
+        Set<Channel> channels = pipeliningChannels.get(pipelinedFutures.getPartitionKey());
+        if (channels != null)
+            channels.remove(channel);
+    }
+
+    /**
+     * @param channel a closed channel
+     * @return the futures whose requests were pipelined on this channel and will never get a response on it
+     */
+    public List<NettyResponseFuture<?>> removePipelinedFutures(Channel channel) {
+        if (!pipeliningEnabled)
+            return Collections.emptyList();
+
+        PipelinedFutures pipelinedFutures = channel.attr(PipelinedFutures.PIPELINED_FUTURES_ATTRIBUTE).get();
+        if (pipelinedFutures == null)
+            return Collections.emptyList();
+
+        List<NettyResponseFuture<?>> unanswered = pipelinedFutures.close();
+        unregisterPipeliningChannel(channel, pipelinedFutures);
+        return unanswered;
+    }
+
+    public Channel poll(Uri uri, String virtualHost, ProxyServer proxy, ConnectionPoolPartitioning connectionPoolPartitioning, InetSocketAddress endpoint) {
         Object partitionKey = connectionPoolPartitioning.getPartitionKey(uri, virtualHost, proxy);
+        if (endpoint != null)
+            partitionKey = new ConnectionPoolPartitioning.EndpointPartitionKey(partitionKey, endpoint);
         return channelPool.poll(partitionKey);
     }
 
@@ -305,12 +462,8 @@ public class ChannelManager {
         return !maxTotalConnectionsEnabled || freeChannels.tryAcquire();
     }
 
-    private Semaphore getFreeConnectionsForHost(Object partitionKey) {
-        return freeChannelsPerHost.computeIfAbsent(partitionKey, semaphoreComputer);
-    }
-
     private boolean tryAcquirePerHost(Object partitionKey) {
-        return !maxConnectionsPerHostEnabled || getFreeConnectionsForHost(partitionKey).tryAcquire();
+        return !maxConnectionsPerHostEnabled || connectionLimiter.tryAcquire(partitionKey);
     }
 
     public void preemptChannel(Object partitionKey) throws IOException {
@@ -363,11 +516,356 @@ public class ChannelManager {
         openChannels.remove(channel);
     }
 
+    /**
+     * @return the limiter of the connections per partition, null if unlimited
+     */
+    public ConnectionLimiter getConnectionLimiter() {
+        return connectionLimiter;
+    }
+
+    /**
+     * Feed the connection limiter, the endpoint selector and the circuit breaker with the outcome of a request.
+     * 
+     * @param future the future of the request
+     * @param cause the cause of the failure, null if the request succeeded
+     */
+    public void onRequestCompleted(NettyResponseFuture<?> future, Throwable cause) {
+        if (circuitBreaker != null) {
+            CircuitBreaker.Permission permission = future.releaseCircuitPermit();
+            if (permission != null) {
+                if (cause == null)
+                    circuitBreaker.onSuccess(permission);
+                else if (isLocalFailure(cause))
+                    circuitBreaker.release(permission);
+                else
+                    circuitBreaker.onFailure(permission, cause);
+            }
+        }
+
+        if (connectionLimiter == null && endpointSelector == null)
+            return;
+
+        // requests rejected locally or that failed before being written say nothing about the remote host
+        long sendTime = future.getSendNanoTime();
+        boolean sampled = sendTime != 0L && !isLocalFailure(cause);
+        long rttNanos = sampled ? System.nanoTime() - sendTime : -1L;
+        boolean dropped = sampled && cause != null;
+        if (connectionLimiter != null && sampled)
+            connectionLimiter.onSample(future.getPartitionKey(), rttNanos, dropped);
+        if (endpointSelector != null) {
+            InetSocketAddress endpoint = future.untrackEndpoint();
+            if (endpoint != null)
+                endpointSelector.onRequestEnd(endpoint, rttNanos, dropped);
+        }
+    }
+
+    /**
+     * Pick the endpoint a request is sent to, and so the partition of its connection, if balancing is enabled.
+     * 
+     * Requests going through a proxy or having an explicit address aren't balanced. Neither are the requests whose host
+     * isn't resolved yet, which go through the regular connect and failover logic, so the name resolver should cache the
+     * resolutions and not block, see {@link org.asynchttpclient.channel.CachingNameResolver}.
+     * 
+     * @param future the future of the request
+     * @param request the request about to be sent
+     * @param proxy the proxy server, if any
+     */
+    public void selectEndpoint(final NettyResponseFuture<?> future, Request request, ProxyServer proxy) {
+        if (endpointSelector == null || (future.getEndpoint() != null && future.reuseChannel()))
+            // the channel is bound to the current endpoint
+            return;
+
+        // the future is being reused for a retry or a redirect
+        InetSocketAddress previous = future.untrackEndpoint();
+        if (previous != null)
+            endpointSelector.onRequestEnd(previous, -1L, false);
+
+        InetSocketAddress endpoint = proxy == null && request.getInetAddress() == null ? pickEndpoint(request) : null;
+        future.setEndpoint(endpoint);
+        if (endpoint != null) {
+            endpointSelector.onRequestStart(endpoint);
+            if (previous == null)
+                // cancelled futures don't go through onRequestCompleted
+                future.addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        InetSocketAddress endpoint = future.untrackEndpoint();
+                        if (endpoint != null)
+                            endpointSelector.onRequestEnd(endpoint, -1L, future.isCancelled());
+                    }
+                }, ImmediateEventExecutor.INSTANCE);
+        }
+    }
+
+    private boolean isLocalFailure(Throwable cause) {
+        return cause == tooManyConnections || cause == tooManyConnectionsPerHost || cause == poolAlreadyClosed || cause == circuitOpen;
+    }
+
+    /**
+     * @return the exception requests fail fast with while the circuit of their partition is open
+     */
+    public IOException getCircuitOpenException() {
+        return circuitOpen;
+    }
+
+    /**
+     * @param future the future of a request about to be sent
+     * @return false if the circuit of the partition of the request is open, in which case the request should fail fast
+     */
+    public boolean acquireCircuitPermission(final NettyResponseFuture<?> future) {
+        if (circuitBreaker == null)
+            return true;
+
+        Object partitionKey = future.getPartitionKey();
+        CircuitBreaker.Permission held = future.getCircuitPermit();
+        if (held != null && partitionKey.equals(held.getPartitionKey()))
+            // retry, or redirect to the same partition
+            return true;
+
+        CircuitBreaker.Permission previous = future.releaseCircuitPermit();
+        if (previous != null)
+            // redirect, the previous partition did answer
+            circuitBreaker.onSuccess(previous);
+
+        CircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission(partitionKey);
+        if (permission == null)
+            return false;
+
+        future.setCircuitPermit(permission);
+        if (previous == null)
+            // cancelled futures don't go through onRequestCompleted
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    releaseCircuitPermission(future);
+                }
+            }, ImmediateEventExecutor.INSTANCE);
+        return true;
+    }
+
+    /**
+     * Give the permission of a request back without reporting an outcome, for example because it never left the client.
+     * 
+     * @param future the future of the request
+     */
+    public void releaseCircuitPermission(NettyResponseFuture<?> future) {
+        if (circuitBreaker != null) {
+            CircuitBreaker.Permission permission = future.releaseCircuitPermit();
+            if (permission != null)
+                circuitBreaker.release(permission);
+        }
+    }
+
+    private List<InetSocketAddress> availableEndpoints(Request request, List<InetSocketAddress> endpoints) {
+        Object hostPartitionKey = request.getConnectionPoolPartitioning().getPartitionKey(request.getUri(), request.getVirtualHost(), null);
+        List<InetSocketAddress> available = null;
+        for (int i = 0; i < endpoints.size(); i++) {
+            InetSocketAddress endpoint = endpoints.get(i);
+            boolean ejected = !circuitBreaker.isAvailable(new ConnectionPoolPartitioning.EndpointPartitionKey(hostPartitionKey, endpoint));
+            if (ejected && available == null)
+                available = new ArrayList<>(endpoints.subList(0, i));
+            else if (!ejected && available != null)
+                available.add(endpoint);
+        }
+        // if all the endpoints are ejected, let the request fail fast
+        return available == null || available.isEmpty() ? endpoints : available;
+    }
+
+    /**
+     * @param request a request
+     * @param proxy the proxy server, if any
+     * @return the endpoints that requests like this one are balanced across, an empty list if they aren't balanced, or null if
+     *         the host isn't resolved yet
+     */
+    public List<InetSocketAddress> getBalancedEndpoints(Request request, ProxyServer proxy) {
+        if (endpointSelector == null || proxy != null || request.getInetAddress() != null)
+            return Collections.emptyList();
+        return endpoints(request);
+    }
+
+    private List<InetSocketAddress> endpoints(Request request) {
+        Uri uri = request.getUri();
+        List<InetSocketAddress> endpoints = endpointProvider != null ? endpointProvider.getEndpoints(uri) : null;
+        if (endpoints != null)
+            return endpoints;
+
+        Future<NameResolution[]> whenResolved = request.getNameResolver().resolveAsync(uri.getHost());
+        if (!whenResolved.isSuccess())
+            // pending or failed, let the connector deal with it
+            return null;
+
+        NameResolution[] resolutions = whenResolved.getNow();
+        endpoints = new ArrayList<>(resolutions.length);
+        for (NameResolution resolution : resolutions)
+            endpoints.add(new InetSocketAddress(resolution.address, uri.getExplicitPort()));
+        return endpoints;
+    }
+
+    private InetSocketAddress pickEndpoint(Request request) {
+        List<InetSocketAddress> endpoints = endpoints(request);
+        if (endpoints == null)
+            return null;
+
+        if (circuitBreaker != null && endpoints.size() > 1)
+            endpoints = availableEndpoints(request, endpoints);
+
+        switch (endpoints.size()) {
+        case 0:
+            return null;
+        case 1:
+            return endpoints.get(0);
+        default:
+            return endpointSelector.select(endpoints);
+        }
+    }
+
     public void abortChannelPreemption(Object partitionKey) {
         if (maxTotalConnectionsEnabled)
             freeChannels.release();
         if (maxConnectionsPerHostEnabled)
-            getFreeConnectionsForHost(partitionKey).release();
+            connectionLimiter.release(partitionKey);
+        onPermitReleased(partitionKey);
+    }
+
+    private static final class PendingAcquires {
+        final ConcurrentLinkedDeque<PendingAcquire> queue = new ConcurrentLinkedDeque<>();
+        final AtomicInteger size = new AtomicInteger();
+
+        PendingAcquire poll() {
+            PendingAcquire pendingAcquire = queue.poll();
+            if (pendingAcquire != null)
+                size.decrementAndGet();
+            return pendingAcquire;
+        }
+
+        void remove(PendingAcquire pendingAcquire) {
+            if (queue.remove(pendingAcquire))
+                size.decrementAndGet();
+        }
+    }
+
+    private static final ConcurrentHashMapV8.Fun<Object, PendingAcquires> pendingAcquiresComputer = new ConcurrentHashMapV8.Fun<Object, PendingAcquires>() {
+        @Override
+        public PendingAcquires apply(Object partitionKey) {
+            return new PendingAcquires();
+        }
+    };
+
+    /**
+     * Queue a request that couldn't preempt a channel because the connection limits were reached.
+     * 
+     * @param pendingAcquire the pending acquire
+     * @param timeoutInMs how long the request can wait, -1 for no limit
+     * @return false if requests can't wait for a connection, or if too many of them already are
+     */
+    public boolean enqueuePendingAcquire(final PendingAcquire pendingAcquire, long timeoutInMs) {
+        if (pendingAcquires == null || !channelPool.isOpen())
+            return false;
+
+        final PendingAcquires partitionPendingAcquires = pendingAcquires.computeIfAbsent(pendingAcquire.getPartitionKey(), pendingAcquiresComputer);
+        if (partitionPendingAcquires.size.incrementAndGet() > maxPendingAcquires) {
+            partitionPendingAcquires.size.decrementAndGet();
+            return false;
+        }
+        partitionPendingAcquires.queue.offer(pendingAcquire);
+
+        if (timeoutInMs > 0)
+            pendingAcquire.scheduleTimeout(nettyTimer, timeoutInMs, new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    if (pendingAcquire.dequeue()) {
+                        partitionPendingAcquires.remove(pendingAcquire);
+                        pendingAcquire.onTimeout(pendingAcquire.getQueueTime());
+                    }
+                }
+            });
+
+        // a permit might have been released in-between
+        dispatchOrFreeGlobalPermit(pendingAcquire.getPartitionKey());
+
+        return true;
+    }
+
+    /**
+     * Put a dispatched pending acquire that lost the race for the released permit back at the head of its queue. It keeps its
+     * original deadline, and doesn't count against maxPendingAcquires as it was already queued.
+     * 
+     * @param pendingAcquire the pending acquire
+     * @return false if requests can't wait for a connection anymore
+     */
+    public boolean requeuePendingAcquire(PendingAcquire pendingAcquire) {
+        if (pendingAcquires == null || !channelPool.isOpen())
+            return false;
+
+        PendingAcquires partitionPendingAcquires = pendingAcquires.computeIfAbsent(pendingAcquire.getPartitionKey(), pendingAcquiresComputer);
+        pendingAcquire.requeue();
+        partitionPendingAcquires.size.incrementAndGet();
+        partitionPendingAcquires.queue.offerFirst(pendingAcquire);
+        pendingAcquire.rescheduleTimeout();
+
+        dispatchOrFreeGlobalPermit(pendingAcquire.getPartitionKey());
+
+        return true;
+    }
+
+    private boolean hasFreePermits(Object partitionKey) {
+        return (!maxTotalConnectionsEnabled || freeChannels.availablePermits() > 0) && hasFreePerHostPermits(partitionKey);
+    }
+
+    private boolean hasFreePerHostPermits(Object partitionKey) {
+        return !maxConnectionsPerHostEnabled || connectionLimiter.getInFlight(partitionKey) < connectionLimiter.getLimit(partitionKey);
+    }
+
+    private void dispatchOrFreeGlobalPermit(Object partitionKey) {
+        if (hasFreePermits(partitionKey)) {
+            dispatchPendingAcquire(partitionKey);
+
+        } else if (maxTotalConnectionsEnabled && freeChannels.availablePermits() == 0 && hasFreePerHostPermits(partitionKey)) {
+            // only the global limit is reached: idle channels of other partitions would hold on to the permits until they time out,
+            // closing one releases its permit to this partition
+            Channel idleChannel = channelPool.pollFromOtherPartition(partitionKey);
+            if (idleChannel != null) {
+                LOGGER.debug("Closing idle channel {} to free a connection for {}", idleChannel, partitionKey);
+                closeChannel(idleChannel);
+            }
+        }
+    }
+
+    private void onPermitReleased(Object partitionKey) {
+        if (pendingAcquires == null)
+            return;
+
+        if (partitionKey != null && dispatchPendingAcquire(partitionKey))
+            return;
+
+        // the global limit was reached, any partition can use the permit
+        if (maxTotalConnectionsEnabled)
+            for (Object otherPartitionKey : pendingAcquires.keySet())
+                if (hasFreePermits(otherPartitionKey) && dispatchPendingAcquire(otherPartitionKey))
+                    return;
+    }
+
+    /**
+     * @param partitionKey the partition where a channel or a permit just became available
+     * @return true if a pending acquire was dispatched
+     */
+    private boolean dispatchPendingAcquire(Object partitionKey) {
+        if (pendingAcquires == null)
+            return false;
+
+        PendingAcquires partitionPendingAcquires = pendingAcquires.get(partitionKey);
+        if (partitionPendingAcquires == null)
+            return false;
+
+        PendingAcquire pendingAcquire;
+        while ((pendingAcquire = partitionPendingAcquires.poll()) != null) {
+            if (pendingAcquire.dequeue() && !pendingAcquire.isAbandoned()) {
+                // not on the caller's stack, it might be in the middle of processing a response
+                eventLoopGroup.next().execute(pendingAcquire);
+                return true;
+            }
+        }
+        return false;
     }
 
     public void registerOpenChannel(Channel channel, Object partitionKey) {
@@ -397,6 +895,10 @@ public class ChannelManager {
         return pipeline.get(SSL_HANDLER) != null;
     }
 
+    public static boolean isDeflaterConfigured(ChannelPipeline pipeline) {
+        return pipeline.get(DEFLATER_HANDLER) != null;
+    }
+
     public void upgradeProtocol(ChannelPipeline pipeline, Uri requestUri) throws GeneralSecurityException {
         if (pipeline.get(HTTP_HANDLER) != null)
             pipeline.remove(HTTP_HANDLER);
@@ -466,7 +968,16 @@ public class ChannelManager {
     }
 
     public Bootstrap getBootstrap(Uri uri, ProxyServer proxy) {
-        return uri.isWebSocket() && proxy == null ? wsBootstrap : httpBootstrap;
+        if (uri.isWebSocket() && proxy == null)
+            return wsBootstrap;
+
+        if (eventLoopHttpBootstraps != null) {
+            // register the new channel on the calling event loop, if any
+            int current = EventLoops.indexOfCurrent(eventLoops);
+            if (current != -1)
+                return eventLoopHttpBootstraps[current];
+        }
+        return httpBootstrap;
     }
 
     public void upgradePipelineForWebSockets(ChannelPipeline pipeline) {
@@ -493,6 +1004,31 @@ public class ChannelManager {
         Channels.setAttribute(channel, newDrainCallback(future, channel, keepAlive, partitionKey));
     }
 
+    /**
+     * Open connections ahead of requests and offer them to the pool. When requests are balanced across the endpoints of their
+     * host, the connections are spread across the endpoints.
+     * 
+     * @param request the request whose target the connections are opened to
+     * @param proxy the proxy server, if any
+     * @param connections the number of connections to open
+     * @return a future of the number of connections that were actually offered to the pool
+     */
+    public CompletableFuture<Integer> prewarm(Request request, ProxyServer proxy, int connections) {
+        return prewarmer.prewarm(request, proxy, connections);
+    }
+
+    /**
+     * Maintain a minimum number of idle connections in the partition of a request, refilled in the background. When requests
+     * are balanced across the endpoints of their host, the minimum is maintained in the partition of each endpoint.
+     * 
+     * @param request the request whose target the connections are opened to
+     * @param proxy the proxy server, if any
+     * @param minIdleConnections the number of idle connections to maintain, 0 to stop maintaining them
+     */
+    public void setMinIdleConnections(Request request, ProxyServer proxy, int minIdleConnections) {
+        prewarmer.setMinIdleConnections(request, proxy, minIdleConnections);
+    }
+
     public ChannelPool getChannelPool() {
         return channelPool;
     }
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.channel.NameResolution;
+import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning;
+import org.asynchttpclient.netty.request.NettyChannelConnector;
+import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.uri.Uri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens connections ahead of requests and offers them to the pool, either on
+ * demand or to maintain a minimum number of idle connections per partition.
+ * When requests are balanced across the endpoints of their host, connections
+ * are opened to the endpoints, in their partitions.
+ */
+public class ConnectionPrewarmer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPrewarmer.class);
+
+    public static final long MIN_IDLE_CHECK_PERIOD = 1000;
+
+    private final AsyncHttpClientConfig config;
+    private final ChannelManager channelManager;
+    private final Timer nettyTimer;
+    private final long connectAttemptDelay;
+    private final ConcurrentHashMap<Object, MinIdle> minIdles = new ConcurrentHashMap<>();
+    private final AtomicBoolean minIdleCheckerScheduled = new AtomicBoolean();
+
+    public ConnectionPrewarmer(AsyncHttpClientConfig config, ChannelManager channelManager, Timer nettyTimer, long connectAttemptDelay) {
+        this.config = config;
+        this.channelManager = channelManager;
+        this.nettyTimer = nettyTimer;
+        this.connectAttemptDelay = connectAttemptDelay;
+    }
+
+    private static final class MinIdle {
+        final Request request;
+        final ProxyServer proxy;
+        final int minIdle;
+        // per partition, there's one per endpoint when requests are balanced
+        final ConcurrentHashMap<Object, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+        MinIdle(Request request, ProxyServer proxy, int minIdle) {
+            this.request = request;
+            this.proxy = proxy;
+            this.minIdle = minIdle;
+        }
+
+        AtomicInteger pending(Object partitionKey) {
+            return pending.computeIfAbsent(partitionKey, pk -> new AtomicInteger());
+        }
+    }
+
+    private interface ConnectionCallback {
+        void onDone(boolean pooled);
+    }
+
+    private boolean canPrewarm(Uri uri, ProxyServer proxy) {
+        // tunnels are only established by the CONNECT request
+        return channelManager.getChannelPool().isOpen() && config.isAllowPoolingConnections()//
+                && !uri.isWebSocket()//
+                && (!uri.isSecured() || (proxy == null && config.isAllowPoolingSslConnections()));
+    }
+
+    private Object partitionKey(Request request, ProxyServer proxy) {
+        return request.getConnectionPoolPartitioning().getPartitionKey(request.getUri(), request.getVirtualHost(), proxy);
+    }
+
+    /**
+     * @param request the request whose target the connections are opened to
+     * @param proxy the proxy server, if any
+     * @param connections the number of connections to open
+     * @return a future of the number of connections that were actually offered to the pool
+     */
+    public CompletableFuture<Integer> prewarm(final Request request, final ProxyServer proxy, final int connections) {
+        final CompletableFuture<Integer> whenPrewarmed = new CompletableFuture<>();
+
+        if (connections <= 0 || !canPrewarm(request.getUri(), proxy)) {
+            whenPrewarmed.complete(0);
+            return whenPrewarmed;
+        }
+
+        List<InetSocketAddress> endpoints = channelManager.getBalancedEndpoints(request, proxy);
+        if (endpoints != null) {
+            prewarm(request, proxy, endpoints, connections, whenPrewarmed);
+
+        } else {
+            // balanced, but the host isn't resolved yet
+            request.getNameResolver().resolveAsync(request.getUri().getHost()).addListener(new GenericFutureListener<Future<NameResolution[]>>() {
+                @Override
+                public void operationComplete(Future<NameResolution[]> whenResolved) throws Exception {
+                    List<InetSocketAddress> endpoints = channelManager.getBalancedEndpoints(request, proxy);
+                    if (endpoints != null)
+                        prewarm(request, proxy, endpoints, connections, whenPrewarmed);
+                    else
+                        whenPrewarmed.complete(0);
+                }
+            });
+        }
+
+        return whenPrewarmed;
+    }
+
+    private void prewarm(Request request, ProxyServer proxy, List<InetSocketAddress> endpoints, int connections, final CompletableFuture<Integer> whenPrewarmed) {
+        Object partitionKey = partitionKey(request, proxy);
+        final AtomicInteger remaining = new AtomicInteger(connections);
+        final AtomicInteger pooled = new AtomicInteger();
+        ConnectionCallback callback = new ConnectionCallback() {
+            @Override
+            public void onDone(boolean success) {
+                if (success)
+                    pooled.incrementAndGet();
+                if (remaining.decrementAndGet() == 0)
+                    whenPrewarmed.complete(pooled.get());
+            }
+        };
+
+        for (int i = 0; i < connections; i++) {
+            if (endpoints.isEmpty()) {
+                openConnection(request, proxy, partitionKey, null, callback);
+            } else {
+                InetSocketAddress endpoint = endpoints.get(i % endpoints.size());
+                openConnection(request, proxy, new ConnectionPoolPartitioning.EndpointPartitionKey(partitionKey, endpoint), endpoint, callback);
+            }
+        }
+    }
+
+    /**
+     * @param request the request whose target the connections are opened to
+     * @param proxy the proxy server, if any
+     * @param minIdle the number of idle connections to maintain in the partition of the request, or of each of its endpoints when
+     *            requests are balanced, 0 to stop maintaining them
+     */
+    public void setMinIdleConnections(Request request, ProxyServer proxy, int minIdle) {
+        Object partitionKey = partitionKey(request, proxy);
+        if (minIdle <= 0) {
+            minIdles.remove(partitionKey);
+            return;
+        }
+
+        if (!canPrewarm(request.getUri(), proxy))
+            throw new IllegalArgumentException("Can't maintain idle connections to " + request.getUri());
+        if (channelManager.getChannelPool().idleCount(partitionKey) < 0)
+            throw new UnsupportedOperationException("The channel pool doesn't count idle connections");
+
+        minIdles.put(partitionKey, new MinIdle(request, proxy, minIdle));
+        scheduleMinIdleChecker();
+    }
+
+    private void scheduleMinIdleChecker() {
+        if (!minIdles.isEmpty() && minIdleCheckerScheduled.compareAndSet(false, true))
+            nettyTimer.newTimeout(new MinIdleChecker(), MIN_IDLE_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    private final class MinIdleChecker implements TimerTask {
+
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            if (!channelManager.getChannelPool().isOpen())
+                return;
+
+            try {
+                for (Map.Entry<Object, MinIdle> entry : minIdles.entrySet()) {
+                    MinIdle minIdle = entry.getValue();
+                    List<InetSocketAddress> endpoints = channelManager.getBalancedEndpoints(minIdle.request, minIdle.proxy);
+                    if (endpoints == null)
+                        // balanced, but the host isn't resolved yet
+                        continue;
+
+                    if (endpoints.isEmpty())
+                        refill(minIdle, entry.getKey(), null);
+                    else
+                        for (InetSocketAddress endpoint : endpoints)
+                            refill(minIdle, new ConnectionPoolPartitioning.EndpointPartitionKey(entry.getKey(), endpoint), endpoint);
+                }
+            } catch (Throwable t) {
+                LOGGER.error("uncaught exception!", t);
+            }
+
+            // stop checking once no partition is maintained anymore, a new setMinIdleConnections reschedules it
+            minIdleCheckerScheduled.set(false);
+            scheduleMinIdleChecker();
+        }
+    }
+
+    private void refill(MinIdle minIdle, Object partitionKey, InetSocketAddress endpoint) {
+        final AtomicInteger pending = minIdle.pending(partitionKey);
+        int missing = minIdle.minIdle - channelManager.getChannelPool().idleCount(partitionKey) - pending.get();
+        if (missing > 0) {
+            LOGGER.debug("Refilling {} idle connections for {}", missing, partitionKey);
+            pending.addAndGet(missing);
+            ConnectionCallback callback = new ConnectionCallback() {
+                @Override
+                public void onDone(boolean pooled) {
+                    pending.decrementAndGet();
+                }
+            };
+            for (int i = 0; i < missing; i++)
+                openConnection(minIdle.request, minIdle.proxy, partitionKey, endpoint, callback);
+        }
+    }
+
+    private void openConnection(final Request request, ProxyServer proxy, final Object partitionKey, InetSocketAddress endpoint, final ConnectionCallback callback) {
+
+        try {
+            channelManager.preemptChannel(partitionKey);
+        } catch (IOException e) {
+            LOGGER.debug("Can't open a connection for {}: {}", partitionKey, e.getMessage());
+            callback.onDone(false);
+            return;
+        }
+
+        final Uri uri = request.getUri();
+        final boolean secured = proxy == null && uri.isSecured();
+
+        new NettyChannelConnector(request, proxy, endpoint, null, connectAttemptDelay).connect(channelManager.getBootstrap(uri, proxy), new NettyChannelConnector.ConnectListener() {
+
+            @Override
+            public void onResolutionFailure(Throwable cause) {
+                channelManager.abortChannelPreemption(partitionKey);
+                callback.onDone(false);
+            }
+
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    channelManager.abortChannelPreemption(partitionKey);
+                    callback.onDone(false);
+                    return;
+                }
+
+                final Channel channel = future.channel();
+                channelManager.registerOpenChannel(channel, partitionKey);
+
+                if (!secured) {
+                    offer(channel);
+                    return;
+                }
+
+                SslHandler sslHandler;
+                try {
+                    sslHandler = channelManager.addSslHandler(channel.pipeline(), uri, request.getVirtualHost());
+                } catch (Exception e) {
+                    channelManager.closeChannel(channel);
+                    callback.onDone(false);
+                    return;
+                }
+
+                sslHandler.handshakeFuture().addListener(new GenericFutureListener<Future<Channel>>() {
+                    @Override
+                    public void operationComplete(Future<Channel> handshakeFuture) throws Exception {
+                        if (handshakeFuture.isSuccess()) {
+                            offer(channel);
+                        } else {
+                            channelManager.closeChannel(channel);
+                            callback.onDone(false);
+                        }
+                    }
+                });
+            }
+
+            private void offer(Channel channel) {
+                boolean pooled = channelManager.tryToOfferChannelToPool(channel, null, true, partitionKey);
+                if (!pooled)
+                    channelManager.closeChannel(channel);
+                callback.onDone(pooled);
+            }
+        });
+    }
+}
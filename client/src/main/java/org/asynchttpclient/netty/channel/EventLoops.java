@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class EventLoops {
+
+    private EventLoops() {
+    }
+
+    /**
+     * @param eventLoopGroup the group
+     * @return the event loops of the group, in iteration order
+     */
+    public static EventLoop[] eventLoops(EventLoopGroup eventLoopGroup) {
+        List<EventLoop> eventLoops = new ArrayList<>();
+        for (EventExecutor executor : eventLoopGroup)
+            eventLoops.add((EventLoop) executor);
+        return eventLoops.toArray(new EventLoop[eventLoops.size()]);
+    }
+
+    /**
+     * @param eventLoops the candidates
+     * @return the index of the event loop the current thread runs, or -1 if the current thread isn't one of them
+     */
+    public static int indexOfCurrent(EventLoop[] eventLoops) {
+        for (int i = 0; i < eventLoops.length; i++)
+            if (eventLoops[i].inEventLoop())
+                return i;
+        return -1;
+    }
+}
@@ -16,7 +16,6 @@ package org.asynchttpclient.netty.channel;
 import static org.asynchttpclient.util.HttpUtils.getBaseUrl;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelFutureListener;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
@@ -28,6 +27,7 @@ import org.asynchttpclient.Request;
 import org.asynchttpclient.handler.AsyncHandlerExtensions;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.future.StackTraceInspector;
+import org.asynchttpclient.netty.request.NettyChannelConnector;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
@@ -36,7 +36,7 @@ import org.slf4j.LoggerFactory;
 /**
  * Non Blocking connect.
  */
-public final class NettyConnectListener<T> implements ChannelFutureListener {
+public final class NettyConnectListener<T> implements NettyChannelConnector.ConnectListener {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(NettyConnectListener.class);
 
@@ -121,7 +121,7 @@ public final class NettyConnectListener<T> implements ChannelFutureListener {
                 && cause != null//
                 && (future.getState() != NettyResponseFuture.STATE.NEW || StackTraceInspector.recoverOnNettyDisconnectException(cause))) {
 
-            if (requestSender.retry(future)) {
+            if (requestSender.retry(future, cause)) {
                 return;
             }
         }
@@ -133,7 +133,18 @@ public final class NettyConnectListener<T> implements ChannelFutureListener {
         ConnectException e = new ConnectException(printedCause);
         if (cause != null)
             e.initCause(cause);
-        future.abort(e);
+        requestSender.abort(null, future, e);
+    }
+
+    /**
+     * Abort the request as the remote address couldn't be resolved.
+     * 
+     * @param cause the resolution failure
+     */
+    @Override
+    public void onResolutionFailure(Throwable cause) {
+        abortChannelPreemption();
+        requestSender.abort(null, future, cause);
     }
 
     public final void operationComplete(ChannelFuture f) throws Exception {
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A request waiting for a connection because the connection limits were
+ * reached. It's run on an event loop once a channel is offered back to the
+ * pool of its partition or a connection permit is released.
+ */
+public abstract class PendingAcquire implements Runnable {
+
+    private final Object partitionKey;
+    private final long enqueueTime = millisTime();
+    private final AtomicBoolean dequeued = new AtomicBoolean();
+    private final AtomicInteger requeues = new AtomicInteger();
+    private volatile Timer nettyTimer;
+    private volatile TimerTask timeoutTask;
+    private volatile long deadline;
+    private volatile Timeout timeout;
+
+    public PendingAcquire(Object partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public Object getPartitionKey() {
+        return partitionKey;
+    }
+
+    /**
+     * @return the time spent waiting for a connection so far, in ms
+     */
+    public long getQueueTime() {
+        return millisTime() - enqueueTime;
+    }
+
+    /**
+     * @return how many times this pending acquire went back to the queue after being dispatched
+     */
+    public int getRequeues() {
+        return requeues.get();
+    }
+
+    void scheduleTimeout(Timer nettyTimer, long timeoutInMs, TimerTask task) {
+        this.nettyTimer = nettyTimer;
+        timeoutTask = task;
+        deadline = enqueueTime + timeoutInMs;
+        rescheduleTimeout();
+    }
+
+    /**
+     * Arm the timeout again for what's left until the original deadline, if any.
+     */
+    void rescheduleTimeout() {
+        if (timeoutTask == null)
+            return;
+        timeout = nettyTimer.newTimeout(timeoutTask, Math.max(deadline - millisTime(), 0L), TimeUnit.MILLISECONDS);
+        if (dequeued.get())
+            // dispatched in-between
+            timeout.cancel();
+    }
+
+    /**
+     * Make a dispatched pending acquire that couldn't get a connection queueable again.
+     */
+    void requeue() {
+        requeues.incrementAndGet();
+        dequeued.set(false);
+    }
+
+    /**
+     * @return true if the caller is the one that has to either dispatch or expire this pending acquire
+     */
+    boolean dequeue() {
+        if (!dequeued.compareAndSet(false, true))
+            return false;
+        Timeout t = timeout;
+        if (t != null)
+            t.cancel();
+        return true;
+    }
+
+    @Override
+    public final void run() {
+        onAcquirable(getQueueTime());
+    }
+
+    /**
+     * @return true if the request doesn't need a connection anymore, e.g. it was cancelled
+     */
+    protected abstract boolean isAbandoned();
+
+    /**
+     * Try again to acquire a connection.
+     * 
+     * @param queueTime the time spent waiting, in ms
+     */
+    protected abstract void onAcquirable(long queueTime);
+
+    /**
+     * @param queueTime the time spent waiting, in ms
+     */
+    protected abstract void onTimeout(long queueTime);
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.AttributeKey;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.asynchttpclient.netty.NettyResponseFuture;
+
+/**
+ * The futures whose requests were pipelined on a channel behind the one
+ * currently stored as the channel attribute, in the order their requests were
+ * written, hence the order their responses will arrive.
+ */
+final class PipelinedFutures {
+
+    static final AttributeKey<PipelinedFutures> PIPELINED_FUTURES_ATTRIBUTE = AttributeKey.valueOf("pipelinedFutures");
+
+    private final ArrayDeque<NettyResponseFuture<?>> futures = new ArrayDeque<>();
+    private final Object partitionKey;
+    private boolean closed;
+
+    PipelinedFutures(Object partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    Object getPartitionKey() {
+        return partitionKey;
+    }
+
+    /**
+     * @param future a future whose request is about to be written
+     * @param maxQueued the maximum number of futures queued behind the current one
+     * @return true if the future was queued
+     */
+    synchronized boolean offer(NettyResponseFuture<?> future, int maxQueued) {
+        if (closed || futures.size() >= maxQueued)
+            return false;
+        futures.add(future);
+        return true;
+    }
+
+    synchronized NettyResponseFuture<?> poll() {
+        return futures.poll();
+    }
+
+    synchronized int size() {
+        return futures.size();
+    }
+
+    /**
+     * Stop accepting futures.
+     * 
+     * @return the futures that were queued and won't get a response on this channel
+     */
+    synchronized List<NettyResponseFuture<?>> close() {
+        closed = true;
+        if (futures.isEmpty())
+            return Collections.emptyList();
+        List<NettyResponseFuture<?>> unanswered = new ArrayList<>(futures);
+        futures.clear();
+        return unanswered;
+    }
+}
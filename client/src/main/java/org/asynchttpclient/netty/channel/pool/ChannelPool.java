@@ -63,6 +63,26 @@ public interface ChannelPool {
      */
     void flushPartition(Object partitionKey);
 
+    /**
+     * @param partitionKey the partition
+     * @return the number of idle channels currently cached for this partition, or -1 if this pool doesn't keep track of it, in which
+     *         case minimum idle connections can't be maintained
+     */
+    default int idleCount(Object partitionKey) {
+        return -1;
+    }
+
+    /**
+     * Take an idle channel from any partition but the given one, typically to close it when the global connection limit
+     * is reached and requests to that partition are waiting.
+     * 
+     * @param partitionKey the partition that needs a connection
+     * @return an idle channel of another partition, or null if there's none or if this pool doesn't support it
+     */
+    default Channel pollFromOtherPartition(Object partitionKey) {
+        return null;
+    }
+
     /**
      * Flush partitions based on a selector
      * 
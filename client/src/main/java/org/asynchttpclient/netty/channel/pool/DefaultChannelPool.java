@@ -21,6 +21,7 @@ import io.netty.util.Timer;
 import io.netty.util.TimerTask;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.netty.NettyResponseFuture;
@@ -45,7 +47,7 @@ public final class DefaultChannelPool implements ChannelPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultChannelPool.class);
 
-    private final ConcurrentHashMap<Object, ConcurrentLinkedQueue<IdleChannel>> partitions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object, IdleChannelQueue> partitions = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, ChannelCreation> channelId2Creation = new ConcurrentHashMap<>();
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
     private final Timer nettyTimer;
@@ -56,6 +58,52 @@ public final class DefaultChannelPool implements ChannelPool {
     private final boolean maxIdleTimeDisabled;
     private final long cleanerPeriod;
 
+    /**
+     * A partition queue that keeps count of its elements, as {@link ConcurrentLinkedQueue#size()} traverses the whole queue.
+     */
+    @SuppressWarnings("serial")
+    private static final class IdleChannelQueue extends ConcurrentLinkedQueue<IdleChannel> {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public boolean offer(IdleChannel idleChannel) {
+            boolean added = super.offer(idleChannel);
+            if (added)
+                count.incrementAndGet();
+            return added;
+        }
+
+        @Override
+        public IdleChannel poll() {
+            IdleChannel idleChannel = super.poll();
+            if (idleChannel != null)
+                count.decrementAndGet();
+            return idleChannel;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            boolean removed = super.remove(o);
+            if (removed)
+                count.decrementAndGet();
+            return removed;
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            boolean removed = false;
+            for (Object o : c)
+                removed |= remove(o);
+            return removed;
+        }
+
+        @Override
+        public int size() {
+            return count.get();
+        }
+    }
+
     public DefaultChannelPool(AsyncHttpClientConfig config, Timer hashedWheelTimer) {
         this(config.getPooledConnectionIdleTimeout(),//
                 config.getConnectionTTL(),//
@@ -139,7 +187,7 @@ public final class DefaultChannelPool implements ChannelPool {
             return !maxIdleTimeDisabled && now - idleChannel.start >= maxIdleTime;
         }
 
-        private List<IdleChannel> expiredChannels(ConcurrentLinkedQueue<IdleChannel> partition, long now) {
+        private List<IdleChannel> expiredChannels(IdleChannelQueue partition, long now) {
             // lazy create
             List<IdleChannel> idleTimeoutChannels = null;
             for (IdleChannel idleChannel : partition) {
@@ -207,7 +255,7 @@ public final class DefaultChannelPool implements ChannelPool {
                 int closedCount = 0;
                 int totalCount = 0;
 
-                for (ConcurrentLinkedQueue<IdleChannel> partition : partitions.values()) {
+                for (IdleChannelQueue partition : partitions.values()) {
 
                     // store in intermediate unsynchronized lists to minimize
                     // the impact on the ConcurrentLinkedQueue
@@ -249,7 +297,7 @@ public final class DefaultChannelPool implements ChannelPool {
         if (isTTLExpired(channel, now))
             return false;
 
-        boolean added = partitions.computeIfAbsent(partitionKey, pk -> new ConcurrentLinkedQueue<>()).add(new IdleChannel(channel, now));
+        boolean added = partitions.computeIfAbsent(partitionKey, pk -> new IdleChannelQueue()).add(new IdleChannel(channel, now));
         if (added)
             channelId2Creation.putIfAbsent(channelId(channel), new ChannelCreation(now, partitionKey));
 
@@ -262,7 +310,7 @@ public final class DefaultChannelPool implements ChannelPool {
     public Channel poll(Object partitionKey) {
 
         IdleChannel idleChannel = null;
-        ConcurrentLinkedQueue<IdleChannel> partition = partitions.get(partitionKey);
+        IdleChannelQueue partition = partitions.get(partitionKey);
         if (partition != null) {
             while (idleChannel == null) {
                 idleChannel = partition.poll();
@@ -301,7 +349,7 @@ public final class DefaultChannelPool implements ChannelPool {
         if (isClosed.getAndSet(true))
             return;
 
-        for (ConcurrentLinkedQueue<IdleChannel> partition : partitions.values()) {
+        for (IdleChannelQueue partition : partitions.values()) {
             for (IdleChannel idleChannel : partition)
                 close(idleChannel.channel);
         }
@@ -317,7 +365,7 @@ public final class DefaultChannelPool implements ChannelPool {
         Channels.silentlyCloseChannel(channel);
     }
 
-    private void flushPartition(Object partitionKey, ConcurrentLinkedQueue<IdleChannel> partition) {
+    private void flushPartition(Object partitionKey, IdleChannelQueue partition) {
         if (partition != null) {
             partitions.remove(partitionKey);
             for (IdleChannel idleChannel : partition)
@@ -330,10 +378,28 @@ public final class DefaultChannelPool implements ChannelPool {
         flushPartition(partitionKey, partitions.get(partitionKey));
     }
 
+    @Override
+    public int idleCount(Object partitionKey) {
+        IdleChannelQueue partition = partitions.get(partitionKey);
+        return partition != null ? partition.size() : 0;
+    }
+
+    @Override
+    public Channel pollFromOtherPartition(Object partitionKey) {
+        for (Object otherPartitionKey : partitions.keySet()) {
+            if (!otherPartitionKey.equals(partitionKey)) {
+                Channel channel = poll(otherPartitionKey);
+                if (channel != null)
+                    return channel;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void flushPartitions(ChannelPoolPartitionSelector selector) {
 
-        for (Map.Entry<Object, ConcurrentLinkedQueue<IdleChannel>> partitionsEntry : partitions.entrySet()) {
+        for (Map.Entry<Object, IdleChannelQueue> partitionsEntry : partitions.entrySet()) {
             Object partitionKey = partitionsEntry.getKey();
             if (selector.select(partitionKey))
                 flushPartition(partitionKey, partitionsEntry.getValue());
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel.pool;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.netty.channel.EventLoops;
+
+/**
+ * A {@link ChannelPool} decorator that shards the idle channels of every
+ * partition per {@link EventLoop}.
+ *
+ * When polled from an event loop thread, the shard of the calling event loop is
+ * tried first so that the request is written without a task queue hop, then the
+ * other shards are tried before giving up and opening a new connection. Polls
+ * from other threads start on a rotating shard so that none of them gets drained
+ * first.
+ */
+public class EventLoopAffineChannelPool implements ChannelPool {
+
+    private final ChannelPool delegate;
+    private final EventLoop[] eventLoops;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public EventLoopAffineChannelPool(ChannelPool delegate, EventLoopGroup eventLoopGroup) {
+        this.delegate = delegate;
+        this.eventLoops = EventLoops.eventLoops(eventLoopGroup);
+    }
+
+    private static final class ShardKey {
+        private final EventLoop eventLoop;
+        private final Object partitionKey;
+
+        ShardKey(EventLoop eventLoop, Object partitionKey) {
+            this.eventLoop = eventLoop;
+            this.partitionKey = partitionKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ShardKey))
+                return false;
+            ShardKey other = (ShardKey) o;
+            return eventLoop == other.eventLoop && partitionKey.equals(other.partitionKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(eventLoop) + partitionKey.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder()//
+                    .append("ShardKey(eventLoop=").append(eventLoop)//
+                    .append(", partitionKey=").append(partitionKey)//
+                    .toString();
+        }
+    }
+
+    @Override
+    public boolean offer(Channel channel, Object partitionKey) {
+        return delegate.offer(channel, new ShardKey(channel.eventLoop(), partitionKey));
+    }
+
+    @Override
+    public Channel poll(Object partitionKey) {
+        int current = EventLoops.indexOfCurrent(eventLoops);
+        int start = current == -1 ? Math.floorMod(nextShard.getAndIncrement(), eventLoops.length) : current;
+
+        // own shard first, then steal from the others
+        for (int i = 0; i < eventLoops.length; i++) {
+            Channel channel = delegate.poll(new ShardKey(eventLoops[(start + i) % eventLoops.length], partitionKey));
+            if (channel != null)
+                return channel;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean removeAll(Channel channel) {
+        return delegate.removeAll(channel);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void destroy() {
+        delegate.destroy();
+    }
+
+    @Override
+    public void flushPartition(Object partitionKey) {
+        for (EventLoop eventLoop : eventLoops)
+            delegate.flushPartition(new ShardKey(eventLoop, partitionKey));
+    }
+
+    @Override
+    public int idleCount(Object partitionKey) {
+        int count = 0;
+        for (EventLoop eventLoop : eventLoops) {
+            int shardCount = delegate.idleCount(new ShardKey(eventLoop, partitionKey));
+            if (shardCount < 0)
+                return -1;
+            count += shardCount;
+        }
+        return count;
+    }
+
+    @Override
+    public void flushPartitions(final ChannelPoolPartitionSelector selector) {
+        delegate.flushPartitions(new ChannelPoolPartitionSelector() {
+            @Override
+            public boolean select(Object shardKey) {
+                return shardKey instanceof ShardKey && selector.select(ShardKey.class.cast(shardKey).partitionKey);
+            }
+        });
+    }
+}
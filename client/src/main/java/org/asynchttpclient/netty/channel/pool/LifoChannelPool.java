@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel.pool;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import io.netty.channel.Channel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.channel.Channels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ChannelPool} that hands out the most recently offered channel first.
+ *
+ * Each partition is a lock-free Treiber stack. The stack node of an idle
+ * channel is stored as a channel attribute, so {@link #removeAll(Channel)} is a
+ * single CAS on that node instead of a scan of the partition. Removed nodes are
+ * skipped by {@link #poll(Object)} and unlinked by the idle channel detector,
+ * which runs even when neither the idle timeout nor the TTL is enabled.
+ *
+ * As reuse is LIFO, channels at the bottom of a partition stay unused when the
+ * load drops and get closed once they reach the idle timeout.
+ */
+public final class LifoChannelPool implements ChannelPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LifoChannelPool.class);
+
+    /**
+     * How often removed nodes are unlinked when neither the idle timeout nor the TTL is enabled.
+     */
+    public static final long DEFAULT_CLEANER_PERIOD = 10000;
+
+    private static final AttributeKey<IdleChannel> IDLE_CHANNEL_ATTRIBUTE = AttributeKey.valueOf("lifoPoolIdleChannel");
+    private static final AttributeKey<Long> CREATION_TIME_ATTRIBUTE = AttributeKey.valueOf("lifoPoolCreationTime");
+
+    private final ConcurrentHashMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+    private final Timer nettyTimer;
+    private final boolean sslConnectionPoolEnabled;
+    private final int maxConnectionTTL;
+    private final boolean maxConnectionTTLDisabled;
+    private final long maxIdleTime;
+    private final boolean maxIdleTimeDisabled;
+    private final long cleanerPeriod;
+
+    public LifoChannelPool(AsyncHttpClientConfig config, Timer hashedWheelTimer) {
+        this(config.getPooledConnectionIdleTimeout(),//
+                config.getConnectionTTL(),//
+                config.isAllowPoolingSslConnections(),//
+                hashedWheelTimer);
+    }
+
+    public LifoChannelPool(long maxIdleTime,//
+            int maxConnectionTTL,//
+            boolean sslConnectionPoolEnabled,//
+            Timer nettyTimer) {
+        this.sslConnectionPoolEnabled = sslConnectionPoolEnabled;
+        this.maxIdleTime = maxIdleTime;
+        this.maxConnectionTTL = maxConnectionTTL;
+        maxConnectionTTLDisabled = maxConnectionTTL <= 0;
+        this.nettyTimer = nettyTimer;
+        maxIdleTimeDisabled = maxIdleTime <= 0;
+
+        if (maxConnectionTTLDisabled && maxIdleTimeDisabled)
+            // removed nodes still have to be unlinked
+            cleanerPeriod = DEFAULT_CLEANER_PERIOD;
+        else
+            cleanerPeriod = Math.min(maxConnectionTTLDisabled ? Long.MAX_VALUE : maxConnectionTTL, maxIdleTimeDisabled ? Long.MAX_VALUE : maxIdleTime);
+
+        scheduleNewIdleChannelDetector(new IdleChannelDetector());
+    }
+
+    private void scheduleNewIdleChannelDetector(TimerTask task) {
+        nettyTimer.newTimeout(task, cleanerPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A stack node, also used as the removal handle of its channel.
+     */
+    private static final class IdleChannel {
+
+        private static final int IDLE = 0;
+        private static final int TAKEN = 1;
+
+        private static final AtomicIntegerFieldUpdater<IdleChannel> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(IdleChannel.class, "state");
+
+        final Channel channel;
+        final long start;
+        // only mutated by pushers before publication and by the single idle channel detector
+        volatile IdleChannel next;
+        @SuppressWarnings("unused")
+        private volatile int state = IDLE;
+
+        IdleChannel(Channel channel, long start) {
+            if (channel == null)
+                throw new NullPointerException("channel");
+            this.channel = channel;
+            this.start = start;
+        }
+
+        /**
+         * @return true if the caller now exclusively owns the channel
+         */
+        boolean take() {
+            return STATE_UPDATER.compareAndSet(this, IDLE, TAKEN);
+        }
+
+        boolean isTaken() {
+            return state == TAKEN;
+        }
+    }
+
+    private static final class Partition {
+
+        final AtomicReference<IdleChannel> head = new AtomicReference<>();
+
+        void push(IdleChannel idleChannel) {
+            IdleChannel h;
+            do {
+                h = head.get();
+                idleChannel.next = h;
+            } while (!head.compareAndSet(h, idleChannel));
+        }
+
+        IdleChannel pop() {
+            for (;;) {
+                IdleChannel h = head.get();
+                if (h == null)
+                    return null;
+                if (head.compareAndSet(h, h.next) && h.take())
+                    return h;
+            }
+        }
+
+        /**
+         * Physically unlink taken nodes. Only pushes modify the head, so the
+         * interior of the stack is only ever touched by the single caller of
+         * this method.
+         */
+        void unlinkTaken() {
+            IdleChannel h = head.get();
+            while (h != null && h.isTaken()) {
+                if (head.compareAndSet(h, h.next))
+                    h = h.next;
+                else
+                    // concurrent push or pop, the next sweep will take care of it
+                    return;
+            }
+
+            IdleChannel previous = h;
+            while (previous != null) {
+                IdleChannel current = previous.next;
+                while (current != null && current.isTaken())
+                    current = current.next;
+                previous.next = current;
+                previous = current;
+            }
+        }
+
+        int idleCount() {
+            int count = 0;
+            for (IdleChannel idleChannel = head.get(); idleChannel != null; idleChannel = idleChannel.next)
+                if (!idleChannel.isTaken())
+                    count++;
+            return count;
+        }
+    }
+
+    private long creationTime(Channel channel) {
+        Long creationTime = channel.attr(CREATION_TIME_ATTRIBUTE).get();
+        return creationTime != null ? creationTime : millisTime();
+    }
+
+    private boolean isTTLExpired(Channel channel, long now) {
+        return !maxConnectionTTLDisabled && now - creationTime(channel) >= maxConnectionTTL;
+    }
+
+    private boolean isRemotelyClosed(Channel channel) {
+        return !channel.isActive();
+    }
+
+    private final class IdleChannelDetector implements TimerTask {
+
+        private boolean isIdleTimeoutExpired(IdleChannel idleChannel, long now) {
+            return !maxIdleTimeDisabled && now - idleChannel.start >= maxIdleTime;
+        }
+
+        private boolean isChannelCloseable(Channel channel) {
+            Object attribute = Channels.getAttribute(channel);
+            if (attribute instanceof NettyResponseFuture) {
+                NettyResponseFuture<?> future = (NettyResponseFuture<?>) attribute;
+                if (!future.isDone()) {
+                    LOGGER.error("Future not in appropriate state {}, not closing", future);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void run(Timeout timeout) throws Exception {
+
+            if (isClosed.get())
+                return;
+
+            try {
+                long start = millisTime();
+                int closedCount = 0;
+                int totalCount = 0;
+
+                for (Partition partition : partitions.values()) {
+                    for (IdleChannel idleChannel = partition.head.get(); idleChannel != null; idleChannel = idleChannel.next) {
+                        if (idleChannel.isTaken())
+                            continue;
+
+                        totalCount++;
+                        Channel channel = idleChannel.channel;
+                        if ((isTTLExpired(channel, start) || isIdleTimeoutExpired(idleChannel, start) || isRemotelyClosed(channel))
+                                && isChannelCloseable(channel) && idleChannel.take()) {
+                            LOGGER.debug("Closing Idle Channel {}", channel);
+                            close(channel);
+                            closedCount++;
+                        }
+                    }
+
+                    partition.unlinkTaken();
+                }
+
+                LOGGER.debug("Closed {} connections out of {} in {}ms", closedCount, totalCount, millisTime() - start);
+
+            } catch (Throwable t) {
+                LOGGER.error("uncaught exception!", t);
+            }
+
+            scheduleNewIdleChannelDetector(timeout.task());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean offer(Channel channel, Object partitionKey) {
+        if (isClosed.get() || (!sslConnectionPoolEnabled && channel.pipeline().get(SslHandler.class) != null))
+            return false;
+
+        long now = millisTime();
+
+        Attribute<Long> creationTime = channel.attr(CREATION_TIME_ATTRIBUTE);
+        creationTime.setIfAbsent(now);
+
+        if (isTTLExpired(channel, now))
+            return false;
+
+        IdleChannel idleChannel = new IdleChannel(channel, now);
+        IdleChannel previous = channel.attr(IDLE_CHANNEL_ATTRIBUTE).getAndSet(idleChannel);
+        if (previous != null)
+            // offered twice without being polled, invalidate the stale node
+            previous.take();
+
+        partitions.computeIfAbsent(partitionKey, pk -> new Partition()).push(idleChannel);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Channel poll(Object partitionKey) {
+
+        Partition partition = partitions.get(partitionKey);
+        if (partition != null) {
+            IdleChannel idleChannel;
+            while ((idleChannel = partition.pop()) != null) {
+                Channel channel = idleChannel.channel;
+                channel.attr(IDLE_CHANNEL_ATTRIBUTE).compareAndSet(idleChannel, null);
+                if (isRemotelyClosed(channel))
+                    LOGGER.trace("Channel not connected or not opened, probably remotely closed!");
+                else
+                    return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean removeAll(Channel channel) {
+        IdleChannel idleChannel = channel.attr(IDLE_CHANNEL_ATTRIBUTE).getAndSet(null);
+        return !isClosed.get() && idleChannel != null && idleChannel.take();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isOpen() {
+        return !isClosed.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void destroy() {
+        if (isClosed.getAndSet(true))
+            return;
+
+        for (Partition partition : partitions.values())
+            closeAll(partition);
+
+        partitions.clear();
+    }
+
+    private void close(Channel channel) {
+        Channels.setDiscard(channel);
+        channel.attr(IDLE_CHANNEL_ATTRIBUTE).set(null);
+        Channels.silentlyCloseChannel(channel);
+    }
+
+    private void closeAll(Partition partition) {
+        IdleChannel idleChannel;
+        while ((idleChannel = partition.pop()) != null)
+            close(idleChannel.channel);
+    }
+
+    @Override
+    public void flushPartition(Object partitionKey) {
+        Partition partition = partitions.remove(partitionKey);
+        if (partition != null)
+            closeAll(partition);
+    }
+
+    @Override
+    public int idleCount(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.idleCount() : 0;
+    }
+
+    @Override
+    public Channel pollFromOtherPartition(Object partitionKey) {
+        for (Object otherPartitionKey : partitions.keySet()) {
+            if (!otherPartitionKey.equals(partitionKey)) {
+                Channel channel = poll(otherPartitionKey);
+                if (channel != null)
+                    return channel;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void flushPartitions(ChannelPoolPartitionSelector selector) {
+
+        for (Object partitionKey : partitions.keySet()) {
+            if (selector.select(partitionKey))
+                flushPartition(partitionKey);
+        }
+    }
+}
@@ -47,6 +47,11 @@ public class NoopChannelPool implements ChannelPool {
     public void flushPartition(Object partitionKey) {
     }
 
+    @Override
+    public int idleCount(Object partitionKey) {
+        return 0;
+    }
+
     @Override
     public void flushPartitions(ChannelPoolPartitionSelector selector) {
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.handler;
+
+import static org.asynchttpclient.util.StringUtils.stringBuilder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.asynchttpclient.AdvancedConfig.ContentDecoderFactory;
+
+/**
+ * An {@link HttpContentDecompressor} that also decodes the content codings of
+ * the registered {@link ContentDecoderFactory}s, such as br or zstd.
+ * 
+ * The decoders are fed with the chunks as they arrive, and allocate their
+ * output from the allocator of the connection.
+ */
+public class ExtensibleHttpContentDecompressor extends HttpContentDecompressor {
+
+    private static final String[] BUILT_IN_ENCODINGS = { HttpHeaders.Values.GZIP, "x-gzip", HttpHeaders.Values.DEFLATE,
+            "x-deflate", HttpHeaders.Values.IDENTITY };
+
+    private final Map<String, ContentDecoderFactory> contentDecoderFactories;
+    private final boolean keepEncodingHeader;
+    private ChannelHandlerContext ctx;
+
+    /**
+     * @param contentDecoderFactories the factories, by lower case content coding
+     * @param keepEncodingHeader if the Content-Encoding header of decoded responses is kept
+     */
+    public ExtensibleHttpContentDecompressor(Map<String, ContentDecoderFactory> contentDecoderFactories, boolean keepEncodingHeader) {
+        this.contentDecoderFactories = contentDecoderFactories;
+        this.keepEncodingHeader = keepEncodingHeader;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    protected EmbeddedChannel newContentDecoder(String contentEncoding) throws Exception {
+        ContentDecoderFactory contentDecoderFactory = contentDecoderFactories.get(contentEncoding.toLowerCase(Locale.ENGLISH));
+        if (contentDecoderFactory == null)
+            return super.newContentDecoder(contentEncoding);
+
+        EmbeddedChannel decoder = new EmbeddedChannel(contentDecoderFactory.newDecoder());
+        decoder.config().setAllocator(ctx.alloc());
+        return decoder;
+    }
+
+    @Override
+    protected String getTargetContentEncoding(String contentEncoding) throws Exception {
+        return keepEncodingHeader ? contentEncoding : super.getTargetContentEncoding(contentEncoding);
+    }
+
+    private static boolean isDecodable(String encoding, Map<String, ContentDecoderFactory> contentDecoderFactories) {
+        for (String builtInEncoding : BUILT_IN_ENCODINGS)
+            if (builtInEncoding.equalsIgnoreCase(encoding))
+                return true;
+        return contentDecoderFactories.containsKey(encoding.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param acceptEncodings the accepted content codings, by order of preference
+     * @param contentDecoderFactories the registered factories, by lower case content coding
+     * @return the value of the Accept-Encoding header, with decreasing quality values
+     */
+    public static String acceptEncoding(List<String> acceptEncodings, Map<String, ContentDecoderFactory> contentDecoderFactories) {
+        StringBuilder sb = stringBuilder();
+        for (int i = 0; i < acceptEncodings.size(); i++) {
+            String encoding = acceptEncodings.get(i);
+            if (!isDecodable(encoding, contentDecoderFactories))
+                throw new IllegalArgumentException("No decoder for accepted content coding " + encoding);
+
+            if (i > 0)
+                sb.append(", ");
+            sb.append(encoding);
+            if (i > 0)
+                // 0.9, 0.8, ..., 0.1
+                sb.append(";q=0.").append(Math.max(10 - i, 1));
+        }
+        return sb.toString();
+    }
+}
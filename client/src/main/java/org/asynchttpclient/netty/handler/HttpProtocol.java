@@ -38,6 +38,7 @@ import org.asynchttpclient.Realm;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.RequestBuilder;
 import org.asynchttpclient.channel.pool.ConnectionStrategy;
+import org.asynchttpclient.handler.AsyncHandlerExtensions;
 import org.asynchttpclient.handler.StreamedAsyncHandler;
 import org.asynchttpclient.netty.Callback;
 import org.asynchttpclient.netty.NettyResponseBodyPart;
@@ -138,6 +139,7 @@ public final class HttpProtocol extends Protocol {
     private void finishUpdate(final NettyResponseFuture<?> future, Channel channel, boolean expectOtherChunks) throws IOException {
 
         future.cancelTimeouts();
+        channelManager.onRequestCompleted(future, null);
 
         boolean keepAlive = future.isKeepAlive();
         if (expectOtherChunks && keepAlive)
@@ -443,6 +445,32 @@ public final class HttpProtocol extends Protocol {
         return true;
     }
 
+    private boolean exitAfterHandlingRetry(//
+            final Channel channel,//
+            final NettyResponseFuture<?> future,//
+            NettyResponseStatus status,//
+            NettyResponseHeaders responseHeaders) {
+
+        if (future.getInAuth().get() || future.getInProxyAuth().get())
+            return false;
+
+        long delay = requestSender.getRetryDelay(future, status, responseHeaders);
+        if (delay < 0)
+            return false;
+
+        logger.debug("Retrying {} after status {}", future.getUri(), status.getStatusCode());
+        if (future.isKeepAlive())
+            channelManager.drainChannelAndOffer(channel, future);
+        else
+            channelManager.closeChannel(channel);
+
+        if (future.getAsyncHandler() instanceof AsyncHandlerExtensions)
+            AsyncHandlerExtensions.class.cast(future.getAsyncHandler()).onRetry();
+
+        requestSender.sendNextRequestLater(future.getCurrentRequest(), future, delay);
+        return true;
+    }
+
     private boolean exitAfterHandlingConnect(//
             final Channel channel,//
             final NettyResponseFuture<?> future,//
@@ -531,6 +559,7 @@ public final class HttpProtocol extends Protocol {
                 exitAfterHandling100(channel, future, statusCode) || //
                 exitAfterHandlingRedirect(channel, future, response, request, statusCode, realm) || //
                 exitAfterHandlingConnect(channel, future, request, proxyServer, statusCode, httpRequest) || //
+                exitAfterHandlingRetry(channel, future, status, responseHeaders) || //
                 exitAfterHandlingStatus(channel, future, response, handler, status) || //
                 exitAfterHandlingHeaders(channel, future, response, handler, responseHeaders) || exitAfterHandlingReactiveStreams(channel, future, response, handler);
     }
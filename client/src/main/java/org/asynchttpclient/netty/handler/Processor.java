@@ -133,32 +133,37 @@ public class Processor extends ChannelInboundHandlerAdapter {
         channelManager.removeAll(channel);
 
         try {
-            super.channelInactive(ctx);
-        } catch (Exception ex) {
-            LOGGER.trace("super.channelClosed", ex);
-        }
+            try {
+                super.channelInactive(ctx);
+            } catch (Exception ex) {
+                LOGGER.trace("super.channelClosed", ex);
+            }
 
-        Object attribute = Channels.getAttribute(channel);
-        LOGGER.debug("Channel Closed: {} with attribute {}", channel, attribute);
-        if (attribute instanceof StreamedResponsePublisher) {
-            // setting `attribute` to be the underlying future so that the retry
-            // logic can kick-in
-            attribute = ((StreamedResponsePublisher) attribute).future();
-        }
-        if (attribute instanceof Callback) {
-            Callback callback = (Callback) attribute;
-            Channels.setAttribute(channel, callback.future());
-            callback.call();
+            Object attribute = Channels.getAttribute(channel);
+            LOGGER.debug("Channel Closed: {} with attribute {}", channel, attribute);
+            if (attribute instanceof StreamedResponsePublisher) {
+                // setting `attribute` to be the underlying future so that the retry
+                // logic can kick-in
+                attribute = ((StreamedResponsePublisher) attribute).future();
+            }
+            if (attribute instanceof Callback) {
+                Callback callback = (Callback) attribute;
+                Channels.setAttribute(channel, callback.future());
+                callback.call();
 
-        } else if (attribute instanceof NettyResponseFuture<?>) {
-            NettyResponseFuture<?> future = NettyResponseFuture.class.cast(attribute);
-            future.touch();
+            } else if (attribute instanceof NettyResponseFuture<?>) {
+                NettyResponseFuture<?> future = NettyResponseFuture.class.cast(attribute);
+                future.touch();
 
-            if (!config.getIOExceptionFilters().isEmpty() && requestSender.applyIoExceptionFiltersAndReplayRequest(future, CHANNEL_CLOSED_EXCEPTION, channel))
-                return;
+                if (!config.getIOExceptionFilters().isEmpty() && requestSender.applyIoExceptionFiltersAndReplayRequest(future, CHANNEL_CLOSED_EXCEPTION, channel))
+                    return;
 
-            protocol.onClose(future);
-            requestSender.handleUnexpectedClosedChannel(channel, future);
+                protocol.onClose(future);
+                requestSender.handleUnexpectedClosedChannel(channel, future);
+            }
+        } finally {
+            // the requests pipelined behind the current one are replayed after it, so that they keep their order
+            requestSender.replayPipelinedRequests(channel);
         }
     }
 
@@ -17,6 +17,7 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.*;
 import static io.netty.handler.codec.http.HttpResponseStatus.*;
 import static org.asynchttpclient.util.HttpUtils.*;
 import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
@@ -87,7 +88,8 @@ public abstract class Protocol {
 
     private HttpHeaders propagatedHeaders(Request request, Realm realm, boolean switchToGet) {
 
-        HttpHeaders headers = request.getHeaders()//
+        // the headers of the request might be shared, e.g. with the template of a bound PreparedRequest
+        HttpHeaders headers = new DefaultHttpHeaders().add(request.getHeaders())//
                 .remove(HttpHeaders.Names.HOST)//
                 .remove(HttpHeaders.Names.CONTENT_LENGTH)//
                 .remove(HttpHeaders.Names.CONTENT_TYPE);
@@ -128,7 +130,8 @@ public abstract class Protocol {
                         .setNameResolver(request.getNameResolver())//
                         .setProxyServer(request.getProxyServer())//
                         .setRealm(request.getRealm())//
-                        .setRequestTimeout(request.getRequestTimeout());
+                        .setRequestTimeout(request.getRequestTimeout())//
+                        .setRetryPolicy(request.getRetryPolicy());
 
                 if (keepBody) {
                     requestBuilder.setBodyCharset(request.getBodyCharset());
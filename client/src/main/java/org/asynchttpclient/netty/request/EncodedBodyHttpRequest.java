@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.util.Map;
+
+import org.asynchttpclient.netty.request.body.NettyEncodedBody;
+
+/**
+ * A full request whose content is only encoded when it gets written, into a
+ * buffer of the allocator of the channel it's written on, see
+ * {@link #encode(ByteBufAllocator)}. A request that never gets written, e.g.
+ * because the connection couldn't be opened, never allocates it, so there's
+ * nothing to release.
+ * 
+ * The content is set by the thread writing the request before handing it over
+ * to the channel, and then only read by the event loop, so it doesn't need to
+ * be guarded.
+ */
+public class EncodedBodyHttpRequest extends DefaultFullHttpRequest {
+
+    private final NettyEncodedBody body;
+    private ByteBuf content;
+
+    public EncodedBodyHttpRequest(HttpVersion httpVersion, HttpMethod method, String uri, NettyEncodedBody body, boolean validateHeaders) {
+        super(httpVersion, method, uri, Unpooled.EMPTY_BUFFER, validateHeaders);
+        this.body = body;
+    }
+
+    /**
+     * Encode the content, unless it already is, right before the request gets written.
+     * 
+     * @param allocator the allocator of the channel the request is written on
+     */
+    public void encode(ByteBufAllocator allocator) {
+        if (content == null)
+            content = body.byteBuf(allocator);
+    }
+
+    @Override
+    public ByteBuf content() {
+        if (content == null)
+            // read before being written, an unpooled buffer doesn't have to be released
+            content = body.byteBuf();
+        return content;
+    }
+
+    @Override
+    public int refCnt() {
+        return content().refCnt();
+    }
+
+    @Override
+    public FullHttpRequest retain() {
+        content().retain();
+        return this;
+    }
+
+    @Override
+    public FullHttpRequest retain(int increment) {
+        content().retain(increment);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content().release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content().release(decrement);
+    }
+
+    @Override
+    public String toString() {
+        // don't encode the content just for logging
+        StringBuilder sb = new StringBuilder(256).append(getMethod()).append(' ').append(getUri()).append(' ').append(getProtocolVersion());
+        for (Map.Entry<String, String> header : headers())
+            sb.append('\n').append(header.getKey()).append(": ").append(header.getValue());
+        return sb.append("\ncontent: ").append(body.getContentLength()).append(" bytes").toString();
+    }
+}
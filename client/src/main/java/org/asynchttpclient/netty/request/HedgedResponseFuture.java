@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.future.AbstractListenableFuture;
+import org.asynchttpclient.handler.AsyncHandlerExtensions;
+import org.asynchttpclient.handler.DelegatingAsyncHandler;
+import org.asynchttpclient.handler.ProgressAsyncHandler;
+import org.asynchttpclient.hedging.HedgingPolicy;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The future of a request that is sent again, on another connection, when no
+ * response status has been received after the hedge delay.
+ * 
+ * The first attempt to receive a response status wins: it's the only one
+ * whose callbacks reach the {@link AsyncHandler} and the other ones are
+ * cancelled. A failed attempt only fails the request if no other attempt is
+ * still in flight. Connection and upload progress events are only notified for
+ * the first attempt.
+ */
+public final class HedgedResponseFuture<T> extends AbstractListenableFuture<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgedResponseFuture.class);
+
+    private final NettyRequestSender requestSender;
+    private final Request request;
+    private final AsyncHandler<T> asyncHandler;
+    private final HedgingPolicy hedgingPolicy;
+    private final Object partitionKey;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    // guarded by this
+    private final List<Attempt> attempts = new ArrayList<>(2);
+    private int inFlight;
+    private Attempt resolved;
+    private Timeout hedgeTimeout;
+
+    HedgedResponseFuture(NettyRequestSender requestSender, Request request, AsyncHandler<T> asyncHandler, Object partitionKey) {
+        this.requestSender = requestSender;
+        this.request = request;
+        this.asyncHandler = asyncHandler;
+        this.hedgingPolicy = request.getHedgingPolicy();
+        this.partitionKey = partitionKey;
+        result.whenComplete((value, cause) -> runListeners());
+    }
+
+    ListenableFuture<T> start() {
+        hedgingPolicy.onRequest();
+        Attempt primary = newAttempt();
+        try {
+            primary.send();
+        } catch (RuntimeException e) {
+            // let the caller handle the failure just like for a request that isn't hedged
+            synchronized (this) {
+                cancelHedgeTimeout();
+            }
+            result.completeExceptionally(e);
+            throw e;
+        }
+        return this;
+    }
+
+    private synchronized Attempt newAttempt() {
+        if (resolved != null || result.isDone())
+            return null;
+
+        Attempt attempt = new Attempt(attempts.size());
+        attempts.add(attempt);
+        inFlight++;
+        if (attempts.size() <= hedgingPolicy.getMaxHedges())
+            hedgeTimeout = requestSender.newTimeout(new HedgeTimerTask(), hedgingPolicy.getHedgeDelay(partitionKey));
+        return attempt;
+    }
+
+    private final class HedgeTimerTask implements TimerTask {
+
+        @Override
+        public void run(Timeout timeout) {
+            if (isRaceOver())
+                return;
+
+            if (!hedgingPolicy.tryAcquireHedge()) {
+                LOGGER.debug("Hedging budget exhausted, not hedging {}", request.getUri());
+                return;
+            }
+
+            Attempt hedge = newAttempt();
+            if (hedge == null) {
+                // resolved in-between, the hedge was never sent
+                hedgingPolicy.releaseHedge();
+                return;
+            }
+
+            LOGGER.debug("Hedging {}", request.getUri());
+            try {
+                hedge.send();
+            } catch (Exception e) {
+                LOGGER.debug("Failed to send hedge", e);
+                hedge.handler.onThrowable(e);
+                if (isResolvedBy(hedge))
+                    result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * @return true if the attempt won, either now or earlier
+     */
+    private boolean onStatusReceived(Attempt attempt) {
+        List<Attempt> losers;
+        synchronized (this) {
+            if (resolved != null)
+                return resolved == attempt;
+            resolved = attempt;
+            cancelHedgeTimeout();
+            losers = new ArrayList<>(attempts);
+        }
+
+        hedgingPolicy.onResponseStatus(partitionKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attempt.start));
+        for (Attempt loser : losers)
+            if (loser != attempt)
+                loser.cancel();
+        return true;
+    }
+
+    /**
+     * @return true if the failure fails the request
+     */
+    private synchronized boolean onFailure(Attempt attempt) {
+        if (resolved != null)
+            return resolved == attempt;
+        if (--inFlight > 0)
+            return false;
+        resolved = attempt;
+        cancelHedgeTimeout();
+        return true;
+    }
+
+    private void cancelHedgeTimeout() {
+        if (hedgeTimeout != null) {
+            hedgeTimeout.cancel();
+            hedgeTimeout = null;
+        }
+    }
+
+    private synchronized boolean isRaceOver() {
+        return resolved != null || result.isDone();
+    }
+
+    private synchronized boolean isResolvedBy(Attempt attempt) {
+        return resolved == attempt;
+    }
+
+    private synchronized boolean isLoser(Attempt attempt) {
+        return resolved != null && resolved != attempt;
+    }
+
+    private synchronized List<Attempt> attempts() {
+        return new ArrayList<>(attempts);
+    }
+
+    private final class Attempt implements Runnable {
+
+        final int index;
+        final long start = System.nanoTime();
+        final AttemptHandler handler = new AttemptHandler(this);
+        volatile ListenableFuture<T> future;
+
+        Attempt(int index) {
+            this.index = index;
+        }
+
+        void send() {
+            future = requestSender.sendHedgeAttempt(request, handler);
+            future.addListener(this, Runnable::run);
+            // the race might have been lost before the future was known
+            if (isLoser(this))
+                cancel();
+        }
+
+        void cancel() {
+            ListenableFuture<T> f = future;
+            if (f instanceof NettyResponseFuture)
+                requestSender.cancelHedgeAttempt((NettyResponseFuture<T>) f);
+        }
+
+        @Override
+        public void run() {
+            if (!isResolvedBy(this))
+                return;
+
+            try {
+                result.complete(future.get());
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+            } catch (CancellationException e) {
+                result.cancel(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final class AttemptHandler extends DelegatingAsyncHandler<T> {
+
+        private final Attempt attempt;
+
+        AttemptHandler(Attempt attempt) {
+            super(HedgedResponseFuture.this.asyncHandler);
+            this.attempt = attempt;
+        }
+
+        @Override
+        protected ProgressAsyncHandler<?> progressAsyncHandler() {
+            return attempt.index == 0 ? super.progressAsyncHandler() : null;
+        }
+
+        @Override
+        protected AsyncHandlerExtensions extensions() {
+            return attempt.index == 0 ? super.extensions() : null;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            if (onFailure(attempt))
+                asyncHandler.onThrowable(t);
+            else
+                LOGGER.debug("Hedging attempt failed", t);
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+            return HedgedResponseFuture.this.onStatusReceived(attempt) ? asyncHandler.onStatusReceived(responseStatus) : State.ABORT;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+            return isResolvedBy(attempt) ? asyncHandler.onHeadersReceived(headers) : State.ABORT;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            return isResolvedBy(attempt) ? asyncHandler.onBodyPartReceived(bodyPart) : State.ABORT;
+        }
+
+        @Override
+        public T onCompleted() throws Exception {
+            return isResolvedBy(attempt) ? asyncHandler.onCompleted() : null;
+        }
+    }
+
+    // org.asynchttpclient.ListenableFuture
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            cancelHedgeTimeout();
+        }
+        if (!result.cancel(mayInterruptIfRunning))
+            return false;
+        for (Attempt attempt : attempts())
+            attempt.cancel();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        for (Attempt attempt : attempts()) {
+            ListenableFuture<T> future = attempt.future;
+            if (future instanceof NettyResponseFuture) {
+                NettyResponseFuture<T> nettyFuture = (NettyResponseFuture<T>) future;
+                requestSender.abort(nettyFuture.channel(), nettyFuture, t);
+            }
+        }
+    }
+
+    @Override
+    public void touch() {
+        for (Attempt attempt : attempts()) {
+            ListenableFuture<T> future = attempt.future;
+            if (future != null)
+                future.touch();
+        }
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> completable = new CompletableFuture<>();
+        result.whenComplete((value, cause) -> {
+            if (cause != null)
+                completable.completeExceptionally(cause);
+            else
+                completable.complete(value);
+        });
+        return completable;
+    }
+}
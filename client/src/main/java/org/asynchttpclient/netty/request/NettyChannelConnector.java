@@ -15,9 +15,17 @@ package org.asynchttpclient.netty.request;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
 
+import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.Request;
@@ -27,38 +35,74 @@ import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.uri.Uri;
 
 public class NettyChannelConnector {
+
+    /**
+     * Notified of the connect outcome, or of the name resolution failure that prevented connecting.
+     */
+    public interface ConnectListener extends ChannelFutureListener {
+
+        void onResolutionFailure(Throwable cause);
+    }
     
     private final AsyncHandlerExtensions asyncHandlerExtensions;
     private final InetSocketAddress localAddress;
-    private final InetSocketAddress[] remoteAddresses;
+    private final Future<NameResolution[]> whenResolved;
+    private final String host;
+    private final int port;
+    private final long connectAttemptDelay;
+    private volatile InetSocketAddress[] remoteAddresses;
     private volatile int i = 0;
 
-    public NettyChannelConnector(Request request, ProxyServer proxy, AsyncHandler<?> asyncHandler) throws UnknownHostException {
+    public NettyChannelConnector(Request request, ProxyServer proxy, AsyncHandler<?> asyncHandler) {
+        this(request, proxy, asyncHandler, 0);
+    }
+
+    /**
+     * @param request the request
+     * @param proxy the proxy, if any
+     * @param asyncHandler the handler
+     * @param connectAttemptDelay if positive, race connect attempts to the resolved addresses, starting a new one every
+     *            connectAttemptDelay ms until one succeeds, instead of trying them one after the other
+     */
+    public NettyChannelConnector(Request request, ProxyServer proxy, AsyncHandler<?> asyncHandler, long connectAttemptDelay) {
+        this(request, proxy, null, asyncHandler, connectAttemptDelay);
+    }
+
+    /**
+     * @param request the request
+     * @param proxy the proxy, if any
+     * @param endpoint the endpoint picked by the EndpointSelector, if any, in which case only this address is tried
+     * @param asyncHandler the handler
+     * @param connectAttemptDelay if positive, race connect attempts to the resolved addresses, starting a new one every
+     *            connectAttemptDelay ms until one succeeds, instead of trying them one after the other
+     */
+    public NettyChannelConnector(Request request, ProxyServer proxy, InetSocketAddress endpoint, AsyncHandler<?> asyncHandler, long connectAttemptDelay) {
 
         this.asyncHandlerExtensions = asyncHandler instanceof AsyncHandlerExtensions ? (AsyncHandlerExtensions) asyncHandler : null;
-        NameResolution[] resolutions;
+        this.connectAttemptDelay = connectAttemptDelay;
         Uri uri = request.getUri();
-        int port = uri.getExplicitPort();
 
-        if (request.getInetAddress() != null) {
-            resolutions = new NameResolution[] { new NameResolution(request.getInetAddress()) };
+        if (endpoint != null) {
+            whenResolved = ImmediateEventExecutor.INSTANCE.newSucceededFuture(new NameResolution[] { new NameResolution(endpoint.getAddress()) });
+            host = endpoint.getHostString();
+            port = endpoint.getPort();
+
+        } else if (request.getInetAddress() != null) {
+            whenResolved = ImmediateEventExecutor.INSTANCE.newSucceededFuture(new NameResolution[] { new NameResolution(request.getInetAddress()) });
+            host = uri.getHost();
+            port = uri.getExplicitPort();
 
         } else if (proxy != null && !proxy.isIgnoredForHost(uri.getHost())) {
-            resolutions = request.getNameResolver().resolve(proxy.getHost());
+            whenResolved = request.getNameResolver().resolveAsync(proxy.getHost());
+            host = proxy.getHost();
             port = uri.isSecured() ? proxy.getSecuredPort(): proxy.getPort();
 
         } else {
-            resolutions = request.getNameResolver().resolve(uri.getHost());
+            whenResolved = request.getNameResolver().resolveAsync(uri.getHost());
+            host = uri.getHost();
+            port = uri.getExplicitPort();
         }
 
-        if (asyncHandlerExtensions != null)
-            asyncHandlerExtensions.onDnsResolved(resolutions);
-        
-        remoteAddresses = new InetSocketAddress[resolutions.length];
-        for (int i = 0; i < resolutions.length; i ++) {
-            remoteAddresses[i] = new InetSocketAddress(resolutions[i].address, port);
-        }
-        
         if (request.getLocalAddress() != null) {
             localAddress = new InetSocketAddress(request.getLocalAddress(), 0);
                     
@@ -71,8 +115,47 @@ public class NettyChannelConnector {
         i++;
         return i < remoteAddresses.length;
     }
-    
-    public void connect(final Bootstrap bootstrap, final ChannelFutureListener listener) throws UnknownHostException {
+
+    /**
+     * Connect once the name resolution completes, without blocking the caller.
+     * 
+     * @param bootstrap the bootstrap
+     * @param connectListener notified of the connect outcome, or of the resolution failure
+     */
+    public void connect(final Bootstrap bootstrap, final ConnectListener connectListener) {
+        whenResolved.addListener(new GenericFutureListener<Future<NameResolution[]>>() {
+            @Override
+            public void operationComplete(Future<NameResolution[]> future) throws Exception {
+                if (future.isSuccess()) {
+                    NameResolution[] resolutions = future.getNow();
+                    if (resolutions == null || resolutions.length == 0) {
+                        connectListener.onResolutionFailure(new UnknownHostException("No address resolved for " + host));
+                        return;
+                    }
+
+                    if (asyncHandlerExtensions != null)
+                        asyncHandlerExtensions.onDnsResolved(resolutions);
+
+                    InetSocketAddress[] remoteAddresses = new InetSocketAddress[resolutions.length];
+                    for (int i = 0; i < resolutions.length; i ++) {
+                        remoteAddresses[i] = new InetSocketAddress(resolutions[i].address, port);
+                    }
+                    if (connectAttemptDelay > 0 && remoteAddresses.length > 1) {
+                        NettyChannelConnector.this.remoteAddresses = interleaveAddressFamilies(remoteAddresses);
+                        new ConnectRace(bootstrap, connectListener).startNextAttempt();
+                    } else {
+                        NettyChannelConnector.this.remoteAddresses = remoteAddresses;
+                        connectToRemoteAddress(bootstrap, connectListener);
+                    }
+
+                } else {
+                    connectListener.onResolutionFailure(future.cause());
+                }
+            }
+        });
+    }
+
+    private void connectToRemoteAddress(final Bootstrap bootstrap, final ChannelFutureListener listener) {
         final InetSocketAddress remoteAddress = remoteAddresses[i];
 
         ChannelFuture future = localAddress != null ? bootstrap.connect(remoteAddress, localAddress) : bootstrap.connect(remoteAddress);
@@ -90,10 +173,129 @@ public class NettyChannelConnector {
                     retry = pickNextRemoteAddress();
                 }
                 if (retry)
-                    NettyChannelConnector.this.connect(bootstrap, listener);
+                    connectToRemoteAddress(bootstrap, listener);
                 else
                     listener.operationComplete(future);
             }
         });
     }
+
+    /**
+     * Alternate address families, starting with the family of the first address, as recommended by RFC 8305.
+     */
+    private static InetSocketAddress[] interleaveAddressFamilies(InetSocketAddress[] addresses) {
+        boolean firstIsV6 = addresses[0].getAddress() instanceof Inet6Address;
+        List<InetSocketAddress> preferred = new ArrayList<>(addresses.length);
+        List<InetSocketAddress> other = new ArrayList<>(addresses.length);
+        for (InetSocketAddress address : addresses)
+            (address.getAddress() instanceof Inet6Address == firstIsV6 ? preferred : other).add(address);
+
+        InetSocketAddress[] interleaved = new InetSocketAddress[addresses.length];
+        int j = 0;
+        for (int k = 0; j < interleaved.length; k++) {
+            if (k < preferred.size())
+                interleaved[j++] = preferred.get(k);
+            if (k < other.size())
+                interleaved[j++] = other.get(k);
+        }
+        return interleaved;
+    }
+
+    /**
+     * Staggered parallel connect attempts: a new attempt starts every connectAttemptDelay ms, or as soon as the previous one
+     * fails. The first channel to connect wins and the other attempts are cancelled.
+     */
+    private final class ConnectRace {
+
+        private final Bootstrap bootstrap;
+        private final ChannelFutureListener listener;
+        private final List<ChannelFuture> attempts = new ArrayList<>();
+        private int next;
+        private int failed;
+        private boolean done;
+        private ScheduledFuture<?> nextAttemptTimeout;
+
+        ConnectRace(Bootstrap bootstrap, ChannelFutureListener listener) {
+            this.bootstrap = bootstrap;
+            this.listener = listener;
+        }
+
+        void startNextAttempt() {
+            final InetSocketAddress remoteAddress;
+            final ChannelFuture attempt;
+            synchronized (this) {
+                if (done || next == remoteAddresses.length)
+                    return;
+
+                if (nextAttemptTimeout != null)
+                    nextAttemptTimeout.cancel(false);
+
+                remoteAddress = remoteAddresses[next++];
+                attempt = localAddress != null ? bootstrap.connect(remoteAddress, localAddress) : bootstrap.connect(remoteAddress);
+                attempts.add(attempt);
+
+                if (next < remoteAddresses.length)
+                    nextAttemptTimeout = bootstrap.group().next().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            startNextAttempt();
+                        }
+                    }, connectAttemptDelay, TimeUnit.MILLISECONDS);
+            }
+
+            attempt.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (future.isSuccess())
+                        onAttemptSuccess(future, remoteAddress);
+                    else
+                        onAttemptFailure(future, remoteAddress);
+                }
+            });
+        }
+
+        private void onAttemptSuccess(ChannelFuture future, InetSocketAddress remoteAddress) throws Exception {
+            List<ChannelFuture> losers;
+            synchronized (this) {
+                if (done) {
+                    // lost the race
+                    future.channel().close();
+                    return;
+                }
+                done = true;
+                if (nextAttemptTimeout != null)
+                    nextAttemptTimeout.cancel(false);
+                losers = new ArrayList<>(attempts);
+                losers.remove(future);
+            }
+
+            for (ChannelFuture loser : losers) {
+                loser.cancel(false);
+                loser.channel().close();
+            }
+
+            if (asyncHandlerExtensions != null)
+                asyncHandlerExtensions.onConnectionSuccess(future.channel(), remoteAddress.getAddress());
+            listener.operationComplete(future);
+        }
+
+        private void onAttemptFailure(ChannelFuture future, InetSocketAddress remoteAddress) throws Exception {
+            boolean allFailed;
+            synchronized (this) {
+                if (done)
+                    // cancelled because another attempt won
+                    return;
+                allFailed = ++failed == remoteAddresses.length;
+                done = allFailed;
+            }
+
+            if (asyncHandlerExtensions != null)
+                asyncHandlerExtensions.onConnectionFailure(remoteAddress.getAddress());
+
+            if (allFailed)
+                listener.operationComplete(future);
+            else
+                startNextAttempt();
+        }
+    }
 }
@@ -17,6 +17,7 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.ACCEPT;
 import static io.netty.handler.codec.http.HttpHeaders.Names.ACCEPT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaders.Names.AUTHORIZATION;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpHeaders.Names.COOKIE;
@@ -34,6 +35,7 @@ import static org.asynchttpclient.util.AuthenticatorUtils.perRequestProxyAuthori
 import static org.asynchttpclient.util.MiscUtils.isNonEmpty;
 import static org.asynchttpclient.ws.WebSocketUtils.getKey;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -43,7 +45,9 @@ import io.netty.handler.codec.http.HttpVersion;
 
 import java.nio.charset.Charset;
 
+import org.asynchttpclient.AdvancedConfig;
 import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.PreparedRequest;
 import org.asynchttpclient.Realm;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.cookie.CookieEncoder;
@@ -52,12 +56,18 @@ import org.asynchttpclient.netty.request.body.NettyBodyBody;
 import org.asynchttpclient.netty.request.body.NettyByteArrayBody;
 import org.asynchttpclient.netty.request.body.NettyByteBufferBody;
 import org.asynchttpclient.netty.request.body.NettyCompositeByteArrayBody;
+import org.asynchttpclient.netty.request.body.NettyCompressedBody;
 import org.asynchttpclient.netty.request.body.NettyDirectBody;
+import org.asynchttpclient.netty.request.body.NettyEncodedBody;
 import org.asynchttpclient.netty.request.body.NettyFileBody;
+import org.asynchttpclient.netty.request.body.NettyFormBody;
 import org.asynchttpclient.netty.request.body.NettyInputStreamBody;
 import org.asynchttpclient.netty.request.body.NettyMultipartBody;
 import org.asynchttpclient.netty.request.body.NettyReactiveStreamsBody;
+import org.asynchttpclient.netty.request.body.NettyStringBody;
+import org.asynchttpclient.netty.handler.ExtensibleHttpContentDecompressor;
 import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.request.body.RequestBodyCompression;
 import org.asynchttpclient.request.body.generator.FileBodyGenerator;
 import org.asynchttpclient.request.body.generator.InputStreamBodyGenerator;
 import org.asynchttpclient.request.body.generator.ReactiveStreamsBodyGenerator;
@@ -69,9 +79,18 @@ public final class NettyRequestFactory {
     public static final String GZIP_DEFLATE = HttpHeaders.Values.GZIP + "," + HttpHeaders.Values.DEFLATE;
     
     private final AsyncHttpClientConfig config;
+    private final String acceptEncoding;
+    private final RequestBodyCompression bodyCompression;
 
     public NettyRequestFactory(AsyncHttpClientConfig config) {
+        this(config, new AdvancedConfig());
+    }
+
+    public NettyRequestFactory(AsyncHttpClientConfig config, AdvancedConfig advancedConfig) {
         this.config = config;
+        acceptEncoding = advancedConfig.getAcceptEncodings() != null ? ExtensibleHttpContentDecompressor.acceptEncoding(advancedConfig.getAcceptEncodings(),
+                advancedConfig.getContentDecoderFactories()) : GZIP_DEFLATE;
+        bodyCompression = advancedConfig.getRequestBodyCompression();
     }
 
     private NettyBody body(Request request, boolean connect) {
@@ -86,10 +105,13 @@ public final class NettyRequestFactory {
             else if (request.getCompositeByteData() != null)
                 nettyBody = new NettyCompositeByteArrayBody(request.getCompositeByteData());
 
-            else if (request.getStringData() != null)
-                nettyBody = new NettyByteBufferBody(StringUtils.charSequence2ByteBuffer(request.getStringData(), bodyCharset));
+            else if (request.getStringData() != null) {
+                if (StringUtils.isDirectlyEncodable(bodyCharset))
+                    nettyBody = new NettyStringBody(request.getStringData(), bodyCharset);
+                else
+                    nettyBody = new NettyByteBufferBody(StringUtils.charSequence2ByteBuffer(request.getStringData(), bodyCharset));
 
-            else if (request.getByteBufferData() != null)
+            } else if (request.getByteBufferData() != null)
                 nettyBody = new NettyByteBufferBody(request.getByteBufferData());
 
             else if (request.getStreamData() != null)
@@ -101,7 +123,11 @@ public final class NettyRequestFactory {
                 if (!request.getHeaders().contains(CONTENT_TYPE))
                     contentType = HttpHeaders.Values.APPLICATION_X_WWW_FORM_URLENCODED;
 
-                nettyBody = new NettyByteBufferBody(urlEncodeFormParams(request.getFormParams(), bodyCharset), contentType);
+                if (StringUtils.isDirectlyEncodable(bodyCharset))
+                    // percent-encoded, so the same bytes in all these charsets
+                    nettyBody = new NettyFormBody(request.getFormParams(), contentType);
+                else
+                    nettyBody = new NettyByteBufferBody(urlEncodeFormParams(request.getFormParams(), bodyCharset), contentType);
 
             } else if (isNonEmpty(request.getParts()))
                 nettyBody = new NettyMultipartBody(request.getParts(), request.getHeaders(), config);
@@ -124,6 +150,12 @@ public final class NettyRequestFactory {
         return nettyBody;
     }
 
+    private boolean isCompressible(Request request, NettyBody body) {
+        return bodyCompression != null//
+                && !request.getHeaders().contains(CONTENT_ENCODING)//
+                && bodyCompression.isCompressible(body.getContentLength());
+    }
+
     public void addAuthorizationHeader(HttpHeaders headers, String authorizationHeader) {
         if (authorizationHeader != null)
             // don't override authorization but append
@@ -147,21 +179,33 @@ public final class NettyRequestFactory {
         String requestUri = requestUri(uri, proxyServer, connect);
 
         NettyBody body = body(request, connect);
+        boolean compressed = body != null && isCompressible(request, body);
+        if (compressed)
+            body = body instanceof NettyDirectBody ? NettyCompressedBody.compress(NettyDirectBody.class.cast(body), bodyCompression, uri)
+                    : new NettyCompressedBody(body, bodyCompression, uri);
+
+        // the headers of a prepared request were validated once when it was built
+        boolean validateHeaders = !(request instanceof PreparedRequest.BoundRequest);
 
         HttpRequest httpRequest;
         NettyRequest nettyRequest;
-        if (body instanceof NettyDirectBody) {
+        if (body instanceof NettyEncodedBody) {
+            // the content is only encoded once the request gets written, with the allocator of the channel
+            httpRequest = new EncodedBodyHttpRequest(httpVersion, method, requestUri, NettyEncodedBody.class.cast(body), validateHeaders);
+            nettyRequest = new NettyRequest(httpRequest, null);
+
+        } else if (body instanceof NettyDirectBody) {
             ByteBuf buf = NettyDirectBody.class.cast(body).byteBuf();
-            httpRequest = new DefaultFullHttpRequest(httpVersion, method, requestUri, buf);
+            httpRequest = new DefaultFullHttpRequest(httpVersion, method, requestUri, buf, validateHeaders);
             // body is passed as null as it's written directly with the request
             nettyRequest = new NettyRequest(httpRequest, null);
 
         } else if (body == null) {
-            httpRequest = new DefaultFullHttpRequest(httpVersion, method, requestUri);
+            httpRequest = new DefaultFullHttpRequest(httpVersion, method, requestUri, Unpooled.buffer(0), validateHeaders);
             nettyRequest = new NettyRequest(httpRequest, null);
 
         } else {
-            httpRequest = new DefaultHttpRequest(httpVersion, method, requestUri);
+            httpRequest = new DefaultHttpRequest(httpVersion, method, requestUri, validateHeaders);
             nettyRequest = new NettyRequest(httpRequest, body);
         }
 
@@ -179,7 +223,7 @@ public final class NettyRequestFactory {
                 headers.set(COOKIE, CookieEncoder.encode(request.getCookies()));
 
             if (config.isCompressionEnforced() && !headers.contains(ACCEPT_ENCODING))
-                headers.set(ACCEPT_ENCODING, GZIP_DEFLATE);
+                headers.set(ACCEPT_ENCODING, acceptEncoding);
         }
 
         if (body != null) {
@@ -190,6 +234,12 @@ public final class NettyRequestFactory {
 
             if (body.getContentType() != null)
                 headers.set(CONTENT_TYPE, body.getContentType());
+
+            if (compressed) {
+                headers.set(CONTENT_ENCODING, bodyCompression.getContentEncoding(uri));
+                if (body.getContentLength() < 0)
+                    headers.remove(CONTENT_LENGTH);
+            }
         }
 
         // connection header and friends
@@ -18,6 +18,7 @@ import static org.asynchttpclient.util.HttpUtils.*;
 import static org.asynchttpclient.util.ProxyUtils.getProxyServer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
@@ -27,11 +28,17 @@ import io.netty.util.Timer;
 import io.netty.util.TimerTask;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.asynchttpclient.AdvancedConfig;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
 import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Realm;
 import org.asynchttpclient.Request;
@@ -40,16 +47,20 @@ import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.FilterException;
 import org.asynchttpclient.filter.IOExceptionFilter;
 import org.asynchttpclient.handler.AsyncHandlerExtensions;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
 import org.asynchttpclient.handler.TransferCompletionHandler;
 import org.asynchttpclient.netty.Callback;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.channel.Channels;
 import org.asynchttpclient.netty.channel.NettyConnectListener;
+import org.asynchttpclient.netty.channel.PendingAcquire;
+import org.asynchttpclient.netty.timeout.DeadlineTracker;
 import org.asynchttpclient.netty.timeout.ReadTimeoutTimerTask;
 import org.asynchttpclient.netty.timeout.RequestTimeoutTimerTask;
 import org.asynchttpclient.netty.timeout.TimeoutsHolder;
 import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.retry.RetryPolicy;
 import org.asynchttpclient.uri.Uri;
 import org.asynchttpclient.ws.WebSocketUpgradeHandler;
 import org.slf4j.Logger;
@@ -60,20 +71,25 @@ public final class NettyRequestSender {
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyRequestSender.class);
 
     private final AsyncHttpClientConfig config;
+    private final AdvancedConfig advancedConfig;
     private final ChannelManager channelManager;
     private final Timer nettyTimer;
     private final AtomicBoolean closed;
     private final NettyRequestFactory requestFactory;
+    private final ConcurrentHashMap<EventLoop, DeadlineTracker> deadlineTrackers;
 
     public NettyRequestSender(AsyncHttpClientConfig config,//
+            AdvancedConfig advancedConfig,//
             ChannelManager channelManager,//
             Timer nettyTimer,//
             AtomicBoolean closed) {
         this.config = config;
+        this.advancedConfig = advancedConfig;
         this.channelManager = channelManager;
         this.nettyTimer = nettyTimer;
         this.closed = closed;
-        requestFactory = new NettyRequestFactory(config);
+        requestFactory = new NettyRequestFactory(config, advancedConfig);
+        deadlineTrackers = advancedConfig.isEventLoopTimeouts() ? new ConcurrentHashMap<EventLoop, DeadlineTracker>() : null;
     }
 
     public <T> ListenableFuture<T> sendRequest(final Request request,//
@@ -87,6 +103,53 @@ public final class NettyRequestSender {
         validateWebSocketRequest(request, asyncHandler);
 
         ProxyServer proxyServer = getProxyServer(config, request);
+
+        if (future == null && isHedgeable(request, asyncHandler)) {
+            Object partitionKey = request.getConnectionPoolPartitioning().getPartitionKey(request.getUri(), request.getVirtualHost(), proxyServer);
+            return new HedgedResponseFuture<>(this, request, asyncHandler, partitionKey).start();
+        }
+
+        return sendRequest(request, asyncHandler, future, reclaimCache, proxyServer);
+    }
+
+    <T> ListenableFuture<T> sendHedgeAttempt(Request request, AsyncHandler<T> asyncHandler) {
+        if (isClosed())
+            throw new IllegalStateException("Closed");
+
+        return sendRequest(request, asyncHandler, null, false, getProxyServer(config, request));
+    }
+
+    /**
+     * Only idempotent requests whose body can be sent again can be hedged.
+     * Handlers that the request processing inspects can't be wrapped, so their
+     * requests aren't hedged either.
+     */
+    private boolean isHedgeable(Request request, AsyncHandler<?> asyncHandler) {
+        if (request.getHedgingPolicy() == null)
+            return false;
+
+        String method = request.getMethod();
+        return (method.equals(HttpMethod.GET.name()) || method.equals(HttpMethod.HEAD.name()) || method.equals(HttpMethod.OPTIONS.name())//
+                || method.equals(HttpMethod.PUT.name()) || method.equals(HttpMethod.DELETE.name()))//
+                && hasReplayableBody(request)//
+                && !request.getUri().isWebSocket()//
+                && !(asyncHandler instanceof TransferCompletionHandler)//
+                && !(asyncHandler instanceof StreamedAsyncHandler);
+    }
+
+    /**
+     * Streamed bodies and body generators might not be readable twice.
+     */
+    private static boolean hasReplayableBody(Request request) {
+        return request.getStreamData() == null && request.getBodyGenerator() == null;
+    }
+
+    private <T> ListenableFuture<T> sendRequest(Request request,//
+            AsyncHandler<T> asyncHandler,//
+            NettyResponseFuture<T> future,//
+            boolean reclaimCache,//
+            ProxyServer proxyServer) {
+
         boolean connectIsDone = future != null //
                 && future.getNettyRequest() != null //
                 && future.getNettyRequest().getHttpRequest().getMethod() == HttpMethod.CONNECT //
@@ -119,12 +182,81 @@ public final class NettyRequestSender {
 
         NettyResponseFuture<T> newFuture = newNettyRequestAndResponseFuture(request, asyncHandler, future, proxyServer, forceConnect);
 
-        Channel channel = getCachedChannel(future, request, proxyServer, asyncHandler);
+        if (failFastIfCircuitOpen(newFuture))
+            return newFuture;
+
+        Channel channel = getCachedChannel(future, request, proxyServer, newFuture.getEndpoint(), asyncHandler);
 
         if (Channels.isChannelValid(channel))
             return sendRequestWithCachedChannel(request, proxyServer, newFuture, asyncHandler, channel);
-        else
-            return sendRequestWithNewChannel(request, proxyServer, newFuture, asyncHandler, reclaimCache);
+
+        if (future == null && isPipelinable(newFuture)) {
+            Channel pipeliningChannel = channelManager.pollPipeliningChannel(newFuture.getPartitionKey());
+            if (pipeliningChannel != null)
+                return sendRequestPipelined(request, proxyServer, newFuture, asyncHandler, pipeliningChannel);
+        }
+
+        return sendRequestWithNewChannel(request, proxyServer, newFuture, asyncHandler, reclaimCache);
+    }
+
+    /**
+     * Only idempotent requests without a body and that don't depend on the
+     * connection state can be pipelined, as they might have to be replayed on
+     * another connection if the server closes the one they were written on.
+     */
+    private boolean isPipelinable(NettyResponseFuture<?> future) {
+        if (!channelManager.isPipeliningEnabled())
+            return false;
+
+        NettyRequest nettyRequest = future.getNettyRequest();
+        HttpMethod method = nettyRequest.getHttpRequest().getMethod();
+        Uri uri = future.getUri();
+        return (method == HttpMethod.GET || method == HttpMethod.HEAD)//
+                && nettyRequest.getBody() == null//
+                && !future.isDontWriteBodyBecauseExpectContinue()//
+                && future.getRealm() == null//
+                && future.getProxyRealm() == null//
+                && !uri.isWebSocket()//
+                && (future.getProxyServer() == null || !uri.isSecured());
+    }
+
+    private <T> ListenableFuture<T> sendRequestPipelined(final Request request, final ProxyServer proxy, final NettyResponseFuture<T> future, final AsyncHandler<T> asyncHandler,
+            final Channel channel) {
+
+        // futures have to be queued in the order the requests are written
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!channelManager.offerPipelinedFuture(channel, future)) {
+                    // the channel got closed or full in-between
+                    sendRequestWithNewChannel(request, proxy, future, asyncHandler, false);
+                    return;
+                }
+
+                if (asyncHandler instanceof AsyncHandlerExtensions)
+                    AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionPooled(channel);
+
+                future.setState(NettyResponseFuture.STATE.POOLED);
+                future.attachChannel(channel, false);
+
+                LOGGER.debug("Pipelining on Channel {} for {} '{}'", channel, future.getNettyRequest().getHttpRequest().getMethod(), future.getNettyRequest().getHttpRequest().getUri());
+
+                writeRequest(future, channel);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Replay the requests that were pipelined on a channel that got closed before their responses arrived.
+     * 
+     * @param channel the closed channel
+     */
+    public void replayPipelinedRequests(Channel channel) {
+        for (NettyResponseFuture<?> future : channelManager.removePipelinedFutures(channel))
+            if (!future.isDone() && !retry(future, REMOTELY_CLOSED_EXCEPTION))
+                abort(null, future, REMOTELY_CLOSED_EXCEPTION);
     }
 
     /**
@@ -142,10 +274,15 @@ public final class NettyRequestSender {
 
         NettyResponseFuture<T> newFuture = null;
         for (int i = 0; i < 3; i++) {
-            Channel channel = getCachedChannel(future, request, proxyServer, asyncHandler);
+            Channel channel = getCachedChannel(future, request, proxyServer, null, asyncHandler);
             if (Channels.isChannelValid(channel))
-                if (newFuture == null)
+                if (newFuture == null) {
                     newFuture = newNettyRequestAndResponseFuture(request, asyncHandler, future, proxyServer, false);
+                    if (failFastIfCircuitOpen(newFuture)) {
+                        channelManager.tryToOfferChannelToPool(channel, asyncHandler, true, newFuture.getPartitionKey());
+                        return newFuture;
+                    }
+                }
 
             if (Channels.isChannelValid(channel))
                 // if the channel is still active, we can use it, otherwise try
@@ -157,9 +294,19 @@ public final class NettyRequestSender {
         }
 
         newFuture = newNettyRequestAndResponseFuture(request, asyncHandler, future, proxyServer, true);
+        if (failFastIfCircuitOpen(newFuture))
+            return newFuture;
         return sendRequestWithNewChannel(request, proxyServer, newFuture, asyncHandler, reclaimCache);
     }
 
+    private boolean failFastIfCircuitOpen(NettyResponseFuture<?> future) {
+        if (channelManager.acquireCircuitPermission(future))
+            return false;
+
+        abort(null, future, channelManager.getCircuitOpenException());
+        return true;
+    }
+
     private <T> NettyResponseFuture<T> newNettyRequestAndResponseFuture(final Request request, final AsyncHandler<T> asyncHandler, NettyResponseFuture<T> originalFuture,
             ProxyServer proxy, boolean forceConnect) {
 
@@ -185,20 +332,22 @@ public final class NettyRequestSender {
             NettyResponseFuture<T> future = newNettyResponseFuture(request, asyncHandler, nettyRequest, proxy);
             future.setRealm(realm);
             future.setProxyRealm(proxyRealm);
+            channelManager.selectEndpoint(future, request, proxy);
             return future;
         } else {
             originalFuture.setNettyRequest(nettyRequest);
             originalFuture.setCurrentRequest(request);
+            channelManager.selectEndpoint(originalFuture, request, proxy);
             return originalFuture;
         }
     }
 
-    private Channel getCachedChannel(NettyResponseFuture<?> future, Request request, ProxyServer proxyServer, AsyncHandler<?> asyncHandler) {
+    private Channel getCachedChannel(NettyResponseFuture<?> future, Request request, ProxyServer proxyServer, InetSocketAddress endpoint, AsyncHandler<?> asyncHandler) {
 
         if (future != null && future.reuseChannel() && Channels.isChannelValid(future.channel()))
             return future.channel();
         else
-            return pollAndVerifyCachedChannel(request, proxyServer, asyncHandler);
+            return pollAndVerifyCachedChannel(request, proxyServer, endpoint, asyncHandler);
     }
 
     private <T> ListenableFuture<T> sendRequestWithCachedChannel(Request request, ProxyServer proxy, NettyResponseFuture<T> future, AsyncHandler<T> asyncHandler, Channel channel) {
@@ -230,6 +379,20 @@ public final class NettyRequestSender {
             NettyResponseFuture<T> future,//
             AsyncHandler<T> asyncHandler,//
             boolean reclaimCache) {
+        return sendRequestWithNewChannel(request, proxy, future, asyncHandler, reclaimCache, null);
+    }
+
+    /**
+     * @param dispatched the pending acquire this request was dispatched from, if any, that goes back to the queue if the permit
+     *            it was dispatched for was taken in-between
+     */
+    private <T> ListenableFuture<T> sendRequestWithNewChannel(//
+            Request request,//
+            ProxyServer proxy,//
+            NettyResponseFuture<T> future,//
+            AsyncHandler<T> asyncHandler,//
+            boolean reclaimCache,//
+            PendingAcquire dispatched) {
 
         // some headers are only set when performing the first request
         HttpHeaders headers = future.getNettyRequest().getHttpRequest().headers();
@@ -252,14 +415,21 @@ public final class NettyRequestSender {
             // Do not throw an exception when we need an extra connection for a
             // redirect.
             if (!reclaimCache) {
-                channelManager.preemptChannel(partitionKey);
+                try {
+                    channelManager.preemptChannel(partitionKey);
+                } catch (IOException e) {
+                    if (dispatched != null ? channelManager.requeuePendingAcquire(dispatched) : enqueuePendingAcquire(request, proxy, future, asyncHandler))
+                        // will be sent once a connection becomes available
+                        return future;
+                    throw e;
+                }
                 channelPreempted = true;
             }
 
             if (asyncHandler instanceof AsyncHandlerExtensions)
                 AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionOpen();
 
-            new NettyChannelConnector(request, proxy, asyncHandler)
+            new NettyChannelConnector(request, proxy, future.getEndpoint(), asyncHandler, advancedConfig.getConnectAttemptDelay())
                 .connect(bootstrap, new NettyConnectListener<T>(future, this, channelManager, channelPreempted, partitionKey));
 
         } catch (Throwable t) {
@@ -272,6 +442,55 @@ public final class NettyRequestSender {
         return future;
     }
 
+    private <T> boolean enqueuePendingAcquire(final Request request, final ProxyServer proxy, final NettyResponseFuture<T> future, final AsyncHandler<T> asyncHandler) {
+
+        PendingAcquire pendingAcquire = new PendingAcquire(future.getPartitionKey()) {
+
+            @Override
+            protected boolean isAbandoned() {
+                return future.isDone();
+            }
+
+            @Override
+            protected void onAcquirable(long queueTime) {
+                int requeues = getRequeues();
+
+                Channel channel = pollAndVerifyCachedChannel(request, proxy, future.getEndpoint(), asyncHandler);
+                if (Channels.isChannelValid(channel))
+                    sendRequestWithCachedChannel(request, proxy, future, asyncHandler, channel);
+                else
+                    sendRequestWithNewChannel(request, proxy, future, asyncHandler, false, this);
+
+                if (getRequeues() == requeues)
+                    // not back in the queue
+                    dequeued(queueTime);
+            }
+
+            @Override
+            protected void onTimeout(long queueTime) {
+                dequeued(queueTime);
+                // the request never reached the partition
+                channelManager.releaseCircuitPermission(future);
+                abort(null, future, new TimeoutException("Timed out after " + queueTime + " ms waiting for a connection to " + getPartitionKey()));
+            }
+
+            private void dequeued(long queueTime) {
+                future.addQueueTime(queueTime);
+                if (asyncHandler instanceof AsyncHandlerExtensions)
+                    AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionDequeued(queueTime);
+            }
+        };
+
+        long acquireTimeout = advancedConfig.getAcquireTimeout() > 0 ? advancedConfig.getAcquireTimeout() : requestTimeout(config, request);
+        if (!channelManager.enqueuePendingAcquire(pendingAcquire, acquireTimeout))
+            return false;
+
+        LOGGER.debug("Connection limits reached, queueing request {}", future.getNettyRequest().getHttpRequest().getUri());
+        if (asyncHandler instanceof AsyncHandlerExtensions)
+            AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionQueued();
+        return true;
+    }
+
     private <T> NettyResponseFuture<T> newNettyResponseFuture(Request request, AsyncHandler<T> asyncHandler, NettyRequest nettyRequest, ProxyServer proxyServer) {
 
         NettyResponseFuture<T> future = new NettyResponseFuture<>(//
@@ -308,6 +527,10 @@ public final class NettyRequestSender {
                 if (future.getAsyncHandler() instanceof AsyncHandlerExtensions)
                     AsyncHandlerExtensions.class.cast(future.getAsyncHandler()).onRequestSend(nettyRequest);
 
+                if (httpRequest instanceof EncodedBodyHttpRequest)
+                    EncodedBodyHttpRequest.class.cast(httpRequest).encode(channel.alloc());
+
+                future.setSendNanoTime(System.nanoTime());
                 channel.writeAndFlush(httpRequest, channel.newProgressivePromise()).addListener(new ProgressListener(future.getAsyncHandler(), future, true, 0L));
             }
 
@@ -315,8 +538,11 @@ public final class NettyRequestSender {
                 nettyRequest.getBody().write(channel, future);
 
             // don't bother scheduling timeouts if channel became invalid
-            if (Channels.isChannelValid(channel))
-                scheduleTimeouts(future);
+            if (Channels.isChannelValid(channel)) {
+                scheduleTimeouts(future, channel);
+                if (isPipelinable(future))
+                    channelManager.registerPipeliningChannel(channel, future.getPartitionKey());
+            }
 
         } catch (Exception e) {
             LOGGER.error("Can't write request", e);
@@ -329,10 +555,20 @@ public final class NettyRequestSender {
         TransferCompletionHandler.class.cast(handler).headers(h);
     }
 
-    private void scheduleTimeouts(NettyResponseFuture<?> nettyResponseFuture) {
+    private void scheduleTimeouts(NettyResponseFuture<?> nettyResponseFuture, Channel channel) {
 
         nettyResponseFuture.touch();
         int requestTimeoutInMs = requestTimeout(config, nettyResponseFuture.getTargetRequest());
+
+        if (deadlineTrackers != null) {
+            int readTimeoutValue = config.getReadTimeout();
+            // no need to track a readTimeout if the requestTimeout happens first
+            boolean trackReadTimeout = readTimeoutValue != -1 && readTimeoutValue < requestTimeoutInMs;
+            if (nettyResponseFuture.armDeadlines(requestTimeoutInMs, trackReadTimeout ? readTimeoutValue : -1))
+                deadlineTracker(channel.eventLoop()).track(nettyResponseFuture);
+            return;
+        }
+
         TimeoutsHolder timeoutsHolder = new TimeoutsHolder();
         if (requestTimeoutInMs != -1) {
             Timeout requestTimeout = newTimeout(new RequestTimeoutTimerTask(nettyResponseFuture, this, timeoutsHolder, requestTimeoutInMs), requestTimeoutInMs);
@@ -348,16 +584,38 @@ public final class NettyRequestSender {
         nettyResponseFuture.setTimeoutsHolder(timeoutsHolder);
     }
 
+    private DeadlineTracker deadlineTracker(EventLoop eventLoop) {
+        DeadlineTracker deadlineTracker = deadlineTrackers.get(eventLoop);
+        if (deadlineTracker == null) {
+            deadlineTracker = new DeadlineTracker(eventLoop, this);
+            DeadlineTracker previous = deadlineTrackers.putIfAbsent(eventLoop, deadlineTracker);
+            if (previous != null)
+                deadlineTracker = previous;
+        }
+        return deadlineTracker;
+    }
+
     public Timeout newTimeout(TimerTask task, long delay) {
         return nettyTimer.newTimeout(task, delay, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Cancel an attempt that lost a hedging race. Its response status hasn't
+     * been received yet, so its channel can't be drained and is closed.
+     */
+    void cancelHedgeAttempt(NettyResponseFuture<?> future) {
+        Channel channel = future.channel();
+        if (future.cancel(true) && channel != null)
+            channelManager.closeChannel(channel);
+    }
+
     public void abort(Channel channel, NettyResponseFuture<?> future, Throwable t) {
 
         if (channel != null)
             channelManager.closeChannel(channel);
 
         if (!future.isDone()) {
+            channelManager.onRequestCompleted(future, t);
             future.setState(NettyResponseFuture.STATE.CLOSED);
             LOGGER.debug("Aborting Future {}\n", future);
             LOGGER.debug(t.getMessage(), t);
@@ -369,16 +627,87 @@ public final class NettyRequestSender {
         if (future.isDone())
             channelManager.closeChannel(channel);
 
-        else if (!retry(future))
+        else if (!retry(future, REMOTELY_CLOSED_EXCEPTION))
             abort(channel, future, REMOTELY_CLOSED_EXCEPTION);
     }
 
-    public boolean retry(NettyResponseFuture<?> future) {
+    private RetryPolicy getRetryPolicy(NettyResponseFuture<?> future) {
+        RetryPolicy retryPolicy = future.getCurrentRequest().getRetryPolicy();
+        return retryPolicy != null ? retryPolicy : advancedConfig.getRetryPolicy();
+    }
+
+    /**
+     * @return the delay before retrying, in ms, 0 if there's no {@link RetryPolicy}, or {@link RetryPolicy#NO_RETRY}
+     */
+    private long getRetryDelay(NettyResponseFuture<?> future, Throwable cause) {
+        RetryPolicy retryPolicy = getRetryPolicy(future);
+        if (retryPolicy == null)
+            return 0;
+
+        long delay = retryPolicy.getRetryDelay(future.getPartitionKey(), future.getCurrentRequest(), future.getRetryCount(), cause);
+        if (delay >= 0)
+            future.incrementRetryCount();
+        return delay;
+    }
+
+    /**
+     * Only requests whose body can be sent again are retried after a response, whatever their method.
+     * 
+     * @return the delay before retrying after this response, in ms, or {@link RetryPolicy#NO_RETRY}
+     */
+    public long getRetryDelay(NettyResponseFuture<?> future, HttpResponseStatus status, HttpResponseHeaders headers) {
+        RetryPolicy retryPolicy = getRetryPolicy(future);
+        Request request = future.getCurrentRequest();
+        if (retryPolicy == null || !future.hasRetriesLeft() || !hasReplayableBody(request))
+            return RetryPolicy.NO_RETRY;
+
+        // final responses must not use up a retry, so only consume one once the policy decided to retry
+        long delay = retryPolicy.getRetryDelay(future.getPartitionKey(), request, future.getRetryCount(), status, headers);
+        if (delay < 0 || !future.canRetry())
+            return RetryPolicy.NO_RETRY;
+        future.incrementRetryCount();
+        return delay;
+    }
+
+    /**
+     * Send the request again once the delay has elapsed, unless the future
+     * completes meanwhile, typically because of the request timeout.
+     */
+    public void sendNextRequestLater(final Request request, final NettyResponseFuture<?> future, long delay) {
+        if (delay <= 0) {
+            sendNextRequest(request, future);
+            return;
+        }
+
+        LOGGER.debug("Retrying {} in {}ms", request.getUri(), delay);
+        // the channel might be reused meanwhile, so a timeout must not close it
+        future.attachChannel(null, false);
+        newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                if (future.isDone() || isClosed())
+                    return;
+                try {
+                    sendNextRequest(request, future);
+                } catch (Exception e) {
+                    abort(null, future, e);
+                }
+            }
+        }, delay);
+    }
+
+    public boolean retry(NettyResponseFuture<?> future, Throwable cause) {
 
         if (isClosed())
             return false;
 
         if (future.canBeReplayed()) {
+            long delay = getRetryDelay(future, cause);
+            if (delay < 0) {
+                LOGGER.debug("Retry policy denied retrying future {}\n", future);
+                return false;
+            }
+
             future.setState(NettyResponseFuture.STATE.RECONNECTED);
             future.getAndSetStatusReceived(false);
 
@@ -388,7 +717,7 @@ public final class NettyRequestSender {
             }
 
             try {
-                sendNextRequest(future.getCurrentRequest(), future);
+                sendNextRequestLater(future.getCurrentRequest(), future, delay);
                 return true;
 
             } catch (Exception e) {
@@ -419,8 +748,11 @@ public final class NettyRequestSender {
         }
 
         if (fc.replayRequest() && future.canBeReplayed()) {
-            replayRequest(future, fc, channel);
-            replayed = true;
+            long delay = getRetryDelay(future, e);
+            if (delay >= 0) {
+                replayRequest(future, fc, channel, delay);
+                replayed = true;
+            }
         }
         return replayed;
     }
@@ -442,14 +774,14 @@ public final class NettyRequestSender {
         }
     }
 
-    private Channel pollAndVerifyCachedChannel(Request request, ProxyServer proxy, AsyncHandler<?> asyncHandler) {
+    private Channel pollAndVerifyCachedChannel(Request request, ProxyServer proxy, InetSocketAddress endpoint, AsyncHandler<?> asyncHandler) {
 
         if (asyncHandler instanceof AsyncHandlerExtensions)
             AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionPool();
 
         Uri uri = request.getUri();
         String virtualHost = request.getVirtualHost();
-        final Channel channel = channelManager.poll(uri, virtualHost, proxy, request.getConnectionPoolPartitioning());
+        final Channel channel = channelManager.poll(uri, virtualHost, proxy, request.getConnectionPoolPartitioning(), endpoint);
 
         if (channel != null) {
             LOGGER.debug("Using cached Channel {}\n for uri {}\n", channel, uri);
@@ -463,8 +795,12 @@ public final class NettyRequestSender {
         return channel;
     }
 
+    public void replayRequest(final NettyResponseFuture<?> future, FilterContext<?> fc, Channel channel) {
+        replayRequest(future, fc, channel, 0);
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
-    public void replayRequest(final NettyResponseFuture<?> future, FilterContext fc, Channel channel) {
+    private void replayRequest(final NettyResponseFuture<?> future, FilterContext fc, Channel channel, long delay) {
 
         Request newRequest = fc.getRequest();
         future.setAsyncHandler(fc.getAsyncHandler());
@@ -476,7 +812,7 @@ public final class NettyRequestSender {
             AsyncHandlerExtensions.class.cast(future.getAsyncHandler()).onRetry();
 
         channelManager.drainChannelAndOffer(channel, future);
-        sendNextRequest(newRequest, future);
+        sendNextRequestLater(newRequest, future, delay);
     }
 
     public boolean isClosed() {
@@ -16,22 +16,27 @@ package org.asynchttpclient.netty.request.body;
 import org.asynchttpclient.request.body.Body;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.stream.ChunkedInput;
 
-import java.nio.ByteBuffer;
-
 /**
  * Adapts a {@link Body} to Netty's {@link ChunkedInput}.
+ *
+ * Chunks are read into buffers of the channel's allocator. Their size adapts
+ * to the body and to the channel: it grows while the body fills whole chunks
+ * and the channel keeps up, and shrinks when the body only produces small
+ * chunks or when the channel stops being writable.
  */
 public class BodyChunkedInput implements ChunkedInput<ByteBuf> {
 
-    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+    public static final int MIN_CHUNK_SIZE = 1024;
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+    public static final int MAX_CHUNK_SIZE = 64 * 1024;
 
     private final Body body;
-    private final int contentLength;
-    private final int chunkSize;
+    private final long contentLength;
+    private long remaining;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
 
     private boolean endOfInput;
 
@@ -39,20 +44,23 @@ public class BodyChunkedInput implements ChunkedInput<ByteBuf> {
         if (body == null)
             throw new NullPointerException("body");
         this.body = body;
-        contentLength = (int) body.getContentLength();
-        if (contentLength <= 0)
-            chunkSize = DEFAULT_CHUNK_SIZE;
-        else
-            chunkSize = Math.min(contentLength, DEFAULT_CHUNK_SIZE);
+        contentLength = body.getContentLength();
+        remaining = contentLength;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
     }
 
     @Override
     public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
-        if (endOfInput) {
+        if (endOfInput)
             return null;
-        } else {
-            // FIXME pass a visitor so we can directly pass a pooled ByteBuf
-            ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+
+        int size = contentLength > 0 && remaining > 0 ? (int) Math.min(chunkSize, remaining) : chunkSize;
+        ByteBuf buffer = ctx.alloc().buffer(size, size);
+        boolean release = true;
+        try {
             Body.State state = body.read(buffer);
             switch (state) {
                 case Stop:
@@ -62,14 +70,32 @@ public class BodyChunkedInput implements ChunkedInput<ByteBuf> {
                     //this will suspend the stream in ChunkedWriteHandler
                     return null;
                 case Continue:
-                    buffer.flip();
-                    return Unpooled.wrappedBuffer(buffer);
+                    int read = buffer.readableBytes();
+                    remaining -= read;
+                    adaptChunkSize(read, size, ctx.channel().isWritable());
+                    release = false;
+                    return buffer;
                 default:
                     throw new IllegalStateException("Unknown state: " + state);
             }
+        } finally {
+            if (release)
+                buffer.release();
         }
     }
 
+    void adaptChunkSize(int read, int requested, boolean writable) {
+        if (!writable)
+            // the peer doesn't keep up, don't pile up bigger buffers
+            chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize >> 1);
+        else if (read == requested)
+            // the body produces at least as fast as the channel drains
+            chunkSize = Math.min(MAX_CHUNK_SIZE, chunkSize << 1);
+        else if (read < chunkSize >> 2)
+            // small reads, e.g. a producer feeding small parts
+            chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize >> 1);
+    }
+
     @Override
     public boolean isEndOfInput() throws Exception {
         return endOfInput;
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibEncoder;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.channel.ChannelManager;
+import org.asynchttpclient.request.body.RequestBodyCompression;
+import org.asynchttpclient.uri.Uri;
+
+/**
+ * A body that is compressed as it's written, by an encoder that sits in the
+ * pipeline, right after the HTTP codec, until the last content is written.
+ */
+public class NettyCompressedBody implements NettyBody {
+
+    private final NettyBody body;
+    private final RequestBodyCompression compression;
+    private final Uri uri;
+
+    public NettyCompressedBody(NettyBody body, RequestBodyCompression compression, Uri uri) {
+        this.body = body;
+        this.compression = compression;
+        this.uri = uri;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1L;
+    }
+
+    @Override
+    public String getContentType() {
+        return body.getContentType();
+    }
+
+    @Override
+    public void write(Channel channel, NettyResponseFuture<?> future) throws IOException {
+        channel.pipeline().addAfter(ChannelManager.HTTP_HANDLER, ChannelManager.DEFLATER_HANDLER, new BodyEncoder(compression.newEncoder(uri)));
+        body.write(channel, future);
+    }
+
+    /**
+     * @param body a body whose bytes are known
+     * @param compression how to compress it
+     * @param uri the target of the request
+     * @return the compressed body, whose length is known
+     */
+    public static NettyDirectBody compress(NettyDirectBody body, RequestBodyCompression compression, Uri uri) {
+        EmbeddedChannel encoder = new EmbeddedChannel(compression.newEncoder(uri));
+        encoder.writeOutbound(body.byteBuf());
+        encoder.finish();
+
+        CompositeByteBuf compressed = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        try {
+            ByteBuf buf;
+            while ((buf = (ByteBuf) encoder.readOutbound()) != null)
+                compressed.addComponent(buf).writerIndex(compressed.writerIndex() + buf.readableBytes());
+
+            byte[] bytes = new byte[compressed.readableBytes()];
+            compressed.readBytes(bytes);
+            return new NettyByteArrayBody(bytes, body.getContentType());
+        } finally {
+            compressed.release();
+        }
+    }
+
+    private static final class BodyEncoder extends ChannelOutboundHandlerAdapter {
+
+        private final EmbeddedChannel encoder;
+
+        BodyEncoder(ZlibEncoder zlibEncoder) {
+            encoder = new EmbeddedChannel(zlibEncoder);
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+            encoder.config().setAllocator(ctx.alloc());
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            ByteBuf content;
+            if (msg instanceof HttpContent)
+                content = HttpContent.class.cast(msg).content();
+            else if (msg instanceof ByteBuf)
+                content = (ByteBuf) msg;
+            else {
+                // the request itself, whose write might still be pending
+                ctx.write(msg, promise);
+                return;
+            }
+
+            boolean last = msg instanceof LastHttpContent;
+            try {
+                if (content.isReadable())
+                    encoder.writeOutbound(content.retain());
+                if (last)
+                    encoder.finish();
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+
+            ByteBuf compressed;
+            while ((compressed = (ByteBuf) encoder.readOutbound()) != null)
+                ctx.write(compressed);
+
+            if (last) {
+                ctx.write(LastHttpContent.EMPTY_LAST_CONTENT, promise);
+                ctx.pipeline().remove(this);
+            } else {
+                ctx.write(Unpooled.EMPTY_BUFFER, promise);
+            }
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+            // the body might not have been fully written
+            if (encoder.finish()) {
+                Object msg;
+                while ((msg = encoder.readOutbound()) != null)
+                    ReferenceCountUtil.release(msg);
+            }
+        }
+    }
+}
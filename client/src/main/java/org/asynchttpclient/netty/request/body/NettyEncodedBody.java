@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A body that is encoded straight into the content buffer of the request, in
+ * a single pass and with no intermediate copy. The buffer is only allocated
+ * when the request gets written, see
+ * {@link org.asynchttpclient.netty.request.EncodedBodyHttpRequest}.
+ */
+public abstract class NettyEncodedBody extends NettyDirectBody {
+
+    /**
+     * @param buf the target buffer, exactly {@link #getContentLength()} bytes will be written
+     */
+    protected abstract void encode(ByteBuf buf);
+
+    public ByteBuf byteBuf(ByteBufAllocator allocator) {
+        int length = (int) getContentLength();
+        ByteBuf buf = allocator.buffer(length, length);
+        encode(buf);
+        return buf;
+    }
+
+    @Override
+    public ByteBuf byteBuf() {
+        int length = (int) getContentLength();
+        ByteBuf buf = Unpooled.buffer(length, length);
+        encode(buf);
+        return buf;
+    }
+}
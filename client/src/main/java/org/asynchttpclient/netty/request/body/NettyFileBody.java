@@ -76,7 +76,7 @@ public class NettyFileBody implements NettyBody {
 
         try {
             ChannelFuture writeFuture;
-            if (ChannelManager.isSslHandlerConfigured(channel.pipeline()) || config.isDisableZeroCopy()) {
+            if (ChannelManager.isSslHandlerConfigured(channel.pipeline()) || ChannelManager.isDeflaterConfigured(channel.pipeline()) || config.isDisableZeroCopy()) {
                 writeFuture = channel.write(new ChunkedFile(raf, offset, length, config.getChunkedFileChunkSize()), channel.newProgressivePromise());
             } else {
                 FileRegion region = new DefaultFileRegion(raf.getChannel(), offset, length);
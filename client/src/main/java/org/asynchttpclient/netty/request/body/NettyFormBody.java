@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+
+import org.asynchttpclient.Param;
+import org.asynchttpclient.util.HttpUtils;
+
+/**
+ * An <code>application/x-www-form-urlencoded</code> body, for ASCII compatible
+ * charsets.
+ */
+public class NettyFormBody extends NettyEncodedBody {
+
+    private final List<Param> params;
+    private final String contentType;
+    private final long length;
+
+    public NettyFormBody(List<Param> params, String contentType) {
+        this.params = params;
+        this.contentType = contentType;
+        length = HttpUtils.urlEncodedFormParamsLength(params);
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    protected void encode(ByteBuf buf) {
+        HttpUtils.urlEncodeFormParams(buf, params);
+    }
+}
@@ -14,29 +14,147 @@
 package org.asynchttpclient.netty.request.body;
 
 import static org.asynchttpclient.request.body.multipart.MultipartUtils.newMultipartBody;
+import static org.asynchttpclient.request.body.multipart.MultipartUtils.newMultipartSegments;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelProgressiveFuture;
+import io.netty.channel.ChannelProgressiveFutureListener;
+import io.netty.channel.ChannelProgressivePromise;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedNioFile;
 
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.List;
 
 import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.channel.ChannelManager;
+import org.asynchttpclient.netty.request.ProgressListener;
 import org.asynchttpclient.request.body.multipart.MultipartBody;
+import org.asynchttpclient.request.body.multipart.MultipartSegments;
+import org.asynchttpclient.request.body.multipart.MultipartSegments.Segment;
 import org.asynchttpclient.request.body.multipart.Part;
 
-public class NettyMultipartBody extends NettyBodyBody {
+/**
+ * Writes a multipart body as a sequence of messages: the encoded part
+ * preambles and string parts as pooled buffers, the byte array parts as
+ * wrapped buffers and the file parts as {@link DefaultFileRegion}s when the
+ * connection allows zero-copy, or as {@link ChunkedNioFile}s read into large
+ * pooled buffers otherwise, e.g. over TLS.
+ *
+ * Custom {@link Part} implementations fall back to {@link MultipartBody}.
+ */
+public class NettyMultipartBody implements NettyBody {
+
+    public static final int MIN_FILE_CHUNK_SIZE = 64 * 1024;
 
+    private final AsyncHttpClientConfig config;
+    private final MultipartSegments segments;
+    private final NettyBodyBody fallback;
     private final String contentType;
 
     public NettyMultipartBody(List<Part> parts, HttpHeaders headers, AsyncHttpClientConfig config) {
-        this(newMultipartBody(parts, headers), config);
+        this.config = config;
+        segments = newMultipartSegments(parts, headers);
+        if (segments != null) {
+            fallback = null;
+            contentType = segments.getContentType();
+        } else {
+            MultipartBody body = newMultipartBody(parts, headers);
+            fallback = new NettyBodyBody(body, config);
+            contentType = body.getContentType();
+        }
     }
 
-    private NettyMultipartBody(MultipartBody body, AsyncHttpClientConfig config) {
-        super(body, config);
-        contentType = body.getContentType();
+    @Override
+    public long getContentLength() {
+        return segments != null ? segments.getContentLength() : fallback.getContentLength();
     }
 
     @Override
     public String getContentType() {
         return contentType;
     }
+
+    @Override
+    public void write(Channel channel, NettyResponseFuture<?> future) throws IOException {
+        if (fallback != null) {
+            fallback.write(channel, future);
+            return;
+        }
+
+        boolean zeroCopy = !ChannelManager.isSslHandlerConfigured(channel.pipeline()) && !ChannelManager.isDeflaterConfigured(channel.pipeline()) && !config.isDisableZeroCopy();
+        int fileChunkSize = Math.max(MIN_FILE_CHUNK_SIZE, config.getChunkedFileChunkSize());
+
+        // a single progressive promise over all the segments
+        final ChannelProgressivePromise promise = channel.newProgressivePromise();
+        promise.addListener(new ProgressListener(future.getAsyncHandler(), future, false, getContentLength()));
+
+        List<Segment> list = segments.getSegments();
+        long offset = 0L;
+        for (int i = 0; i < list.size(); i++) {
+            Segment segment = list.get(i);
+            Object msg;
+            try {
+                msg = message(channel, segment, zeroCopy, fileChunkSize);
+            } catch (IOException e) {
+                // the previous segments are already queued and will be released by the channel
+                promise.tryFailure(e);
+                throw e;
+            }
+            channel.write(msg, channel.newProgressivePromise()).addListener(new SegmentListener(promise, offset, getContentLength(), i == list.size() - 1));
+            offset += segment.length();
+        }
+
+        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    private Object message(Channel channel, Segment segment, boolean zeroCopy, int fileChunkSize) throws IOException {
+        if (segment.getFile() == null) {
+            byte[] bytes = segment.getBytes();
+            if (!segment.isEncoded())
+                // user content, don't copy it
+                return Unpooled.wrappedBuffer(bytes);
+            ByteBuf buf = channel.alloc().buffer(bytes.length, bytes.length);
+            return buf.writeBytes(bytes);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(segment.getFile(), "r");
+        FileChannel fileChannel = raf.getChannel();
+        // both close the file once written or released
+        return zeroCopy ? new DefaultFileRegion(fileChannel, 0, segment.length()) : new ChunkedNioFile(fileChannel, 0, segment.length(), fileChunkSize);
+    }
+
+    private static final class SegmentListener implements ChannelProgressiveFutureListener {
+
+        private final ChannelProgressivePromise promise;
+        private final long offset;
+        private final long total;
+        private final boolean last;
+
+        SegmentListener(ChannelProgressivePromise promise, long offset, long total, boolean last) {
+            this.promise = promise;
+            this.offset = offset;
+            this.total = total;
+            this.last = last;
+        }
+
+        @Override
+        public void operationProgressed(ChannelProgressiveFuture f, long progress, long segmentTotal) {
+            promise.tryProgress(offset + progress, total);
+        }
+
+        @Override
+        public void operationComplete(ChannelProgressiveFuture f) {
+            if (!f.isSuccess())
+                promise.tryFailure(f.cause());
+            else if (last)
+                promise.trySuccess();
+        }
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.Charset;
+
+import org.asynchttpclient.util.StringUtils;
+
+public class NettyStringBody extends NettyEncodedBody {
+
+    private final CharSequence content;
+    private final Charset charset;
+    private final long length;
+
+    /**
+     * @param content the body
+     * @param charset a charset supported by {@link StringUtils#isDirectlyEncodable(Charset)}
+     */
+    public NettyStringBody(CharSequence content, Charset charset) {
+        this.content = content;
+        this.charset = charset;
+        length = StringUtils.encodedLength(content, charset);
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    protected void encode(ByteBuf buf) {
+        StringUtils.encode(buf, content, charset);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.timeout;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import io.netty.channel.EventLoop;
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.request.NettyRequestSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enforces the request and read timeouts of the futures whose requests were
+ * written on the channels of an {@link EventLoop}.
+ * 
+ * The deadlines are stored in the futures themselves and scanned in batches,
+ * on the EventLoop, every tick. Compared to {@link TimeoutsHolder}, there's no
+ * timer task nor timer entry per request, and no contention on the timer's
+ * queue. The scan is only scheduled while there are futures to track.
+ */
+public class DeadlineTracker implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeadlineTracker.class);
+
+    /**
+     * Same resolution as the default HashedWheelTimer.
+     */
+    public static final long TICK_DURATION = 100;
+
+    private final EventLoop eventLoop;
+    private final NettyRequestSender requestSender;
+    // futures can be tracked from any thread, they're only moved to the scanned list on the EventLoop
+    private final Queue<NettyResponseFuture<?>> incoming = PlatformDependent.newMpscQueue();
+    private final ArrayList<NettyResponseFuture<?>> tracked = new ArrayList<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public DeadlineTracker(EventLoop eventLoop, NettyRequestSender requestSender) {
+        this.eventLoop = eventLoop;
+        this.requestSender = requestSender;
+    }
+
+    /**
+     * @param future a future whose deadlines were just armed
+     */
+    public void track(NettyResponseFuture<?> future) {
+        incoming.offer(future);
+        scheduleIfIdle();
+    }
+
+    private void scheduleIfIdle() {
+        if (scheduled.compareAndSet(false, true))
+            eventLoop.schedule(this, TICK_DURATION, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run() {
+
+        if (requestSender.isClosed()) {
+            incoming.clear();
+            tracked.clear();
+            return;
+        }
+
+        try {
+            NettyResponseFuture<?> future;
+            while ((future = incoming.poll()) != null)
+                tracked.add(future);
+
+            long now = millisTime();
+            int size = tracked.size();
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                future = tracked.get(i);
+                if (check(future, now))
+                    tracked.set(kept++, future);
+            }
+            // truncate from the end, so no element gets shifted
+            for (int i = size - 1; i >= kept; i--)
+                tracked.remove(i);
+
+        } catch (Throwable t) {
+            LOGGER.error("uncaught exception!", t);
+        }
+
+        if (!tracked.isEmpty() || !incoming.isEmpty()) {
+            eventLoop.schedule(this, TICK_DURATION, TimeUnit.MILLISECONDS);
+        } else {
+            scheduled.set(false);
+            // a future might have been tracked in-between
+            if (!incoming.isEmpty())
+                scheduleIfIdle();
+        }
+    }
+
+    /**
+     * @return true if the future has to be checked again on the next tick
+     */
+    private boolean check(NettyResponseFuture<?> future, long now) {
+
+        if (future.isDone() || !future.hasDeadlines())
+            return future.untrackDeadlines();
+
+        if (now >= future.getRequestDeadline()) {
+            long age = now - future.getStart();
+            expire(future, "Request timed out to " + remoteAddress(future) + " of " + future.getRequestTimeout() + " ms", age);
+            return future.untrackDeadlines();
+        }
+
+        int readTimeout = future.getReadTimeout();
+        if (readTimeout != -1) {
+            long durationSinceLastTouch = now - future.getLastTouch();
+            if (durationSinceLastTouch >= readTimeout) {
+                expire(future, "Read timeout to " + remoteAddress(future) + " of " + readTimeout + " ms", durationSinceLastTouch);
+                return future.untrackDeadlines();
+            }
+        }
+
+        return true;
+    }
+
+    private String remoteAddress(NettyResponseFuture<?> future) {
+        SocketAddress sa = future.getChannelRemoteAddress();
+        return sa != null ? sa.toString() : "not-connected";
+    }
+
+    private void expire(NettyResponseFuture<?> future, String message, long time) {
+        LOGGER.debug("{} for {} after {} ms", message, future, time);
+        future.cancelTimeouts();
+        requestSender.abort(future.channel(), future, new TimeoutException(message));
+    }
+}
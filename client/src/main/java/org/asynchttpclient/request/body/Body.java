@@ -13,6 +13,8 @@
 
 package org.asynchttpclient.request.body;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -54,6 +56,30 @@ public interface Body extends Closeable {
      * @return The non-negative number of bytes actually read or {@code -1} if the body has been read completely.
      * @throws IOException If the chunk could not be read.
      */
-    // FIXME introduce a visitor pattern so that Netty can pass a pooled buffer
     State read(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Reads the next chunk of bytes from the body into a buffer that's
+     * typically pooled and direct. Implementations that can fill it without
+     * an intermediate copy should override this method.
+     *
+     * @param target The buffer to write the chunk into, up to its writable bytes.
+     * @return the state of the body after the read.
+     * @throws IOException If the chunk could not be read.
+     */
+    default State read(ByteBuf target) throws IOException {
+        if (target.nioBufferCount() == 1) {
+            // read straight into the memory of the target
+            ByteBuffer buffer = target.nioBuffer(target.writerIndex(), target.writableBytes());
+            State state = read(buffer);
+            target.writerIndex(target.writerIndex() + buffer.position());
+            return state;
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(target.writableBytes());
+            State state = read(buffer);
+            buffer.flip();
+            target.writeBytes(buffer);
+            return state;
+        }
+    }
 }
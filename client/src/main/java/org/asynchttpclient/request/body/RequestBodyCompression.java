@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body;
+
+import io.netty.handler.codec.compression.JdkZlibEncoder;
+import io.netty.handler.codec.compression.ZlibEncoder;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.asynchttpclient.uri.Uri;
+
+/**
+ * How request bodies are compressed.
+ * 
+ * Bodies of a known length are compressed before the request is sent, and
+ * keep a Content-Length header. The other ones are compressed as they are
+ * written, with a chunked transfer encoding. Bodies smaller than the minimum
+ * size and requests that already have a Content-Encoding header are left
+ * untouched.
+ * 
+ * Small repetitive bodies compress much better against a dictionary of
+ * typical content that the server knows as well. Bodies sent to a host with
+ * a registered dictionary are deflated with it as a zlib preset dictionary,
+ * whatever the configured encoding.
+ */
+public class RequestBodyCompression {
+
+    public enum Encoding {
+
+        GZIP(HttpHeaders.Values.GZIP, ZlibWrapper.GZIP), //
+        DEFLATE(HttpHeaders.Values.DEFLATE, ZlibWrapper.ZLIB);
+
+        private final String contentEncoding;
+        private final ZlibWrapper wrapper;
+
+        private Encoding(String contentEncoding, ZlibWrapper wrapper) {
+            this.contentEncoding = contentEncoding;
+            this.wrapper = wrapper;
+        }
+
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+    }
+
+    private final Encoding encoding;
+    private final int level;
+    private final long minSize;
+    private final Map<String, byte[]> dictionaries;
+
+    private RequestBodyCompression(Builder builder) {
+        encoding = builder.encoding;
+        level = builder.level;
+        minSize = builder.minSize;
+        dictionaries = new HashMap<>(builder.dictionaries);
+    }
+
+    private byte[] dictionary(Uri uri) {
+        return dictionaries.isEmpty() ? null : dictionaries.get(uri.getHost().toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param contentLength the length of a body, -1 if unknown
+     * @return true if the body is worth compressing
+     */
+    public boolean isCompressible(long contentLength) {
+        return contentLength < 0 || contentLength >= minSize;
+    }
+
+    /**
+     * @param uri the target of the request
+     * @return the value of the Content-Encoding header of a compressed body
+     */
+    public String getContentEncoding(Uri uri) {
+        return dictionary(uri) != null ? Encoding.DEFLATE.getContentEncoding() : encoding.getContentEncoding();
+    }
+
+    /**
+     * @param uri the target of the request
+     * @return a new encoder for a single body
+     */
+    public ZlibEncoder newEncoder(Uri uri) {
+        byte[] dictionary = dictionary(uri);
+        return dictionary != null ? new JdkZlibEncoder(level, dictionary) : new JdkZlibEncoder(encoding.wrapper, level);
+    }
+
+    public static class Builder {
+        private Encoding encoding = Encoding.GZIP;
+        private int level = 6;
+        private long minSize = 1024;
+        private final Map<String, byte[]> dictionaries = new HashMap<>();
+
+        /**
+         * @param encoding the content coding of compressed bodies
+         * @return this builder
+         */
+        public Builder setEncoding(Encoding encoding) {
+            this.encoding = encoding;
+            return this;
+        }
+
+        /**
+         * @param level the compression level, from 1 for the fastest to 9 for the smallest output
+         * @return this builder
+         */
+        public Builder setLevel(int level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * @param minSize the length under which bodies aren't compressed, in bytes
+         * @return this builder
+         */
+        public Builder setMinSize(long minSize) {
+            this.minSize = minSize;
+            return this;
+        }
+
+        /**
+         * @param host the host the dictionary is used for
+         * @param dictionary the preset dictionary, that the host must know as well
+         * @return this builder
+         */
+        public Builder addDictionary(String host, byte[] dictionary) {
+            dictionaries.put(host.toLowerCase(Locale.ENGLISH), dictionary.clone());
+            return this;
+        }
+
+        public RequestBodyCompression build() {
+            if (encoding == null)
+                throw new IllegalArgumentException("Encoding can't be null");
+            if (level < 1 || level > 9)
+                throw new IllegalArgumentException("Level must be between 1 and 9");
+            return new RequestBodyCompression(this);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body.generator;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.asynchttpclient.request.body.Body;
+
+/**
+ * {@link FeedableBodyGenerator} that lets producers throttle themselves on the amount of fed content not yet handed over to the channel.
+ * 
+ * {@link #feedAsync(ByteBuffer, boolean)} returns a future that completes once the producer may feed again: immediately while less than
+ * <code>maxBufferedBytes</code> are pending, otherwise once the transfer drained the queue down to half of it. Content is only drained
+ * when the ChunkedWriteHandler pulls a chunk, which it only does while the channel is writable, so a slow socket stalls the producer
+ * instead of piling content up on the heap. Nothing ever blocks: chain the next feed on the future.
+ */
+public final class BoundedFeedableBodyGenerator implements FeedableBodyGenerator {
+
+    private final SimpleFeedableBodyGenerator feedableBodyGenerator = new SimpleFeedableBodyGenerator();
+    private final Queue<PendingPart> pendingParts = new ConcurrentLinkedQueue<>();
+    private final Queue<CompletableFuture<Void>> demands = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final long maxBufferedBytes;
+    private final long lowWatermark;
+    private volatile boolean closed;
+
+    public BoundedFeedableBodyGenerator(long maxBufferedBytes) {
+        if (maxBufferedBytes <= 0)
+            throw new IllegalArgumentException("maxBufferedBytes must be positive");
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.lowWatermark = maxBufferedBytes / 2;
+    }
+
+    public long getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    /**
+     * @return the number of fed bytes not yet handed over to the channel
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * @return true if the producer may feed without exceeding the bound
+     */
+    public boolean isReady() {
+        return bufferedBytes.get() < maxBufferedBytes;
+    }
+
+    /**
+     * Feeds without waiting for demand. The content is always accepted, producers that want bounded memory use
+     * {@link #feedAsync(ByteBuffer, boolean)} or check {@link #isReady()} first.
+     */
+    @Override
+    public void feed(ByteBuffer buffer, boolean isLast) {
+        feedAsync(buffer, isLast);
+    }
+
+    /**
+     * @param buffer the content, must not be modified until the transfer consumed it
+     * @param isLast true if this is the last part of the body
+     * @return a future completing when the producer may feed again, or failing if the body was closed before all content was written
+     */
+    public CompletableFuture<Void> feedAsync(ByteBuffer buffer, boolean isLast) {
+        CompletableFuture<Void> demand = new CompletableFuture<>();
+        if (closed) {
+            demand.completeExceptionally(new IOException("Body closed"));
+            return demand;
+        }
+
+        int size = buffer.remaining();
+        pendingParts.offer(new PendingPart(buffer, size));
+        long buffered = bufferedBytes.addAndGet(size);
+
+        if (isLast || buffered < maxBufferedBytes) {
+            demand.complete(null);
+        } else {
+            demands.offer(demand);
+            // the transfer might have drained the queue before the demand was registered
+            if (closed)
+                failDemands();
+            else if (bufferedBytes.get() <= lowWatermark)
+                signalDemands();
+        }
+
+        feedableBodyGenerator.feed(buffer, isLast);
+        return demand;
+    }
+
+    @Override
+    public void writeChunkBoundaries() {
+        feedableBodyGenerator.writeChunkBoundaries();
+    }
+
+    @Override
+    public void setListener(FeedListener listener) {
+        feedableBodyGenerator.setListener(listener);
+    }
+
+    @Override
+    public Body createBody() {
+        return new BoundedBody(feedableBodyGenerator.createBody());
+    }
+
+    private void drained() {
+        PendingPart part;
+        long released = 0L;
+        while ((part = pendingParts.peek()) != null && !part.buffer.hasRemaining()) {
+            pendingParts.poll();
+            released += part.size;
+        }
+
+        if (released > 0 && bufferedBytes.addAndGet(-released) <= lowWatermark)
+            signalDemands();
+    }
+
+    private void signalDemands() {
+        CompletableFuture<Void> demand;
+        // the producer might have been signaled by its own check and fed over the limit again in-between
+        while (bufferedBytes.get() <= lowWatermark && (demand = demands.poll()) != null)
+            demand.complete(null);
+    }
+
+    private void failDemands() {
+        CompletableFuture<Void> demand;
+        while ((demand = demands.poll()) != null)
+            demand.completeExceptionally(new IOException("Body closed before all fed content was written"));
+    }
+
+    private final class BoundedBody implements Body {
+
+        private final Body body;
+
+        public BoundedBody(Body body) {
+            this.body = body;
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.getContentLength();
+        }
+
+        @Override
+        public State read(ByteBuffer buffer) throws IOException {
+            State state = body.read(buffer);
+            drained();
+            return state;
+        }
+
+        @Override
+        public State read(ByteBuf target) throws IOException {
+            State state = body.read(target);
+            drained();
+            return state;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            failDemands();
+            body.close();
+        }
+    }
+
+    private static final class PendingPart {
+        private final ByteBuffer buffer;
+        private final int size;
+
+        public PendingPart(ByteBuffer buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+    }
+}
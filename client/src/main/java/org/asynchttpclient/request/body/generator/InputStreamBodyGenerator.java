@@ -13,6 +13,8 @@
 
 package org.asynchttpclient.request.body.generator;
 
+import io.netty.buffer.ByteBuf;
+
 import org.asynchttpclient.request.body.Body;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,7 +66,9 @@ public final class InputStreamBodyGenerator implements BodyGenerator {
         public State read(ByteBuffer buffer) throws IOException {
 
             // To be safe.
-            chunk = new byte[buffer.remaining() - 10];
+            int chunkSize = buffer.remaining() - 10;
+            if (chunk == null || chunk.length != chunkSize)
+                chunk = new byte[chunkSize];
 
             int read = -1;
             boolean write = false;
@@ -81,6 +85,17 @@ public final class InputStreamBodyGenerator implements BodyGenerator {
             return write ? State.Continue : State.Stop;
         }
 
+        @Override
+        public State read(ByteBuf target) throws IOException {
+            int read = -1;
+            try {
+                read = target.writeBytes(inputStream, target.writableBytes());
+            } catch (IOException ex) {
+                LOGGER.warn("Unable to read", ex);
+            }
+            return read > 0 ? State.Continue : State.Stop;
+        }
+
         public void close() throws IOException {
             inputStream.close();
         }
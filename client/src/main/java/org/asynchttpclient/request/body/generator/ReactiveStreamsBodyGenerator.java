@@ -12,6 +12,8 @@
  */
 package org.asynchttpclient.request.body.generator;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -89,6 +91,14 @@ public class ReactiveStreamsBodyGenerator implements FeedableBodyGenerator {
 
             return body.read(buffer);
         }
+
+        @Override
+        public State read(ByteBuf target) throws IOException {
+            if(initialized.compareAndSet(false, true))
+                publisher.subscribe(subscriber);
+
+            return body.read(target);
+        }
     }
 
     private class SimpleSubscriber implements Subscriber<ByteBuffer> {
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A multipart body laid out as a sequence of segments. Each segment is either
+ * bytes or a whole file. The part preambles, the part ends and the string
+ * parts are encoded once and merged into byte segments. Files and the
+ * contents of byte array parts are referenced, not copied.
+ */
+public final class MultipartSegments {
+
+    public static final class Segment {
+
+        private final byte[] bytes;
+        private final boolean encoded;
+        private final File file;
+
+        private Segment(byte[] bytes, boolean encoded, File file) {
+            this.bytes = bytes;
+            this.encoded = encoded;
+            this.file = file;
+        }
+
+        /**
+         * @return the bytes of this segment, null for a file segment
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return true if the bytes were encoded by this class, false if they're the content of a {@link ByteArrayPart}
+         */
+        public boolean isEncoded() {
+            return encoded;
+        }
+
+        /**
+         * @return the file of this segment, null for a bytes segment
+         */
+        public File getFile() {
+            return file;
+        }
+
+        public long length() {
+            return bytes != null ? bytes.length : file.length();
+        }
+    }
+
+    private final List<Segment> segments;
+    private final String contentType;
+    private final long contentLength;
+
+    private MultipartSegments(List<Segment> segments, String contentType) {
+        this.segments = Collections.unmodifiableList(segments);
+        this.contentType = contentType;
+        long length = 0L;
+        for (Segment segment : segments)
+            length += segment.length();
+        contentLength = length;
+    }
+
+    /**
+     * @param parts the parts
+     * @param contentType the Content-Type of the body
+     * @param boundary the boundary
+     * @return the segments, or null if one of the parts isn't a {@link StringPart}, a {@link FilePart} or a {@link ByteArrayPart}
+     * @throws IOException if a part can't be encoded
+     */
+    public static MultipartSegments newMultipartSegments(List<Part> parts, String contentType, byte[] boundary) throws IOException {
+        List<Segment> segments = new ArrayList<>(parts.size() * 2 + 1);
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        for (Part part : parts) {
+            if (part instanceof StringPart) {
+                pending.write(StringPart.class.cast(part).getBytes(boundary));
+
+            } else if (part instanceof FilePart || part instanceof ByteArrayPart) {
+                AbstractFilePart filePart = (AbstractFilePart) part;
+                pending.write(filePart.generateFileStart(boundary));
+                if (part instanceof FilePart) {
+                    File file = FilePart.class.cast(part).getFile();
+                    if (file.length() > 0) {
+                        flush(pending, segments);
+                        segments.add(new Segment(null, false, file));
+                    }
+                } else {
+                    byte[] bytes = ByteArrayPart.class.cast(part).getBytes();
+                    if (bytes.length > 0) {
+                        flush(pending, segments);
+                        segments.add(new Segment(bytes, false, null));
+                    }
+                }
+                pending.write(filePart.generateFileEnd());
+
+            } else
+                return null;
+        }
+
+        pending.write(MultipartUtils.getMessageEnd(boundary));
+        flush(pending, segments);
+
+        return new MultipartSegments(segments, contentType);
+    }
+
+    private static void flush(ByteArrayOutputStream pending, List<Segment> segments) {
+        if (pending.size() > 0) {
+            segments.add(new Segment(pending.toByteArray(), true, null));
+            pending.reset();
+        }
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+}
@@ -65,30 +65,57 @@ public class MultipartUtils {
             throw new NullPointerException("parts");
         }
 
-        byte[] multipartBoundary;
-        String contentType;
+        String contentTypeHeader = requestHeaders.get(HttpHeaders.Names.CONTENT_TYPE);
+        byte[] multipartBoundary = multipartBoundary(contentTypeHeader);
+        String contentType = multipartContentType(contentTypeHeader, multipartBoundary);
+
+        long contentLength = getLengthOfParts(parts, multipartBoundary);
+
+        return new MultipartBody(parts, contentType, contentLength, multipartBoundary);
+    }
+
+    /**
+     * Lays out a new multipart entity containing the given parts.
+     * 
+     * @param parts the parts to include.
+     * @param requestHeaders the request headers
+     * @return the segments of the entity, or null if some parts can't be laid out
+     */
+    public static MultipartSegments newMultipartSegments(List<Part> parts, HttpHeaders requestHeaders) {
+        if (parts == null) {
+            throw new NullPointerException("parts");
+        }
 
         String contentTypeHeader = requestHeaders.get(HttpHeaders.Names.CONTENT_TYPE);
+        byte[] multipartBoundary = multipartBoundary(contentTypeHeader);
+        String contentType = multipartContentType(contentTypeHeader, multipartBoundary);
+
+        try {
+            return MultipartSegments.newMultipartSegments(parts, contentType, multipartBoundary);
+        } catch (IOException e) {
+            // can't happen, the parts are only encoded into byte arrays
+            throw new RuntimeException("IOException while encoding the parts", e);
+        }
+    }
+
+    private static byte[] multipartBoundary(String contentTypeHeader) {
         if (isNonEmpty(contentTypeHeader)) {
             int boundaryLocation = contentTypeHeader.indexOf("boundary=");
-            if (boundaryLocation != -1) {
+            if (boundaryLocation != -1)
                 // boundary defined in existing Content-Type
-                contentType = contentTypeHeader;
-                multipartBoundary = (contentTypeHeader.substring(boundaryLocation + "boundary=".length()).trim())
-                        .getBytes(US_ASCII);
-            } else {
-                // generate boundary and append it to existing Content-Type
-                multipartBoundary = generateMultipartBoundary();
-                contentType = computeContentType(contentTypeHeader, multipartBoundary);
-            }
-        } else {
-            multipartBoundary = generateMultipartBoundary();
-            contentType = computeContentType(MULTIPART_FORM_CONTENT_TYPE, multipartBoundary);
+                return (contentTypeHeader.substring(boundaryLocation + "boundary=".length()).trim()).getBytes(US_ASCII);
         }
+        return generateMultipartBoundary();
+    }
 
-        long contentLength = getLengthOfParts(parts, multipartBoundary);
-
-        return new MultipartBody(parts, contentType, contentLength, multipartBoundary);
+    private static String multipartContentType(String contentTypeHeader, byte[] multipartBoundary) {
+        if (!isNonEmpty(contentTypeHeader))
+            return computeContentType(MULTIPART_FORM_CONTENT_TYPE, multipartBoundary);
+        else if (contentTypeHeader.indexOf("boundary=") != -1)
+            return contentTypeHeader;
+        else
+            // append the generated boundary to the existing Content-Type
+            return computeContentType(contentTypeHeader, multipartBoundary);
     }
 
     private static byte[] generateMultipartBoundary() {
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.channels.ClosedChannelException;
+import java.text.ParsePosition;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.cookie.RFC2616DateParser;
+import org.asynchttpclient.util.HttpUtils;
+
+/**
+ * A {@link RetryPolicy} that retries:
+ * <ul>
+ * <li>failures to connect and connections reset or closed by the server</li>
+ * <li>503 responses with a Retry-After header, after the requested delay</li>
+ * </ul>
+ * 
+ * Failures are retried after an exponential backoff with full jitter: a
+ * random delay between 0 and the base delay doubled on each retry, up to the
+ * maximum delay. Retry-After delays longer than the maximum delay aren't
+ * honored.
+ * 
+ * Retries are paid from a token bucket per partition, so a failing partition
+ * can't turn every request into several ones.
+ */
+public class DefaultRetryPolicy implements RetryPolicy {
+
+    private final long baseDelay;
+    private final long maxDelay;
+    private final double budgetRate;
+    private final double budgetBurst;
+    private final boolean retryServiceUnavailable;
+    private final ConcurrentHashMap<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final List<RetryListener> listeners = new CopyOnWriteArrayList<>();
+
+    public DefaultRetryPolicy() {
+        this(new Builder());
+    }
+
+    private DefaultRetryPolicy(Builder builder) {
+        baseDelay = builder.baseDelay;
+        maxDelay = builder.maxDelay;
+        budgetRate = builder.budgetRate;
+        budgetBurst = builder.budgetBurst;
+        retryServiceUnavailable = builder.retryServiceUnavailable;
+    }
+
+    /**
+     * Notified of the retry decisions, typically to feed metrics.
+     */
+    public interface RetryListener {
+
+        /**
+         * @param partitionKey the partition of the request
+         * @param retryCount the number of the retry, starting at 1
+         * @param delay the delay before the retry, in ms
+         */
+        void onRetryScheduled(Object partitionKey, int retryCount, long delay);
+
+        /**
+         * @param partitionKey the partition of the request
+         */
+        void onRetryBudgetExhausted(Object partitionKey);
+    }
+
+    public void addRetryListener(RetryListener listener) {
+        listeners.add(listener);
+    }
+
+    private final class TokenBucket {
+        private double tokens = budgetBurst;
+        private long lastRefill = millisTime();
+
+        synchronized boolean tryAcquire() {
+            long now = millisTime();
+            tokens = Math.min(budgetBurst, tokens + (now - lastRefill) * budgetRate / 1000);
+            lastRefill = now;
+            if (tokens < 1)
+                return false;
+            tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * @param cause a failure
+     * @return true if the request failed before the server could process it
+     */
+    protected boolean isRetryable(Throwable cause) {
+        if (cause instanceof ConnectException || cause instanceof ClosedChannelException || cause == HttpUtils.REMOTELY_CLOSED_EXCEPTION
+                || cause == HttpUtils.CHANNEL_CLOSED_EXCEPTION)
+            return true;
+        String message = cause.getMessage();
+        return cause instanceof IOException && message != null && message.contains("reset");
+    }
+
+    @Override
+    public long getRetryDelay(Object partitionKey, Request request, int retryCount, Throwable cause) {
+        if (!isRetryable(cause))
+            return NO_RETRY;
+
+        // full jitter
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(retryCount, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return schedule(partitionKey, retryCount, delay);
+    }
+
+    @Override
+    public long getRetryDelay(Object partitionKey, Request request, int retryCount, HttpResponseStatus status, HttpResponseHeaders headers) {
+        if (!retryServiceUnavailable || status.getStatusCode() != 503)
+            return NO_RETRY;
+
+        long retryAfter = parseRetryAfter(headers.getHeaders().get(HttpHeaders.Names.RETRY_AFTER));
+        if (retryAfter < 0 || retryAfter > maxDelay)
+            return NO_RETRY;
+
+        // clients that got the same Retry-After shouldn't all come back at once
+        long delay = retryAfter + ThreadLocalRandom.current().nextLong(baseDelay + 1);
+        return schedule(partitionKey, retryCount, delay);
+    }
+
+    private long schedule(Object partitionKey, int retryCount, long delay) {
+        if (budgetRate > 0) {
+            TokenBucket bucket = buckets.get(partitionKey);
+            if (bucket == null)
+                bucket = buckets.computeIfAbsent(partitionKey, pk -> new TokenBucket());
+            if (!bucket.tryAcquire()) {
+                for (RetryListener listener : listeners)
+                    listener.onRetryBudgetExhausted(partitionKey);
+                return NO_RETRY;
+            }
+        }
+
+        for (RetryListener listener : listeners)
+            listener.onRetryScheduled(partitionKey, retryCount + 1, delay);
+        return delay;
+    }
+
+    /**
+     * @param retryAfter a Retry-After header, either delta-seconds or an HTTP-date
+     * @return the delay, in ms, or -1 if the header is missing or invalid
+     */
+    static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null)
+            return -1;
+
+        retryAfter = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(retryAfter);
+            return seconds >= 0 ? seconds * 1000 : -1;
+        } catch (NumberFormatException e) {
+            Date date = RFC2616DateParser.get().parse(retryAfter, new ParsePosition(0));
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    public static class Builder {
+        private long baseDelay = 100;
+        private long maxDelay = 10000;
+        private double budgetRate = 10;
+        private double budgetBurst = 50;
+        private boolean retryServiceUnavailable = true;
+
+        /**
+         * @param baseDelay the ceiling of the delay before the first retry, in ms, doubled on each retry
+         * @param maxDelay the maximum delay before a retry, in ms, including the ones requested by Retry-After
+         * @return this builder
+         */
+        public Builder setBackoff(long baseDelay, long maxDelay) {
+            this.baseDelay = baseDelay;
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * @param budgetRate the number of retries per second the budget of a partition is refilled with, 0 to disable the budget
+         * @param budgetBurst the maximum number of retries the budget of a partition can hold, also its initial content
+         * @return this builder
+         */
+        public Builder setBudget(double budgetRate, double budgetBurst) {
+            this.budgetRate = budgetRate;
+            this.budgetBurst = budgetBurst;
+            return this;
+        }
+
+        /**
+         * @param retryServiceUnavailable whether 503 responses with a Retry-After header are retried
+         * @return this builder
+         */
+        public Builder setRetryServiceUnavailable(boolean retryServiceUnavailable) {
+            this.retryServiceUnavailable = retryServiceUnavailable;
+            return this;
+        }
+
+        public DefaultRetryPolicy build() {
+            if (baseDelay <= 0 || maxDelay < baseDelay)
+                throw new IllegalArgumentException("Base delay must be positive and max delay can't be lower");
+            if (budgetRate < 0 || budgetBurst < 1)
+                throw new IllegalArgumentException("Budget rate can't be negative and burst must be at least 1");
+            return new DefaultRetryPolicy(this);
+        }
+    }
+}
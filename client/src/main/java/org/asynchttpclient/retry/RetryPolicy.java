@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+
+/**
+ * Decides whether and when a request is retried.
+ * 
+ * The policy is consulted after the built-in checks, such as the maximum
+ * number of retries and the request still being replayable, have passed.
+ */
+public interface RetryPolicy {
+
+    long NO_RETRY = -1;
+
+    /**
+     * @param partitionKey the partition of the request
+     * @param request the request that failed
+     * @param retryCount the number of times the request has already been retried
+     * @param cause the failure
+     * @return the delay before retrying, in ms, or {@link #NO_RETRY}
+     */
+    long getRetryDelay(Object partitionKey, Request request, int retryCount, Throwable cause);
+
+    /**
+     * @param partitionKey the partition of the request
+     * @param request the request whose response is received
+     * @param retryCount the number of times the request has already been retried
+     * @param status the response status
+     * @param headers the response headers
+     * @return the delay before retrying, in ms, or {@link #NO_RETRY} to hand the response over to the handler
+     */
+    long getRetryDelay(Object partitionKey, Request request, int retryCount, HttpResponseStatus status, HttpResponseHeaders headers);
+}
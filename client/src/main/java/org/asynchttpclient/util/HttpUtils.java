@@ -14,6 +14,7 @@ package org.asynchttpclient.util;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static org.asynchttpclient.util.MiscUtils.*;
+import io.netty.buffer.ByteBuf;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -103,6 +104,37 @@ public class HttpUtils {
         return StringUtils.charSequence2ByteBuffer(urlEncodeFormParams0(params), charset);
     }
 
+    /**
+     * @return the number of bytes written by {@link #urlEncodeFormParams(ByteBuf, List)}
+     */
+    public static int urlEncodedFormParamsLength(List<Param> params) {
+        int length = params.size() - 1;
+        for (Param param : params) {
+            length += Utf8UrlEncoder.encodedFormElementLength(param.getName());
+            if (param.getValue() != null)
+                length += 1 + Utf8UrlEncoder.encodedFormElementLength(param.getValue());
+        }
+        return length;
+    }
+
+    /**
+     * Same output as {@link #urlEncodeFormParams(List, Charset)} for ASCII
+     * compatible charsets, written straight into the target buffer.
+     */
+    public static ByteBuf urlEncodeFormParams(ByteBuf buf, List<Param> params) {
+        boolean first = true;
+        for (Param param : params) {
+            if (first)
+                first = false;
+            else
+                buf.writeByte('&');
+            Utf8UrlEncoder.encodeAndWriteFormElement(buf, param.getName());
+            if (param.getValue() != null)
+                Utf8UrlEncoder.encodeAndWriteFormElement(buf.writeByte('='), param.getValue());
+        }
+        return buf;
+    }
+
     private static void encodeAndAppendFormParam(final StringBuilder sb, final CharSequence name, final CharSequence value) {
         Utf8UrlEncoder.encodeAndAppendFormElement(sb, name);
         if (value != null) {
@@ -12,6 +12,9 @@
  */
 package org.asynchttpclient.util;
 
+import static java.nio.charset.StandardCharsets.*;
+import io.netty.buffer.ByteBuf;
+
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -52,4 +55,98 @@ public final class StringUtils {
         ByteBuffer bb = charSequence2ByteBuffer(sb, charset);
         return byteBuffer2ByteArray(bb);
     }
+
+    /**
+     * @param charset the charset
+     * @return true if {@link #encodedLength(CharSequence, Charset)} and {@link #encode(ByteBuf, CharSequence, Charset)} support it
+     */
+    public static boolean isDirectlyEncodable(Charset charset) {
+        return charset.equals(UTF_8) || charset.equals(ISO_8859_1) || charset.equals(US_ASCII);
+    }
+
+    /**
+     * @param cs the chars
+     * @param charset UTF-8, ISO-8859-1 or US-ASCII
+     * @return the number of bytes written by {@link #encode(ByteBuf, CharSequence, Charset)}
+     */
+    public static int encodedLength(CharSequence cs, Charset charset) {
+        boolean utf8 = charset.equals(UTF_8);
+        int length = 0;
+        for (int i = 0; i < cs.length(); i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (!utf8) {
+                // an unmappable surrogate pair is replaced with a single char
+                length++;
+                if (isSurrogatePair(cs, i))
+                    i++;
+            } else if (c < 0x800)
+                length += 2;
+            else if (!Character.isSurrogate(c))
+                length += 3;
+            else if (isSurrogatePair(cs, i)) {
+                length += 4;
+                i++;
+            } else
+                // malformed, replaced
+                length++;
+        }
+        return length;
+    }
+
+    /**
+     * Same output as {@link Charset#encode(CharBuffer)}, with no intermediate copy.
+     *
+     * @param buf the target buffer
+     * @param cs the chars
+     * @param charset UTF-8, ISO-8859-1 or US-ASCII
+     */
+    public static void encode(ByteBuf buf, CharSequence cs, Charset charset) {
+        if (charset.equals(UTF_8))
+            encodeUtf8(buf, cs);
+        else
+            encodeSingleByte(buf, cs, charset.equals(ISO_8859_1) ? 0xFF : 0x7F);
+    }
+
+    private static boolean isSurrogatePair(CharSequence cs, int i) {
+        return Character.isHighSurrogate(cs.charAt(i)) && i + 1 < cs.length() && Character.isLowSurrogate(cs.charAt(i + 1));
+    }
+
+    private static void encodeUtf8(ByteBuf buf, CharSequence cs) {
+        for (int i = 0; i < cs.length(); i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80)
+                buf.writeByte(c);
+            else if (c < 0x800) {
+                buf.writeByte(0xc0 | (c >> 6));
+                buf.writeByte(0x80 | (c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                buf.writeByte(0xe0 | (c >> 12));
+                buf.writeByte(0x80 | ((c >> 6) & 0x3f));
+                buf.writeByte(0x80 | (c & 0x3f));
+            } else if (isSurrogatePair(cs, i)) {
+                int codePoint = Character.toCodePoint(c, cs.charAt(++i));
+                buf.writeByte(0xf0 | (codePoint >> 18));
+                buf.writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+                buf.writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+                buf.writeByte(0x80 | (codePoint & 0x3f));
+            } else
+                buf.writeByte('?');
+        }
+    }
+
+    private static void encodeSingleByte(ByteBuf buf, CharSequence cs, int maxChar) {
+        for (int i = 0; i < cs.length(); i++) {
+            char c = cs.charAt(i);
+            if (c <= maxChar)
+                buf.writeByte(c);
+            else {
+                // unmappable, a surrogate pair is a single char
+                buf.writeByte('?');
+                if (isSurrogatePair(cs, i))
+                    i++;
+            }
+        }
+    }
 }
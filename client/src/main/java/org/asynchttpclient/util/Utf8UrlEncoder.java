@@ -15,6 +15,9 @@
  */
 package org.asynchttpclient.util;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
 import java.util.BitSet;
 
 /**
@@ -134,6 +137,92 @@ public final class Utf8UrlEncoder {
         return appendEncoded(sb, input, FORM_URL_ENCODED_SAFE_CHARS, true);
     }
 
+    public static ByteBuf encodeAndWriteFormElement(ByteBuf buf, CharSequence input) {
+        return writeEncoded(buf, input, FORM_URL_ENCODED_SAFE_CHARS, true);
+    }
+
+    /**
+     * @return the number of bytes written by {@link #encodeAndWriteFormElement(ByteBuf, CharSequence)}
+     */
+    public static int encodedFormElementLength(CharSequence input) {
+        return encodedLength(input, FORM_URL_ENCODED_SAFE_CHARS, true);
+    }
+
+    private static boolean needsEncoding(CharSequence input, BitSet dontNeedEncoding) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c > 127 || !dontNeedEncoding.get(c))
+                return true;
+        }
+        return false;
+    }
+
+    private static int encodedLength(CharSequence input, BitSet dontNeedEncoding, boolean encodeSpaceAsPlus) {
+        int length = 0;
+        int c;
+        for (int i = 0; i < input.length(); i += Character.charCount(c)) {
+            c = Character.codePointAt(input, i);
+            if (c <= 127)
+                length += dontNeedEncoding.get(c) || (c == ' ' && encodeSpaceAsPlus) ? 1 : 3;
+            else if (c < 0x800)
+                length += 6;
+            else if (c < 0x10000)
+                length += 9;
+            else
+                length += 12;
+        }
+        return length;
+    }
+
+    private static ByteBuf writeEncoded(ByteBuf buf, CharSequence input, BitSet dontNeedEncoding, boolean encodeSpaceAsPlus) {
+        if (!needsEncoding(input, dontNeedEncoding)) {
+            // plain ASCII, most names and values
+            ByteBufUtil.writeAscii(buf, input);
+            return buf;
+        }
+
+        int c;
+        for (int i = 0; i < input.length(); i += Character.charCount(c)) {
+            c = Character.codePointAt(input, i);
+            if (c <= 127)
+                if (dontNeedEncoding.get(c))
+                    buf.writeByte(c);
+                else
+                    writeSingleByteEncoded(buf, c, encodeSpaceAsPlus);
+            else
+                writeMultiByteEncoded(buf, c);
+        }
+        return buf;
+    }
+
+    private final static void writeSingleByteEncoded(ByteBuf buf, int value, boolean encodeSpaceAsPlus) {
+
+        if (value == ' ' && encodeSpaceAsPlus) {
+            buf.writeByte('+');
+            return;
+        }
+
+        buf.writeByte('%');
+        buf.writeByte(HEX[value >> 4]);
+        buf.writeByte(HEX[value & 0xF]);
+    }
+
+    private final static void writeMultiByteEncoded(ByteBuf buf, int value) {
+        if (value < 0x800) {
+            writeSingleByteEncoded(buf, (0xc0 | (value >> 6)), false);
+            writeSingleByteEncoded(buf, (0x80 | (value & 0x3f)), false);
+        } else if (value < 0x10000) {
+            writeSingleByteEncoded(buf, (0xe0 | (value >> 12)), false);
+            writeSingleByteEncoded(buf, (0x80 | ((value >> 6) & 0x3f)), false);
+            writeSingleByteEncoded(buf, (0x80 | (value & 0x3f)), false);
+        } else {
+            writeSingleByteEncoded(buf, (0xf0 | (value >> 18)), false);
+            writeSingleByteEncoded(buf, (0x80 | (value >> 12) & 0x3f), false);
+            writeSingleByteEncoded(buf, (0x80 | (value >> 6) & 0x3f), false);
+            writeSingleByteEncoded(buf, (0x80 | (value & 0x3f)), false);
+        }
+    }
+
     private static StringBuilder appendEncoded(StringBuilder sb, CharSequence input, BitSet dontNeedEncoding, boolean encodeSpaceAsPlus) {
         int c;
         for (int i = 0; i < input.length(); i+= Character.charCount(c)) {
@@ -118,4 +118,9 @@ public class WebDavResponse implements Response {
     public Document getBodyAsXML() {
         return document;
     }
+
+    @Override
+    public void release() {
+        response.release();
+    }
 }
@@ -140,6 +140,24 @@ public class PerRequestTimeoutTest extends AbstractBasicTest {
         }
     }
 
+    @Test(groups = { "standalone", "default_provider" })
+    public void testEventLoopRequestTimeout() throws IOException {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setEventLoopTimeouts(true);
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setRequestTimeout(100).setAdvancedConfig(advancedConfig).build())) {
+            Future<Response> responseFuture = client.prepareGet(getTargetUrl()).execute();
+            Response response = responseFuture.get(2000, TimeUnit.MILLISECONDS);
+            assertNull(response);
+        } catch (InterruptedException e) {
+            fail("Interrupted.", e);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+            checkTimeoutMessage(e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            fail("Timeout.", e);
+        }
+    }
+
     @Test(groups = { "standalone", "default_provider" })
     public void testGlobalIdleTimeout() throws IOException {
         final long times[] = new long[] { -1, -1 };
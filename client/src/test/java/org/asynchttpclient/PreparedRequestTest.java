@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.cookie.Cookie;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class PreparedRequestTest extends AbstractBasicTest {
+
+    private static class EchoHandler extends AbstractHandler {
+        public void handle(String s, org.eclipse.jetty.server.Request r, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+            if (request.getRequestURI().startsWith("/redirect/")) {
+                response.setStatus(HttpServletResponse.SC_FOUND);
+                response.setHeader("Location", request.getRequestURI().replace("/redirect/", "/items/"));
+                r.setHandled(true);
+                return;
+            }
+
+            response.addHeader("X-Uri", request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : ""));
+            response.addHeader("X-Host", request.getHeader("Host"));
+            response.addHeader("X-Token", request.getHeader("X-Token"));
+            response.addHeader("X-Cookie", request.getHeader("Cookie"));
+            byte[] body = new byte[request.getContentLength() > 0 ? request.getContentLength() : 0];
+            int read = 0;
+            while (read < body.length)
+                read += request.getInputStream().read(body, read, body.length - read);
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getOutputStream().write(body);
+            r.setHandled(true);
+        }
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new EchoHandler();
+    }
+
+    @Test(groups = "fast")
+    public void bindingBuildsTheUriAndSharesTheTemplateHeaders() {
+        PreparedRequest prepared = new PreparedRequest(new RequestBuilder().setUrl("http://localhost/users/{user}/items/{item}?v=1").setHeader("X-Token", "a").build());
+
+        Request request = prepared.bind().setPathParam("user", "bob smith").setPathParam("item", "4/2").addQueryParam("q", "a b").build();
+        assertEquals(request.getUrl(), "http://localhost/users/bob%20smith/items/4%2F2?v=1&q=a%20b");
+        assertEquals(request.getHeaders().get("X-Token"), "a");
+        assertEquals(request.getHeaders().get("Host"), "localhost");
+        assertEquals(request.getHeaders().get("Accept"), "*/*");
+
+        Request overridden = prepared.bind().setPathParam("user", "u").setPathParam("item", "i").setHeader("X-Token", "b").build();
+        assertEquals(overridden.getHeaders().get("X-Token"), "b");
+        assertEquals(prepared.bind().setPathParam("user", "u").setPathParam("item", "i").build().getHeaders().get("X-Token"), "a");
+    }
+
+    @Test(groups = "fast", expectedExceptions = IllegalStateException.class)
+    public void missingPathParamIsRejected() {
+        new PreparedRequest(new RequestBuilder().setUrl("http://localhost/users/{user}").build()).bind().build();
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void sendBoundRequests() throws Exception {
+        PreparedRequest prepared = new PreparedRequest(new RequestBuilder("POST").setUrl("http://127.0.0.1:" + port1 + "/items/{id}")//
+                .setHeader("X-Token", "secret")//
+                .addCookie(new Cookie("session", "s1", false, null, null, -1L, false, false))//
+                .build());
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient()) {
+            for (int i = 0; i < 3; i++) {
+                Request request = prepared.bind().setPathParam("id", String.valueOf(i)).addQueryParam("n", "v" + i).setBody("body" + i).build();
+                Response response = client.executeRequest(request).get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 200);
+                assertEquals(response.getHeader("X-Uri"), "/items/" + i + "?n=v" + i);
+                assertEquals(response.getHeader("X-Host"), "127.0.0.1:" + port1);
+                assertEquals(response.getHeader("X-Token"), "secret");
+                assertEquals(response.getHeader("X-Cookie"), "session=s1");
+                assertEquals(new String(response.getResponseBodyAsBytes(), UTF_8), "body" + i);
+            }
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void followingRedirectDoesntAlterTheTemplateHeaders() throws Exception {
+        PreparedRequest prepared = new PreparedRequest(new RequestBuilder().setUrl("http://127.0.0.1:" + port1 + "/redirect/{id}")//
+                .setHeader("X-Token", "secret")//
+                .setHeader("Content-Type", "text/plain")//
+                .setFollowRedirect(true)//
+                .build());
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient()) {
+            Response response = client.executeRequest(prepared.bind().setPathParam("id", "1").build()).get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getHeader("X-Uri"), "/items/1");
+            assertEquals(response.getHeader("X-Token"), "secret");
+
+            Request next = prepared.bind().setPathParam("id", "2").build();
+            assertEquals(next.getHeaders().get("Host"), "127.0.0.1:" + port1);
+            assertEquals(next.getHeaders().get("Content-Type"), "text/plain");
+            response = client.executeRequest(next).get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getHeader("X-Uri"), "/items/2");
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import static org.testng.Assert.*;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class HttpCacheTest extends AbstractBasicTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                hits.incrementAndGet();
+                if (target.endsWith("/fresh")) {
+                    response.setHeader("Cache-Control", "max-age=60");
+                } else {
+                    response.setHeader("Cache-Control", "no-cache");
+                    response.setHeader("ETag", ETAG);
+                    if (ETAG.equals(request.getHeader("If-None-Match"))) {
+                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        baseRequest.setHandled(true);
+                        return;
+                    }
+                }
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.getOutputStream().write("cached body".getBytes());
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    private AsyncHttpClient newClient(HttpCache httpCache) {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setHttpCache(httpCache);
+        return new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build());
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testFreshResponseIsServedFromCache() throws Exception {
+        hits.set(0);
+        try (AsyncHttpClient client = newClient(new HttpCache(new LruHttpCacheStore(100)))) {
+            for (int i = 0; i < 3; i++) {
+                Response response = client.prepareGet(getTargetUrl() + "/fresh").execute().get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 200);
+                assertEquals(response.getResponseBody(), "cached body");
+            }
+            assertEquals(hits.get(), 1);
+
+            client.preparePost(getTargetUrl() + "/fresh").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            client.prepareGet(getTargetUrl() + "/fresh").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(hits.get(), 3, "POST didn't invalidate the stored response");
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testStaleResponseIsRevalidated() throws Exception {
+        hits.set(0);
+        try (AsyncHttpClient client = newClient(new HttpCache(new LruHttpCacheStore(100)))) {
+            for (int i = 0; i < 2; i++) {
+                Response response = client.prepareGet(getTargetUrl() + "/etag").execute().get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 200);
+                assertEquals(response.getResponseBody(), "cached body");
+            }
+            assertEquals(hits.get(), 2);
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testFreshnessLifetime() {
+        HttpHeaders headers = new DefaultHttpHeaders().add("Cache-Control", "public, max-age=30").add("Expires", "Thu, 01 Jan 1970 00:00:00 GMT");
+        CachedResponse response = new CachedResponse(200, "OK", "HTTP/1.1", headers, Collections.emptyList(), new byte[0], 1000, 1000);
+        assertEquals(response.getFreshnessLifetime(), 30000);
+        assertEquals(response.getCurrentAge(11000), 10000);
+        assertFalse(response.hasValidators());
+    }
+
+    private static CachedResponse response(String body) {
+        return new CachedResponse(200, "OK", "HTTP/1.1", new DefaultHttpHeaders().add("ETag", ETAG), Collections.emptyList(), body.getBytes(), 0, 0);
+    }
+
+    @Test(groups = "fast")
+    public void testSerialization() {
+        CachedResponse response = CachedResponse.fromBytes(ByteBuffer.wrap(response("body").toBytes()));
+        assertEquals(response.getStatusCode(), 200);
+        assertEquals(response.getHeaders().get("ETag"), ETAG);
+        assertEquals(new String(response.getBody()), "body");
+    }
+
+    @Test(groups = "fast")
+    public void testLruStoreEvicts() {
+        HttpCacheStore store = new LruHttpCacheStore(2);
+        store.put("a", response("a"));
+        store.put("b", response("b"));
+        store.get("a");
+        store.put("c", response("c"));
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertNotNull(store.get("c"));
+    }
+
+    @Test(groups = "fast")
+    public void testOffHeapStoreEvicts() {
+        HttpCacheStore store = new OffHeapHttpCacheStore(1024, 256);
+        store.put("a", response(new String(new byte[100])));
+        store.put("b", response(new String(new byte[600])));
+        store.put("c", response(new String(new byte[500])));
+        assertNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(store.get("c").getBody().length, 500);
+
+        store.remove("c");
+        assertNull(store.get("c"));
+    }
+
+    @Test(groups = "fast")
+    public void testMappedFileStoreWritesInBackgroundAndSurvivesRestart() throws IOException {
+        File directory = Files.createTempDirectory("http-cache").toFile();
+        try {
+            final List<Runnable> writes = new ArrayList<>();
+            MappedFileHttpCacheStore store = new MappedFileHttpCacheStore(directory, 1024 * 1024, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    writes.add(command);
+                }
+            });
+            store.put("key", response("body"));
+            // served from memory until written
+            assertEquals(new String(store.get("key").getBody()), "body");
+            try (MappedFileHttpCacheStore restarted = new MappedFileHttpCacheStore(directory, 1024 * 1024)) {
+                assertNull(restarted.get("key"));
+            }
+
+            for (Runnable write : writes)
+                write.run();
+            assertEquals(new String(store.get("key").getBody()), "body");
+            try (MappedFileHttpCacheStore restarted = new MappedFileHttpCacheStore(directory, 1024 * 1024)) {
+                CachedResponse response = restarted.get("key");
+                assertNotNull(response);
+                assertEquals(new String(response.getBody()), "body");
+            }
+
+            // a written response is replaced
+            writes.clear();
+            store.put("key", response("new body"));
+            for (Runnable write : writes)
+                write.run();
+            assertEquals(new String(store.get("key").getBody()), "new body");
+            try (MappedFileHttpCacheStore restarted = new MappedFileHttpCacheStore(directory, 1024 * 1024)) {
+                assertEquals(new String(restarted.get("key").getBody()), "new body");
+            }
+
+            // a response removed before being written isn't written
+            writes.clear();
+            store.put("other", response("other"));
+            store.remove("other");
+            for (Runnable write : writes)
+                write.run();
+            assertNull(store.get("other"));
+        } finally {
+            for (File file : directory.listFiles())
+                file.delete();
+            directory.delete();
+        }
+    }
+}
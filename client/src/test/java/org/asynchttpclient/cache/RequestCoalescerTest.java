@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.cache;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AdvancedConfig.RetainedResponseBodyPartFactory;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class RequestCoalescerTest extends AbstractBasicTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                int hit = hits.incrementAndGet();
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.getOutputStream().write(("hit " + hit + " for " + request.getHeader("Accept")).getBytes());
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    private AsyncHttpClient newClient() {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setRequestCoalescer(new RequestCoalescer("Accept"));
+        return new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build());
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testConcurrentRequestsShareOneRequest() throws Exception {
+        hits.set(0);
+        try (AsyncHttpClient client = newClient()) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                futures.add(client.prepareGet(getTargetUrl()).setHeader("Accept", "text/plain").execute());
+            ListenableFuture<Response> other = client.prepareGet(getTargetUrl()).setHeader("Accept", "text/html").execute();
+
+            for (ListenableFuture<Response> future : futures) {
+                Response response = future.get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 200);
+                assertTrue(response.getResponseBody().endsWith("for text/plain"));
+            }
+            assertTrue(other.get(TIMEOUT, TimeUnit.SECONDS).getResponseBody().endsWith("for text/html"));
+            assertEquals(hits.get(), 2);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testCancelledCallerDoesntCancelSharedRequest() throws Exception {
+        hits.set(0);
+        try (AsyncHttpClient client = newClient()) {
+            ListenableFuture<Response> cancelled = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> waiting = client.prepareGet(getTargetUrl()).execute();
+            assertTrue(cancelled.cancel(true));
+
+            assertEquals(waiting.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertTrue(cancelled.isCancelled());
+            assertEquals(hits.get(), 1);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testRequestsWithCredentialsArentCoalescedUnlessKeyed() throws Exception {
+        hits.set(0);
+        try (AsyncHttpClient client = newClient()) {
+            ListenableFuture<Response> anonymous = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> authorized = client.prepareGet(getTargetUrl()).setHeader("Authorization", "Bearer secret").execute();
+            ListenableFuture<Response> proxyAuthorized = client.prepareGet(getTargetUrl()).setHeader("Proxy-Authorization", "Basic c2VjcmV0").execute();
+            assertEquals(anonymous.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertEquals(authorized.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertEquals(proxyAuthorized.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertEquals(hits.get(), 3);
+        }
+
+        hits.set(0);
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setRequestCoalescer(new RequestCoalescer("authorization"));
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build())) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+                futures.add(client.prepareGet(getTargetUrl()).setHeader("Authorization", "Bearer secret").execute());
+            futures.add(client.prepareGet(getTargetUrl()).setHeader("Authorization", "Bearer other").execute());
+            for (ListenableFuture<Response> future : futures)
+                assertEquals(future.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertEquals(hits.get(), 2);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testSharedRequestReleasesRetainedParts() throws Exception {
+        hits.set(0);
+        RetainedResponseBodyPartFactory factory = new RetainedResponseBodyPartFactory();
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setRequestCoalescer(new RequestCoalescer());
+        advancedConfig.setBodyPartFactory(factory);
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build())) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+                futures.add(client.prepareGet(getTargetUrl()).execute());
+            for (ListenableFuture<Response> future : futures)
+                assertTrue(future.get(TIMEOUT, TimeUnit.SECONDS).getResponseBody().startsWith("hit 1"));
+            assertEquals(hits.get(), 1);
+            assertEquals(factory.getUnreleasedCount(), 0);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import static org.testng.Assert.*;
+import io.netty.util.concurrent.Future;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class CachingNameResolverTest {
+
+    private static final class StubNameResolver implements NameResolver {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+        private volatile long expiration = NameResolution.UNKNOWN_EXPIRATION;
+
+        @Override
+        public NameResolution[] resolve(String name) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (name.startsWith("unknown"))
+                throw new UnknownHostException(name);
+            return new NameResolution[] { new NameResolution(InetAddress.getByAddress(name, new byte[] { 127, 0, 0, 1 }), expiration) };
+        }
+    }
+
+    /**
+     * Only runs the lookups when told to, so that tests can observe pending resolutions.
+     */
+    private static final class ManualExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        synchronized void runAll() {
+            for (Runnable task : tasks)
+                task.run();
+            tasks.clear();
+        }
+    }
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test(groups = "fast")
+    public void concurrentLookupsAreCoalesced() {
+        StubNameResolver stub = new StubNameResolver();
+        ManualExecutor executor = new ManualExecutor();
+        CachingNameResolver resolver = new CachingNameResolver(stub, executor);
+
+        Future<NameResolution[]> first = resolver.resolveAsync("foo.com");
+        Future<NameResolution[]> second = resolver.resolveAsync("foo.com");
+        assertFalse(first.isDone());
+        assertSame(second, first);
+
+        executor.runAll();
+
+        assertTrue(first.isSuccess());
+        assertEquals(first.getNow()[0].address.getHostName(), "foo.com");
+        assertEquals(stub.lookups.get(), 1);
+    }
+
+    @Test(groups = "fast")
+    public void resultsAreCachedUntilTtl() throws Exception {
+        StubNameResolver stub = new StubNameResolver();
+        CachingNameResolver resolver = new CachingNameResolver(stub, DIRECT, 0, 0);
+
+        resolver.resolve("foo.com");
+        resolver.resolve("foo.com");
+        assertEquals(stub.lookups.get(), 2, "zero TTL shouldn't cache");
+
+        resolver = new CachingNameResolver(stub, DIRECT, 60000, 0);
+        resolver.resolve("bar.com");
+        resolver.resolve("bar.com");
+        assertEquals(stub.lookups.get(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void recordExpirationOverridesDefaultTtl() throws Exception {
+        StubNameResolver stub = new StubNameResolver();
+        stub.expiration = millisTime() - 1;
+        CachingNameResolver resolver = new CachingNameResolver(stub, DIRECT, 60000, 0);
+
+        resolver.resolve("foo.com");
+        resolver.resolve("foo.com");
+        assertEquals(stub.lookups.get(), 2, "expired record shouldn't be served from cache");
+    }
+
+    @Test(groups = "fast")
+    public void failuresAreNegativelyCached() {
+        StubNameResolver stub = new StubNameResolver();
+        CachingNameResolver resolver = new CachingNameResolver(stub, DIRECT, 60000, 60000);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                resolver.resolve("unknown.com");
+                fail("resolution should have failed");
+            } catch (UnknownHostException expected) {
+            }
+        }
+        assertEquals(stub.lookups.get(), 1);
+
+        resolver.clear();
+        assertFalse(resolver.resolveAsync("unknown.com").isSuccess());
+        assertEquals(stub.lookups.get(), 2);
+    }
+}
@@ -21,15 +21,21 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
 import org.asynchttpclient.AsyncCompletionHandlerBase;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Response;
+import org.asynchttpclient.channel.pool.AimdConnectionLimiter;
+import org.asynchttpclient.channel.pool.ConnectionLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -106,4 +112,81 @@ public class MaxTotalConnectionTest extends AbstractBasicTest {
             assertNull(failedUrl.get());
         }
     }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testRequestsWaitForConnectionWhenQueueEnabled() throws Exception {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setMaxPendingAcquires(10);
+        advancedConfig.setAcquireTimeout(5000);
+
+        AsyncHttpClientConfig config = new AsyncHttpClientConfig.Builder().setRequestTimeout(5000).setMaxConnections(1).setMaxConnectionsPerHost(1)
+                .setAdvancedConfig(advancedConfig).build();
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(config)) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(client.prepareGet(getTargetUrl()).execute());
+            }
+
+            for (ListenableFuture<Response> future : futures) {
+                assertEquals(future.get().getStatusCode(), 200);
+            }
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testIdleConnectionsOfOtherHostsAreClosedForWaitingRequests() throws Exception {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setMaxPendingAcquires(10);
+        advancedConfig.setAcquireTimeout(5000);
+
+        AsyncHttpClientConfig config = new AsyncHttpClientConfig.Builder().setRequestTimeout(10000).setPooledConnectionIdleTimeout(60000)
+                .setMaxConnections(1).setAdvancedConfig(advancedConfig).build();
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(config)) {
+            // the connection to the first host stays in the pool and holds the only permit
+            assertEquals(client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+
+            long start = System.currentTimeMillis();
+            String otherHostUrl = String.format("http://localhost:%d/foo/test", port1);
+            assertEquals(client.prepareGet(otherHostUrl).execute().get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertTrue(System.currentTimeMillis() - start < 5000, "Request waited for the acquire timeout");
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testRejectedRequestsDontShrinkTheLimit() throws Exception {
+        AimdConnectionLimiter limiter = new AimdConnectionLimiter(2, 1, 10, 5000);
+        final AtomicBoolean shrunk = new AtomicBoolean();
+        limiter.addLimitListener(new ConnectionLimiter.LimitListener() {
+            @Override
+            public void onLimitChanged(Object partitionKey, int oldLimit, int newLimit) {
+                if (newLimit < oldLimit)
+                    shrunk.set(true);
+            }
+        });
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setConnectionLimiter(limiter);
+
+        AsyncHttpClientConfig config = new AsyncHttpClientConfig.Builder().setRequestTimeout(5000).setAdvancedConfig(advancedConfig).build();
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(config)) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(client.prepareGet(getTargetUrl()).execute());
+            }
+
+            int rejected = 0;
+            for (ListenableFuture<Response> future : futures) {
+                try {
+                    assertEquals(future.get().getStatusCode(), 200);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IOException, "Unexpected failure " + e.getCause());
+                    rejected++;
+                }
+            }
+            assertTrue(rejected > 0, "Some requests should have been over the limit");
+            assertFalse(shrunk.get(), "Requests rejected before reaching the server shouldn't shrink the limit");
+        }
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.breaker;
+
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.channel.breaker.CircuitBreaker.Permission;
+import org.asynchttpclient.channel.breaker.CircuitBreaker.State;
+import org.testng.annotations.Test;
+
+public class DefaultCircuitBreakerTest {
+
+    private static final String PARTITION = "http://localhost:80";
+
+    private static Permission acquire(CircuitBreaker breaker) {
+        Permission permission = breaker.tryAcquirePermission(PARTITION);
+        assertNotNull(permission);
+        return permission;
+    }
+
+    private static void failRequests(CircuitBreaker breaker, int count) {
+        for (int i = 0; i < count; i++)
+            breaker.onFailure(acquire(breaker), new ConnectException());
+    }
+
+    private static void succeedRequest(CircuitBreaker breaker) {
+        breaker.onSuccess(acquire(breaker));
+    }
+
+    @Test(groups = "fast")
+    public void testOpensOnConsecutiveFailuresAndClosesAfterProbe() throws Exception {
+        DefaultCircuitBreaker breaker = new DefaultCircuitBreaker.Builder()//
+                .setConsecutiveFailureThreshold(3)//
+                .setOpenDuration(50)//
+                .build();
+        final List<State> transitions = new ArrayList<>();
+        breaker.addStateListener(new CircuitBreaker.StateListener() {
+            @Override
+            public void onStateChanged(Object partitionKey, State oldState, State newState) {
+                transitions.add(newState);
+            }
+        });
+
+        failRequests(breaker, 2);
+        succeedRequest(breaker);
+        failRequests(breaker, 3);
+        assertEquals(breaker.getState(PARTITION), State.OPEN);
+        assertNull(breaker.tryAcquirePermission(PARTITION));
+        assertFalse(breaker.isAvailable(PARTITION));
+
+        Thread.sleep(100);
+        assertTrue(breaker.isAvailable(PARTITION));
+        Permission probe = acquire(breaker);
+        assertEquals(breaker.getState(PARTITION), State.HALF_OPEN);
+        // only one probe at a time
+        assertNull(breaker.tryAcquirePermission(PARTITION));
+
+        breaker.onSuccess(probe);
+        assertEquals(breaker.getState(PARTITION), State.CLOSED);
+        assertEquals(transitions.toString(), "[OPEN, HALF_OPEN, CLOSED]");
+    }
+
+    @Test(groups = "fast")
+    public void testFailedProbeReopens() throws Exception {
+        DefaultCircuitBreaker breaker = new DefaultCircuitBreaker.Builder().setConsecutiveFailureThreshold(1).setOpenDuration(50).build();
+        failRequests(breaker, 1);
+        Thread.sleep(100);
+        failRequests(breaker, 1);
+        assertEquals(breaker.getState(PARTITION), State.OPEN);
+        assertNull(breaker.tryAcquirePermission(PARTITION));
+    }
+
+    @Test(groups = "fast")
+    public void testRequestsSentBeforeHalfOpenDontReleaseProbes() throws Exception {
+        DefaultCircuitBreaker breaker = new DefaultCircuitBreaker.Builder().setConsecutiveFailureThreshold(1).setOpenDuration(50).build();
+        Permission stale = acquire(breaker);
+        Permission otherStale = acquire(breaker);
+        failRequests(breaker, 1);
+        Thread.sleep(100);
+
+        Permission probe = acquire(breaker);
+        assertEquals(breaker.getState(PARTITION), State.HALF_OPEN);
+
+        // neither frees the slot of the probe nor decides for it
+        breaker.release(stale);
+        assertNull(breaker.tryAcquirePermission(PARTITION));
+        breaker.onSuccess(otherStale);
+        assertEquals(breaker.getState(PARTITION), State.HALF_OPEN);
+        assertNull(breaker.tryAcquirePermission(PARTITION));
+
+        breaker.onFailure(probe, new ConnectException());
+        assertEquals(breaker.getState(PARTITION), State.OPEN);
+
+        // a probe of a previous half-open period doesn't free a slot of the next one either
+        Thread.sleep(100);
+        Permission nextProbe = acquire(breaker);
+        breaker.release(probe);
+        assertNull(breaker.tryAcquirePermission(PARTITION));
+        breaker.onSuccess(nextProbe);
+        assertEquals(breaker.getState(PARTITION), State.CLOSED);
+    }
+
+    @Test(groups = "fast")
+    public void testOpensOnFailureRateAndTimeouts() {
+        DefaultCircuitBreaker breaker = new DefaultCircuitBreaker.Builder()//
+                .setConsecutiveFailureThreshold(0)//
+                .setFailureRateThreshold(0.5)//
+                .setMinimumRequests(10)//
+                .setTimeoutThreshold(0)//
+                .build();
+        for (int i = 0; i < 4; i++) {
+            succeedRequest(breaker);
+            failRequests(breaker, 1);
+        }
+        // 4 failures out of 8 requests, not enough requests yet
+        assertEquals(breaker.getState(PARTITION), State.CLOSED);
+        succeedRequest(breaker);
+        failRequests(breaker, 1);
+        assertEquals(breaker.getState(PARTITION), State.OPEN);
+
+        breaker = new DefaultCircuitBreaker.Builder().setConsecutiveFailureThreshold(0).setFailureRateThreshold(0).setTimeoutThreshold(2).build();
+        breaker.onFailure(acquire(breaker), new TimeoutException());
+        succeedRequest(breaker);
+        breaker.onFailure(acquire(breaker), new TimeoutException());
+        assertEquals(breaker.getState(PARTITION), State.OPEN);
+    }
+
+    @Test(groups = "fast")
+    public void testIgnoresNonIOFailures() {
+        DefaultCircuitBreaker breaker = new DefaultCircuitBreaker.Builder().setConsecutiveFailureThreshold(1).build();
+        breaker.onFailure(acquire(breaker), new IllegalStateException());
+        assertEquals(breaker.getState(PARTITION), State.CLOSED);
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testFailsFastOnceOpen() throws Exception {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setCircuitBreaker(new DefaultCircuitBreaker.Builder().setConsecutiveFailureThreshold(2).build());
+
+        String url = "http://localhost:" + findFreePort() + "/foo";
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build())) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    client.prepareGet(url).execute().get(5, TimeUnit.SECONDS);
+                    fail("Shouldn't be able to connect");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof ConnectException, "Unexpected " + e.getCause());
+                }
+            }
+
+            try {
+                client.prepareGet(url).execute().get(5, TimeUnit.SECONDS);
+                fail("Circuit should be open");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+                assertEquals(e.getCause().getMessage(), "Circuit breaker is open");
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.endpoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.uri.Uri;
+import org.testng.annotations.Test;
+
+public class EndpointSelectorTest {
+
+    private static final InetSocketAddress A = new InetSocketAddress("127.0.0.1", 8080);
+    private static final InetSocketAddress B = new InetSocketAddress("127.0.0.2", 8080);
+    private static final InetSocketAddress C = new InetSocketAddress("127.0.0.3", 8080);
+    private static final List<InetSocketAddress> ENDPOINTS = Arrays.asList(A, B, C);
+
+    private static Map<InetSocketAddress, Integer> distribution(EndpointSelector selector, int requests) {
+        Map<InetSocketAddress, Integer> distribution = new HashMap<>();
+        for (int i = 0; i < requests; i++) {
+            InetSocketAddress endpoint = selector.select(ENDPOINTS);
+            selector.onRequestStart(endpoint);
+            selector.onRequestEnd(endpoint, TimeUnit.MILLISECONDS.toNanos(endpoint == A ? 100 : 10), false);
+            Integer count = distribution.get(endpoint);
+            distribution.put(endpoint, count == null ? 1 : count + 1);
+        }
+        return distribution;
+    }
+
+    @Test(groups = "fast")
+    public void testRoundRobinCyclesThroughEndpoints() {
+        Map<InetSocketAddress, Integer> distribution = distribution(new RoundRobinEndpointSelector(), 30);
+        assertEquals(distribution.get(A).intValue(), 10);
+        assertEquals(distribution.get(B).intValue(), 10);
+        assertEquals(distribution.get(C).intValue(), 10);
+    }
+
+    @Test(groups = "fast")
+    public void testLeastOutstandingAvoidsBusyEndpoints() {
+        LeastOutstandingEndpointSelector selector = new LeastOutstandingEndpointSelector();
+        selector.onRequestStart(A);
+        selector.onRequestStart(A);
+        selector.onRequestStart(B);
+
+        assertEquals(selector.select(ENDPOINTS), C);
+        selector.onRequestStart(C);
+        assertNotEquals(selector.select(ENDPOINTS), A);
+
+        selector.onRequestEnd(A, -1L, false);
+        selector.onRequestEnd(A, -1L, false);
+        assertEquals(selector.getOutstanding(A), 0);
+        assertEquals(selector.select(ENDPOINTS), A);
+    }
+
+    @Test(groups = "fast")
+    public void testPowerOfTwoChoicesAvoidsSlowEndpoint() {
+        Map<InetSocketAddress, Integer> distribution = distribution(new PowerOfTwoChoicesEndpointSelector(), 300);
+        // once sampled, the slow endpoint loses every comparison
+        assertTrue(distribution.get(A) < 10, "Slow endpoint picked " + distribution.get(A) + " times");
+    }
+
+    @Test(groups = "fast")
+    public void testFileEndpointProviderReloadsModifiedFile() throws Exception {
+        File file = File.createTempFile("endpoints", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "# test\nfoo.com:80 = 127.0.0.1:8080, 127.0.0.2:8080\n".getBytes(UTF_8));
+
+        try (FileEndpointProvider provider = new FileEndpointProvider(file, 10)) {
+            assertEquals(provider.getEndpoints(Uri.create("http://foo.com/bar")), Arrays.asList(A, B));
+            assertNull(provider.getEndpoints(Uri.create("http://foo.com:8000/bar")));
+
+            Files.write(file.toPath(), "foo.com:80 = [::1]:8080\n".getBytes(UTF_8));
+            file.setLastModified(file.lastModified() + 1000);
+            List<InetSocketAddress> reloaded = Arrays.asList(new InetSocketAddress("::1", 8080));
+            awaitEndpoints(provider, reloaded);
+
+            // invalid content keeps the previous endpoints
+            Files.write(file.toPath(), "foo.com:80 127.0.0.1:8080\n".getBytes(UTF_8));
+            file.setLastModified(file.lastModified() + 2000);
+            Thread.sleep(100);
+            assertEquals(provider.getEndpoints(Uri.create("http://foo.com/bar")), reloaded);
+
+            // so do host names, that would have to be resolved
+            Files.write(file.toPath(), "foo.com:80 = localhost:8080\n".getBytes(UTF_8));
+            file.setLastModified(file.lastModified() + 3000);
+            Thread.sleep(100);
+            assertEquals(provider.getEndpoints(Uri.create("http://foo.com/bar")), reloaded);
+        }
+    }
+
+    private static void awaitEndpoints(EndpointProvider provider, List<InetSocketAddress> expected) throws InterruptedException {
+        for (int i = 0; i < 100 && !expected.equals(provider.getEndpoints(Uri.create("http://foo.com/bar"))); i++)
+            Thread.sleep(10);
+        assertEquals(provider.getEndpoints(Uri.create("http://foo.com/bar")), expected);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel.pool;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class ConnectionLimiterTest {
+
+    private static final String PARTITION = "http://localhost:80";
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static void acquire(ConnectionLimiter limiter, int count) {
+        for (int i = 0; i < count; i++)
+            assertTrue(limiter.tryAcquire(PARTITION));
+    }
+
+    @Test(groups = "fast")
+    public void testFixedLimiterEnforcesLimitPerPartition() {
+        ConnectionLimiter limiter = new FixedConnectionLimiter(2);
+
+        acquire(limiter, 2);
+        assertFalse(limiter.tryAcquire(PARTITION));
+        assertTrue(limiter.tryAcquire("http://other:80"));
+
+        limiter.release(PARTITION);
+        assertEquals(limiter.getInFlight(PARTITION), 1);
+        assertTrue(limiter.tryAcquire(PARTITION));
+
+        limiter.setLimit(PARTITION, 3);
+        assertTrue(limiter.tryAcquire(PARTITION));
+
+        limiter.onSample(PARTITION, -1, true);
+        assertEquals(limiter.getLimit(PARTITION), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testAimdGrowsWhenUsedAndBacksOffOnDrops() {
+        AimdConnectionLimiter limiter = new AimdConnectionLimiter(10, 1, 20, 50);
+        final AtomicInteger lastLimit = new AtomicInteger();
+        limiter.addLimitListener(new ConnectionLimiter.LimitListener() {
+            @Override
+            public void onLimitChanged(Object partitionKey, int oldLimit, int newLimit) {
+                lastLimit.set(newLimit);
+            }
+        });
+
+        // not used enough, no growth
+        acquire(limiter, 1);
+        limiter.onSample(PARTITION, FAST, false);
+        assertEquals(limiter.getLimit(PARTITION), 10);
+
+        acquire(limiter, 5);
+        limiter.onSample(PARTITION, FAST, false);
+        assertEquals(limiter.getLimit(PARTITION), 11);
+        assertEquals(lastLimit.get(), 11);
+
+        limiter.onSample(PARTITION, FAST, true);
+        assertEquals(limiter.getLimit(PARTITION), 9);
+
+        // too slow counts as a drop
+        limiter.onSample(PARTITION, SLOW, false);
+        assertEquals(limiter.getLimit(PARTITION), 8);
+    }
+
+    @Test(groups = "fast")
+    public void testAimdStaysWithinBounds() {
+        AimdConnectionLimiter limiter = new AimdConnectionLimiter(2, 2, 3, 50);
+        acquire(limiter, 2);
+
+        for (int i = 0; i < 10; i++)
+            limiter.onSample(PARTITION, FAST, false);
+        assertEquals(limiter.getLimit(PARTITION), 3);
+
+        for (int i = 0; i < 10; i++)
+            limiter.onSample(PARTITION, FAST, true);
+        assertEquals(limiter.getLimit(PARTITION), 2);
+    }
+
+    @Test(groups = "fast")
+    public void testGradientShrinksWhenLatencyIncreases() {
+        GradientConnectionLimiter limiter = new GradientConnectionLimiter(20, 1, 100);
+        acquire(limiter, 20);
+
+        for (int i = 0; i < 20; i++)
+            limiter.onSample(PARTITION, FAST, false);
+        int unloadedLimit = limiter.getLimit(PARTITION);
+        assertTrue(unloadedLimit > 20, "limit should grow while the latency is stable");
+
+        // requests now queue on the server, 10 times slower than the no-load latency
+        for (int i = 0; i < 20; i++)
+            limiter.onSample(PARTITION, SLOW, false);
+        assertTrue(limiter.getLimit(PARTITION) < unloadedLimit, "limit should shrink when the latency increases");
+    }
+
+    @Test(groups = "fast")
+    public void testGradientSetLimitOverridesEstimate() {
+        GradientConnectionLimiter limiter = new GradientConnectionLimiter(20, 1, 100);
+        limiter.setLimit(PARTITION, 5);
+        limiter.onSample(PARTITION, FAST, true);
+        assertEquals(limiter.getLimit(PARTITION), 4);
+    }
+}
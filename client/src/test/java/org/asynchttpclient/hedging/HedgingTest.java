@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.hedging;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class HedgingTest extends AbstractBasicTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                int attempt = attempts.incrementAndGet();
+                if (attempt == 1) {
+                    try {
+                        Thread.sleep(2000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.addHeader("X-Attempt", String.valueOf(attempt));
+                response.getOutputStream().flush();
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testHedgeWinsOverSlowAttempt() throws Exception {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy.Builder().setDelay(100).build();
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient()) {
+            long start = System.nanoTime();
+            Response response = client.prepareGet(getTargetUrl()).setHedgingPolicy(hedgingPolicy).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getHeader("X-Attempt"), "2");
+            assertTrue(elapsed < 1500, "Hedge didn't win, took " + elapsed + "ms");
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testBudgetCapsHedges() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy.Builder().setBudget(0.5, 1).build();
+        assertTrue(hedgingPolicy.tryAcquireHedge());
+        assertFalse(hedgingPolicy.tryAcquireHedge());
+
+        hedgingPolicy.onRequest();
+        assertFalse(hedgingPolicy.tryAcquireHedge());
+        hedgingPolicy.onRequest();
+        assertTrue(hedgingPolicy.tryAcquireHedge());
+
+        // a hedge that wasn't sent after all is refunded, up to the budget
+        hedgingPolicy.releaseHedge();
+        hedgingPolicy.releaseHedge();
+        assertTrue(hedgingPolicy.tryAcquireHedge());
+        assertFalse(hedgingPolicy.tryAcquireHedge());
+    }
+
+    @Test(groups = "fast")
+    public void testPercentileDelay() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy.Builder().setDelay(50).setPercentileDelay(0.9, 100).build();
+        assertEquals(hedgingPolicy.getHedgeDelay("partition"), 50);
+
+        for (int i = 1; i <= 100; i++)
+            hedgingPolicy.onResponseStatus("partition", i);
+        assertEquals(hedgingPolicy.getHedgeDelay("partition"), 90);
+        assertEquals(hedgingPolicy.getHedgeDelay("other"), 50);
+    }
+}
@@ -14,15 +14,21 @@
 package org.asynchttpclient.netty;
 
 import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
+import org.asynchttpclient.HttpResponseBodyPart;
 import org.asynchttpclient.HttpResponseHeaders;
 import org.asynchttpclient.cookie.Cookie;
 import org.testng.annotations.Test;
@@ -88,4 +94,28 @@ public class NettyAsyncResponseTest {
         assertEquals(cookie.getMaxAge(), Long.MIN_VALUE);
     }
 
+    @Test(groups = "fast")
+    public void testRetainedBodyPartsAreReadWithoutCopy() throws Exception {
+        ByteBuf first = Unpooled.copiedBuffer("Hello ", StandardCharsets.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("World", StandardCharsets.UTF_8);
+
+        List<HttpResponseBodyPart> parts = Arrays.<HttpResponseBodyPart> asList(new RetainedNettyResponseBodyPart(first, false), new RetainedNettyResponseBodyPart(second, true));
+        // the channel handler releases the received messages
+        first.release();
+        second.release();
+
+        NettyResponse response = new NettyResponse(new NettyResponseStatus(null, null, null, null), null, parts);
+        assertEquals(response.getResponseBody(StandardCharsets.UTF_8), "Hello World");
+        assertEquals(response.getResponseBodyAsBytes(), "Hello World".getBytes(StandardCharsets.UTF_8));
+
+        ByteBuffer byteBuffer = response.getResponseBodyAsByteBuffer();
+        assertTrue(byteBuffer.isReadOnly());
+        assertEquals(byteBuffer.remaining(), 11);
+
+        assertEquals(response.getResponseBodyAsStream().read(), 'H');
+
+        response.release();
+        assertEquals(first.refCnt(), 0);
+        assertEquals(second.refCnt(), 0);
+    }
 }
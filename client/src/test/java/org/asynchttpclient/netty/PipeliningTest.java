@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.test.EventCollectingHandler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PipeliningTest extends AbstractBasicTest {
+
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> remotePorts = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean aborted = new AtomicBoolean();
+    private volatile CountDownLatch firstReceived;
+
+    @BeforeMethod
+    public void reset() {
+        received.clear();
+        remotePorts.clear();
+        aborted.set(false);
+        firstReceived = new CountDownLatch(1);
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                String id = request.getParameter("id");
+                received.add(id);
+                remotePorts.add(request.getRemotePort());
+                firstReceived.countDown();
+
+                if (target.endsWith("/slow") || target.endsWith("/abort")) {
+                    // give the client time to pipeline the next requests
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (target.endsWith("/abort") && aborted.compareAndSet(false, true)) {
+                        // drop the connection without answering, along with the requests pipelined behind
+                        baseRequest.getHttpChannel().getEndPoint().close();
+                        baseRequest.setHandled(true);
+                        return;
+                    }
+                }
+
+                response.setStatus(200);
+                response.getOutputStream().print(id);
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    private static final class RetryOrderHandler extends EventCollectingHandler {
+
+        private final String id;
+        private final Queue<String> retries;
+
+        RetryOrderHandler(String id, Queue<String> retries) {
+            this.id = id;
+            this.retries = retries;
+        }
+
+        @Override
+        public void onRetry() {
+            retries.add(id);
+            super.onRetry();
+        }
+    }
+
+    private AsyncHttpClient newPipeliningClient() {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setMaxPipelinedRequests(4);
+        return new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build());
+    }
+
+    private void awaitFirstRequestWritten() throws InterruptedException {
+        assertTrue(firstReceived.await(TIMEOUT, TimeUnit.SECONDS));
+        // the channel accepts pipelined requests right after the first request got flushed
+        Thread.sleep(100);
+    }
+
+    private String url(String path, int id) {
+        return "http://127.0.0.1:" + port1 + "/" + path + "?id=" + id;
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void pipelinedRequestsGetTheirResponsesInOrder() throws Exception {
+        try (AsyncHttpClient client = newPipeliningClient()) {
+            List<Future<Response>> responses = new ArrayList<>();
+            responses.add(client.prepareGet(url("slow", 0)).execute());
+            awaitFirstRequestWritten();
+            for (int i = 1; i < 4; i++)
+                responses.add(client.prepareGet(url("fast", i)).execute());
+
+            for (int i = 0; i < 4; i++)
+                assertEquals(responses.get(i).get(TIMEOUT, TimeUnit.SECONDS).getResponseBody(), String.valueOf(i));
+
+            assertEquals(new ArrayList<>(received), Arrays.asList("0", "1", "2", "3"));
+            assertEquals(new HashSet<>(remotePorts).size(), 1, "All requests should have been pipelined on a single connection");
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void pipelinedRequestsAreReplayedInOrderWhenTheServerCloses() throws Exception {
+        Queue<String> retries = new ConcurrentLinkedQueue<>();
+        try (AsyncHttpClient client = newPipeliningClient()) {
+            List<Future<Response>> responses = new ArrayList<>();
+            responses.add(client.prepareGet(url("abort", 0)).execute(new RetryOrderHandler("0", retries)));
+            awaitFirstRequestWritten();
+            for (int i = 1; i < 3; i++)
+                responses.add(client.prepareGet(url("fast", i)).execute(new RetryOrderHandler(String.valueOf(i), retries)));
+
+            for (int i = 0; i < 3; i++)
+                assertEquals(responses.get(i).get(TIMEOUT, TimeUnit.SECONDS).getResponseBody(), String.valueOf(i));
+
+            assertEquals(new ArrayList<>(retries), Arrays.asList("0", "1", "2"));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.io.ByteArrayOutputStream;
+
+import org.asynchttpclient.AdvancedConfig.RetainedResponseBodyPartFactory;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.Response;
+import org.testng.annotations.Test;
+
+public class RetainedNettyResponseBodyPartTest {
+
+    private static ByteBuf pooledBuffer(String content) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        buf.writeBytes(content.getBytes(UTF_8));
+        return buf;
+    }
+
+    @Test(groups = "fast")
+    public void testPartOutlivesReceivedMessage() throws Exception {
+        ByteBuf received = pooledBuffer("foo");
+        HttpResponseBodyPart part = new RetainedResponseBodyPartFactory().newResponseBodyPart(received, true);
+
+        // what Processor.channelRead does once the callback returned
+        received.release();
+        assertEquals(received.refCnt(), 1);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        assertEquals(part.writeTo(os), 3);
+        assertEquals(os.toByteArray(), "foo".getBytes(UTF_8));
+        assertEquals(part.getBodyPartBytes(), "foo".getBytes(UTF_8));
+
+        part.release();
+        assertEquals(received.refCnt(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testAccessorsDontConsumeContent() throws Exception {
+        ByteBuf received = pooledBuffer("foobar");
+        HttpResponseBodyPart part = new RetainedNettyResponseBodyPart(received, false);
+        received.release();
+
+        assertEquals(part.readBodyPartBytes().read(), 'f');
+        assertEquals(part.getBodyByteBuffer().remaining(), 6);
+        assertTrue(part.getBodyByteBuffer().isReadOnly());
+        assertEquals(part.length(), 6);
+
+        part.release();
+    }
+
+    @Test(groups = "fast")
+    public void testReleaseIsIdempotent() {
+        ByteBuf received = Unpooled.copiedBuffer("foo", UTF_8);
+        RetainedNettyResponseBodyPart part = new RetainedNettyResponseBodyPart(received, true);
+
+        part.release();
+        part.release();
+
+        assertTrue(part.isReleased());
+        assertEquals(received.refCnt(), 1);
+        received.release();
+    }
+
+    @Test(groups = "fast")
+    public void testFactoryCountsUnreleasedParts() {
+        RetainedResponseBodyPartFactory factory = new RetainedResponseBodyPartFactory();
+        ByteBuf received = Unpooled.copiedBuffer("foo", UTF_8);
+
+        HttpResponseBodyPart first = factory.newResponseBodyPart(received, false);
+        HttpResponseBodyPart second = factory.newResponseBodyPart(received, true);
+        received.release();
+        assertEquals(factory.getUnreleasedCount(), 2);
+
+        first.release();
+        first.release();
+        assertEquals(factory.getUnreleasedCount(), 1);
+
+        second.release();
+        assertEquals(factory.getUnreleasedCount(), 0);
+        assertEquals(received.refCnt(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testResponseBuilderReleasesDiscardedParts() {
+        RetainedResponseBodyPartFactory factory = new RetainedResponseBodyPartFactory();
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        ByteBuf received = Unpooled.copiedBuffer("foo", UTF_8);
+
+        // empty parts are filtered out
+        builder.accumulate(factory.newResponseBodyPart(Unpooled.EMPTY_BUFFER, true));
+        assertEquals(factory.getUnreleasedCount(), 0);
+
+        // parts of an interrupted response
+        builder.accumulate(factory.newResponseBodyPart(received, false));
+        builder.reset();
+        assertEquals(factory.getUnreleasedCount(), 0);
+
+        builder.accumulate(new NettyResponseStatus(null, null, null, null));
+        builder.accumulate(factory.newResponseBodyPart(received, true));
+        received.release();
+        Response response = builder.build();
+        assertEquals(response.getResponseBody(UTF_8), "foo");
+        assertEquals(factory.getUnreleasedCount(), 1);
+
+        response.release();
+        assertEquals(factory.getUnreleasedCount(), 0);
+        assertEquals(received.refCnt(), 0);
+    }
+}
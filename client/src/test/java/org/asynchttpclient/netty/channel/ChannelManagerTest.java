@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import static org.testng.Assert.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+
+import java.util.concurrent.Callable;
+
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.uri.Uri;
+import org.testng.annotations.Test;
+
+public class ChannelManagerTest {
+
+    @Test(groups = "fast")
+    public void newChannelsAreRegisteredOnTheCallingEventLoop() throws Exception {
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(2);
+        HashedWheelTimer timer = new HashedWheelTimer();
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setEventLoopGroup(eventLoopGroup);
+        advancedConfig.setEventLoopAffinity(true);
+        final ChannelManager channelManager = new ChannelManager(new AsyncHttpClientConfig.Builder().build(), advancedConfig, timer);
+        final Uri uri = Uri.create("http://localhost/");
+        try {
+            for (EventLoop eventLoop : EventLoops.eventLoops(eventLoopGroup)) {
+                Bootstrap bootstrap = eventLoop.submit(new Callable<Bootstrap>() {
+                    @Override
+                    public Bootstrap call() {
+                        return channelManager.getBootstrap(uri, null);
+                    }
+                }).get();
+                assertSame(bootstrap.group(), eventLoop);
+            }
+
+            // outside of the event loops, the whole group is used
+            EventLoopGroup group = channelManager.getBootstrap(uri, null).group();
+            assertSame(group, eventLoopGroup);
+        } finally {
+            channelManager.close();
+            timer.stop();
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import static org.testng.Assert.*;
+import io.netty.channel.Channel;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+import org.asynchttpclient.channel.endpoint.RoundRobinEndpointSelector;
+import org.asynchttpclient.channel.endpoint.StaticEndpointProvider;
+import org.asynchttpclient.channel.pool.ConnectionPoolPartitioning.EndpointPartitionKey;
+import org.asynchttpclient.netty.channel.pool.ChannelPool;
+import org.asynchttpclient.netty.channel.pool.ChannelPoolPartitionSelector;
+import org.asynchttpclient.netty.channel.pool.NoopChannelPool;
+import org.testng.annotations.Test;
+
+public class ConnectionPrewarmerTest extends AbstractBasicTest {
+
+    /**
+     * Single partition pool, so that tests can look at the pooled channels.
+     */
+    private static final class QueueChannelPool implements ChannelPool {
+
+        private final Queue<Channel> channels = new ConcurrentLinkedQueue<>();
+        private final Set<Object> offeredPartitionKeys = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean offer(Channel channel, Object partitionKey) {
+            offeredPartitionKeys.add(partitionKey);
+            return channels.offer(channel);
+        }
+
+        @Override
+        public Channel poll(Object partitionKey) {
+            return channels.poll();
+        }
+
+        @Override
+        public boolean removeAll(Channel channel) {
+            return channels.remove(channel);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+            for (Channel channel : channels)
+                channel.close();
+            channels.clear();
+        }
+
+        @Override
+        public void flushPartition(Object partitionKey) {
+        }
+
+        @Override
+        public int idleCount(Object partitionKey) {
+            return channels.size();
+        }
+
+        @Override
+        public void flushPartitions(ChannelPoolPartitionSelector selector) {
+        }
+    }
+
+    private AsyncHttpClient newClient(ChannelPool channelPool) {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setChannelPool(channelPool);
+        return new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build());
+    }
+
+    private static void awaitIdleCount(ChannelPool channelPool, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (channelPool.idleCount(null) != expected && System.nanoTime() < deadline)
+            Thread.sleep(50);
+        assertEquals(channelPool.idleCount(null), expected);
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void prewarmedConnectionsArePooled() throws Exception {
+        QueueChannelPool channelPool = new QueueChannelPool();
+        try (AsyncHttpClient client = newClient(channelPool)) {
+            Request request = new RequestBuilder().setUrl(getTargetUrl()).build();
+            assertEquals(client.prewarm(request, 2).get(TIMEOUT, TimeUnit.SECONDS), Integer.valueOf(2));
+            assertEquals(channelPool.idleCount(null), 2);
+
+            assertEquals(client.executeRequest(request).get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            awaitIdleCount(channelPool, 2);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void connectionsRejectedByThePoolAreNotCounted() throws Exception {
+        try (AsyncHttpClient client = newClient(new NoopChannelPool())) {
+            Request request = new RequestBuilder().setUrl(getTargetUrl()).build();
+            assertEquals(client.prewarm(request, 2).get(TIMEOUT, TimeUnit.SECONDS), Integer.valueOf(0));
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void minIdleConnectionsAreRefilled() throws Exception {
+        QueueChannelPool channelPool = new QueueChannelPool();
+        try (AsyncHttpClient client = newClient(channelPool)) {
+            Request request = new RequestBuilder().setUrl(getTargetUrl()).build();
+            client.setMinIdleConnections(request, 2);
+            awaitIdleCount(channelPool, 2);
+
+            channelPool.poll(null).close();
+            awaitIdleCount(channelPool, 2);
+
+            client.setMinIdleConnections(request, 0);
+            channelPool.poll(null).close();
+            Thread.sleep(2 * ConnectionPrewarmer.MIN_IDLE_CHECK_PERIOD);
+            assertEquals(channelPool.idleCount(null), 1);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void prewarmedConnectionsAreSpreadAcrossBalancedEndpoints() throws Exception {
+        InetSocketAddress endpoint1 = new InetSocketAddress("127.0.0.1", port1);
+        InetSocketAddress endpoint2 = new InetSocketAddress("127.0.0.2", port1);
+        QueueChannelPool channelPool = new QueueChannelPool();
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setChannelPool(channelPool);
+        advancedConfig.setEndpointSelector(new RoundRobinEndpointSelector());
+        advancedConfig.setEndpointProvider(new StaticEndpointProvider(Collections.singletonMap("127.0.0.1:" + port1, Arrays.asList(endpoint1, endpoint2))));
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build())) {
+            Request request = new RequestBuilder().setUrl(getTargetUrl()).build();
+            assertEquals(client.prewarm(request, 2).get(TIMEOUT, TimeUnit.SECONDS), Integer.valueOf(2));
+
+            Set<InetSocketAddress> endpoints = new HashSet<>();
+            for (Object partitionKey : channelPool.offeredPartitionKeys)
+                endpoints.add(EndpointPartitionKey.class.cast(partitionKey).getEndpoint());
+            assertEquals(endpoints, new HashSet<>(Arrays.asList(endpoint1, endpoint2)));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import static org.asynchttpclient.util.DateUtils.millisTime;
+import static org.testng.Assert.*;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+public class PendingAcquireTest {
+
+    private static class NoopPendingAcquire extends PendingAcquire {
+
+        NoopPendingAcquire() {
+            super("partition");
+        }
+
+        @Override
+        protected boolean isAbandoned() {
+            return false;
+        }
+
+        @Override
+        protected void onAcquirable(long queueTime) {
+        }
+
+        @Override
+        protected void onTimeout(long queueTime) {
+        }
+    }
+
+    @Test(groups = "fast")
+    public void requeuedPendingAcquireKeepsItsOriginalDeadline() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        try {
+            final PendingAcquire pendingAcquire = new NoopPendingAcquire();
+            final CountDownLatch expired = new CountDownLatch(1);
+            long start = millisTime();
+            pendingAcquire.scheduleTimeout(timer, 1000, new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    if (pendingAcquire.dequeue())
+                        expired.countDown();
+                }
+            });
+
+            Thread.sleep(600);
+            // dispatched, then lost the race for the permit
+            assertTrue(pendingAcquire.dequeue());
+            pendingAcquire.requeue();
+            pendingAcquire.rescheduleTimeout();
+            assertEquals(pendingAcquire.getRequeues(), 1);
+
+            assertTrue(expired.await(5, TimeUnit.SECONDS));
+            long elapsed = millisTime() - start;
+            assertTrue(elapsed < 1500, "Requeued pending acquire expired after " + elapsed + " ms instead of about 1000 ms");
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void dispatchedPendingAcquireDoesntExpire() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        try {
+            final PendingAcquire pendingAcquire = new NoopPendingAcquire();
+            final CountDownLatch expired = new CountDownLatch(1);
+            pendingAcquire.scheduleTimeout(timer, 100, new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    expired.countDown();
+                }
+            });
+
+            assertTrue(pendingAcquire.dequeue());
+            assertFalse(pendingAcquire.dequeue());
+            assertFalse(expired.await(300, TimeUnit.MILLISECONDS));
+        } finally {
+            timer.stop();
+        }
+    }
+}
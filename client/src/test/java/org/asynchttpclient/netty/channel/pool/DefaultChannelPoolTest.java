@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel.pool;
+
+import static org.testng.Assert.*;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class DefaultChannelPoolTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer();
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test(groups = "fast")
+    public void idleCountFollowsOffersAndPolls() {
+        DefaultChannelPool pool = new DefaultChannelPool(new AsyncHttpClientConfig.Builder().build(), timer);
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+
+        assertEquals(pool.idleCount("key"), 0);
+        pool.offer(first, "key");
+        pool.offer(second, "key");
+        assertEquals(pool.idleCount("key"), 2);
+        assertEquals(pool.idleCount("other"), 0);
+
+        assertNotNull(pool.poll("key"));
+        assertEquals(pool.idleCount("key"), 1);
+        assertNotNull(pool.poll("key"));
+        assertNull(pool.poll("key"));
+        assertEquals(pool.idleCount("key"), 0);
+        pool.destroy();
+    }
+}
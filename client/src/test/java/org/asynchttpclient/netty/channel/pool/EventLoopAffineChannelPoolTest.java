@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel.pool;
+
+import static org.testng.Assert.*;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+
+import java.util.concurrent.Callable;
+
+import org.asynchttpclient.netty.channel.EventLoops;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class EventLoopAffineChannelPoolTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer();
+    private final NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(2);
+    private final EventLoop[] eventLoops = EventLoops.eventLoops(eventLoopGroup);
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        timer.stop();
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    private EventLoopAffineChannelPool newPool() {
+        return new EventLoopAffineChannelPool(new LifoChannelPool(-1, -1, true, timer), eventLoopGroup);
+    }
+
+    private static Channel newChannel(final EventLoop eventLoop) {
+        // only the event loop the channel reports matters for sharding
+        return new EmbeddedChannel() {
+            @Override
+            public EventLoop eventLoop() {
+                return eventLoop;
+            }
+        };
+    }
+
+    private static Channel pollFrom(EventLoop eventLoop, final ChannelPool pool) throws Exception {
+        return eventLoop.submit(new Callable<Channel>() {
+            @Override
+            public Channel call() {
+                return pool.poll("key");
+            }
+        }).get();
+    }
+
+    @Test(groups = "fast")
+    public void pollPrefersTheShardOfTheCallingEventLoop() throws Exception {
+        EventLoopAffineChannelPool pool = newPool();
+        Channel first = newChannel(eventLoops[0]);
+        Channel second = newChannel(eventLoops[1]);
+        pool.offer(first, "key");
+        pool.offer(second, "key");
+
+        assertEquals(pool.idleCount("key"), 2);
+        assertSame(pollFrom(eventLoops[1], pool), second);
+        assertSame(pollFrom(eventLoops[0], pool), first);
+    }
+
+    @Test(groups = "fast")
+    public void pollStealsFromOtherShards() throws Exception {
+        EventLoopAffineChannelPool pool = newPool();
+        Channel channel = newChannel(eventLoops[0]);
+        pool.offer(channel, "key");
+
+        assertSame(pollFrom(eventLoops[1], pool), channel);
+        assertNull(pollFrom(eventLoops[1], pool));
+    }
+
+    @Test(groups = "fast")
+    public void pollFromOutsideTheEventLoopsRotatesTheFirstShard() {
+        EventLoopAffineChannelPool pool = newPool();
+        for (int i = 0; i < 2; i++) {
+            pool.offer(newChannel(eventLoops[0]), "key");
+            pool.offer(newChannel(eventLoops[1]), "key");
+        }
+
+        EventLoop firstShard = pool.poll("key").eventLoop();
+        EventLoop secondShard = pool.poll("key").eventLoop();
+        assertNotSame(firstShard, secondShard);
+    }
+}
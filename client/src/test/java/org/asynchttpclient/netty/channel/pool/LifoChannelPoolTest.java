@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel.pool;
+
+import static org.testng.Assert.*;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class LifoChannelPoolTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer();
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        timer.stop();
+    }
+
+    private LifoChannelPool newPool() {
+        return new LifoChannelPool(-1, -1, true, timer);
+    }
+
+    @Test(groups = "fast")
+    public void pollReturnsMostRecentlyOfferedChannel() {
+        LifoChannelPool pool = newPool();
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+
+        assertTrue(pool.offer(first, "key"));
+        assertTrue(pool.offer(second, "key"));
+
+        assertSame(pool.poll("key"), second);
+        assertSame(pool.poll("key"), first);
+        assertNull(pool.poll("key"));
+    }
+
+    @Test(groups = "fast")
+    public void removedChannelIsNotPolled() {
+        LifoChannelPool pool = newPool();
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+        pool.offer(first, "key");
+        pool.offer(second, "key");
+
+        assertTrue(pool.removeAll(second));
+        assertFalse(pool.removeAll(second));
+
+        assertSame(pool.poll("key"), first);
+        assertNull(pool.poll("key"));
+    }
+
+    @Test(groups = "fast")
+    public void polledChannelCanBeOfferedAgain() {
+        LifoChannelPool pool = newPool();
+        Channel channel = new EmbeddedChannel();
+
+        pool.offer(channel, "key");
+        assertSame(pool.poll("key"), channel);
+        assertFalse(pool.removeAll(channel));
+
+        pool.offer(channel, "key");
+        assertSame(pool.poll("key"), channel);
+    }
+
+    @Test(groups = "fast")
+    public void closedChannelIsSkipped() {
+        LifoChannelPool pool = newPool();
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+        pool.offer(first, "key");
+        pool.offer(second, "key");
+
+        second.close();
+
+        assertSame(pool.poll("key"), first);
+    }
+
+    @Test(groups = "fast")
+    public void partitionsAreIsolated() {
+        LifoChannelPool pool = newPool();
+        Channel channel = new EmbeddedChannel();
+        pool.offer(channel, "key1");
+
+        assertNull(pool.poll("key2"));
+        pool.flushPartition("key1");
+        assertNull(pool.poll("key1"));
+        assertFalse(channel.isActive());
+    }
+
+    @Test(groups = "fast")
+    public void destroyClosesIdleChannels() {
+        LifoChannelPool pool = newPool();
+        Channel channel = new EmbeddedChannel();
+        pool.offer(channel, "key");
+
+        pool.destroy();
+
+        assertFalse(pool.isOpen());
+        assertFalse(channel.isActive());
+        assertFalse(pool.offer(new EmbeddedChannel(), "key"));
+    }
+
+    /**
+     * Runs the scheduled tasks on demand.
+     */
+    private static final class ManualTimer implements Timer {
+
+        private final List<Timeout> timeouts = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+
+        @Override
+        public Timeout newTimeout(final TimerTask task, long delay, TimeUnit unit) {
+            Timeout timeout = new Timeout() {
+                @Override
+                public Timer timer() {
+                    return ManualTimer.this;
+                }
+
+                @Override
+                public TimerTask task() {
+                    return task;
+                }
+
+                @Override
+                public boolean isExpired() {
+                    return false;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+
+                @Override
+                public boolean cancel() {
+                    return false;
+                }
+            };
+            timeouts.add(timeout);
+            delays.add(unit.toMillis(delay));
+            return timeout;
+        }
+
+        void runNext() throws Exception {
+            Timeout timeout = timeouts.remove(0);
+            delays.remove(0);
+            timeout.task().run(timeout);
+        }
+
+        @Override
+        public Set<Timeout> stop() {
+            return null;
+        }
+    }
+
+    @Test(groups = "fast")
+    public void removedChannelsAreSweptWithoutIdleTimeoutNorTTL() throws Exception {
+        ManualTimer manualTimer = new ManualTimer();
+        LifoChannelPool pool = new LifoChannelPool(-1, -1, true, manualTimer);
+        assertEquals(manualTimer.delays.size(), 1);
+        assertEquals(manualTimer.delays.get(0), Long.valueOf(LifoChannelPool.DEFAULT_CLEANER_PERIOD));
+
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+        Channel third = new EmbeddedChannel();
+        pool.offer(first, "key");
+        pool.offer(second, "key");
+        pool.offer(third, "key");
+        assertTrue(pool.removeAll(first));
+        assertTrue(pool.removeAll(second));
+
+        manualTimer.runNext();
+        assertEquals(manualTimer.delays.size(), 1, "The sweep should be rescheduled");
+        assertEquals(pool.idleCount("key"), 1);
+        assertSame(pool.poll("key"), third);
+        assertNull(pool.poll("key"));
+    }
+}
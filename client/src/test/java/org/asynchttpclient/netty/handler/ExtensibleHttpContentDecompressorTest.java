@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.handler;
+
+import static org.testng.Assert.*;
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AdvancedConfig.ContentDecoderFactory;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class ExtensibleHttpContentDecompressorTest extends AbstractBasicTest {
+
+    // a stand-in for codecs such as br or zstd
+    private static final ContentDecoderFactory X_TEST_DECODER_FACTORY = new ContentDecoderFactory() {
+
+        @Override
+        public String getEncoding() {
+            return "x-test";
+        }
+
+        @Override
+        public ChannelHandler newDecoder() {
+            return ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP);
+        }
+    };
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setHeader("X-Accept-Encoding", request.getHeader("Accept-Encoding"));
+                response.setHeader("Content-Encoding", "x-test");
+                try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream())) {
+                    for (int i = 0; i < 1000; i++)
+                        out.write("decoded ".getBytes());
+                }
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testRegisteredDecoderDecodesResponse() throws Exception {
+        AdvancedConfig advancedConfig = new AdvancedConfig().addContentDecoderFactory(X_TEST_DECODER_FACTORY);
+        advancedConfig.setAcceptEncodings("x-test", "gzip");
+        AsyncHttpClientConfig config = new AsyncHttpClientConfig.Builder().setCompressionEnforced(true).setAdvancedConfig(advancedConfig).build();
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient(config)) {
+            Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getHeader("X-Accept-Encoding"), "x-test, gzip;q=0.9");
+            assertEquals(response.getResponseBody().length(), 8000);
+            assertTrue(response.getResponseBody().startsWith("decoded decoded"));
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testAcceptEncoding() {
+        assertEquals(ExtensibleHttpContentDecompressor.acceptEncoding(Arrays.asList("br", "gzip", "deflate"),
+                Collections.singletonMap("br", X_TEST_DECODER_FACTORY)), "br, gzip;q=0.9, deflate;q=0.8");
+    }
+
+    @Test(groups = "fast", expectedExceptions = IllegalArgumentException.class)
+    public void testAcceptEncodingWithoutDecoder() {
+        ExtensibleHttpContentDecompressor.acceptEncoding(Arrays.asList("zstd", "gzip"), Collections.<String, ContentDecoderFactory> emptyMap());
+    }
+}
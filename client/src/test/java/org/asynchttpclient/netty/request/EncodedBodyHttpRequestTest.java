@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpVersion;
+
+import org.asynchttpclient.netty.request.body.NettyStringBody;
+import org.testng.annotations.Test;
+
+public class EncodedBodyHttpRequestTest {
+
+    private static EncodedBodyHttpRequest request() {
+        return new EncodedBodyHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/", new NettyStringBody("héllo", UTF_8), true);
+    }
+
+    @Test(groups = "fast")
+    public void contentIsEncodedWithTheAllocatorOfTheChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestEncoder());
+        channel.config().setAllocator(new UnpooledByteBufAllocator(false));
+
+        EncodedBodyHttpRequest request = request();
+        request.encode(channel.alloc());
+        assertSame(request.content().alloc(), channel.alloc());
+        assertEquals(request.content().toString(UTF_8), "héllo");
+
+        assertTrue(channel.writeOutbound(request));
+        // released by the encoder once written
+        assertEquals(request.refCnt(), 0);
+        channel.finish();
+        for (Object out = channel.readOutbound(); out != null; out = channel.readOutbound())
+            ((ByteBuf) out).release();
+    }
+
+    @Test(groups = "fast")
+    public void contentReadBeforeBeingWrittenIsUnpooled() {
+        EncodedBodyHttpRequest request = request();
+        ByteBuf content = request.content();
+        assertFalse(content.alloc().isDirectBufferPooled());
+        assertEquals(content.toString(UTF_8), "héllo");
+
+        // already encoded
+        request.encode(new UnpooledByteBufAllocator(true));
+        assertSame(request.content(), content);
+        assertTrue(request.release());
+    }
+}
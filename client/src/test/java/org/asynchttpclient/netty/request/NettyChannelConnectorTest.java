@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import static org.testng.Assert.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+import org.asynchttpclient.channel.NameResolution;
+import org.asynchttpclient.channel.NameResolver;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class NettyChannelConnectorTest {
+
+    private static final InetAddress FIRST = address(1);
+    private static final InetAddress SECOND = address(2);
+
+    private final NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    private static InetAddress address(int last) {
+        try {
+            return InetAddress.getByAddress(new byte[] { 127, 0, 0, (byte) last });
+        } catch (UnknownHostException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class RecordingConnectListener implements NettyChannelConnector.ConnectListener {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicReference<ChannelFuture> connected = new AtomicReference<>();
+        private final AtomicReference<Throwable> resolutionFailure = new AtomicReference<>();
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            connected.set(future);
+            latch.countDown();
+        }
+
+        @Override
+        public void onResolutionFailure(Throwable cause) {
+            resolutionFailure.set(cause);
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static Request request(int port, final NameResolution... resolutions) {
+        return new RequestBuilder().setUrl("http://foo.com:" + port + "/").setNameResolver(new NameResolver() {
+            @Override
+            public NameResolution[] resolve(String name) {
+                return resolutions;
+            }
+        }).build();
+    }
+
+    @Test(groups = "fast")
+    public void emptyResolutionFailsWithUnknownHost() throws Exception {
+        RecordingConnectListener listener = new RecordingConnectListener();
+        new NettyChannelConnector(request(80), null, null).connect(new Bootstrap(), listener);
+
+        listener.await();
+        assertNull(listener.connected.get());
+        assertTrue(listener.resolutionFailure.get() instanceof UnknownHostException);
+    }
+
+    /**
+     * @param delayedAddress connects to this address are held back for a while, so that the other attempts win the race
+     * @param channels collects every channel the bootstrap creates
+     */
+    private Bootstrap bootstrap(final InetAddress delayedAddress, final List<Channel> channels) {
+        return new Bootstrap().group(eventLoopGroup).channel(NioSocketChannel.class).handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                channels.add(channel);
+                channel.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void connect(final ChannelHandlerContext ctx, final SocketAddress remoteAddress, final SocketAddress localAddress,
+                            final ChannelPromise promise) {
+                        if (InetSocketAddress.class.cast(remoteAddress).getAddress().equals(delayedAddress))
+                            ctx.executor().schedule(new Runnable() {
+                                @Override
+                                public void run() {
+                                    ctx.connect(remoteAddress, localAddress, promise);
+                                }
+                            }, 500, TimeUnit.MILLISECONDS);
+                        else
+                            ctx.connect(remoteAddress, localAddress, promise);
+                    }
+                });
+            }
+        });
+    }
+
+    @Test(groups = "standalone")
+    public void firstSuccessfulAttemptWinsAndLosersAreClosed() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            List<Channel> channels = new CopyOnWriteArrayList<>();
+            RecordingConnectListener listener = new RecordingConnectListener();
+            Request request = request(server.getLocalPort(), new NameResolution(FIRST), new NameResolution(SECOND));
+            new NettyChannelConnector(request, null, null, null, 50).connect(bootstrap(FIRST, channels), listener);
+
+            listener.await();
+            ChannelFuture winner = listener.connected.get();
+            assertTrue(winner.isSuccess());
+            assertEquals(InetSocketAddress.class.cast(winner.channel().remoteAddress()).getAddress(), SECOND);
+
+            assertEquals(channels.size(), 2);
+            for (Channel channel : channels)
+                if (channel != winner.channel())
+                    assertTrue(channel.closeFuture().await(5, TimeUnit.SECONDS), "Losing attempt should be closed");
+            winner.channel().close();
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void failureIsReportedOnceAllAttemptsFailed() throws Exception {
+        int port;
+        try (ServerSocket server = new ServerSocket(0)) {
+            port = server.getLocalPort();
+        }
+
+        List<Channel> channels = new CopyOnWriteArrayList<>();
+        RecordingConnectListener listener = new RecordingConnectListener();
+        Request request = request(port, new NameResolution(FIRST), new NameResolution(SECOND));
+        new NettyChannelConnector(request, null, null, null, 50).connect(bootstrap(null, channels), listener);
+
+        listener.await();
+        assertFalse(listener.connected.get().isSuccess());
+        assertEquals(channels.size(), 2);
+    }
+}
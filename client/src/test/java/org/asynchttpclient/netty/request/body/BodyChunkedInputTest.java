@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.io.ByteArrayInputStream;
+
+import org.asynchttpclient.request.body.generator.InputStreamBodyGenerator;
+import org.testng.annotations.Test;
+
+public class BodyChunkedInputTest {
+
+    @Test(groups = "fast")
+    public void chunksGrowWhileTheBodyFillsThem() throws Exception {
+        byte[] bytes = new byte[300 * 1024];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) i;
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = channel.pipeline().firstContext();
+        BodyChunkedInput input = new BodyChunkedInput(new InputStreamBodyGenerator(new ByteArrayInputStream(bytes)).createBody());
+
+        int offset = 0;
+        int previousSize = 0;
+        ByteBuf chunk;
+        while ((chunk = input.readChunk(ctx)) != null) {
+            assertTrue(chunk.readableBytes() >= previousSize || offset + chunk.readableBytes() == bytes.length);
+            previousSize = chunk.readableBytes();
+            for (int i = 0; i < chunk.readableBytes(); i++)
+                assertEquals(chunk.getByte(chunk.readerIndex() + i), bytes[offset + i]);
+            offset += chunk.readableBytes();
+            chunk.release();
+        }
+        assertEquals(offset, bytes.length);
+        assertTrue(input.isEndOfInput());
+        assertEquals(input.getChunkSize(), BodyChunkedInput.MAX_CHUNK_SIZE);
+        input.close();
+        channel.finish();
+    }
+
+    @Test(groups = "fast")
+    public void chunksShrinkOnSmallReadsAndUnwritableChannel() throws Exception {
+        BodyChunkedInput input = new BodyChunkedInput(new InputStreamBodyGenerator(new ByteArrayInputStream(new byte[0])).createBody());
+
+        input.adaptChunkSize(BodyChunkedInput.DEFAULT_CHUNK_SIZE, BodyChunkedInput.DEFAULT_CHUNK_SIZE, false);
+        assertEquals(input.getChunkSize(), BodyChunkedInput.DEFAULT_CHUNK_SIZE / 2);
+
+        input.adaptChunkSize(10, BodyChunkedInput.DEFAULT_CHUNK_SIZE / 2, true);
+        assertEquals(input.getChunkSize(), BodyChunkedInput.DEFAULT_CHUNK_SIZE / 4);
+
+        for (int i = 0; i < 10; i++)
+            input.adaptChunkSize(10, input.getChunkSize(), true);
+        assertEquals(input.getChunkSize(), BodyChunkedInput.MIN_CHUNK_SIZE);
+    }
+}
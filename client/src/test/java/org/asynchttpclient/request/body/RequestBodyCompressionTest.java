@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.asynchttpclient.test.TestUtils.createTempFile;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AdvancedConfig;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class RequestBodyCompressionTest extends AbstractBasicTest {
+
+    private static final byte[] DICTIONARY = "{\"name\":\"value\"}".getBytes(UTF_8);
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] deflated) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(deflated);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && inflater.needsDictionary())
+                    inflater.setDictionary(DICTIONARY);
+                out.write(buffer, 0, read);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                String contentEncoding = request.getHeader("Content-Encoding");
+                byte[] body = readAll(request.getInputStream());
+                if ("gzip".equals(contentEncoding))
+                    body = readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+                else if ("deflate".equals(contentEncoding))
+                    body = inflate(body);
+
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setHeader("X-Content-Encoding", contentEncoding);
+                response.setHeader("X-Content-Length", request.getHeader("Content-Length"));
+                response.getOutputStream().write(body);
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    private AsyncHttpClient newClient(RequestBodyCompression compression) {
+        AdvancedConfig advancedConfig = new AdvancedConfig();
+        advancedConfig.setRequestBodyCompression(compression);
+        return new DefaultAsyncHttpClient(new AsyncHttpClientConfig.Builder().setAdvancedConfig(advancedConfig).build());
+    }
+
+    private static String json(int count) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i++)
+            sb.append("{\"name\":\"value\"},");
+        return sb.append("{}]").toString();
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testKnownLengthBodyIsCompressed() throws Exception {
+        String body = json(1000);
+        try (AsyncHttpClient client = newClient(new RequestBodyCompression.Builder().build())) {
+            Response response = client.preparePost(getTargetUrl()).setBody(body).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getHeader("X-Content-Encoding"), "gzip");
+            assertTrue(Integer.parseInt(response.getHeader("X-Content-Length")) < body.length() / 10);
+            assertEquals(response.getResponseBody(), body);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testStreamedBodiesAreCompressed() throws Exception {
+        String body = json(1000);
+        File file = createTempFile(100 * 1024);
+        try (AsyncHttpClient client = newClient(new RequestBodyCompression.Builder().build())) {
+            Response response = client.preparePost(getTargetUrl()).setBody(new ByteArrayInputStream(body.getBytes(UTF_8))).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getHeader("X-Content-Encoding"), "gzip");
+            assertNull(response.getHeader("X-Content-Length"));
+            assertEquals(response.getResponseBody(), body);
+
+            response = client.preparePut(getTargetUrl()).setBody(file).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getHeader("X-Content-Encoding"), "gzip");
+            try (InputStream is = new FileInputStream(file)) {
+                assertEquals(response.getResponseBodyAsBytes(), readAll(is));
+            }
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testDictionaryAndMinSize() throws Exception {
+        RequestBodyCompression compression = new RequestBodyCompression.Builder().setMinSize(16).addDictionary("127.0.0.1", DICTIONARY).build();
+        try (AsyncHttpClient client = newClient(compression)) {
+            Response response = client.preparePost(getTargetUrl()).setBody(json(2)).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getHeader("X-Content-Encoding"), "deflate");
+            assertEquals(response.getResponseBody(), json(2));
+
+            response = client.preparePost(getTargetUrl()).setBody("{}").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertNull(response.getHeader("X-Content-Encoding"));
+            assertEquals(response.getResponseBody(), "{}");
+        }
+    }
+}
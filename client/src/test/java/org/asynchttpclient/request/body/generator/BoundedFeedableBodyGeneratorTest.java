@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body.generator;
+
+import static org.asynchttpclient.test.TestUtils.*;
+import static org.testng.Assert.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.request.body.Body;
+import org.asynchttpclient.request.body.Body.State;
+import org.testng.annotations.Test;
+
+public class BoundedFeedableBodyGeneratorTest extends AbstractBasicTest {
+
+    @Test(groups = "standalone")
+    public void feedAsyncCompletesOnceDrainedBelowLowWatermark() throws Exception {
+        BoundedFeedableBodyGenerator generator = new BoundedFeedableBodyGenerator(8);
+        Body body = generator.createBody();
+
+        assertTrue(generator.feedAsync(ByteBuffer.wrap(new byte[4]), false).isDone());
+        CompletableFuture<Void> demand = generator.feedAsync(ByteBuffer.wrap(new byte[4]), false);
+        assertFalse(demand.isDone());
+        assertFalse(generator.isReady());
+        assertEquals(generator.getBufferedBytes(), 8L);
+
+        // draining the first part reaches the low watermark
+        assertEquals(body.read(ByteBuffer.allocate(4)), State.Continue);
+        assertTrue(demand.isDone());
+        assertEquals(generator.getBufferedBytes(), 4L);
+
+        generator.feedAsync(ByteBuffer.allocate(0), true);
+        assertEquals(body.read(ByteBuffer.allocate(8)), State.Continue);
+        assertEquals(body.read(ByteBuffer.allocate(8)), State.Stop);
+        assertEquals(generator.getBufferedBytes(), 0L);
+    }
+
+    @Test(groups = "standalone")
+    public void closeFailsPendingDemands() throws Exception {
+        BoundedFeedableBodyGenerator generator = new BoundedFeedableBodyGenerator(4);
+        Body body = generator.createBody();
+
+        CompletableFuture<Void> demand = generator.feedAsync(ByteBuffer.wrap(new byte[4]), false);
+        body.close();
+
+        try {
+            demand.get();
+            fail("Pending demand should fail when the body is closed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertTrue(generator.feedAsync(ByteBuffer.wrap(new byte[1]), false).isCompletedExceptionally());
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void uploadIsFedAsTheBodyIsWritten() throws Exception {
+        BoundedFeedableBodyGenerator generator = new BoundedFeedableBodyGenerator(4096);
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient()) {
+            ListenableFuture<Response> responseFuture = client.preparePost(getTargetUrl()).setBody(generator).execute();
+
+            try (InputStream is = new FileInputStream(LARGE_IMAGE_FILE)) {
+                byte[] buffer = new byte[512];
+                for (int read; (read = is.read(buffer)) > -1;) {
+                    generator.feedAsync(ByteBuffer.wrap(Arrays.copyOf(buffer, read)), false).get(TIMEOUT, TimeUnit.SECONDS);
+                    assertTrue(generator.getBufferedBytes() <= 4096 + 512, "Buffered " + generator.getBufferedBytes() + " bytes");
+                }
+            }
+            generator.feedAsync(ByteBuffer.allocate(0), true);
+
+            Response response = responseFuture.get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getResponseBodyAsBytes(), LARGE_IMAGE_BYTES);
+        }
+    }
+}
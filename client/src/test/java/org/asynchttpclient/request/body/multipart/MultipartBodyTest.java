@@ -13,18 +13,22 @@
 package org.asynchttpclient.request.body.multipart;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.asynchttpclient.request.body.Body;
 import org.asynchttpclient.request.body.Body.State;
+import org.asynchttpclient.util.StringUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -47,6 +51,32 @@ public class MultipartBodyTest {
         compareContentLength(parts);
     }
 
+    @Test(groups = "fast")
+    public void testSegmentsMatchBody() throws IOException {
+        final List<Part> parts = new ArrayList<>();
+        parts.add(new StringPart("stringPart", "testString"));
+        parts.add(new FilePart("filePart", getTestfile()));
+        parts.add(new ByteArrayPart("baPart", "testMultiPart".getBytes(UTF_8), "application/test", UTF_8, "fileName"));
+        parts.add(new StringPart("otherStringPart", "otherTestString"));
+
+        HttpHeaders headers = new DefaultHttpHeaders().set(HttpHeaders.Names.CONTENT_TYPE, "multipart/form-data; boundary=fixedBoundary");
+        MultipartSegments segments = MultipartUtils.newMultipartSegments(parts, headers);
+        Assert.assertEquals(segments.getSegments().size(), 5);
+
+        ByteArrayOutputStream laidOut = new ByteArrayOutputStream();
+        for (MultipartSegments.Segment segment : segments.getSegments())
+            laidOut.write(segment.getFile() != null ? Files.readAllBytes(segment.getFile().toPath()) : segment.getBytes());
+
+        Body body = MultipartUtils.newMultipartBody(parts, headers);
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (body.read(buffer) != State.Stop)
+            ;
+        body.close();
+
+        Assert.assertEquals(segments.getContentLength(), body.getContentLength());
+        Assert.assertEquals(laidOut.toByteArray(), StringUtils.byteBuffer2ByteArray((ByteBuffer) buffer.flip()));
+    }
+
     private static File getTestfile() {
         final ClassLoader cl = MultipartBodyTest.class.getClassLoader();
         final URL url = cl.getResource("textfile.txt");
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class DefaultRetryPolicyTest extends AbstractBasicTest {
+
+    private static final String PARTITION = "http://localhost:80";
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                if (requests.incrementAndGet() == 1) {
+                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    response.addHeader("Retry-After", "0");
+                } else {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                }
+                response.getOutputStream().flush();
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    @Test(groups = "fast")
+    public void testBackoffWithFullJitter() {
+        DefaultRetryPolicy retryPolicy = new DefaultRetryPolicy.Builder().setBackoff(100, 1000).setBudget(0, 1).build();
+        for (int i = 0; i < 100; i++) {
+            long delay = retryPolicy.getRetryDelay(PARTITION, null, 2, new ConnectException());
+            assertTrue(delay >= 0 && delay <= 400, "Unexpected delay " + delay);
+            delay = retryPolicy.getRetryDelay(PARTITION, null, 10, new ConnectException());
+            assertTrue(delay >= 0 && delay <= 1000, "Unexpected delay " + delay);
+        }
+        assertEquals(retryPolicy.getRetryDelay(PARTITION, null, 0, new TimeoutException()), RetryPolicy.NO_RETRY);
+        assertTrue(retryPolicy.getRetryDelay(PARTITION, null, 0, new IOException("Connection reset by peer")) >= 0);
+    }
+
+    @Test(groups = "fast")
+    public void testBudgetIsPerPartition() {
+        final AtomicInteger exhausted = new AtomicInteger();
+        DefaultRetryPolicy retryPolicy = new DefaultRetryPolicy.Builder().setBudget(0.001, 2).build();
+        retryPolicy.addRetryListener(new DefaultRetryPolicy.RetryListener() {
+            @Override
+            public void onRetryScheduled(Object partitionKey, int retryCount, long delay) {
+            }
+
+            @Override
+            public void onRetryBudgetExhausted(Object partitionKey) {
+                exhausted.incrementAndGet();
+            }
+        });
+
+        assertTrue(retryPolicy.getRetryDelay(PARTITION, null, 0, new ConnectException()) >= 0);
+        assertTrue(retryPolicy.getRetryDelay(PARTITION, null, 0, new ConnectException()) >= 0);
+        assertEquals(retryPolicy.getRetryDelay(PARTITION, null, 0, new ConnectException()), RetryPolicy.NO_RETRY);
+        assertEquals(exhausted.get(), 1);
+        assertTrue(retryPolicy.getRetryDelay("http://other:80", null, 0, new ConnectException()) >= 0);
+    }
+
+    @Test(groups = "fast")
+    public void testParseRetryAfter() {
+        assertEquals(DefaultRetryPolicy.parseRetryAfter("120"), 120000);
+        assertEquals(DefaultRetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT"), 0);
+        assertEquals(DefaultRetryPolicy.parseRetryAfter("soon"), -1);
+        assertEquals(DefaultRetryPolicy.parseRetryAfter(null), -1);
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testRetriesServiceUnavailableWithRetryAfter() throws Exception {
+        requests.set(0);
+        final AtomicInteger scheduled = new AtomicInteger();
+        DefaultRetryPolicy retryPolicy = new DefaultRetryPolicy.Builder().build();
+        retryPolicy.addRetryListener(new DefaultRetryPolicy.RetryListener() {
+            @Override
+            public void onRetryScheduled(Object partitionKey, int retryCount, long delay) {
+                scheduled.incrementAndGet();
+            }
+
+            @Override
+            public void onRetryBudgetExhausted(Object partitionKey) {
+            }
+        });
+
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient()) {
+            Response response = client.prepareGet(getTargetUrl()).setRetryPolicy(retryPolicy).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(requests.get(), 2);
+            assertEquals(scheduled.get(), 1);
+        }
+    }
+
+    @Test(groups = { "standalone", "default_provider" })
+    public void testDoesntRetryServiceUnavailableWithStreamedBody() throws Exception {
+        requests.set(0);
+        try (AsyncHttpClient client = new DefaultAsyncHttpClient()) {
+            Response response = client.preparePost(getTargetUrl())//
+                    .setBody(new ByteArrayInputStream("foo".getBytes(UTF_8)))//
+                    .setRetryPolicy(new DefaultRetryPolicy())//
+                    .execute().get(TIMEOUT, TimeUnit.SECONDS);
+            // the stream was consumed by the first attempt
+            assertEquals(response.getStatusCode(), 503);
+            assertEquals(requests.get(), 1);
+        }
+    }
+}
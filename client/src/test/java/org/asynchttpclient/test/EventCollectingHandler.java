@@ -41,6 +41,8 @@ public class EventCollectingHandler extends AsyncCompletionHandlerBase implement
     public static final String CONNECTION_SUCCESS_EVENT = "ConnectionSuccess";
     public static final String CONNECTION_FAILURE_EVENT = "ConnectionFailure";
     public static final String SSL_HANDSHAKE_COMPLETED_EVENT = "SslHandshakeCompleted";
+    public static final String CONNECTION_QUEUED_EVENT = "ConnectionQueued";
+    public static final String CONNECTION_DEQUEUED_EVENT = "ConnectionDequeued";
     public static final String CONNECTION_POOL_EVENT = "ConnectionPool";
     public static final String CONNECTION_POOLED_EVENT = "ConnectionPooled";
     public static final String CONNECTION_OFFER_EVENT = "ConnectionOffer";
@@ -115,6 +117,16 @@ public class EventCollectingHandler extends AsyncCompletionHandlerBase implement
         firedEvents.add(SSL_HANDSHAKE_COMPLETED_EVENT);
     }
 
+    @Override
+    public void onConnectionQueued() {
+        firedEvents.add(CONNECTION_QUEUED_EVENT);
+    }
+
+    @Override
+    public void onConnectionDequeued(long queueTime) {
+        firedEvents.add(CONNECTION_DEQUEUED_EVENT);
+    }
+
     @Override
     public void onConnectionPool() {
         firedEvents.add(CONNECTION_POOL_EVENT);
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2015 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.util;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.testng.Assert.assertEquals;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.Charset;
+
+import org.testng.annotations.Test;
+
+public class StringUtilsTest {
+
+    @Test(groups = "fast")
+    public void encodeMatchesCharsetEncode() {
+        String[] inputs = { "", "plain ascii", "caf\u00e9 \u20ac", "\ud83d\ude00 pair", "lone \ud83d high", "lone \ude00 low" };
+        for (Charset charset : new Charset[] { UTF_8, ISO_8859_1, US_ASCII }) {
+            for (String input : inputs) {
+                ByteBuf buf = Unpooled.buffer();
+                StringUtils.encode(buf, input, charset);
+                assertEquals(StringUtils.byteBuffer2ByteArray(buf.nioBuffer()), StringUtils.charSequence2Bytes(input, charset), charset + " " + input);
+                assertEquals(StringUtils.encodedLength(input, charset), buf.readableBytes(), charset + " " + input);
+                buf.release();
+            }
+        }
+    }
+}
@@ -15,7 +15,10 @@
  */
 package org.asynchttpclient.util;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.testng.Assert.assertEquals;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import org.testng.annotations.Test;
 
@@ -26,4 +29,15 @@ public class TestUTF8UrlCodec {
         assertEquals(Utf8UrlEncoder.encodeQueryElement("a&b"), "a%26b");
         assertEquals(Utf8UrlEncoder.encodeQueryElement("a+b"), "a%2Bb");
     }
+
+    @Test(groups = "fast")
+    public void testByteBufEncodingMatchesStringBuilderEncoding() {
+        for (String input : new String[] { "foobar", "a&b c", "a+b", "\u00e9t\u00e9 \u20ac", "\ud83d\ude00/x" }) {
+            ByteBuf buf = Unpooled.buffer();
+            Utf8UrlEncoder.encodeAndWriteFormElement(buf, input);
+            assertEquals(buf.toString(US_ASCII), Utf8UrlEncoder.encodeAndAppendFormElement(new StringBuilder(), input).toString());
+            assertEquals(Utf8UrlEncoder.encodedFormElementLength(input), buf.readableBytes());
+            buf.release();
+        }
+    }
 }